@@ -1,7 +1,8 @@
 package jdepend.framework;
 
 import java.io.*;
-import java.util.*;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
  * The <code>AbstractParser</code> class is the base class 
@@ -14,8 +15,9 @@ import java.util.*;
 
 public abstract class AbstractParser {
 
-    private ArrayList parseListeners;
+    private final List<ParserListener> parseListeners;
     private PackageFilter filter;
+    private boolean skipFilteredClasses;
     public static boolean DEBUG = false;
 
 
@@ -25,9 +27,15 @@ public abstract class AbstractParser {
 
     public AbstractParser(PackageFilter filter) {
         setFilter(filter);
-        parseListeners = new ArrayList();
+        parseListeners = new CopyOnWriteArrayList<>();
     }
 
+    /**
+     * Registers the specified parser listener. Listeners may be registered
+     * while classes are parsed, by any thread.
+     *
+     * @param listener Parser listener.
+     */
     public void addParseListener(ParserListener listener) {
         parseListeners.add(listener);
     }
@@ -38,6 +46,22 @@ public abstract class AbstractParser {
      */
     public abstract JavaClass parse(InputStream is) throws IOException;
 
+    /**
+     * Parses the class file held by the specified bytes. Registered parser
+     * listeners are informed that the resulting <code>JavaClass</code> was
+     * parsed.
+     *
+     * @param b Class file bytes.
+     * @param off Offset of the class file.
+     * @param len Length of the class file.
+     * @return Parsed class, or <code>null</code> if it is skipped.
+     * @throws IOException If the bytes cannot be parsed.
+     * @since 2.11
+     */
+    public JavaClass parse(byte[] b, int off, int len) throws IOException {
+        return parse(new ByteArrayInputStream(b, off, len));
+    }
+
     /**
      * Informs registered parser listeners that the specified
      * <code>JavaClass</code> was parsed.
@@ -45,8 +69,8 @@ public abstract class AbstractParser {
      * @param jClass Parsed Java class.
      */
     protected void onParsedJavaClass(JavaClass jClass) {
-        for (Iterator i = parseListeners.iterator(); i.hasNext();) {
-            ((ParserListener) i.next()).onParsedJavaClass(jClass);
+        for (ParserListener listener : parseListeners) {
+            listener.onParsedJavaClass(jClass);
         }
     }
 
@@ -61,6 +85,38 @@ public abstract class AbstractParser {
         this.filter = filter;
     }
 
+    /**
+     * Determines whether a class of a package rejected by the filter is
+     * skipped as soon as its name is read, without parsing the rest of it.
+     * <code>parse</code> then returns <code>null</code> and the listeners
+     * are not informed.
+     *
+     * @param b <code>true</code> to skip filtered classes.
+     * @since 2.11
+     */
+    public void skipFilteredClasses(boolean b) {
+        skipFilteredClasses = b;
+    }
+
+    /**
+     * @return <code>true</code> if filtered classes are skipped.
+     * @since 2.11
+     */
+    public boolean isSkippingFilteredClasses() {
+        return skipFilteredClasses;
+    }
+
+    /**
+     * Indicates whether a class of the specified package is skipped.
+     *
+     * @param packageName Package name of the class.
+     * @return <code>true</code> if the class is skipped.
+     * @since 2.11
+     */
+    protected boolean isSkipped(String packageName) {
+        return skipFilteredClasses && !getFilter().accept(packageName);
+    }
+
     protected void debug(String message) {
         if (DEBUG) {
             System.err.println(message);
@@ -0,0 +1,81 @@
+package jdepend.framework;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * The JDK Flight Recorder events of an analysis. They are disabled unless
+ * a recording enables them, in which case an event costs little more
+ * than a check of its enablement.
+ *
+ * @since 2.11
+ */
+
+final class AnalysisEvents {
+
+    private AnalysisEvents() {
+    }
+
+    @Name("jdepend.FileScanned")
+    @Label("File Scanned")
+    @Description("A class file, archive or runtime image analyzed")
+    @Category("JDepend")
+    @StackTrace(false)
+    static class FileScanned extends Event {
+
+        @Label("Path")
+        String path;
+
+        @Label("Size")
+        @DataAmount
+        long size;
+    }
+
+    @Name("jdepend.ArchiveOpened")
+    @Label("Archive Opened")
+    @Description("An archive or runtime image opened and its index read")
+    @Category("JDepend")
+    @StackTrace(false)
+    static class ArchiveOpened extends Event {
+
+        @Label("Path")
+        String path;
+
+        @Label("Entries")
+        int entries;
+    }
+
+    @Name("jdepend.ClassParsed")
+    @Label("Class Parsed")
+    @Description("A class file parsed")
+    @Category("JDepend")
+    @StackTrace(false)
+    static class ClassParsed extends Event {
+
+        @Label("Location")
+        String location;
+
+        @Label("Class Name")
+        String className;
+
+        @Label("Size")
+        @DataAmount
+        long size;
+    }
+
+    @Name("jdepend.Phase")
+    @Label("Analysis Phase")
+    @Description("A phase of an analysis: build, graph or report")
+    @Category("JDepend")
+    @StackTrace(false)
+    static class Phase extends Event {
+
+        @Label("Name")
+        String name;
+    }
+}
@@ -0,0 +1,86 @@
+package jdepend.framework;
+
+/**
+ * The <code>AnalysisPhase</code> class measures a phase of an analysis,
+ * from its creation to its closing, as a timer of
+ * <code>AnalysisStats</code> and as a JDK Flight Recorder event.
+ * <p>
+ * <blockquote>
+ *
+ * <pre>
+ * AnalysisPhase phase = AnalysisPhase.begin(AnalysisPhase.REPORT, stats);
+ * try {
+ *     printReport();
+ * } finally {
+ *     phase.close();
+ * }
+ * </pre>
+ *
+ * </blockquote>
+ *
+ * @since 2.11
+ */
+
+public class AnalysisPhase implements AutoCloseable {
+
+    /**
+     * Reading and parsing the class files.
+     */
+    public static final String BUILD = "build";
+
+    /**
+     * Building the dependency graphs from the parsed classes.
+     */
+    public static final String GRAPH = "graph";
+
+    /**
+     * Rendering the report.
+     */
+    public static final String REPORT = "report";
+
+    private final String name;
+    private final AnalysisStats stats;
+    private final AnalysisEvents.Phase event;
+    private final long start;
+
+    private AnalysisPhase(String name, AnalysisStats stats) {
+        this.name = name;
+        this.stats = stats;
+        this.event = new AnalysisEvents.Phase();
+        this.event.begin();
+        this.start = stats != null ? System.nanoTime() : 0L;
+    }
+
+    /**
+     * Begins the specified phase.
+     *
+     * @param name Phase name.
+     * @param stats Statistics timing the phase, or <code>null</code>.
+     * @return Phase, to be closed when it ends.
+     */
+    public static AnalysisPhase begin(String name, AnalysisStats stats) {
+        return new AnalysisPhase(name, stats);
+    }
+
+    /**
+     * @return Phase name.
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Ends this phase.
+     */
+    public void close() {
+        if (stats != null) {
+            stats.addTime(AnalysisStats.PHASE_PREFIX + name,
+                    System.nanoTime() - start);
+        }
+        event.end();
+        if (event.shouldCommit()) {
+            event.name = name;
+            event.commit();
+        }
+    }
+}
@@ -0,0 +1,214 @@
+package jdepend.framework;
+
+import java.io.PrintWriter;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The <code>AnalysisStats</code> class collects the counters and timers
+ * of analyses, telling where the time of a slow analysis goes: reading
+ * and inflating class files, parsing them, building the graphs or
+ * rendering the report.
+ * <p>
+ * An analysis only measures itself when it is given an instance, so
+ * nothing is measured by default. An instance may be shared by analyses
+ * running in several threads, such as the projects of a batch analysis,
+ * to collect their totals.
+ * <p>
+ * The same measures are recorded as JDK Flight Recorder events, in the
+ * <code>JDepend</code> category, when a recording enables them.
+ *
+ * @since 2.11
+ */
+
+public class AnalysisStats {
+
+    /**
+     * Counter of the files and directories analyzed.
+     */
+    public static final String FILES_SCANNED = "files.scanned";
+
+    /**
+     * Counter of the jar, war, zip, jmod and runtime image files opened.
+     */
+    public static final String ARCHIVES_OPENED = "archives.opened";
+
+    /**
+     * Counter of the class files parsed.
+     */
+    public static final String CLASSES_PARSED = "classes.parsed";
+
+    /**
+     * Counter of the bytes of the class files parsed.
+     */
+    public static final String CLASS_BYTES = "classes.bytes";
+
+    /**
+     * Counter of the class files skipped for the package of their path.
+     */
+    public static final String CLASSES_FILTERED = "classes.filtered";
+
+    /**
+     * Counter of the class files skipped for a content found before.
+     */
+    public static final String CLASSES_DUPLICATE = "classes.duplicate";
+
+    /**
+     * Timer of the opening of archives, including their index.
+     */
+    public static final String OPEN_TIME = "open";
+
+    /**
+     * Timer of the reading of class files, including their inflation.
+     */
+    public static final String READ_TIME = "read";
+
+    /**
+     * Timer of the parsing of class files.
+     */
+    public static final String PARSE_TIME = "parse";
+
+    /**
+     * Prefix of the timers of the phases of an analysis.
+     */
+    public static final String PHASE_PREFIX = "phase.";
+
+    private final ConcurrentMap<String, LongAdder> counters =
+        new ConcurrentHashMap<>();
+
+    private final ConcurrentMap<String, Timer> timers =
+        new ConcurrentHashMap<>();
+
+    /**
+     * Adds one to the specified counter.
+     *
+     * @param counter Counter name.
+     */
+    public void increment(String counter) {
+        add(counter, 1);
+    }
+
+    /**
+     * Adds the specified amount to the specified counter.
+     *
+     * @param counter Counter name.
+     * @param amount Amount.
+     */
+    public void add(String counter, long amount) {
+        LongAdder adder = counters.get(counter);
+        if (adder == null) {
+            adder = counters.computeIfAbsent(counter, name -> new LongAdder());
+        }
+        adder.add(amount);
+    }
+
+    /**
+     * Records a measure of the specified timer.
+     *
+     * @param timer Timer name.
+     * @param nanos Measured time, in nanoseconds.
+     */
+    public void addTime(String timer, long nanos) {
+        addTime(timer, 1, nanos);
+    }
+
+    /**
+     * Records several measures of the specified timer, such as those of
+     * the statistics of another process.
+     *
+     * @param timer Timer name.
+     * @param count Number of measures.
+     * @param nanos Total measured time, in nanoseconds.
+     */
+    public void addTime(String timer, long count, long nanos) {
+        Timer t = timers.get(timer);
+        if (t == null) {
+            t = timers.computeIfAbsent(timer, name -> new Timer());
+        }
+        t.count.add(count);
+        t.nanos.add(nanos);
+    }
+
+    /**
+     * @param counter Counter name.
+     * @return Value of the counter, 0 if it was never incremented.
+     */
+    public long getCount(String counter) {
+        LongAdder adder = counters.get(counter);
+        return adder == null ? 0 : adder.sum();
+    }
+
+    /**
+     * @param timer Timer name.
+     * @return Total time measured by the timer, in nanoseconds.
+     */
+    public long getTime(String timer) {
+        Timer t = timers.get(timer);
+        return t == null ? 0 : t.nanos.sum();
+    }
+
+    /**
+     * @param timer Timer name.
+     * @return Number of measures of the timer.
+     */
+    public long getTimeCount(String timer) {
+        Timer t = timers.get(timer);
+        return t == null ? 0 : t.count.sum();
+    }
+
+    /**
+     * @return Values of the counters, by name.
+     */
+    public SortedMap<String, Long> getCounters() {
+        SortedMap<String, Long> result = new TreeMap<>();
+        for (Map.Entry<String, LongAdder> entry : counters.entrySet()) {
+            result.put(entry.getKey(), entry.getValue().sum());
+        }
+        return result;
+    }
+
+    /**
+     * @return Total times of the timers, in nanoseconds, by name.
+     */
+    public SortedMap<String, Long> getTimes() {
+        SortedMap<String, Long> result = new TreeMap<>();
+        for (Map.Entry<String, Timer> entry : timers.entrySet()) {
+            result.put(entry.getKey(), entry.getValue().nanos.sum());
+        }
+        return result;
+    }
+
+    /**
+     * Prints the counters, then the timers with their number of measures
+     * and total time in milliseconds.
+     *
+     * @param out Writer.
+     */
+    public void print(PrintWriter out) {
+        for (Map.Entry<String, Long> entry : getCounters().entrySet()) {
+            out.println(String.format("%-20s %12d", entry.getKey(), entry.getValue()));
+        }
+        for (Map.Entry<String, Long> entry : getTimes().entrySet()) {
+            out.println(String.format("%-20s %12d x %10.1f ms", entry.getKey(),
+                    getTimeCount(entry.getKey()), entry.getValue() / 1e6));
+        }
+        out.flush();
+    }
+
+    /**
+     * Resets all counters and timers.
+     */
+    public void clear() {
+        counters.clear();
+        timers.clear();
+    }
+
+    private static class Timer {
+        final LongAdder count = new LongAdder();
+        final LongAdder nanos = new LongAdder();
+    }
+}
@@ -0,0 +1,449 @@
+package jdepend.framework;
+
+import java.io.*;
+import java.util.*;
+import java.util.function.BiPredicate;
+import java.util.regex.Pattern;
+
+/**
+ * The <code>ArchitectureRules</code> class checks the analyzed package
+ * dependencies against layering rules.
+ * <p>
+ * Rules are written in a small line-based language. A layer names a set of
+ * package patterns, and a rule allows or forbids the dependencies from one
+ * layer or pattern to another. A dependency is a violation if a
+ * <code>forbid</code> rule matches it and no <code>allow</code> rule does.
+ * <p>
+ * <blockquote>
+ *
+ * <pre>
+ * # web may only use the service layer and util
+ * layer web = com.xyz.web.*
+ * layer service = com.xyz.service.*
+ * layer persistence = com.xyz.dao.*, com.xyz.jdbc
+ *
+ * forbid web -> *
+ * allow web -> service
+ * allow web -> com.xyz.util.*
+ * forbid * -> sun.*
+ * </pre>
+ *
+ * </blockquote>
+ * <p>
+ * In a pattern, <code>*</code> matches any sequence of characters, and a
+ * pattern ending with <code>.*</code> also matches the package without
+ * that suffix, so <code>com.xyz.web.*</code> matches
+ * <code>com.xyz.web</code> and all of its subpackages. A rule side which
+ * is not the name of a layer is a pattern.
+ * <p>
+ * Checking compiles the layers into bitmasks over the package ids of a
+ * <code>PackageGraph</code>, so that the rules are evaluated in a single
+ * pass over its dependencies, whatever their number.
+ * <p>
+ * Example API use:
+ * <p>
+ * <blockquote>
+ *
+ * <pre>
+ * ArchitectureRules rules = ArchitectureRules.load(new File(&quot;rules.txt&quot;));
+ * List violations = jdepend.checkRules(rules);
+ * </pre>
+ *
+ * </blockquote>
+ * </p>
+ *
+ * @since 2.11
+ */
+public class ArchitectureRules {
+
+    private final Map<String, List<String>> layers;
+    private final List<Rule> rules;
+
+    public ArchitectureRules() {
+        layers = new LinkedHashMap<>();
+        rules = new ArrayList<>();
+    }
+
+    /**
+     * Loads the rules of the specified file.
+     *
+     * @param f Rule file.
+     * @return Rules.
+     * @throws IOException If the file cannot be read.
+     * @throws IllegalArgumentException If a line is malformed.
+     */
+    public static ArchitectureRules load(File f) throws IOException {
+        try (Reader reader = new InputStreamReader(new FileInputStream(f), "UTF-8")) {
+            return parse(reader);
+        }
+    }
+
+    /**
+     * Parses the rules read from the specified reader.
+     *
+     * @param reader Rule source.
+     * @return Rules.
+     * @throws IOException If the rules cannot be read.
+     * @throws IllegalArgumentException If a line is malformed.
+     */
+    public static ArchitectureRules parse(Reader reader) throws IOException {
+        ArchitectureRules result = new ArchitectureRules();
+        BufferedReader in = new BufferedReader(reader);
+
+        String line;
+        int lineNumber = 0;
+        while ((line = in.readLine()) != null) {
+            lineNumber++;
+            int comment = line.indexOf('#');
+            if (comment >= 0) {
+                line = line.substring(0, comment);
+            }
+            line = line.trim();
+            if (line.length() == 0) {
+                continue;
+            }
+
+            if (line.startsWith("layer ")) {
+                int equals = line.indexOf('=');
+                String name = equals < 0 ? "" : line.substring(6, equals).trim();
+                List<String> patterns = new ArrayList<>();
+                if (equals >= 0) {
+                    StringTokenizer st = new StringTokenizer(line.substring(equals + 1), ", \t");
+                    while (st.hasMoreTokens()) {
+                        patterns.add(st.nextToken());
+                    }
+                }
+                if (name.length() == 0 || name.indexOf(' ') >= 0 || patterns.isEmpty()) {
+                    throw new IllegalArgumentException(
+                            "Invalid layer at line " + lineNumber + ": " + line);
+                }
+                result.addLayer(name, patterns);
+            } else if (line.startsWith("allow ") || line.startsWith("forbid ")) {
+                boolean allow = line.startsWith("allow ");
+                String edge = line.substring(allow ? 6 : 7);
+                int arrow = edge.indexOf("->");
+                String from = arrow < 0 ? "" : edge.substring(0, arrow).trim();
+                String to = arrow < 0 ? "" : edge.substring(arrow + 2).trim();
+                if (from.length() == 0 || to.length() == 0
+                        || from.indexOf(' ') >= 0 || to.indexOf(' ') >= 0) {
+                    throw new IllegalArgumentException(
+                            "Invalid rule at line " + lineNumber + ": " + line);
+                }
+                if (allow) {
+                    result.allow(from, to);
+                } else {
+                    result.forbid(from, to);
+                }
+            } else {
+                throw new IllegalArgumentException(
+                        "Invalid line " + lineNumber + ": " + line);
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Defines a layer, or adds patterns to an existing layer.
+     *
+     * @param name Layer name.
+     * @param patterns Package patterns.
+     */
+    public void addLayer(String name, Collection<String> patterns) {
+        layers.computeIfAbsent(name, k -> new ArrayList<>()).addAll(patterns);
+    }
+
+    /**
+     * Allows the dependencies from <code>from</code> to <code>to</code>,
+     * each being a layer name or a package pattern.
+     */
+    public void allow(String from, String to) {
+        rules.add(new Rule(true, from, to));
+    }
+
+    /**
+     * Forbids the dependencies from <code>from</code> to <code>to</code>,
+     * each being a layer name or a package pattern.
+     */
+    public void forbid(String from, String to) {
+        rules.add(new Rule(false, from, to));
+    }
+
+    /**
+     * @return Number of rules.
+     */
+    public int getRuleCount() {
+        return rules.size();
+    }
+
+    /**
+     * Checks the dependencies of the specified graph of packages against
+     * the rules.
+     *
+     * @param graph Package graph.
+     * @return Violations, in name order of their packages.
+     */
+    public List<RuleViolation> check(PackageGraph graph) {
+        return check(graph, ArchitectureRules::importsPackage);
+    }
+
+    /**
+     * Checks the dependencies of the specified graph against the rules.
+     * The nodes of the graph may be packages, components or modules: the
+     * classes contributing a violation are the classes of its source node
+     * for which the specified predicate holds with the name of its target
+     * node.
+     *
+     * @param graph Graph of the checked nodes.
+     * @param dependsUpon Indicates whether a class depends upon the node
+     *        of a name.
+     * @return Violations, in name order of their nodes.
+     */
+    public List<RuleViolation> check(PackageGraph graph,
+            BiPredicate<JavaClass, String> dependsUpon) {
+        int n = graph.size();
+
+        //
+        // Every layer and every distinct pattern used by a rule is a group.
+        //
+        Map<String, Integer> groupIds = new HashMap<>();
+        List<List<String>> groups = new ArrayList<>();
+        int[] ruleFrom = new int[rules.size()];
+        int[] ruleTo = new int[rules.size()];
+        for (int r = 0; r < rules.size(); r++) {
+            ruleFrom[r] = groupOf(rules.get(r).from, groupIds, groups);
+            ruleTo[r] = groupOf(rules.get(r).to, groupIds, groups);
+        }
+
+        int words = (groups.size() + 63) >>> 6;
+        long[][] membership = new long[n][words];
+        int[][] memberGroups = match(graph, groups, membership);
+
+        long[][] forbidden = new long[groups.size()][];
+        long[][] allowed = new long[groups.size()][];
+        for (int r = 0; r < rules.size(); r++) {
+            long[][] rows = rules.get(r).allow ? allowed : forbidden;
+            if (rows[ruleFrom[r]] == null) {
+                rows[ruleFrom[r]] = new long[words];
+            }
+            rows[ruleFrom[r]][ruleTo[r] >>> 6] |= 1L << ruleTo[r];
+        }
+
+        List<RuleViolation> violations = new ArrayList<>();
+        long[] forbiddenTargets = new long[words];
+        long[] allowedTargets = new long[words];
+
+        for (int source = 0; source < n; source++) {
+            if (graph.getEfferentStart(source) == graph.getEfferentStart(source + 1)) {
+                continue;
+            }
+
+            boolean restricted = false;
+            Arrays.fill(forbiddenTargets, 0);
+            Arrays.fill(allowedTargets, 0);
+            for (int g : memberGroups[source]) {
+                if (forbidden[g] != null) {
+                    or(forbiddenTargets, forbidden[g]);
+                    restricted = true;
+                }
+                if (allowed[g] != null) {
+                    or(allowedTargets, allowed[g]);
+                }
+            }
+            if (!restricted) {
+                continue;
+            }
+
+            for (int e = graph.getEfferentStart(source); e < graph.getEfferentStart(source + 1); e++) {
+                long[] targetGroups = membership[graph.getEfferentTarget(e)];
+                if (intersects(forbiddenTargets, targetGroups)
+                        && !intersects(allowedTargets, targetGroups)) {
+                    violations.add(violation(graph, e, source,
+                            membership, ruleFrom, ruleTo, dependsUpon));
+                }
+            }
+        }
+
+        return violations;
+    }
+
+    private int groupOf(String side, Map<String, Integer> groupIds,
+            List<List<String>> groups) {
+        Integer id = groupIds.get(side);
+        if (id == null) {
+            id = groups.size();
+            groupIds.put(side, id);
+            List<String> patterns = layers.get(side);
+            groups.add(patterns != null ? patterns
+                    : Collections.singletonList(side));
+        }
+        return id;
+    }
+
+    /*
+     * Computes the groups of every package. Exact names and trailing
+     * wildcards are looked up by hash, so only patterns with an inner
+     * wildcard are matched one by one.
+     */
+    private int[][] match(PackageGraph graph, List<List<String>> groups,
+            long[][] membership) {
+        Map<String, List<Integer>> exact = new HashMap<>();
+        Map<String, List<Integer>> prefixes = new HashMap<>();
+        List<Pattern> others = new ArrayList<>();
+        List<Integer> otherGroups = new ArrayList<>();
+        int shortest = Integer.MAX_VALUE;
+        int longest = 0;
+
+        for (int g = 0; g < groups.size(); g++) {
+            for (String pattern : groups.get(g)) {
+                int star = pattern.indexOf('*');
+                if (star < 0) {
+                    exact.computeIfAbsent(pattern, k -> new ArrayList<>()).add(g);
+                } else if (star == pattern.length() - 1) {
+                    String prefix = pattern.substring(0, star);
+                    prefixes.computeIfAbsent(prefix, k -> new ArrayList<>()).add(g);
+                    shortest = Math.min(shortest, prefix.length());
+                    longest = Math.max(longest, prefix.length());
+                    if (prefix.endsWith(".")) {
+                        exact.computeIfAbsent(prefix.substring(0, star - 1),
+                                k -> new ArrayList<>()).add(g);
+                    }
+                } else {
+                    others.add(toRegex(pattern));
+                    otherGroups.add(g);
+                }
+            }
+        }
+
+        int[][] memberGroups = new int[graph.size()][];
+        for (int id = 0; id < graph.size(); id++) {
+            String name = graph.getName(id);
+            long[] bits = membership[id];
+
+            set(bits, exact.get(name));
+            for (int length = shortest; length <= Math.min(longest, name.length()); length++) {
+                set(bits, prefixes.get(name.substring(0, length)));
+            }
+            for (int i = 0; i < others.size(); i++) {
+                if (others.get(i).matcher(name).matches()) {
+                    bits[otherGroups.get(i) >>> 6] |= 1L << otherGroups.get(i);
+                }
+            }
+
+            int count = 0;
+            for (long word : bits) {
+                count += Long.bitCount(word);
+            }
+            int[] ids = new int[count];
+            count = 0;
+            for (int word = 0; word < bits.length; word++) {
+                long w = bits[word];
+                while (w != 0) {
+                    ids[count++] = (word << 6) + Long.numberOfTrailingZeros(w);
+                    w &= w - 1;
+                }
+            }
+            memberGroups[id] = ids;
+        }
+
+        return memberGroups;
+    }
+
+    private static Pattern toRegex(String pattern) {
+        StringBuffer regex = new StringBuffer();
+        StringTokenizer st = new StringTokenizer(pattern, "*", true);
+        while (st.hasMoreTokens()) {
+            String token = st.nextToken();
+            regex.append(token.equals("*") ? ".*" : Pattern.quote(token));
+        }
+        if (pattern.endsWith(".*")) {
+            regex.insert(0, "(?:").append(")|").append(
+                    Pattern.quote(pattern.substring(0, pattern.length() - 2)));
+        }
+        return Pattern.compile(regex.toString());
+    }
+
+    private static void set(long[] bits, List<Integer> groups) {
+        if (groups != null) {
+            for (int g : groups) {
+                bits[g >>> 6] |= 1L << g;
+            }
+        }
+    }
+
+    private static void or(long[] bits, long[] other) {
+        for (int i = 0; i < bits.length; i++) {
+            bits[i] |= other[i];
+        }
+    }
+
+    private static boolean intersects(long[] a, long[] b) {
+        for (int i = 0; i < a.length; i++) {
+            if ((a[i] & b[i]) != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean contains(long[] bits, int group) {
+        return (bits[group >>> 6] & (1L << group)) != 0;
+    }
+
+    /*
+     * Builds the violation of an edge, naming the first forbid rule which
+     * matches it and the classes of the source node that contribute it.
+     */
+    private RuleViolation violation(PackageGraph graph, int edge, int source,
+            long[][] membership, int[] ruleFrom, int[] ruleTo,
+            BiPredicate<JavaClass, String> dependsUpon) {
+        int target = graph.getEfferentTarget(edge);
+        Rule matched = null;
+        for (int r = 0; r < rules.size() && matched == null; r++) {
+            if (!rules.get(r).allow && contains(membership[source], ruleFrom[r])
+                    && contains(membership[target], ruleTo[r])) {
+                matched = rules.get(r);
+            }
+        }
+
+        JavaPackage from = graph.getPackage(source);
+        JavaPackage to = graph.getPackage(target);
+        List<JavaClass> classes = new ArrayList<>();
+        for (JavaClass jClass : from.getClasses()) {
+            if (dependsUpon.test(jClass, to.getName())) {
+                classes.add(jClass);
+            }
+        }
+        classes.sort(Comparator.comparing(JavaClass::getName));
+
+        return new RuleViolation(matched.toString(), from, to,
+                graph.getEfferentCount(edge), classes);
+    }
+
+    private static boolean importsPackage(JavaClass jClass, String packageName) {
+        ClassSummary summary = jClass.getSummary();
+        for (int i = 0; i < summary.getImportedPackageCount(); i++) {
+            if (summary.getImportedPackage(i).equals(packageName)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static class Rule {
+
+        final boolean allow;
+        final String from;
+        final String to;
+
+        Rule(boolean allow, String from, String to) {
+            this.allow = allow;
+            this.from = from;
+            this.to = to;
+        }
+
+        public String toString() {
+            return (allow ? "allow " : "forbid ") + from + " -> " + to;
+        }
+    }
+}
@@ -0,0 +1,220 @@
+package jdepend.framework;
+
+import java.io.*;
+import java.util.*;
+
+/**
+ * The <code>BatchManifest</code> class lists the projects analyzed together
+ * by a batch analysis.
+ * <p>
+ * A manifest is written in a small line-based language. A
+ * <code>project</code> line starts the description of a project, and the
+ * following lines give its class directories or archives, the packages it
+ * ignores, its components and its report file:
+ * <p>
+ * <blockquote>
+ *
+ * <pre>
+ * # the services share most of their libraries
+ * project orders
+ * directories orders/build/classes, lib/commons-lang.jar
+ * ignore java., javax.
+ * components com.xyz.orders
+ * report reports/orders.txt
+ *
+ * project billing
+ * directories billing/build/classes, lib/commons-lang.jar
+ * </pre>
+ *
+ * </blockquote>
+ * <p>
+ * Relative paths are resolved against the directory of the manifest. A
+ * project without a <code>report</code> line is reported to a file named
+ * after the project in that directory.
+ *
+ * @since 2.11
+ */
+public class BatchManifest {
+
+    private final List<Project> projects;
+
+    public BatchManifest() {
+        projects = new ArrayList<>();
+    }
+
+    /**
+     * Loads the manifest of the specified file.
+     *
+     * @param f Manifest file.
+     * @return Manifest.
+     * @throws IOException If the file cannot be read.
+     * @throws IllegalArgumentException If a line is malformed.
+     */
+    public static BatchManifest load(File f) throws IOException {
+        try (Reader reader = new InputStreamReader(new FileInputStream(f), "UTF-8")) {
+            return parse(reader, f.getAbsoluteFile().getParentFile());
+        }
+    }
+
+    /**
+     * Parses the manifest read from the specified reader.
+     *
+     * @param reader Manifest source.
+     * @param baseDirectory Directory relative paths are resolved against.
+     * @return Manifest.
+     * @throws IOException If the manifest cannot be read.
+     * @throws IllegalArgumentException If a line is malformed.
+     */
+    public static BatchManifest parse(Reader reader, File baseDirectory)
+            throws IOException {
+        BatchManifest result = new BatchManifest();
+        BufferedReader in = new BufferedReader(reader);
+        Set<String> names = new HashSet<>();
+        Project project = null;
+
+        String line;
+        int lineNumber = 0;
+        while ((line = in.readLine()) != null) {
+            lineNumber++;
+            int comment = line.indexOf('#');
+            if (comment >= 0) {
+                line = line.substring(0, comment);
+            }
+            line = line.trim();
+            if (line.length() == 0) {
+                continue;
+            }
+
+            int space = line.indexOf(' ');
+            String keyword = space < 0 ? line : line.substring(0, space);
+            String value = space < 0 ? "" : line.substring(space + 1).trim();
+
+            if (keyword.equals("project")) {
+                if (value.length() == 0 || value.indexOf(' ') >= 0
+                        || !names.add(value)) {
+                    throw new IllegalArgumentException(
+                            "Invalid project at line " + lineNumber + ": " + line);
+                }
+                project = new Project(value, baseDirectory);
+                result.projects.add(project);
+                continue;
+            }
+
+            if (project == null) {
+                throw new IllegalArgumentException(
+                        "Line " + lineNumber + " precedes the first project: " + line);
+            }
+            if (value.length() == 0) {
+                throw new IllegalArgumentException(
+                        "Missing value at line " + lineNumber + ": " + line);
+            }
+
+            if (keyword.equals("directories")) {
+                for (String path : split(value)) {
+                    project.directories.add(resolve(baseDirectory, path));
+                }
+            } else if (keyword.equals("ignore")) {
+                project.ignoredPackages.addAll(split(value));
+            } else if (keyword.equals("components")) {
+                project.components = value;
+            } else if (keyword.equals("report")) {
+                project.reportFile = resolve(baseDirectory, value);
+            } else {
+                throw new IllegalArgumentException(
+                        "Invalid line " + lineNumber + ": " + line);
+            }
+        }
+
+        for (Project p : result.projects) {
+            if (p.directories.isEmpty()) {
+                throw new IllegalArgumentException(
+                        "Project " + p.getName() + " has no directories");
+            }
+        }
+
+        return result;
+    }
+
+    private static List<String> split(String value) {
+        List<String> result = new ArrayList<>();
+        StringTokenizer st = new StringTokenizer(value, ",");
+        while (st.hasMoreTokens()) {
+            String token = st.nextToken().trim();
+            if (token.length() > 0) {
+                result.add(token);
+            }
+        }
+        return result;
+    }
+
+    private static File resolve(File baseDirectory, String path) {
+        File file = new File(path);
+        return file.isAbsolute() ? file : new File(baseDirectory, path);
+    }
+
+    /**
+     * @return Projects, in manifest order.
+     */
+    public List<Project> getProjects() {
+        return Collections.unmodifiableList(projects);
+    }
+
+    /**
+     * The <code>Project</code> class describes a project of a manifest.
+     */
+    public static class Project {
+
+        private final String name;
+        private final List<File> directories;
+        private final List<String> ignoredPackages;
+        private String components;
+        private File reportFile;
+        private final File baseDirectory;
+
+        Project(String name, File baseDirectory) {
+            this.name = name;
+            this.directories = new ArrayList<>();
+            this.ignoredPackages = new ArrayList<>();
+            this.baseDirectory = baseDirectory;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * @return Class directories and archives to analyze.
+         */
+        public List<File> getDirectories() {
+            return Collections.unmodifiableList(directories);
+        }
+
+        /**
+         * @return Package name prefixes ignored in addition to those of the
+         *         default package filter.
+         */
+        public List<String> getIgnoredPackages() {
+            return Collections.unmodifiableList(ignoredPackages);
+        }
+
+        /**
+         * @return Comma-separated components, or <code>null</code>.
+         */
+        public String getComponents() {
+            return components;
+        }
+
+        /**
+         * Returns the report file of this project.
+         *
+         * @param extension Extension of the default report file name.
+         * @return Report file.
+         */
+        public File getReportFile(String extension) {
+            if (reportFile != null) {
+                return reportFile;
+            }
+            return new File(baseDirectory, name + extension);
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package jdepend.framework;
+
+import java.util.List;
+
+/**
+ * The <code>BatchParserListener</code> interface defines a listener
+ * notified of the parsed classes in batches, and of the phases of an
+ * analysis, so that a listener such as a progress display is called per
+ * batch rather than per class.
+ * <p>
+ * Implementers of this interface register for notification using the
+ * <code>JDepend.addParseListener()</code> method, with the size and age
+ * of the batches.
+ *
+ * @since 2.11
+ */
+
+public interface BatchParserListener {
+
+    /**
+     * Called when a phase of an analysis starts.
+     *
+     * @param phase Phase name, one of those of <code>AnalysisPhase</code>.
+     */
+    public void onPhaseStarted(String phase);
+
+    /**
+     * Called with a batch of parsed classes, in parse order.
+     * <p>
+     * The list is only valid for the duration of the call.
+     *
+     * @param parsedClasses Parsed Java classes.
+     */
+    public void onParsedJavaClasses(List<JavaClass> parsedClasses);
+
+    /**
+     * Called when a phase of an analysis ends. The classes parsed during
+     * the phase were all delivered before.
+     *
+     * @param phase Phase name, one of those of <code>AnalysisPhase</code>.
+     */
+    public void onPhaseFinished(String phase);
+
+}
@@ -0,0 +1,106 @@
+package jdepend.framework;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The <code>BatchingParserListener</code> class collects the classes
+ * reported to a <code>ParserListener</code> into batches delivered to a
+ * <code>BatchParserListener</code>.
+ * <p>
+ * A batch is delivered when it holds the batch size, or when a class is
+ * parsed after the interval since the previous delivery elapsed, and the
+ * last one when the listener is flushed. Classes may be reported by
+ * several parsing threads: batches are then delivered one at a time, on
+ * the thread completing them, so the target need not be thread-safe but
+ * should return quickly.
+ *
+ * @since 2.11
+ */
+
+public class BatchingParserListener implements ParserListener {
+
+    private final BatchParserListener target;
+    private final int batchSize;
+    private final long intervalNanos;
+
+    private final List<JavaClass> batch;
+    private long lastDelivery;
+
+    /**
+     * Constructs a <code>BatchingParserListener</code> instance.
+     *
+     * @param target Listener the batches are delivered to.
+     * @param batchSize Maximum number of classes of a batch.
+     * @param intervalMillis Maximum time between two deliveries while
+     *        classes are parsed, in milliseconds; 0 to only deliver full
+     *        batches.
+     */
+    public BatchingParserListener(BatchParserListener target, int batchSize,
+            long intervalMillis) {
+        if (batchSize < 1 || intervalMillis < 0) {
+            throw new IllegalArgumentException("Invalid batch size "
+                    + batchSize + " or interval " + intervalMillis);
+        }
+        this.target = target;
+        this.batchSize = batchSize;
+        this.intervalNanos = TimeUnit.MILLISECONDS.toNanos(intervalMillis);
+        this.batch = new ArrayList<>(batchSize);
+        this.lastDelivery = System.nanoTime();
+    }
+
+    /**
+     * @return Listener the batches are delivered to.
+     */
+    public BatchParserListener getTarget() {
+        return target;
+    }
+
+    public synchronized void onParsedJavaClass(JavaClass parsedClass) {
+        batch.add(parsedClass);
+        if (batch.size() >= batchSize || (intervalNanos > 0
+                && System.nanoTime() - lastDelivery >= intervalNanos)) {
+            deliver();
+        }
+    }
+
+    /**
+     * Delivers the classes collected so far, if any.
+     */
+    public synchronized void flush() {
+        if (!batch.isEmpty()) {
+            deliver();
+        }
+    }
+
+    /**
+     * Informs the target that the specified phase starts.
+     *
+     * @param phase Phase name.
+     */
+    public synchronized void phaseStarted(String phase) {
+        flush();
+        target.onPhaseStarted(phase);
+    }
+
+    /**
+     * Delivers the classes collected so far, and informs the target that
+     * the specified phase ends.
+     *
+     * @param phase Phase name.
+     */
+    public synchronized void phaseFinished(String phase) {
+        flush();
+        target.onPhaseFinished(phase);
+    }
+
+    private void deliver() {
+        lastDelivery = System.nanoTime();
+        try {
+            target.onParsedJavaClasses(batch);
+        } finally {
+            batch.clear();
+        }
+    }
+}
@@ -0,0 +1,982 @@
+package jdepend.framework;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UTFDataFormatException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * The <code>ClassFileReader</code> class reads the dependencies of a Java
+ * class file in place, from its bytes, into a <code>ClassSummary</code>.
+ * <p>
+ * A reader keeps its buffer, constant pool tables, decoded characters,
+ * name cache and dependency tables from one class to the next, and only
+ * grows them, so that once warmed up reading a class allocates little
+ * more than its summary. Constant pool strings are only decoded when a
+ * dependency needs them, and the names found are interned in the symbol
+ * table of the parser. A reader is not thread-safe: a
+ * <code>ClassFileParser</code> keeps one per parsing thread.
+ * <p>
+ * The annotations of the class, of its fields, methods and record
+ * components, of their parameters and of the types they use, visible or
+ * not at runtime, and the default values of annotation elements, are
+ * only located while the class is read, and their references added from
+ * the ranges of their attributes once the constant pool classes are.
+ *
+ * @since 2.11
+ */
+
+class ClassFileReader {
+
+    /*
+     * Kinds of the attributes read. Those up to ANNOTATION_DEFAULT hold
+     * annotations.
+     */
+    private static final int OTHER = -1;
+    private static final int ANNOTATIONS = 0;
+    private static final int PARAMETER_ANNOTATIONS = 1;
+    private static final int TYPE_ANNOTATIONS = 2;
+    private static final int ANNOTATION_DEFAULT = 3;
+    private static final int CODE = 4;
+    private static final int RECORD = 5;
+    private static final int SOURCE_FILE = 6;
+
+    private static final byte[][] ATTRIBUTE_NAMES = {
+        ascii("RuntimeVisibleAnnotations"),
+        ascii("RuntimeInvisibleAnnotations"),
+        ascii("RuntimeVisibleParameterAnnotations"),
+        ascii("RuntimeInvisibleParameterAnnotations"),
+        ascii("RuntimeVisibleTypeAnnotations"),
+        ascii("RuntimeInvisibleTypeAnnotations"),
+        ascii("AnnotationDefault"),
+        ascii("Code"),
+        ascii("Record"),
+        ascii("SourceFile"),
+    };
+
+    private static final int[] ATTRIBUTE_KINDS = {
+        ANNOTATIONS,
+        ANNOTATIONS,
+        PARAMETER_ANNOTATIONS,
+        PARAMETER_ANNOTATIONS,
+        TYPE_ANNOTATIONS,
+        TYPE_ANNOTATIONS,
+        ANNOTATION_DEFAULT,
+        CODE,
+        RECORD,
+        SOURCE_FILE,
+    };
+
+    /*
+     * Cached names are dropped, rather than the cache grown, past this
+     * many names.
+     */
+    private static final int MAX_NAMES = 1 << 16;
+
+    private static final byte ACCEPTED = 1;
+    private static final byte REJECTED = 2;
+
+    private final ClassFileParser parser;
+    private final SymbolTable symbols;
+    private final int defaultPackage;
+    private final int unknownSource;
+
+    private byte[] buffer = new byte[8192];
+    private byte[] data;
+    private int pos;
+    private int limit;
+
+    private byte[] tags = new byte[512];
+    private int[] offsets = new int[512];
+    private int poolSize;
+
+    private char[] chars = new char[256];
+    private int nameStart;
+    private int nameEnd;
+
+    private String[] names = new String[4096];
+    private int[] nameIds = new int[4096];
+    private int nameCount;
+
+    private final CountTable dependencies = new CountTable();
+    private final CountTable imports = new CountTable();
+    private int packageName;
+
+    /*
+     * Start, end and kind of each annotation attribute located.
+     */
+    private int[] annotations = new int[24];
+    private int annotationCount;
+    private int annotationEnd;
+
+    private PackageFilter filter;
+    private int filterCount;
+    private byte[] accepted = new byte[1024];
+
+    private String fileName;
+    private ClassSummary lastSummary;
+
+    ClassFileReader(ClassFileParser parser, SymbolTable symbols) {
+        this.parser = parser;
+        this.symbols = symbols;
+        this.defaultPackage = symbols.intern("Default");
+        this.unknownSource = symbols.intern("Unknown");
+    }
+
+    /**
+     * Sets the name of the file reported in errors.
+     */
+    void setFileName(String fileName) {
+        this.fileName = fileName;
+    }
+
+    /**
+     * @return Table the names read are interned into.
+     */
+    SymbolTable getSymbols() {
+        return symbols;
+    }
+
+    /**
+     * @return Summary of the last class read, or <code>null</code>.
+     */
+    ClassSummary getLastSummary() {
+        return lastSummary;
+    }
+
+    /**
+     * Reads the class file held by the remaining bytes of the specified
+     * stream.
+     *
+     * @return Class summary, or <code>null</code> if the class is skipped.
+     */
+    ClassSummary read(InputStream is) throws IOException {
+        int length = 0;
+        int n;
+        while ((n = is.read(buffer, length, buffer.length - length)) != -1) {
+            length += n;
+            if (length == buffer.length) {
+                buffer = Arrays.copyOf(buffer, length * 2);
+            }
+        }
+        return read(buffer, 0, length);
+    }
+
+    /**
+     * Reads the class file held by the specified bytes.
+     *
+     * @return Class summary, or <code>null</code> if the class is skipped.
+     */
+    ClassSummary read(byte[] b, int off, int len) throws IOException {
+        data = b;
+        pos = off;
+        limit = off + len;
+        try {
+            return readClass();
+        } finally {
+            data = null;
+            dependencies.clear();
+            imports.clear();
+            annotationCount = 0;
+        }
+    }
+
+    private ClassSummary readClass() throws IOException {
+        if (u4() != ClassFileParser.JAVA_MAGIC) {
+            throw new IOException("Invalid class file: " + fileName);
+        }
+        skip(4); // minor and major versions
+
+        readConstantPool();
+        updateFilter();
+
+        int accessFlags = u2();
+        boolean isAbstract = (accessFlags
+                & (ClassFileParser.ACC_ABSTRACT | ClassFileParser.ACC_INTERFACE)) != 0;
+
+        int end = classConstantName(u2());
+        int className = intern(0, end);
+        packageName = locate(0, end) ? packageName() : -1;
+        String packageString = packageName < 0 ? null : symbols.getName(packageName);
+
+        if (AbstractParser.DEBUG) {
+            parser.debug("Parser: abstract = " + isAbstract);
+            parser.debug("Parser: class name = " + symbols.getName(className));
+            parser.debug("Parser: package name = " + packageString);
+        }
+
+        if (parser.isSkipped(packageString)) {
+            parser.debug("Parser: skipped filtered class " + symbols.getName(className));
+            return null;
+        }
+
+        // super class
+        addDependency(0, classConstantName(u2()));
+
+        int interfacesCount = u2();
+        for (int i = 0; i < interfacesCount; i++) {
+            addDependency(0, classConstantName(u2()));
+        }
+
+        readMembers(true);
+        readMembers(false);
+
+        int memberAnnotationCount = annotationCount;
+        int sourceFile = unknownSource;
+        int attributesCount = u2();
+        for (int i = 0; i < attributesCount; i++) {
+            int nameIndex = u2();
+            int length = u4();
+            int start = pos;
+            skip(length);
+            // Section 4.7.7 of VM Spec - Class File Format
+            int kind = attributeKind(nameIndex);
+            if (kind == SOURCE_FILE) {
+                end = decode(u2At(start, start + length), false);
+                sourceFile = intern(0, end);
+            } else {
+                readAttribute(kind, start, pos);
+            }
+        }
+
+        for (int i = 1; i < poolSize; i++) {
+            if (tags[i] == ClassFileParser.CONSTANT_CLASS) {
+                addDependency(0, decode(u2At(offsets[i], limit), true));
+            }
+        }
+
+        // class annotations first, then those of the fields and methods
+        for (int i = memberAnnotationCount; i < annotationCount; i += 3) {
+            addAnnotationReferences(annotations[i], annotations[i + 1],
+                    annotations[i + 2]);
+        }
+        for (int i = 0; i < memberAnnotationCount; i += 3) {
+            addAnnotationReferences(annotations[i], annotations[i + 1],
+                    annotations[i + 2]);
+        }
+
+        int[] dependencyIds = new int[dependencies.size()];
+        int[] referenceCounts = new int[dependencyIds.length];
+        dependencies.sort(dependencyIds, referenceCounts);
+        int[] importIds = new int[imports.size()];
+        imports.sort(importIds, null);
+
+        lastSummary = new ClassSummary(symbols, className, packageName,
+                sourceFile, isAbstract, dependencyIds, referenceCounts, importIds);
+        return lastSummary;
+    }
+
+    /*
+     * Records the tag and offset of each constant pool entry. 8-byte
+     * constants use two entries, the second of which is left empty.
+     */
+    private void readConstantPool() throws IOException {
+        poolSize = u2();
+        if (poolSize > tags.length) {
+            tags = new byte[Math.max(poolSize, tags.length * 2)];
+            offsets = new int[tags.length];
+        }
+
+        tags[0] = 0;
+        for (int i = 1; i < poolSize; i++) {
+            ensure(1);
+            byte tag = data[pos++];
+            tags[i] = tag;
+            offsets[i] = pos;
+
+            switch (tag) {
+
+            case ClassFileParser.CONSTANT_UTF8:
+                skip(u2());
+                break;
+            case ClassFileParser.CONSTANT_CLASS:
+            case ClassFileParser.CONSTANT_STRING:
+            case ClassFileParser.CONSTANT_METHOD_TYPE:
+            case ClassFileParser.CONSTANT_MODULE:
+            case ClassFileParser.CONSTANT_PACKAGE:
+                skip(2);
+                break;
+            case ClassFileParser.CONSTANT_METHOD_HANDLE:
+                skip(3);
+                break;
+            case ClassFileParser.CONSTANT_INTEGER:
+            case ClassFileParser.CONSTANT_FLOAT:
+            case ClassFileParser.CONSTANT_FIELD:
+            case ClassFileParser.CONSTANT_METHOD:
+            case ClassFileParser.CONSTANT_INTERFACEMETHOD:
+            case ClassFileParser.CONSTANT_NAMEANDTYPE:
+            case ClassFileParser.CONSTANT_DYNAMIC:
+            case ClassFileParser.CONSTANT_INVOKEDYNAMIC:
+                skip(4);
+                break;
+            case ClassFileParser.CONSTANT_LONG:
+            case ClassFileParser.CONSTANT_DOUBLE:
+                skip(8);
+                if (++i < poolSize) {
+                    tags[i] = 0;
+                }
+                break;
+            default:
+                throw new IOException("Unknown constant: " + tag);
+            }
+        }
+    }
+
+    /*
+     * Adds the types of the descriptors of the fields or methods, and
+     * records their annotations.
+     */
+    private void readMembers(boolean fields) throws IOException {
+        int count = u2();
+        for (int i = 0; i < count; i++) {
+            skip(4); // access flags and name
+            int end = decode(u2(), true);
+            addDescriptorTypes(end, fields);
+            readAttributes();
+        }
+    }
+
+    /*
+     * Records the annotations of the attributes at the current position.
+     */
+    private void readAttributes() throws IOException {
+        int attributesCount = u2();
+        for (int i = 0; i < attributesCount; i++) {
+            int nameIndex = u2();
+            int length = u4();
+            int start = pos;
+            skip(length);
+            readAttribute(attributeKind(nameIndex), start, pos);
+        }
+    }
+
+    /*
+     * Records the attribute held by data[start, end) if it holds
+     * annotations, or the annotations of the attributes of the code or
+     * record components it holds.
+     */
+    private void readAttribute(int kind, int start, int end) throws IOException {
+        if (kind == OTHER || kind == SOURCE_FILE) {
+            return;
+        }
+        if (kind <= ANNOTATION_DEFAULT) {
+            recordAnnotations(start, end, kind);
+            return;
+        }
+
+        int resume = pos;
+        int classLimit = limit;
+        pos = start;
+        limit = end;
+        try {
+            if (kind == CODE) {
+                // JVM Spec 4.7.3
+                skip(4); // max stack and locals
+                skip(u4()); // code
+                skip(u2() * 8); // exception table
+                readAttributes();
+            } else {
+                // JVM Spec 4.7.30
+                int count = u2();
+                for (int i = 0; i < count; i++) {
+                    skip(4); // name and descriptor
+                    readAttributes();
+                }
+            }
+        } finally {
+            pos = resume;
+            limit = classLimit;
+        }
+    }
+
+    /*
+     * Records an annotation attribute, whose references are added once
+     * the constant pool classes are.
+     */
+    private void recordAnnotations(int start, int end, int kind) {
+        if (annotationCount + 3 > annotations.length) {
+            annotations = Arrays.copyOf(annotations, annotations.length * 2);
+        }
+        annotations[annotationCount++] = start;
+        annotations[annotationCount++] = end;
+        annotations[annotationCount++] = kind;
+    }
+
+    /*
+     * Adds the class types of the descriptor decoded in chars[0, end).
+     * Empty types are added for fields only.
+     */
+    private void addDescriptorTypes(int end, boolean emptyTypes) {
+        int index = 0;
+        while (index < end) {
+            int start = indexOf(ClassFileParser.CLASS_DESCRIPTOR, index, end);
+            if (start < 0) {
+                break;
+            }
+            int semicolon = indexOf(';', start + 1, end);
+            if (semicolon < 0) {
+                break;
+            }
+            if (emptyTypes || semicolon > start + 1) {
+                addDependency(start + 1, semicolon);
+            }
+            index = semicolon + 1;
+        }
+    }
+
+    // JVM Spec 4.7.16 to 4.7.22
+    private void addAnnotationReferences(int start, int end, int kind) throws IOException {
+        annotationEnd = end;
+        switch (kind) {
+        case ANNOTATIONS:
+            addAnnotations(start + 2, u2At(start, end));
+            break;
+
+        case PARAMETER_ANNOTATIONS:
+            int numParameters = u1At(start, end);
+            int index = start + 1;
+            for (int p = 0; p < numParameters; p++) {
+                index = addAnnotations(index + 2, u2At(index, end));
+            }
+            break;
+
+        case TYPE_ANNOTATIONS:
+            int numAnnotations = u2At(start, end);
+            index = start + 2;
+            for (int a = 0; a < numAnnotations; a++) {
+                index = addAnnotations(skipTypeTarget(index), 1);
+            }
+            break;
+
+        case ANNOTATION_DEFAULT:
+            addElementValue(start);
+            break;
+        }
+    }
+
+    /*
+     * Skips the target and the type path of a type annotation.
+     *
+     * @return Index of the annotation.
+     */
+    private int skipTypeTarget(int index) throws IOException {
+        int targetType = u1At(index++, annotationEnd);
+        switch (targetType) {
+        case 0x00: // type parameter
+        case 0x01:
+        case 0x16: // formal parameter
+            index += 1;
+            break;
+        case 0x10: // supertype
+        case 0x11: // type parameter bound
+        case 0x12:
+        case 0x17: // throws
+        case 0x42: // catch
+        case 0x43: // offset
+        case 0x44:
+        case 0x45:
+        case 0x46:
+            index += 2;
+            break;
+        case 0x13: // empty
+        case 0x14:
+        case 0x15:
+            break;
+        case 0x40: // local variable
+        case 0x41:
+            index += 2 + u2At(index, annotationEnd) * 6;
+            break;
+        case 0x47: // type argument
+        case 0x48:
+        case 0x49:
+        case 0x4A:
+        case 0x4B:
+            index += 3;
+            break;
+        default:
+            throw new IOException("Unknown type annotation target: " + targetType);
+        }
+        return index + 1 + u1At(index, annotationEnd) * 2;
+    }
+
+    private int addAnnotations(int index, int numAnnotations) throws IOException {
+        for (int a = 0; a < numAnnotations; a++) {
+            int typeIndex = u2At(index, annotationEnd);
+            int numElementValuePairs = u2At(index + 2, annotationEnd);
+            addFieldType(typeIndex);
+            index += 4;
+            for (int p = 0; p < numElementValuePairs; p++) {
+                index = addElementValue(index + 2);
+            }
+        }
+        return index;
+    }
+
+    private int addElementValue(int index) throws IOException {
+        if (index >= annotationEnd) {
+            throw new EOFException();
+        }
+        byte tag = data[index++];
+        switch (tag) {
+        case 'B':
+        case 'C':
+        case 'D':
+        case 'F':
+        case 'I':
+        case 'J':
+        case 'S':
+        case 'Z':
+        case 's':
+            index += 2;
+            break;
+
+        case 'e':
+            addFieldType(u2At(index, annotationEnd));
+            index += 4;
+            break;
+
+        case 'c':
+            addFieldType(u2At(index, annotationEnd));
+            index += 2;
+            break;
+
+        case '@':
+            index = addAnnotations(index, 1);
+            break;
+
+        case '[':
+            int numValues = u2At(index, annotationEnd);
+            index += 2;
+            for (int i = 0; i < numValues; i++) {
+                index = addElementValue(index);
+            }
+            break;
+        }
+        return index;
+    }
+
+    /*
+     * Adds the class named by a field or return descriptor, or the class
+     * type of an array descriptor. Primitive types and void add none.
+     */
+    private void addFieldType(int utf8Index) throws IOException {
+        int end = decode(utf8Index, true);
+        if (end > 0 && chars[0] == ClassFileParser.CLASS_DESCRIPTOR) {
+            addDependency(1, end);
+        } else if (end > 0 && chars[0] == '[') {
+            addDependency(0, end);
+        }
+    }
+
+    /*
+     * Adds the class named by chars[start, end), and imports its package
+     * when the filter accepts it.
+     */
+    private void addDependency(int start, int end) {
+        if (!locate(start, end)) {
+            return;
+        }
+
+        int dependencyPackage = packageName();
+        if (!accept(dependencyPackage)) {
+            return;
+        }
+        if (dependencyPackage != packageName) {
+            imports.add(dependencyPackage);
+        }
+
+        int e = nameEnd;
+        if (e > nameStart && chars[e - 1] == ';') {
+            e--;
+        }
+        for (int i = nameStart; i < e; i++) {
+            if (!Character.isWhitespace(chars[i])) {
+                dependencies.add(intern(nameStart, e));
+                return;
+            }
+        }
+    }
+
+    /*
+     * Locates in chars[start, end) the name of a class, or of the first
+     * class type of an array descriptor.
+     *
+     * @return false for an array of primitives.
+     */
+    private boolean locate(int start, int end) {
+        if (start < end && chars[start] == '[') {
+            int type = indexOf(ClassFileParser.CLASS_DESCRIPTOR, start, end);
+            int semicolon = type < 0 ? -1 : indexOf(';', type + 1, end);
+            if (semicolon < 0) {
+                return false; // primitives
+            }
+            start = type + 1;
+            end = semicolon;
+        }
+        nameStart = start;
+        nameEnd = end;
+        return true;
+    }
+
+    /*
+     * Returns the package id of the located class.
+     */
+    private int packageName() {
+        for (int i = nameEnd - 1; i > nameStart; i--) {
+            if (chars[i] == '.') {
+                return intern(nameStart, i);
+            }
+        }
+        return defaultPackage;
+    }
+
+    private boolean accept(int packageId) {
+        if (packageId >= accepted.length) {
+            accepted = Arrays.copyOf(accepted, Math.max(packageId + 1,
+                    accepted.length * 2));
+        }
+        byte state = accepted[packageId];
+        if (state == 0) {
+            state = filter.accept(symbols.getName(packageId)) ? ACCEPTED : REJECTED;
+            accepted[packageId] = state;
+        }
+        return state == ACCEPTED;
+    }
+
+    /*
+     * Forgets the memoized filter decisions when the filter was replaced
+     * or packages were added to it.
+     */
+    private void updateFilter() {
+        PackageFilter current = parser.getFilter();
+        int count = current.getFilters().size();
+        if (current != filter || count != filterCount) {
+            Arrays.fill(accepted, (byte) 0);
+            filter = current;
+            filterCount = count;
+        }
+    }
+
+    private int indexOf(char c, int from, int end) {
+        for (int i = from; i < end; i++) {
+            if (chars[i] == c) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /*
+     * Decodes the name of the class constant at the specified index into
+     * chars, with dots for slashes; an empty entry decodes to an empty
+     * name.
+     *
+     * @return End of the name in chars.
+     */
+    private int classConstantName(int entryIndex) throws IOException {
+        checkIndex(entryIndex);
+        if (tags[entryIndex] == 0) {
+            return 0;
+        }
+        return decode(u2At(offsets[entryIndex], limit), true);
+    }
+
+    /*
+     * Decodes the modified UTF-8 constant at the specified index into
+     * chars, optionally replacing slashes with dots.
+     *
+     * @return End of the string in chars.
+     */
+    private int decode(int entryIndex, boolean dots) throws IOException {
+        int offset = utf8(entryIndex);
+        int length = u2At(offset, limit);
+        int index = offset + 2;
+        int end = index + length;
+        if (end > limit) {
+            throw new EOFException();
+        }
+        if (length > chars.length) {
+            chars = new char[Math.max(length, chars.length * 2)];
+        }
+
+        char[] c = chars;
+        byte[] b = data;
+        int n = 0;
+        while (index < end) {
+            int b0 = b[index] & 0xFF;
+            if (b0 < 0x80) {
+                c[n++] = dots && b0 == '/' ? '.' : (char) b0;
+                index++;
+            } else if ((b0 & 0xE0) == 0xC0) {
+                if (index + 2 > end || (b[index + 1] & 0xC0) != 0x80) {
+                    throw new UTFDataFormatException(
+                            "malformed input around byte " + (index - offset));
+                }
+                c[n++] = (char) (((b0 & 0x1F) << 6) | (b[index + 1] & 0x3F));
+                index += 2;
+            } else if ((b0 & 0xF0) == 0xE0) {
+                if (index + 3 > end || (b[index + 1] & 0xC0) != 0x80
+                        || (b[index + 2] & 0xC0) != 0x80) {
+                    throw new UTFDataFormatException(
+                            "malformed input around byte " + (index - offset));
+                }
+                c[n++] = (char) (((b0 & 0x0F) << 12)
+                        | ((b[index + 1] & 0x3F) << 6) | (b[index + 2] & 0x3F));
+                index += 3;
+            } else {
+                throw new UTFDataFormatException(
+                        "malformed input around byte " + (index - offset));
+            }
+        }
+        return n;
+    }
+
+    /*
+     * Returns the kind of the attribute named by the UTF8 constant at the
+     * specified index, comparing its bytes in place.
+     */
+    private int attributeKind(int entryIndex) throws IOException {
+        int offset = utf8(entryIndex);
+        int length = u2At(offset, limit);
+        offset += 2;
+        if (offset + length > limit) {
+            throw new EOFException();
+        }
+        for (int k = 0; k < ATTRIBUTE_NAMES.length; k++) {
+            byte[] name = ATTRIBUTE_NAMES[k];
+            if (name.length == length && bytesEqual(offset, name)) {
+                return ATTRIBUTE_KINDS[k];
+            }
+        }
+        return OTHER;
+    }
+
+    private boolean bytesEqual(int offset, byte[] value) {
+        for (int i = 0; i < value.length; i++) {
+            if (data[offset + i] != value[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /*
+     * Returns the offset of the UTF8 constant at the specified index.
+     */
+    private int utf8(int entryIndex) throws IOException {
+        checkIndex(entryIndex);
+        if (tags[entryIndex] != ClassFileParser.CONSTANT_UTF8) {
+            throw new IOException("Constant pool entry is not a UTF8 type: "
+                    + entryIndex);
+        }
+        return offsets[entryIndex];
+    }
+
+    private void checkIndex(int entryIndex) throws IOException {
+        if (entryIndex < 0 || entryIndex >= poolSize) {
+            throw new IOException("Illegal constant pool index : " + entryIndex);
+        }
+    }
+
+    /*
+     * Returns the symbol id of the name held by chars[start, end), looked
+     * up in the cache of this reader before the shared symbol table.
+     */
+    private int intern(int start, int end) {
+        int hash = 0;
+        for (int i = start; i < end; i++) {
+            hash = 31 * hash + chars[i];
+        }
+
+        int mask = names.length - 1;
+        int slot = (hash ^ (hash >>> 16)) & mask;
+        String name;
+        while ((name = names[slot]) != null) {
+            if (name.hashCode() == hash && matches(name, start, end)) {
+                return nameIds[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        int id = symbols.intern(new String(chars, start, end - start));
+        name = symbols.getName(id);
+        if ((nameCount + 1) * 2 > names.length) {
+            if (names.length < MAX_NAMES * 2) {
+                rehash(names.length * 2);
+            } else {
+                Arrays.fill(names, null);
+                nameCount = 0;
+            }
+            mask = names.length - 1;
+            slot = (hash ^ (hash >>> 16)) & mask;
+            while (names[slot] != null) {
+                slot = (slot + 1) & mask;
+            }
+        }
+        names[slot] = name;
+        nameIds[slot] = id;
+        nameCount++;
+        return id;
+    }
+
+    private boolean matches(String name, int start, int end) {
+        if (name.length() != end - start) {
+            return false;
+        }
+        for (int i = start; i < end; i++) {
+            if (name.charAt(i - start) != chars[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void rehash(int capacity) {
+        String[] oldNames = names;
+        int[] oldIds = nameIds;
+        names = new String[capacity];
+        nameIds = new int[capacity];
+        int mask = capacity - 1;
+        for (int i = 0; i < oldNames.length; i++) {
+            if (oldNames[i] != null) {
+                int hash = oldNames[i].hashCode();
+                int slot = (hash ^ (hash >>> 16)) & mask;
+                while (names[slot] != null) {
+                    slot = (slot + 1) & mask;
+                }
+                names[slot] = oldNames[i];
+                nameIds[slot] = oldIds[i];
+            }
+        }
+    }
+
+    private int u2() throws IOException {
+        int value = u2At(pos, limit);
+        pos += 2;
+        return value;
+    }
+
+    private int u4() throws IOException {
+        ensure(4);
+        int value = ((data[pos] & 0xFF) << 24) | ((data[pos + 1] & 0xFF) << 16)
+                | ((data[pos + 2] & 0xFF) << 8) | (data[pos + 3] & 0xFF);
+        pos += 4;
+        return value;
+    }
+
+    private int u1At(int index, int end) throws IOException {
+        if (index < 0 || index >= end) {
+            throw new EOFException();
+        }
+        return data[index] & 0xFF;
+    }
+
+    private int u2At(int index, int end) throws IOException {
+        if (index < 0 || index + 2 > end) {
+            throw new EOFException();
+        }
+        return ((data[index] & 0xFF) << 8) | (data[index + 1] & 0xFF);
+    }
+
+    private void skip(int n) throws IOException {
+        if (n < 0) {
+            throw new IOException("Invalid class file: " + fileName);
+        }
+        ensure(n);
+        pos += n;
+    }
+
+    private void ensure(int n) throws IOException {
+        if (pos + n > limit || pos + n < 0) {
+            throw new EOFException();
+        }
+    }
+
+    private static byte[] ascii(String s) {
+        return s.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    /*
+     * Counts the references to symbol ids, in an open addressing table
+     * whose slots are reused from one class to the next.
+     */
+    private static class CountTable {
+
+        private int[] keys = new int[64];
+        private int[] counts = new int[64];
+        private int[] used = new int[32];
+        private long[] sorted = new long[32];
+        private int size;
+
+        void add(int id) {
+            int slot = find(id);
+            if (keys[slot] == 0) {
+                if ((size + 1) * 2 > keys.length) {
+                    grow();
+                    slot = find(id);
+                }
+                keys[slot] = id + 1;
+                used[size++] = slot;
+            }
+            counts[slot]++;
+        }
+
+        int size() {
+            return size;
+        }
+
+        /*
+         * Fills the ids in increasing order, and their counts if wanted.
+         */
+        void sort(int[] ids, int[] idCounts) {
+            for (int i = 0; i < size; i++) {
+                int slot = used[i];
+                sorted[i] = ((long) (keys[slot] - 1) << 32) | counts[slot];
+            }
+            Arrays.sort(sorted, 0, size);
+            for (int i = 0; i < size; i++) {
+                ids[i] = (int) (sorted[i] >>> 32);
+                if (idCounts != null) {
+                    idCounts[i] = (int) sorted[i];
+                }
+            }
+        }
+
+        void clear() {
+            for (int i = 0; i < size; i++) {
+                keys[used[i]] = 0;
+                counts[used[i]] = 0;
+            }
+            size = 0;
+        }
+
+        private int find(int id) {
+            int mask = keys.length - 1;
+            int hash = id * 0x9E3779B9;
+            int slot = (hash ^ (hash >>> 16)) & mask;
+            int key;
+            while ((key = keys[slot]) != 0 && key != id + 1) {
+                slot = (slot + 1) & mask;
+            }
+            return slot;
+        }
+
+        private void grow() {
+            int[] oldKeys = keys;
+            int[] oldCounts = counts;
+            int[] oldUsed = used;
+            keys = new int[oldKeys.length * 2];
+            counts = new int[keys.length];
+            used = new int[keys.length / 2];
+            sorted = new long[used.length];
+            for (int i = 0; i < size; i++) {
+                int slot = find(oldKeys[oldUsed[i]] - 1);
+                keys[slot] = oldKeys[oldUsed[i]];
+                counts[slot] = oldCounts[oldUsed[i]];
+                used[i] = slot;
+            }
+        }
+    }
+}
@@ -0,0 +1,255 @@
+package jdepend.framework;
+
+import java.util.Arrays;
+
+/**
+ * The <code>ClassGraph</code> class is the class-level dependency graph
+ * of an analysis, built once from a <code>JavaClassDataset</code>.
+ * <p>
+ * Class, package and module names are interned into
+ * <code>NameTable</code> instances. The analyzed classes take the ids
+ * <code>0</code> to <code>getAnalyzedClassCount() - 1</code>; classes
+ * which are only referenced get the ids after that. Each analyzed class
+ * has a run of class dependency edges, each with its reference count,
+ * and a run of imported package ids, stored in flat arrays.
+ * <p>
+ * Built with an <code>OffHeapStorage</code>, the class names and the
+ * per-class and edge arrays are kept off the heap; the package and
+ * module names, which are few, stay on it.
+ * <p>
+ * Coarser graphs are derived from it by <code>DependencyRollup</code>.
+ *
+ * @since 2.11
+ */
+public class ClassGraph {
+
+    private final NameTable classNames;
+    private final NameTable packageNames;
+    private final NameTable moduleNames;
+
+    private JavaClass[] classes;
+    private final IntArray classPackage;
+    private final IntArray classModule;
+    private int analyzedCount;
+
+    private final IntArray edgeStart;
+    private final IntArray edgeTarget;
+    private final IntArray edgeCount;
+
+    private final IntArray importStart;
+    private final IntArray importTarget;
+
+    private ClassGraph(OffHeapStorage storage) {
+        classNames = storage == null ? new NameTable()
+                : new OffHeapNameTable(storage);
+        packageNames = new NameTable();
+        moduleNames = new NameTable();
+        classes = new JavaClass[64];
+        classPackage = IntArray.create(storage);
+        classModule = IntArray.create(storage);
+        edgeStart = IntArray.create(storage);
+        edgeTarget = IntArray.create(storage);
+        edgeCount = IntArray.create(storage);
+        importStart = IntArray.create(storage);
+        importTarget = IntArray.create(storage);
+    }
+
+    /**
+     * Builds the class graph of the classes in the specified dataset whose
+     * packages pass the specified filter.
+     *
+     * @param dataset Parsed classes and their modules.
+     * @param filter Package filter.
+     * @return Class graph.
+     */
+    public static ClassGraph build(JavaClassDataset dataset, PackageFilter filter) {
+        return build(dataset, filter, null);
+    }
+
+    /**
+     * Builds the class graph of the classes in the specified dataset whose
+     * packages pass the specified filter, kept in the specified storage.
+     *
+     * @param dataset Parsed classes and their modules.
+     * @param filter Package filter.
+     * @param storage Off-heap storage, or <code>null</code> to keep the
+     *        graph on the heap.
+     * @return Class graph.
+     */
+    public static ClassGraph build(JavaClassDataset dataset, PackageFilter filter,
+            OffHeapStorage storage) {
+
+        ClassGraph graph = new ClassGraph(storage);
+
+        for (JavaClass jClass : dataset.getJavaClasses().values()) {
+            if (filter.accept(jClass.getPackageName())) {
+                int id = graph.addClass(jClass.getName(),
+                        jClass.getPackageName(), dataset);
+                if (id == graph.classes.length) {
+                    graph.classes = Arrays.copyOf(graph.classes, id * 2);
+                }
+                graph.classes[id] = jClass;
+            }
+        }
+
+        graph.analyzedCount = graph.classNames.size();
+
+        for (int i = 0; i < graph.analyzedCount; i++) {
+            JavaClass jClass = graph.classes[i];
+
+            ClassSummary summary = jClass.getSummary();
+
+            graph.edgeStart.add(graph.edgeTarget.size());
+            for (int d = 0; d < summary.getDependencyCount(); d++) {
+                String name = summary.getDependency(d);
+                int target = graph.addClass(name, toPackageName(name), dataset);
+                graph.addEdge(target, summary.getReferenceCount(d));
+            }
+
+            graph.importStart.add(graph.importTarget.size());
+            for (int p = 0; p < summary.getImportedPackageCount(); p++) {
+                graph.addImport(graph.packageNames.intern(summary.getImportedPackage(p)));
+            }
+        }
+
+        graph.edgeStart.add(graph.edgeTarget.size());
+        graph.importStart.add(graph.importTarget.size());
+        graph.classes = Arrays.copyOf(graph.classes, graph.analyzedCount);
+
+        return graph;
+    }
+
+    /**
+     * Gives back the off-heap memory of this graph to its storage. The
+     * graph must not be used afterwards.
+     */
+    public void release() {
+        if (classNames instanceof OffHeapNameTable) {
+            ((OffHeapNameTable) classNames).release();
+        }
+        classPackage.release();
+        classModule.release();
+        edgeStart.release();
+        edgeTarget.release();
+        edgeCount.release();
+        importStart.release();
+        importTarget.release();
+        classes = null;
+    }
+
+    private int addClass(String name, String packageName, JavaClassDataset dataset) {
+        int id = classNames.find(name);
+        if (id >= 0) {
+            return id;
+        }
+
+        id = classNames.intern(name);
+        classPackage.add(packageNames.intern(packageName));
+        String module = dataset.getModuleName(name);
+        classModule.add(module == null ? -1 : moduleNames.intern(module));
+
+        return id;
+    }
+
+    private void addEdge(int target, int count) {
+        edgeTarget.add(target);
+        edgeCount.add(count);
+    }
+
+    private void addImport(int packageId) {
+        importTarget.add(packageId);
+    }
+
+    /**
+     * Returns the package name of the specified class name, the same way
+     * the class file parser derives it.
+     */
+    static String toPackageName(String className) {
+        int index = className.lastIndexOf('.');
+        return index > 0 ? className.substring(0, index) : "Default";
+    }
+
+    /**
+     * @return Number of classes, analyzed and referenced.
+     */
+    public int getClassCount() {
+        return classNames.size();
+    }
+
+    /**
+     * @return Number of analyzed classes.
+     */
+    public int getAnalyzedClassCount() {
+        return analyzedCount;
+    }
+
+    public boolean isAnalyzed(int classId) {
+        return classId < analyzedCount;
+    }
+
+    public NameTable getClassNames() {
+        return classNames;
+    }
+
+    public NameTable getPackageNames() {
+        return packageNames;
+    }
+
+    public NameTable getModuleNames() {
+        return moduleNames;
+    }
+
+    /**
+     * @return The analyzed class, or <code>null</code> if the class is
+     *         only referenced.
+     */
+    public JavaClass getJavaClass(int classId) {
+        return isAnalyzed(classId) ? classes[classId] : null;
+    }
+
+    public String getClassName(int classId) {
+        return classNames.getName(classId);
+    }
+
+    public int getPackageId(int classId) {
+        return classPackage.get(classId);
+    }
+
+    /**
+     * @return The module id, or <code>-1</code> if the module of the class
+     *         is unknown.
+     */
+    public int getModuleId(int classId) {
+        return classModule.get(classId);
+    }
+
+    /**
+     * Class dependency edges of analyzed class <code>i</code> are the
+     * edge indexes from <code>getEdgeStart(i)</code> (inclusive) to
+     * <code>getEdgeStart(i + 1)</code> (exclusive).
+     */
+    public int getEdgeStart(int classId) {
+        return edgeStart.get(classId);
+    }
+
+    public int getEdgeTarget(int edge) {
+        return edgeTarget.get(edge);
+    }
+
+    public int getEdgeCount(int edge) {
+        return edgeCount.get(edge);
+    }
+
+    /**
+     * Imported package ids of analyzed class <code>i</code> are the import
+     * indexes from <code>getImportStart(i)</code> (inclusive) to
+     * <code>getImportStart(i + 1)</code> (exclusive).
+     */
+    public int getImportStart(int classId) {
+        return importStart.get(classId);
+    }
+
+    public int getImportTarget(int index) {
+        return importTarget.get(index);
+    }
+}
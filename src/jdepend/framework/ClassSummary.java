@@ -0,0 +1,252 @@
+package jdepend.framework;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The <code>ClassSummary</code> class is the immutable, compact result of
+ * parsing a Java class file: the class name and package, its source file,
+ * whether it is abstract, and the classes and packages it depends on.
+ * <p>
+ * Names are kept as ids of a <code>SymbolTable</code> shared by the
+ * summaries of a parser. The dependencies are sorted by class id, each
+ * with the number of references to it, and the imported packages by
+ * package id; the package of the class itself is not imported.
+ * <p>
+ * A <code>JavaClass</code> is a view over a summary.
+ *
+ * @since 2.11
+ */
+
+public class ClassSummary {
+
+    private static final byte ABSTRACT = 1;
+    private static final int[] NONE = new int[0];
+
+    private final SymbolTable symbols;
+    private final int name;
+    private final int packageName;
+    private final int sourceFile;
+    private final byte flags;
+    private final int[] dependencies;
+    private final int[] referenceCounts;
+    private final int[] importedPackages;
+
+    /**
+     * Constructs a <code>ClassSummary</code> instance.
+     *
+     * @param symbols Table of the names.
+     * @param name Class name id.
+     * @param packageName Package name id, or <code>-1</code> if unknown.
+     * @param sourceFile Source file name id, or <code>-1</code> if unknown.
+     * @param isAbstract Whether the class is abstract or an interface.
+     * @param dependencies Sorted ids of the classes the class depends on.
+     * @param referenceCounts Number of references to each class.
+     * @param importedPackages Sorted ids of the packages the class imports.
+     */
+    ClassSummary(SymbolTable symbols, int name, int packageName,
+            int sourceFile, boolean isAbstract, int[] dependencies,
+            int[] referenceCounts, int[] importedPackages) {
+        this.symbols = symbols;
+        this.name = name;
+        this.packageName = packageName;
+        this.sourceFile = sourceFile;
+        this.flags = isAbstract ? ABSTRACT : 0;
+        this.dependencies = dependencies.length == 0 ? NONE : dependencies;
+        this.referenceCounts = referenceCounts.length == 0 ? NONE : referenceCounts;
+        this.importedPackages = importedPackages.length == 0 ? NONE : importedPackages;
+    }
+
+    /**
+     * @return Table of the names of this summary.
+     */
+    public SymbolTable getSymbols() {
+        return symbols;
+    }
+
+    public int getNameId() {
+        return name;
+    }
+
+    public String getName() {
+        return symbols.getName(name);
+    }
+
+    /**
+     * @return Package name id, or <code>-1</code> if unknown.
+     */
+    public int getPackageId() {
+        return packageName;
+    }
+
+    public String getPackageName() {
+        return packageName < 0 ? null : symbols.getName(packageName);
+    }
+
+    /**
+     * @return Source file name, <code>Unknown</code> if the class file
+     *         does not record it.
+     */
+    public String getSourceFile() {
+        return sourceFile < 0 ? null : symbols.getName(sourceFile);
+    }
+
+    public boolean isAbstract() {
+        return (flags & ABSTRACT) != 0;
+    }
+
+    /**
+     * @return Number of classes on which this class depends.
+     */
+    public int getDependencyCount() {
+        return dependencies.length;
+    }
+
+    /**
+     * @param index Dependency index, in class id order.
+     * @return Id of the class on which this class depends.
+     */
+    public int getDependencyId(int index) {
+        return dependencies[index];
+    }
+
+    /**
+     * @param index Dependency index, in class id order.
+     * @return Name of the class on which this class depends.
+     */
+    public String getDependency(int index) {
+        return symbols.getName(dependencies[index]);
+    }
+
+    /**
+     * @param index Dependency index, in class id order.
+     * @return Number of references to the class on which this class depends.
+     */
+    public int getReferenceCount(int index) {
+        return referenceCounts[index];
+    }
+
+    /**
+     * Returns the index of the dependency to the specified class.
+     *
+     * @param className Class name.
+     * @return Dependency index, or a negative value if this class does not
+     *         depend on the class.
+     */
+    public int indexOfDependency(String className) {
+        int id = symbols.find(className);
+        return id < 0 ? -1 : Arrays.binarySearch(dependencies, id);
+    }
+
+    /**
+     * @return Number of packages imported by this class.
+     */
+    public int getImportedPackageCount() {
+        return importedPackages.length;
+    }
+
+    /**
+     * @param index Imported package index, in package id order.
+     * @return Id of the package imported by this class.
+     */
+    public int getImportedPackageId(int index) {
+        return importedPackages[index];
+    }
+
+    /**
+     * @param index Imported package index, in package id order.
+     * @return Name of the package imported by this class.
+     */
+    public String getImportedPackage(int index) {
+        return symbols.getName(importedPackages[index]);
+    }
+
+    /*
+     * A summary being changed by the mutators of a JavaClass, built once
+     * the class is read again. The names of a builder started from a
+     * summary are interned in its table; those of a new class in a table
+     * of its own, only made when the class is built.
+     */
+    static class Builder {
+
+        private final SymbolTable symbols;
+        String name;
+        String packageName;
+        String sourceFile;
+        boolean isAbstract;
+        private final Map<String, Integer> dependencies = new LinkedHashMap<>();
+        private final Set<String> importedPackages = new LinkedHashSet<>();
+
+        Builder(String name, String packageName, String sourceFile) {
+            this.symbols = null;
+            this.name = name;
+            this.packageName = packageName;
+            this.sourceFile = sourceFile;
+        }
+
+        Builder(ClassSummary summary) {
+            this.symbols = summary.symbols;
+            this.name = summary.getName();
+            this.packageName = summary.getPackageName();
+            this.sourceFile = summary.getSourceFile();
+            this.isAbstract = summary.isAbstract();
+            for (int i = 0; i < summary.getDependencyCount(); i++) {
+                dependencies.put(summary.getDependency(i), summary.getReferenceCount(i));
+            }
+            for (int i = 0; i < summary.getImportedPackageCount(); i++) {
+                importedPackages.add(summary.getImportedPackage(i));
+            }
+        }
+
+        void addDependency(String className) {
+            dependencies.merge(className, 1, Integer::sum);
+        }
+
+        void addImportedPackage(String importedPackage) {
+            importedPackages.add(importedPackage);
+        }
+
+        ClassSummary build() {
+            SymbolTable table = symbols != null ? symbols : new SymbolTable(
+                    3 + dependencies.size() + importedPackages.size());
+            int nameId = table.intern(name);
+            int packageId = packageName == null ? -1 : table.intern(packageName);
+            int sourceId = sourceFile == null ? -1 : table.intern(sourceFile);
+
+            //
+            // Each dependency is sorted by id along with its reference
+            // count, in the high and low halves of a long.
+            //
+            long[] counted = new long[dependencies.size()];
+            int n = 0;
+            for (Map.Entry<String, Integer> entry : dependencies.entrySet()) {
+                counted[n++] = ((long) table.intern(entry.getKey()) << 32)
+                        | entry.getValue();
+            }
+            Arrays.sort(counted);
+            int[] ids = new int[counted.length];
+            int[] counts = new int[counted.length];
+            for (int i = 0; i < counted.length; i++) {
+                ids[i] = (int) (counted[i] >>> 32);
+                counts[i] = (int) counted[i];
+            }
+
+            int[] imports = new int[importedPackages.size()];
+            n = 0;
+            for (String importedPackage : importedPackages) {
+                imports[n++] = table.intern(importedPackage);
+            }
+            Arrays.sort(imports);
+
+            return new ClassSummary(table, nameId, packageId, sourceId,
+                    isAbstract, ids, counts, imports);
+        }
+    }
+
+    public String toString() {
+        return getName();
+    }
+}
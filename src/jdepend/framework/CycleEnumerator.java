@@ -0,0 +1,380 @@
+package jdepend.framework;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+
+/**
+ * The <code>CycleEnumerator</code> class enumerates the elementary package
+ * dependency cycles of a <code>PackageGraph</code> with Johnson's
+ * algorithm, restricted to each strongly connected component.
+ * <p>
+ * Cycles are streamed to a <code>CycleListener</code> instead of being
+ * collected, and the enumeration can be capped both by the number of
+ * cycles and by their length. For every dependency, the number of
+ * enumerated cycles it takes part in is counted, so that the dependencies
+ * breaking the most cycles can be cut first.
+ * <p>
+ * Example API use:
+ * <p>
+ * <blockquote>
+ *
+ * <pre>
+ * CycleEnumerator cycles = jdepend.enumerateCycles(listener, 10000, 8);
+ * int n = cycles.getCycleCount();
+ * int m = cycles.getParticipation(web, util);
+ * </pre>
+ *
+ * </blockquote>
+ * </p>
+ *
+ * @since 2.11
+ */
+public class CycleEnumerator {
+
+    private final PackageGraph graph;
+    private final StronglyConnectedComponents components;
+    private final int[] participation;
+
+    private int maxCycles;
+    private int maxLength;
+    private int cycleCount;
+    private boolean truncated;
+
+    /**
+     * Constructs a <code>CycleEnumerator</code> for the specified graph.
+     *
+     * @param graph Package graph.
+     */
+    public CycleEnumerator(PackageGraph graph) {
+        this(new StronglyConnectedComponents(graph));
+    }
+
+    /**
+     * Constructs a <code>CycleEnumerator</code> for the graph of the
+     * specified components.
+     *
+     * @param components Strongly connected components of a package graph.
+     */
+    public CycleEnumerator(StronglyConnectedComponents components) {
+        this.graph = components.getGraph();
+        this.components = components;
+        this.participation = new int[graph.getEdgeCount()];
+        this.maxCycles = Integer.MAX_VALUE;
+        this.maxLength = Integer.MAX_VALUE;
+    }
+
+    /**
+     * Sets the number of cycles after which the enumeration stops.
+     *
+     * @param maxCycles Maximum number of cycles.
+     */
+    public void setMaxCycles(int maxCycles) {
+        this.maxCycles = maxCycles;
+    }
+
+    /**
+     * Sets the maximum number of packages in an enumerated cycle. Longer
+     * cycles are skipped.
+     *
+     * @param maxLength Maximum cycle length.
+     */
+    public void setMaxLength(int maxLength) {
+        this.maxLength = maxLength;
+    }
+
+    public PackageGraph getGraph() {
+        return graph;
+    }
+
+    /**
+     * @return Number of cycles enumerated by the last run.
+     */
+    public int getCycleCount() {
+        return cycleCount;
+    }
+
+    /**
+     * Indicates whether the last run stopped at the cycle count cap or cut
+     * paths at the length cap.
+     *
+     * @return <code>true</code> if some cycles may not have been
+     *         enumerated.
+     */
+    public boolean isTruncated() {
+        return truncated;
+    }
+
+    /**
+     * Returns the number of enumerated cycles in which the specified
+     * efferent edge of the graph takes part.
+     *
+     * @param edge Efferent edge index.
+     * @return Number of cycles.
+     */
+    public int getParticipation(int edge) {
+        return participation[edge];
+    }
+
+    /**
+     * Returns the number of enumerated cycles in which the dependency of
+     * package <code>from</code> upon package <code>to</code> takes part.
+     *
+     * @param from Depending package.
+     * @param to Package depended upon.
+     * @return Number of cycles.
+     */
+    public int getParticipation(JavaPackage from, JavaPackage to) {
+        int source = graph.indexOf(from.getName());
+        int target = graph.indexOf(to.getName());
+        if (source < 0 || target < 0) {
+            return 0;
+        }
+        int edge = graph.indexOfEdge(source, target);
+        return edge < 0 ? 0 : participation[edge];
+    }
+
+    /**
+     * Returns the efferent edge indexes taking part in at least one
+     * enumerated cycle, ordered by decreasing participation, then by edge
+     * index.
+     *
+     * @return Edge indexes.
+     */
+    public int[] getEdgesByParticipation() {
+        int size = 0;
+        long[] keys = new long[participation.length];
+        for (int e = 0; e < participation.length; e++) {
+            if (participation[e] > 0) {
+                keys[size++] = ((long) (Integer.MAX_VALUE - participation[e]) << 32) | e;
+            }
+        }
+        Arrays.sort(keys, 0, size);
+
+        int[] edges = new int[size];
+        for (int i = 0; i < size; i++) {
+            edges[i] = (int) keys[i];
+        }
+        return edges;
+    }
+
+    /**
+     * Finds the source package of the specified efferent edge.
+     *
+     * @param edge Efferent edge index.
+     * @return Package id.
+     * @see PackageGraph#getEfferentSource(int)
+     */
+    public int getEdgeSource(int edge) {
+        return graph.getEfferentSource(edge);
+    }
+
+    /**
+     * Enumerates the elementary cycles, informing the specified listener of
+     * each one.
+     *
+     * @param listener Cycle listener, or <code>null</code> to only count
+     *        cycles and edge participation.
+     * @return Number of cycles enumerated.
+     */
+    public int enumerate(CycleListener listener) {
+        Arrays.fill(participation, 0);
+        cycleCount = 0;
+        truncated = false;
+
+        int n = graph.size();
+        boolean[] blocked = new boolean[n];
+        int[][] blockedBy = new int[n][];
+        int[] blockedBySize = new int[n];
+
+        int[] path = new int[Math.min(n, maxLength) + 1];
+        int[] pathEdge = new int[path.length];
+        int[] cursor = new int[path.length];
+        boolean[] found = new boolean[path.length];
+        int[] unblockStack = new int[n];
+        int[] distance = new int[n];
+        int[] queue = new int[n];
+        boolean bounded = maxLength < n;
+        PathView cycle = new PathView(path);
+
+        for (int c = 0; c < components.getCount(); c++) {
+            if (!components.isCyclic(c)) {
+                continue;
+            }
+
+            int[] members = components.getMembers(c);
+            for (int m = 0; m < members.length; m++) {
+                int start = members[m];
+
+                for (int i = m; i < members.length; i++) {
+                    blocked[members[i]] = false;
+                    blockedBySize[members[i]] = 0;
+                }
+                if (bounded) {
+                    distancesTo(start, c, members, m, distance, queue);
+                }
+
+                int depth = 0;
+                path[0] = start;
+                cursor[0] = graph.getEfferentStart(start);
+                found[0] = false;
+                blocked[start] = true;
+
+                while (depth >= 0) {
+                    int v = path[depth];
+
+                    if (cursor[depth] < graph.getEfferentStart(v + 1)) {
+                        int edge = cursor[depth]++;
+                        int w = graph.getEfferentTarget(edge);
+                        if (w < start || components.getComponent(w) != c) {
+                            continue;
+                        }
+
+                        if (w == start) {
+                            pathEdge[depth + 1] = edge;
+                            for (int i = 1; i <= depth + 1; i++) {
+                                participation[pathEdge[i]]++;
+                            }
+                            cycleCount++;
+                            found[depth] = true;
+                            if (listener != null) {
+                                cycle.size = depth + 1;
+                                listener.onCycle(cycle);
+                            }
+                            if (cycleCount >= maxCycles) {
+                                truncated = true;
+                                return cycleCount;
+                            }
+                        } else if (!blocked[w]) {
+                            if (depth + 1 + (bounded ? distance[w] : 1) > maxLength) {
+                                //
+                                // No cycle through w fits the length cap.
+                                // Blocking v could hide a shorter cycle
+                                // reaching it later, so v must not stay
+                                // blocked.
+                                //
+                                found[depth] = true;
+                                truncated = true;
+                            } else {
+                                depth++;
+                                path[depth] = w;
+                                pathEdge[depth] = edge;
+                                cursor[depth] = graph.getEfferentStart(w);
+                                found[depth] = false;
+                                blocked[w] = true;
+                            }
+                        }
+                        continue;
+                    }
+
+                    if (found[depth]) {
+                        unblock(v, blocked, blockedBy, blockedBySize, unblockStack);
+                    } else {
+                        for (int e = graph.getEfferentStart(v); e < graph.getEfferentStart(v + 1); e++) {
+                            int w = graph.getEfferentTarget(e);
+                            if (w >= start && components.getComponent(w) == c) {
+                                addBlockedBy(w, v, blockedBy, blockedBySize);
+                            }
+                        }
+                    }
+
+                    depth--;
+                    if (depth >= 0 && found[depth + 1]) {
+                        found[depth] = true;
+                    }
+                }
+            }
+        }
+
+        return cycleCount;
+    }
+
+    /*
+     * Computes, by a backward breadth-first search, the number of edges
+     * from each candidate member back to the start, so that paths which
+     * cannot close within the length cap are cut early.
+     */
+    private void distancesTo(int start, int c, int[] members, int from,
+            int[] distance, int[] queue) {
+        for (int i = from; i < members.length; i++) {
+            distance[members[i]] = Integer.MAX_VALUE / 2;
+        }
+        int head = 0;
+        int tail = 0;
+        distance[start] = 0;
+        queue[tail++] = start;
+        while (head < tail) {
+            int v = queue[head++];
+            if (distance[v] >= maxLength) {
+                break;
+            }
+            for (int e = graph.getAfferentStart(v); e < graph.getAfferentStart(v + 1); e++) {
+                int u = graph.getAfferentSource(e);
+                if (u > start && components.getComponent(u) == c
+                        && distance[u] > distance[v] + 1) {
+                    distance[u] = distance[v] + 1;
+                    queue[tail++] = u;
+                }
+            }
+        }
+    }
+
+    private static void addBlockedBy(int w, int v, int[][] blockedBy, int[] blockedBySize) {
+        int[] list = blockedBy[w];
+        int size = blockedBySize[w];
+        for (int i = 0; i < size; i++) {
+            if (list[i] == v) {
+                return;
+            }
+        }
+        if (list == null) {
+            list = blockedBy[w] = new int[4];
+        } else if (size == list.length) {
+            list = blockedBy[w] = Arrays.copyOf(list, size * 2);
+        }
+        list[size] = v;
+        blockedBySize[w] = size + 1;
+    }
+
+    private static void unblock(int u, boolean[] blocked, int[][] blockedBy,
+            int[] blockedBySize, int[] stack) {
+        int size = 0;
+        stack[size++] = u;
+        blocked[u] = false;
+        while (size > 0) {
+            int v = stack[--size];
+            for (int i = 0; i < blockedBySize[v]; i++) {
+                int w = blockedBy[v][i];
+                if (blocked[w]) {
+                    blocked[w] = false;
+                    stack[size++] = w;
+                }
+            }
+            blockedBySize[v] = 0;
+        }
+    }
+
+    /*
+     * Read-only view of the current path, handed to the listener so that
+     * no list is allocated per cycle.
+     */
+    private class PathView extends AbstractList<JavaPackage> {
+
+        private final int[] path;
+        private int size;
+
+        PathView(int[] path) {
+            this.path = path;
+        }
+
+        public JavaPackage get(int index) {
+            if (index < 0 || index >= size) {
+                throw new IndexOutOfBoundsException("Index: " + index);
+            }
+            return graph.getPackage(path[index]);
+        }
+
+        public int size() {
+            return size;
+        }
+    }
+}
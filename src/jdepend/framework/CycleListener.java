@@ -0,0 +1,26 @@
+package jdepend.framework;
+
+import java.util.List;
+
+/**
+ * The <code>CycleListener</code> interface defines a listener notified of
+ * each elementary package dependency cycle found by a
+ * <code>CycleEnumerator</code>.
+ *
+ * @since 2.11
+ */
+
+public interface CycleListener {
+
+    /**
+     * Called for each elementary cycle. The cycle starts with the package
+     * of the lowest name and lists every package exactly once; the last
+     * package depends upon the first.
+     * <p>
+     * The list is only valid for the duration of the call.
+     *
+     * @param cycle Packages of the cycle, in dependency order.
+     */
+    public void onCycle(List<JavaPackage> cycle);
+
+}
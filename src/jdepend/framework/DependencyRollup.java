@@ -0,0 +1,300 @@
+package jdepend.framework;
+
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * The <code>DependencyRollup</code> class derives the dependency graphs of
+ * several granularities from a single <code>ClassGraph</code>, so that
+ * reports for classes, packages, components and modules all share one
+ * parse of the analyzed files.
+ * <p>
+ * Each level is aggregated on first use by summing the edge counts of the
+ * class graph over the interned ids of the level, and is then cached. The
+ * nodes of every level are <code>JavaPackage</code> instances, so any
+ * level can be handed to the existing report writers.
+ * <p>
+ * Example API use:
+ * <p>
+ * <blockquote>
+ *
+ * <pre>
+ * JDepend jdepend = new JDepend();
+ * jdepend.addDirectory(&quot;/path/to/classes&quot;);
+ * jdepend.setComponents(&quot;com.xyz.web,com.xyz.ejb&quot;);
+ * jdepend.analyze();
+ *
+ * Collection packages = jdepend.getPackages(DependencyRollup.Level.PACKAGE);
+ * Collection components = jdepend.getPackages(DependencyRollup.Level.COMPONENT);
+ * Collection modules = jdepend.getPackages(DependencyRollup.Level.MODULE);
+ * </pre>
+ *
+ * </blockquote>
+ * </p>
+ *
+ * @since 2.11
+ */
+public class DependencyRollup {
+
+    /**
+     * The granularity of a dependency graph.
+     */
+    public enum Level {
+
+        /** Each analyzed class is a node. */
+        CLASS,
+
+        /** Each Java package is a node. */
+        PACKAGE,
+
+        /** Packages are grouped by the configured component prefixes. */
+        COMPONENT,
+
+        /** Classes are grouped by the module (directory or jar) they were loaded from. */
+        MODULE;
+
+        /**
+         * Returns the level of the specified name, ignoring case.
+         *
+         * @param name Level name.
+         * @return Level.
+         * @throws IllegalArgumentException If there is no such level.
+         */
+        public static Level parse(String name) {
+            return valueOf(name.trim().toUpperCase(Locale.ENGLISH));
+        }
+
+        public String toString() {
+            return name().toLowerCase(Locale.ENGLISH);
+        }
+    }
+
+    private static final String DEFAULT_MODULE = "default";
+
+    private final ClassGraph graph;
+    private final List<String> components;
+    private final Collection<JavaPackage> configuredPackages;
+    private final Map<Level, Map<String, JavaPackage>> levels;
+
+    /**
+     * Constructs a <code>DependencyRollup</code> over the specified class
+     * graph.
+     *
+     * @param graph Class graph.
+     * @param components Component prefixes, or <code>null</code> if no
+     *        components are declared.
+     * @param configuredPackages Packages with a preset volatility, which
+     *        are present at every level.
+     */
+    public DependencyRollup(ClassGraph graph, Collection<String> components,
+            Collection<JavaPackage> configuredPackages) {
+        this.graph = graph;
+        this.components = components == null ? null : new ArrayList<>(components);
+        this.configuredPackages = new ArrayList<>(configuredPackages);
+        this.levels = new EnumMap<>(Level.class);
+    }
+
+    public ClassGraph getClassGraph() {
+        return graph;
+    }
+
+    /**
+     * Returns the nodes of the specified level.
+     *
+     * @param level Level.
+     * @return Collection of nodes.
+     */
+    public Collection<JavaPackage> getPackages(Level level) {
+        return getLevel(level).values();
+    }
+
+    /**
+     * Returns the node of the specified name at the specified level.
+     *
+     * @param level Level.
+     * @param name Node name.
+     * @return Node, or <code>null</code> if there is no such node.
+     */
+    public JavaPackage getPackage(Level level, String name) {
+        return getLevel(level).get(name);
+    }
+
+    /**
+     * Indicates whether the specified analyzed class depends upon the node
+     * of the specified name at the specified level.
+     *
+     * @param level Level.
+     * @param jClass Analyzed class.
+     * @param name Node name.
+     * @return <code>true</code> if the class contributes a dependency upon
+     *         the node.
+     */
+    public boolean dependsUpon(Level level, JavaClass jClass, String name) {
+        int classId = graph.getClassNames().find(jClass.getName());
+        if (classId < 0 || !graph.isAnalyzed(classId)) {
+            return false;
+        }
+
+        if (level == Level.PACKAGE || level == Level.COMPONENT) {
+            NameTable packageNames = graph.getPackageNames();
+            for (int m = graph.getImportStart(classId); m < graph.getImportStart(classId + 1); m++) {
+                String imported = packageNames.getName(graph.getImportTarget(m));
+                if (name.equals(level == Level.COMPONENT ? toComponent(imported) : imported)) {
+                    return true;
+                }
+            }
+        } else {
+            for (int e = graph.getEdgeStart(classId); e < graph.getEdgeStart(classId + 1); e++) {
+                if (name.equals(nodeName(level, graph.getEdgeTarget(e)))) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private String nodeName(Level level, int classId) {
+        if (level == Level.CLASS) {
+            return graph.getClassName(classId);
+        }
+        int moduleId = graph.getModuleId(classId);
+        return moduleId < 0 ? DEFAULT_MODULE : graph.getModuleNames().getName(moduleId);
+    }
+
+    private synchronized Map<String, JavaPackage> getLevel(Level level) {
+        Map<String, JavaPackage> nodes = levels.get(level);
+        if (nodes == null) {
+            nodes = new HashMap<>();
+            for (JavaPackage configured : configuredPackages) {
+                nodes.put(configured.getName(), new JavaPackage(
+                        configured.getName(), configured.getVolatility()));
+            }
+            final Map<String, JavaPackage> target = nodes;
+            aggregate(level, name -> target.computeIfAbsent(name, JavaPackage::new));
+            levels.put(level, nodes);
+        }
+        return nodes;
+    }
+
+    /**
+     * Aggregates the class graph at the specified level into the nodes
+     * supplied by the specified function, which is called with a node name
+     * and returns the node to populate for it.
+     *
+     * @param level Level.
+     * @param nodes Node factory.
+     */
+    public void aggregate(Level level, Function<String, JavaPackage> nodes) {
+        switch (level) {
+        case CLASS:
+            aggregateClasses(nodes);
+            break;
+        case PACKAGE:
+            aggregatePackages(nodes, false);
+            break;
+        case COMPONENT:
+            aggregatePackages(nodes, true);
+            break;
+        case MODULE:
+            aggregateModules(nodes);
+            break;
+        }
+    }
+
+    private void aggregateClasses(Function<String, JavaPackage> nodes) {
+        JavaPackage[] byClass = new JavaPackage[graph.getClassCount()];
+
+        for (int i = 0; i < graph.getAnalyzedClassCount(); i++) {
+            JavaPackage node = classNode(i, byClass, nodes);
+            node.addClass(graph.getJavaClass(i));
+
+            for (int e = graph.getEdgeStart(i); e < graph.getEdgeStart(i + 1); e++) {
+                JavaPackage target = classNode(graph.getEdgeTarget(e), byClass, nodes);
+                node.dependsUpon(target, graph.getEdgeCount(e));
+            }
+        }
+    }
+
+    private JavaPackage classNode(int classId, JavaPackage[] byClass,
+            Function<String, JavaPackage> nodes) {
+        if (byClass[classId] == null) {
+            byClass[classId] = nodes.apply(graph.getClassName(classId));
+        }
+        return byClass[classId];
+    }
+
+    private void aggregatePackages(Function<String, JavaPackage> nodes, boolean byComponent) {
+        NameTable packageNames = graph.getPackageNames();
+        JavaPackage[] byPackage = new JavaPackage[packageNames.size()];
+
+        for (int i = 0; i < graph.getAnalyzedClassCount(); i++) {
+            JavaPackage node = packageNode(graph.getPackageId(i), byPackage,
+                    nodes, byComponent);
+            node.addClass(graph.getJavaClass(i));
+
+            for (int m = graph.getImportStart(i); m < graph.getImportStart(i + 1); m++) {
+                JavaPackage imported = packageNode(graph.getImportTarget(m),
+                        byPackage, nodes, byComponent);
+                node.dependsUpon(imported, 1);
+            }
+        }
+    }
+
+    private JavaPackage packageNode(int packageId, JavaPackage[] byPackage,
+            Function<String, JavaPackage> nodes, boolean byComponent) {
+        if (byPackage[packageId] == null) {
+            String name = graph.getPackageNames().getName(packageId);
+            byPackage[packageId] = nodes.apply(byComponent ? toComponent(name) : name);
+        }
+        return byPackage[packageId];
+    }
+
+    private void aggregateModules(Function<String, JavaPackage> nodes) {
+        JavaPackage[] byModule = new JavaPackage[graph.getModuleNames().size()];
+        boolean[] warned = new boolean[graph.getClassCount()];
+
+        for (int i = 0; i < graph.getAnalyzedClassCount(); i++) {
+            JavaPackage node = moduleNode(i, byModule, warned, nodes);
+            node.addClass(graph.getJavaClass(i));
+
+            for (int e = graph.getEdgeStart(i); e < graph.getEdgeStart(i + 1); e++) {
+                int target = graph.getEdgeTarget(e);
+                JavaPackage module = moduleNode(target, byModule, warned, nodes);
+                node.dependsUpon(module, graph.getEdgeCount(e));
+
+                if (graph.isAnalyzed(target)) {
+                    module.addClass(graph.getJavaClass(target));
+                }
+            }
+        }
+    }
+
+    private JavaPackage moduleNode(int classId, JavaPackage[] byModule,
+            boolean[] warned, Function<String, JavaPackage> nodes) {
+        int moduleId = graph.getModuleId(classId);
+        if (moduleId < 0) {
+            if (!warned[classId]) {
+                System.err.println("WARN: cannot detect module of class: "
+                        + graph.getClassName(classId));
+                warned[classId] = true;
+            }
+            return nodes.apply(DEFAULT_MODULE);
+        }
+
+        if (byModule[moduleId] == null) {
+            byModule[moduleId] = nodes.apply(graph.getModuleNames().getName(moduleId));
+        }
+        return byModule[moduleId];
+    }
+
+    private String toComponent(String packageName) {
+        if (components != null) {
+            for (String component : components) {
+                if (packageName.startsWith(component + ".")) {
+                    return component;
+                }
+            }
+        }
+        return packageName;
+    }
+}
@@ -0,0 +1,38 @@
+package jdepend.framework;
+
+import java.util.List;
+
+/**
+ * The <code>DuplicateClass</code> class represents a class defined with
+ * different content by several of the analyzed files, so that the one
+ * loaded depends on the order of the class path.
+ *
+ * @since 2.11
+ */
+
+public class DuplicateClass {
+
+    private final String name;
+    private final List<String> locations;
+
+    public DuplicateClass(String name, List<String> locations) {
+        this.name = name;
+        this.locations = locations;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return Locations of the definitions of the class, in the order they
+     *         were found, such as <code>lib/a.jar!/a/B.class</code>.
+     */
+    public List<String> getLocations() {
+        return locations;
+    }
+
+    public String toString() {
+        return name + " " + locations;
+    }
+}
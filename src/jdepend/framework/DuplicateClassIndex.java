@@ -0,0 +1,194 @@
+package jdepend.framework;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The <code>DuplicateClassIndex</code> class indexes the classes of the
+ * analyzed files by name and content hash, so that a class found again
+ * with the same content, such as in a class directory and in the jar
+ * packaging it, is only parsed once, and a class found again with a
+ * different content is reported.
+ * <p>
+ * The content of a class is identified by its size and CRC-32 checksum,
+ * which the central directory of an archive records, so that duplicates
+ * are recognized before their entry is inflated. Before a class is
+ * parsed, its name is only known from the path of its entry, so a content
+ * is keyed by that path, such as <code>java/lang/Object.class</code>, as
+ * well. Two contents of a key are thus two versions of a class, and a
+ * checksum collision can at worst take a conflicting version of a class
+ * for an identical one, but never drops another class.
+ * <p>
+ * The index is safe for use by several threads, which never wait for
+ * each other to record a class.
+ *
+ * @since 2.11
+ */
+
+public class DuplicateClassIndex {
+
+    /**
+     * Value of an unknown size or checksum.
+     */
+    public static final long UNKNOWN = -1;
+
+    private final ConcurrentMap<String, Boolean> contents =
+        new ConcurrentHashMap<>();
+
+    /**
+     * First definition of each class, by class name.
+     */
+    private final ConcurrentMap<String, Definition> definitions =
+        new ConcurrentHashMap<>();
+
+    /**
+     * Definitions differing from the first definition of their class.
+     */
+    private final Queue<Definition> conflicts = new ConcurrentLinkedQueue<>();
+
+    private final AtomicInteger identicalCount = new AtomicInteger();
+
+    /**
+     * Records the content of a class file about to be parsed.
+     *
+     * @param path Path of the class file from the root of its packages,
+     *        such as <code>java/lang/Object.class</code>.
+     * @param size Size of the class file, or <code>UNKNOWN</code>.
+     * @param checksum CRC-32 checksum of the class file, or
+     *        <code>UNKNOWN</code>.
+     * @return <code>false</code> if the same content was recorded before,
+     *         so the class file need not be parsed.
+     */
+    public boolean addContent(String path, long size, long checksum) {
+        if (size == UNKNOWN || checksum == UNKNOWN) {
+            return true;
+        }
+        if (contents.putIfAbsent(contentKey(path, size, checksum), Boolean.TRUE) == null) {
+            return true;
+        }
+        identicalCount.incrementAndGet();
+        return false;
+    }
+
+    /*
+     * Returns the key of a known content.
+     */
+    static String contentKey(String path, long size, long checksum) {
+        return path + ' ' + size + ' ' + checksum;
+    }
+
+    /*
+     * Returns the path of the file of the specified class from the root
+     * of its packages.
+     */
+    static String classPath(String className) {
+        return className.replace('.', '/') + ".class";
+    }
+
+    /**
+     * Records a parsed class.
+     *
+     * @param className Class name.
+     * @param size Size of the class file, or <code>UNKNOWN</code>.
+     * @param checksum CRC-32 checksum of the class file, or
+     *        <code>UNKNOWN</code>.
+     * @param container Path of the archive holding the class file, or
+     *        <code>null</code>.
+     * @param entry Path of the class file in its archive, or in the file
+     *        system.
+     */
+    public void addClass(String className, long size, long checksum,
+            String container, String entry) {
+        add(new Definition(className, size, checksum, container, entry));
+    }
+
+    private void add(Definition definition) {
+        Definition first = definitions.putIfAbsent(definition.className, definition);
+        if (first == null) {
+            return;
+        }
+        if (first.checksum != UNKNOWN && first.size == definition.size
+                && first.checksum == definition.checksum) {
+            identicalCount.incrementAndGet();
+        } else {
+            conflicts.add(definition);
+        }
+    }
+
+    /**
+     * Records the classes of another index, built from the specified
+     * archive or from a copy of it at another path.
+     *
+     * @param other Index of the classes of an archive.
+     * @param container Path of the archive.
+     */
+    public void addAll(DuplicateClassIndex other, String container) {
+        contents.putAll(other.contents);
+        for (Definition definition : other.definitions.values()) {
+            add(definition.in(container));
+        }
+        for (Definition definition : other.conflicts) {
+            add(definition.in(container));
+        }
+    }
+
+    /**
+     * @return Number of classes found again with the same content.
+     */
+    public int getIdenticalCount() {
+        return identicalCount.get();
+    }
+
+    /**
+     * @return Classes found again with a different content, in name
+     *         order.
+     */
+    public List<DuplicateClass> getDuplicateClasses() {
+        Map<String, List<String>> locations = new TreeMap<>();
+        for (Definition definition : conflicts) {
+            List<String> classLocations = locations.get(definition.className);
+            if (classLocations == null) {
+                classLocations = new ArrayList<>();
+                classLocations.add(definitions.get(definition.className).getLocation());
+                locations.put(definition.className, classLocations);
+            }
+            classLocations.add(definition.getLocation());
+        }
+
+        List<DuplicateClass> result = new ArrayList<>(locations.size());
+        for (Map.Entry<String, List<String>> entry : locations.entrySet()) {
+            result.add(new DuplicateClass(entry.getKey(),
+                    Collections.unmodifiableList(entry.getValue())));
+        }
+        return result;
+    }
+
+    private static class Definition {
+
+        final String className;
+        final long size;
+        final long checksum;
+        final String container;
+        final String entry;
+
+        Definition(String className, long size, long checksum,
+                String container, String entry) {
+            this.className = className;
+            this.size = size;
+            this.checksum = checksum;
+            this.container = container;
+            this.entry = entry;
+        }
+
+        Definition in(String otherContainer) {
+            return new Definition(className, size, checksum, otherContainer, entry);
+        }
+
+        String getLocation() {
+            return container == null ? entry : container + "!/" + entry;
+        }
+    }
+}
@@ -0,0 +1,348 @@
+package jdepend.framework;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.function.Function;
+
+/**
+ * The <code>ExternalAggregator</code> class aggregates the dependencies of
+ * classes into package dependencies out of core, for analyses whose
+ * classes do not fit in memory at once.
+ * <p>
+ * Each class added is recorded with its package, whether it is abstract
+ * and the packages it imports. Records are kept in memory up to the run
+ * size, then sorted by package and class name and spilled to a run file.
+ * Aggregation merges the runs, in several passes if there are too many to
+ * read at once, so that the classes of each package are read together and
+ * the memory used is bounded by the package graph rather than by the
+ * number of classes. Of the classes added several times under one name,
+ * the last added counts, as in a <code>JavaClassDataset</code>.
+ * <p>
+ * Closing the aggregator deletes its run files.
+ *
+ * @since 2.11
+ */
+
+public class ExternalAggregator implements AutoCloseable {
+
+    /**
+     * Default number of records of a run.
+     */
+    public static final int DEFAULT_RUN_SIZE = 1 << 16;
+
+    /**
+     * Number of runs merged at once.
+     */
+    private static final int MERGE_WIDTH = 64;
+
+    private static final Comparator<Record> ORDER =
+        Comparator.comparing((Record r) -> r.packageName)
+            .thenComparing(r -> r.className)
+            .thenComparingLong(r -> r.sequence);
+
+    private final File directory;
+    private final int runSize;
+    private final List<Record> records = new ArrayList<>();
+    private final List<File> runs = new ArrayList<>();
+    private long sequence;
+    private int spilledRuns;
+
+    /**
+     * Constructs an <code>ExternalAggregator</code> instance.
+     *
+     * @param directory Directory of the run files, or <code>null</code>
+     *        for the default temporary directory.
+     * @param runSize Number of records kept in memory before spilling.
+     */
+    public ExternalAggregator(File directory, int runSize) {
+        if (runSize < 1) {
+            throw new IllegalArgumentException("Invalid run size: " + runSize);
+        }
+        this.directory = directory;
+        this.runSize = runSize;
+    }
+
+    /**
+     * Records the specified class.
+     *
+     * @param jClass Class.
+     * @throws IOException If the records cannot be spilled.
+     */
+    public synchronized void add(JavaClass jClass) throws IOException {
+        ClassSummary summary = jClass.getSummary();
+        String[] imports = new String[summary.getImportedPackageCount()];
+        for (int i = 0; i < imports.length; i++) {
+            imports[i] = summary.getImportedPackage(i);
+        }
+
+        records.add(new Record(jClass.getPackageName(), jClass.getName(),
+                sequence++, jClass.isAbstract(), imports));
+        if (records.size() >= runSize) {
+            spill();
+        }
+    }
+
+    /**
+     * @return Number of run files written, merged ones included.
+     */
+    public synchronized int getSpilledRunCount() {
+        return spilledRuns;
+    }
+
+    /**
+     * Aggregates the classes recorded into the nodes supplied by the
+     * specified function, which is called with a package name and returns
+     * the node to populate for it. The classes of a node are counted
+     * rather than kept.
+     *
+     * @param nodes Node factory.
+     * @throws IOException If the runs cannot be read.
+     */
+    public synchronized void aggregate(Function<String, JavaPackage> nodes)
+            throws IOException {
+        if (!records.isEmpty()) {
+            spill();
+        }
+        while (runs.size() > MERGE_WIDTH) {
+            List<File> merged = new ArrayList<>(runs.subList(0, MERGE_WIDTH));
+            runs.removeAll(merged);
+            runs.add(merge(merged));
+        }
+
+        Aggregation aggregation = new Aggregation(nodes);
+        try (Merge merge = new Merge(runs)) {
+            Record pending = null;
+            Record record;
+            while ((record = merge.next()) != null) {
+                if (pending != null && !pending.className.equals(record.className)) {
+                    aggregation.add(pending);
+                }
+                pending = record;
+            }
+            if (pending != null) {
+                aggregation.add(pending);
+            }
+        }
+        aggregation.flush();
+    }
+
+    /**
+     * Deletes the run files.
+     */
+    public synchronized void close() {
+        records.clear();
+        for (File run : runs) {
+            run.delete();
+        }
+        runs.clear();
+    }
+
+    private void spill() throws IOException {
+        Collections.sort(records, ORDER);
+        File run = createRun();
+        try (DataOutputStream out = openOutput(run)) {
+            out.writeInt(records.size());
+            for (Record record : records) {
+                record.write(out);
+            }
+        }
+        records.clear();
+        runs.add(run);
+    }
+
+    private File merge(List<File> merged) throws IOException {
+        File run = createRun();
+        try (Merge merge = new Merge(merged);
+                DataOutputStream out = openOutput(run)) {
+            out.writeInt(merge.size());
+            Record record;
+            while ((record = merge.next()) != null) {
+                record.write(out);
+            }
+        }
+        for (File file : merged) {
+            file.delete();
+        }
+        return run;
+    }
+
+    private File createRun() throws IOException {
+        File run = File.createTempFile("jdepend", ".run", directory);
+        run.deleteOnExit();
+        spilledRuns++;
+        return run;
+    }
+
+    private static DataOutputStream openOutput(File file) throws IOException {
+        return new DataOutputStream(new BufferedOutputStream(
+                new FileOutputStream(file), 1 << 16));
+    }
+
+    private static class Record {
+
+        final String packageName;
+        final String className;
+        final long sequence;
+        final boolean isAbstract;
+        final String[] imports;
+
+        Record(String packageName, String className, long sequence,
+                boolean isAbstract, String[] imports) {
+            this.packageName = packageName;
+            this.className = className;
+            this.sequence = sequence;
+            this.isAbstract = isAbstract;
+            this.imports = imports;
+        }
+
+        void write(DataOutputStream out) throws IOException {
+            out.writeUTF(packageName);
+            out.writeUTF(className);
+            out.writeLong(sequence);
+            out.writeBoolean(isAbstract);
+            out.writeInt(imports.length);
+            for (String imported : imports) {
+                out.writeUTF(imported);
+            }
+        }
+
+        static Record read(DataInputStream in) throws IOException {
+            String packageName = in.readUTF();
+            String className = in.readUTF();
+            long sequence = in.readLong();
+            boolean isAbstract = in.readBoolean();
+            String[] imports = new String[in.readInt()];
+            for (int i = 0; i < imports.length; i++) {
+                imports[i] = in.readUTF();
+            }
+            return new Record(packageName, className, sequence, isAbstract,
+                    imports);
+        }
+    }
+
+    /*
+     * A run being read, positioned at its current record.
+     */
+    private static class Run {
+
+        final DataInputStream in;
+        int remaining;
+        Record current;
+
+        Run(File file) throws IOException {
+            in = new DataInputStream(new BufferedInputStream(
+                    new FileInputStream(file), 1 << 16));
+            remaining = in.readInt();
+        }
+
+        boolean advance() throws IOException {
+            if (remaining == 0) {
+                current = null;
+                return false;
+            }
+            remaining--;
+            current = Record.read(in);
+            return true;
+        }
+    }
+
+    /*
+     * The records of several runs, in order.
+     */
+    private static class Merge implements AutoCloseable {
+
+        private final List<Run> runs = new ArrayList<>();
+        private final PriorityQueue<Run> queue =
+            new PriorityQueue<>((a, b) -> ORDER.compare(a.current, b.current));
+        private int size;
+
+        Merge(List<File> files) throws IOException {
+            try {
+                for (File file : files) {
+                    Run run = new Run(file);
+                    runs.add(run);
+                    size += run.remaining;
+                    if (run.advance()) {
+                        queue.add(run);
+                    }
+                }
+            } catch (IOException ioe) {
+                close();
+                throw ioe;
+            }
+        }
+
+        int size() {
+            return size;
+        }
+
+        Record next() throws IOException {
+            Run run = queue.poll();
+            if (run == null) {
+                return null;
+            }
+            Record record = run.current;
+            if (run.advance()) {
+                queue.add(run);
+            }
+            return record;
+        }
+
+        public void close() throws IOException {
+            for (Run run : runs) {
+                run.in.close();
+            }
+        }
+    }
+
+    /*
+     * Adds the classes of each package, read together, to its node.
+     */
+    private static class Aggregation {
+
+        private final Function<String, JavaPackage> nodes;
+        private String packageName;
+        private JavaPackage node;
+        private int classCount;
+        private int abstractCount;
+
+        Aggregation(Function<String, JavaPackage> nodes) {
+            this.nodes = nodes;
+        }
+
+        void add(Record record) {
+            if (!record.packageName.equals(packageName)) {
+                flush();
+                packageName = record.packageName;
+                node = nodes.apply(packageName);
+            }
+
+            classCount++;
+            if (record.isAbstract) {
+                abstractCount++;
+            }
+            for (String imported : record.imports) {
+                node.dependsUpon(nodes.apply(imported), 1);
+            }
+        }
+
+        void flush() {
+            if (node != null) {
+                node.addClasses(classCount, abstractCount);
+            }
+            classCount = 0;
+            abstractCount = 0;
+        }
+    }
+}
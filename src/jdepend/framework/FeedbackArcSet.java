@@ -0,0 +1,231 @@
+package jdepend.framework;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * The <code>FeedbackArcSet</code> class suggests a cheap set of package
+ * dependencies whose removal breaks every dependency cycle of a
+ * <code>PackageGraph</code>.
+ * <p>
+ * Finding a minimum feedback arc set is NP-hard, so each strongly
+ * connected component is ordered with the greedy heuristic of Eades, Lin
+ * and Smyth, weighted by the reference counts of the dependencies: sinks
+ * are moved to the end of the order, sources to the front, and otherwise
+ * the package whose outgoing references most outweigh its incoming ones
+ * is moved to the front. The dependencies pointing backwards in the final
+ * order form the feedback arc set. The ordering takes
+ * <i>O(e log n)</i> time.
+ * <p>
+ * Example API use:
+ * <p>
+ * <blockquote>
+ *
+ * <pre>
+ * FeedbackArcSet arcs = jdepend.getFeedbackArcSet();
+ * for (int edge : arcs.getEdges()) {
+ *     PackageGraph graph = arcs.getGraph();
+ *     String from = graph.getName(graph.getEfferentSource(edge));
+ *     String to = graph.getName(graph.getEfferentTarget(edge));
+ * }
+ * </pre>
+ *
+ * </blockquote>
+ * </p>
+ *
+ * @since 2.11
+ */
+public class FeedbackArcSet {
+
+    private final PackageGraph graph;
+    private final int[] edges;
+    private final long weight;
+
+    /**
+     * Computes the feedback arc set of the specified graph.
+     *
+     * @param graph Package graph.
+     */
+    public FeedbackArcSet(PackageGraph graph) {
+        this(new StronglyConnectedComponents(graph));
+    }
+
+    /**
+     * Computes the feedback arc set of the graph of the specified
+     * components.
+     *
+     * @param components Strongly connected components of a package graph.
+     */
+    public FeedbackArcSet(StronglyConnectedComponents components) {
+        this.graph = components.getGraph();
+
+        int n = graph.size();
+        int[] position = new int[n];
+        int[] inDegree = new int[n];
+        int[] outDegree = new int[n];
+        long[] inWeight = new long[n];
+        long[] outWeight = new long[n];
+        boolean[] removed = new boolean[n];
+        int[] order = new int[n];
+
+        List<Integer> result = new ArrayList<>();
+        long total = 0;
+
+        for (int c = 0; c < components.getCount(); c++) {
+            if (!components.isCyclic(c)) {
+                continue;
+            }
+
+            int[] members = components.getMembers(c);
+            int front = 0;
+            int back = members.length;
+            int[] sinks = new int[members.length];
+            int[] sources = new int[members.length];
+            int sinkCount = 0;
+            int sourceCount = 0;
+
+            //
+            // Packages are ordered by decreasing weight difference, then by
+            // id; stale entries are skipped when polled.
+            //
+            PriorityQueue<long[]> queue = new PriorityQueue<>(members.length,
+                    (x, y) -> x[0] != y[0] ? Long.compare(y[0], x[0])
+                            : Long.compare(x[1], y[1]));
+
+            for (int v : members) {
+                for (int e = graph.getEfferentStart(v); e < graph.getEfferentStart(v + 1); e++) {
+                    int w = graph.getEfferentTarget(e);
+                    if (components.getComponent(w) == c) {
+                        outDegree[v]++;
+                        outWeight[v] += graph.getEfferentCount(e);
+                        inDegree[w]++;
+                        inWeight[w] += graph.getEfferentCount(e);
+                    }
+                }
+            }
+            for (int v : members) {
+                queue.add(new long[] { outWeight[v] - inWeight[v], v });
+            }
+
+            while (front < back) {
+                int v;
+                boolean toFront;
+                if (sinkCount > 0) {
+                    v = sinks[--sinkCount];
+                    toFront = false;
+                } else if (sourceCount > 0) {
+                    v = sources[--sourceCount];
+                    toFront = true;
+                } else {
+                    long[] entry = queue.poll();
+                    v = (int) entry[1];
+                    if (removed[v] || entry[0] != outWeight[v] - inWeight[v]) {
+                        continue;
+                    }
+                    toFront = true;
+                }
+                if (removed[v]) {
+                    continue;
+                }
+
+                removed[v] = true;
+                if (toFront) {
+                    order[front++] = v;
+                } else {
+                    order[--back] = v;
+                }
+
+                for (int e = graph.getEfferentStart(v); e < graph.getEfferentStart(v + 1); e++) {
+                    int w = graph.getEfferentTarget(e);
+                    if (components.getComponent(w) == c && !removed[w]) {
+                        inWeight[w] -= graph.getEfferentCount(e);
+                        if (--inDegree[w] == 0) {
+                            sources[sourceCount++] = w;
+                        } else {
+                            queue.add(new long[] { outWeight[w] - inWeight[w], w });
+                        }
+                    }
+                }
+                for (int e = graph.getAfferentStart(v); e < graph.getAfferentStart(v + 1); e++) {
+                    int u = graph.getAfferentSource(e);
+                    if (components.getComponent(u) == c && !removed[u]) {
+                        outWeight[u] -= graph.getAfferentCount(e);
+                        if (--outDegree[u] == 0) {
+                            sinks[sinkCount++] = u;
+                        } else {
+                            queue.add(new long[] { outWeight[u] - inWeight[u], u });
+                        }
+                    }
+                }
+            }
+
+            for (int i = 0; i < members.length; i++) {
+                position[order[i]] = i;
+            }
+            for (int v : members) {
+                for (int e = graph.getEfferentStart(v); e < graph.getEfferentStart(v + 1); e++) {
+                    int w = graph.getEfferentTarget(e);
+                    if (components.getComponent(w) == c && position[w] < position[v]) {
+                        result.add(e);
+                        total += graph.getEfferentCount(e);
+                    }
+                }
+            }
+        }
+
+        edges = new int[result.size()];
+        for (int i = 0; i < edges.length; i++) {
+            edges[i] = result.get(i);
+        }
+        Arrays.sort(edges);
+        weight = total;
+    }
+
+    public PackageGraph getGraph() {
+        return graph;
+    }
+
+    /**
+     * Returns the efferent edge indexes of the dependencies to remove, in
+     * name order of their packages.
+     *
+     * @return Edge indexes.
+     */
+    public int[] getEdges() {
+        return edges.clone();
+    }
+
+    /**
+     * @return Number of dependencies to remove.
+     */
+    public int size() {
+        return edges.length;
+    }
+
+    /**
+     * @return Total number of references of the dependencies to remove.
+     */
+    public long getWeight() {
+        return weight;
+    }
+
+    /**
+     * Indicates whether the dependency of package <code>from</code> upon
+     * package <code>to</code> is in this feedback arc set.
+     *
+     * @param from Depending package.
+     * @param to Package depended upon.
+     * @return <code>true</code> if the dependency should be removed.
+     */
+    public boolean contains(JavaPackage from, JavaPackage to) {
+        int source = graph.indexOf(from.getName());
+        int target = graph.indexOf(to.getName());
+        if (source < 0 || target < 0) {
+            return false;
+        }
+        int edge = graph.indexOfEdge(source, target);
+        return edge >= 0 && Arrays.binarySearch(edges, edge) >= 0;
+    }
+}
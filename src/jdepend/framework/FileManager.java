@@ -22,6 +22,8 @@ public class FileManager {
     private ArrayList directories;
     private boolean acceptInnerClasses;
 
+    private static final String IMAGE_FILE_NAME = "modules";
+
     public FileManager() {
         directories = new ArrayList();
         acceptInnerClasses = true;
@@ -37,6 +39,21 @@ public class FileManager {
         acceptInnerClasses = b;
     }
 
+    boolean isAcceptingInnerClasses() {
+        return acceptInnerClasses;
+    }
+
+    /**
+     * @return Directories, jar files and images added, in order.
+     */
+    List<File> getDirectories() {
+        List<File> result = new ArrayList<>(directories.size());
+        for (Object directory : directories) {
+            result.add((File) directory);
+        }
+        return result;
+    }
+
     /**
      * Sets the path of the project. Which is used to infer the module names.
      *
@@ -63,7 +80,8 @@ public class FileManager {
 
         File directory = new File(name);
 
-        if (directory.isDirectory() || acceptJarFile(directory)) {
+        if (directory.isDirectory() || acceptJarFile(directory)
+                || acceptImageFile(directory)) {
             directories.add(directory);
         } else {
             throw new IOException("Invalid directory or JAR file: " + name);
@@ -71,7 +89,8 @@ public class FileManager {
     }
 
     public boolean acceptFile(File file) {
-        return acceptClassFile(file) || acceptJarFile(file);
+        return acceptClassFile(file) || acceptJarFile(file)
+                || acceptImageFile(file);
     }
 
     public boolean acceptClassFile(File file) {
@@ -101,7 +120,22 @@ public class FileManager {
     }
 
     public boolean acceptJarFile(File file) {
-        return isAar(file) || isJar(file) || isZip(file) || isWar(file);
+        return isAar(file) || isJar(file) || isZip(file) || isWar(file)
+                || isJmod(file);
+    }
+
+    /**
+     * Indicates whether the specified file is the runtime image of a JDK
+     * or of a jlink runtime: a <code>modules</code> file, as found in the
+     * <code>lib</code> directory of the runtime.
+     *
+     * @param file File.
+     * @return <code>true</code> if the file is a runtime image.
+     * @since 2.11
+     */
+    public boolean acceptImageFile(File file) {
+        return file.getName().equals(IMAGE_FILE_NAME)
+                && JImageFile.isImageFile(file);
     }
 
     public boolean acceptAarFile(File file) {
@@ -160,6 +194,10 @@ public class FileManager {
         return existsWithExtension(file, ".jar");
     }
 
+    private boolean isJmod(File file) {
+        return existsWithExtension(file, ".jmod");
+    }
+
     private boolean isAar(File file) {
         return existsWithExtension(file, ".aar");
     }
@@ -0,0 +1,143 @@
+package jdepend.framework;
+
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.util.Arrays;
+
+/**
+ * The <code>IntArray</code> class is a growable array of ints, kept
+ * either on the heap or in the chunks of an <code>OffHeapStorage</code>.
+ *
+ * @since 2.11
+ */
+
+abstract class IntArray {
+
+    /**
+     * Returns an empty array.
+     *
+     * @param storage Off-heap storage, or <code>null</code> for the heap.
+     * @return Array.
+     */
+    static IntArray create(OffHeapStorage storage) {
+        return storage == null ? new Heap() : new OffHeap(storage);
+    }
+
+    abstract int size();
+
+    abstract int get(int index);
+
+    abstract void set(int index, int value);
+
+    abstract void add(int value);
+
+    /**
+     * Grows the array to the specified size, with zeros.
+     */
+    abstract void resize(int size);
+
+    /**
+     * Gives back the memory of this array, which must not be used
+     * afterwards.
+     */
+    abstract void release();
+
+    private static final class Heap extends IntArray {
+
+        private int[] values = new int[64];
+        private int size;
+
+        int size() {
+            return size;
+        }
+
+        int get(int index) {
+            return values[index];
+        }
+
+        void set(int index, int value) {
+            values[index] = value;
+        }
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        void resize(int newSize) {
+            if (newSize > values.length) {
+                values = Arrays.copyOf(values, Math.max(newSize, values.length * 2));
+            }
+            size = Math.max(size, newSize);
+        }
+
+        void release() {
+            values = null;
+        }
+    }
+
+    private static final class OffHeap extends IntArray {
+
+        private final OffHeapStorage storage;
+        private final int shift;
+        private final int mask;
+        private ByteBuffer[] buffers = new ByteBuffer[8];
+        private IntBuffer[] chunks = new IntBuffer[8];
+        private int chunkCount;
+        private int size;
+
+        OffHeap(OffHeapStorage storage) {
+            this.storage = storage;
+            int intsPerChunk = storage.getChunkSize() / Integer.BYTES;
+            shift = Integer.numberOfTrailingZeros(intsPerChunk);
+            mask = intsPerChunk - 1;
+        }
+
+        int size() {
+            return size;
+        }
+
+        int get(int index) {
+            return chunks[index >>> shift].get(index & mask);
+        }
+
+        void set(int index, int value) {
+            chunks[index >>> shift].put(index & mask, value);
+        }
+
+        void add(int value) {
+            if (size >>> shift == chunkCount) {
+                addChunk();
+            }
+            set(size++, value);
+        }
+
+        void resize(int newSize) {
+            while (chunkCount << shift < newSize) {
+                addChunk();
+            }
+            size = Math.max(size, newSize);
+        }
+
+        void release() {
+            for (int i = 0; i < chunkCount; i++) {
+                storage.free(buffers[i]);
+            }
+            buffers = null;
+            chunks = null;
+            chunkCount = 0;
+        }
+
+        private void addChunk() {
+            if (chunkCount == chunks.length) {
+                buffers = Arrays.copyOf(buffers, chunkCount * 2);
+                chunks = Arrays.copyOf(chunks, chunkCount * 2);
+            }
+            ByteBuffer buffer = storage.allocate();
+            buffers[chunkCount] = buffer;
+            chunks[chunkCount++] = buffer.asIntBuffer();
+        }
+    }
+}
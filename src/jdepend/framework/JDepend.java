@@ -1,7 +1,13 @@
 package jdepend.framework;
 
+import java.io.File;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.util.*;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Supplier;
 
 /**
  * The <code>JDepend</code> class analyzes directories of Java class files 
@@ -107,17 +113,68 @@ public class JDepend {
     private PackageFilter filter;
     private ClassFileParser parser;
     private JavaClassBuilder builder;
-    private Collection components;
+    private List<String> components;
 
     /**
-     * Table of JavaClass instances.
+     * Packages with a preset volatility, configured in the properties file.
      */
-    private Map<String, JavaClass> javaClasses;
+    private final Collection<JavaPackage> configuredPackages;
 
     /**
-     * Maps JavaClass instances to their corresponding module names.
+     * Graphs of every granularity, derived from the last analysis.
      */
-    private Map<String, String> classModules;
+    private DependencyRollup rollup;
+
+    /**
+     * Name-ordered graphs of the analyzed nodes of each granularity, built
+     * on demand.
+     */
+    private final Map<DependencyRollup.Level, PackageGraph> graphs =
+        new EnumMap<>(DependencyRollup.Level.class);
+
+    private PackageGraph graph;
+
+    /**
+     * Transitive dependency index of the analyzed packages, built on demand.
+     */
+    private ReachabilityIndex reachability;
+
+    /**
+     * Classes defined differently by several analyzed files in the last
+     * analysis.
+     */
+    private List<DuplicateClass> duplicateClasses = Collections.emptyList();
+
+    private AnalysisStats stats;
+
+    /**
+     * Storage the class graphs are kept in, or <code>null</code> for the
+     * heap.
+     */
+    private OffHeapStorage graphStorage;
+
+    /**
+     * Directory the class dependencies spill to in an out-of-core
+     * analysis, or <code>null</code> to analyze in memory.
+     */
+    private File spillDirectory;
+
+    /**
+     * Number of names the parser interns in an out-of-core analysis
+     * before it starts a new symbol table.
+     */
+    private static final int SYMBOL_LIMIT = 1 << 18;
+
+    /**
+     * Number of processes the classes are built by.
+     */
+    private int shardCount = 1;
+
+    /**
+     * Batch parser listeners, informed of the phases of the analysis.
+     */
+    private final List<BatchingParserListener> batchListeners =
+        new CopyOnWriteArrayList<>();
 
     /**
      * Indicates whether the analysis is module-based.
@@ -136,11 +193,17 @@ public class JDepend {
 
         this.fileManager = new FileManager();
         this.parser = new ClassFileParser(filter);
+        this.parser.skipFilteredClasses(true);
         this.builder = new JavaClassBuilder(parser, fileManager);
 
         PropertyConfigurator config = new PropertyConfigurator();
-        addPackages(config.getConfiguredPackages());
+        this.configuredPackages = new ArrayList<>();
+        for (Object jPackage : config.getConfiguredPackages()) {
+            configuredPackages.add((JavaPackage) jPackage);
+        }
+        addPackages(configuredPackages);
         analyzeInnerClasses(config.getAnalyzeInnerClasses());
+        setTargetRelease(config.getTargetRelease());
         configModuleAnalysis(config);
     }
 
@@ -149,20 +212,298 @@ public class JDepend {
      * analyzed packages.
      * 
      * @return Collection of analyzed packages.
+     * @throws java.util.concurrent.CancellationException If the analysis
+     *         was cancelled.
+     * @throws IllegalStateException If the classes are built by shards
+     *         and a jar cache is set.
      */
     public Collection<JavaPackage> analyze() {
 
-        JavaClassDataset dataset = builder.build();
-        this.javaClasses = dataset.getJavaClasses();
-        this.classModules = dataset.getJavaClassModule();
+        if (spillDirectory != null) {
+            return analyzeOutOfCore();
+        }
+        if (shardCount > 1 && builder.getJarCache() != null) {
+            throw new IllegalStateException(
+                    "A jar cache is not shared with shard processes");
+        }
+        return analyze(shardCount > 1 ? this::buildShards : builder::build);
+    }
+
+    /**
+     * Analyzes the classes of the specified partial results, written by
+     * shards each analyzing some of the directories, as a single analysis
+     * of all their directories, and returns the collection of analyzed
+     * packages.
+     *
+     * @param partialResults Partial results.
+     * @return Collection of analyzed packages.
+     * @throws UncheckedIOException If a partial result cannot be read.
+     * @see #writePartialResult(OutputStream)
+     * @since 2.11
+     */
+    public Collection<JavaPackage> analyzePartialResults(List<File> partialResults) {
+        return analyze(() -> {
+            JavaClassDataset dataset = new JavaClassDataset();
+            try {
+                PartialResult.merge(partialResults, dataset,
+                        parser.getSymbolTable(), stats);
+            } catch (IOException ioe) {
+                throw new UncheckedIOException(ioe);
+            }
+            return dataset;
+        });
+    }
+
+    private Collection<JavaPackage> analyze(Supplier<JavaClassDataset> classes) {
+
+        //
+        // The names of the classes of the previous analysis are only kept
+        // by its classes, if they are.
+        //
+        parser.resetSymbolTable();
+
+        JavaClassDataset dataset;
+        AnalysisPhase building = phaseStarted(AnalysisPhase.BUILD);
+        try {
+            dataset = classes.get();
+        } finally {
+            phaseFinished(building);
+        }
+
+        AnalysisPhase graphing = phaseStarted(AnalysisPhase.GRAPH);
+        try {
+            releaseGraph();
+            ClassGraph graph = ClassGraph.build(dataset, getFilter(), graphStorage);
+            duplicateClasses = dataset.getDuplicateClassIndex().getDuplicateClasses();
+
+            rollup = new DependencyRollup(graph, components, configuredPackages);
+            rollup.aggregate(isModuleAnalysis ? DependencyRollup.Level.MODULE
+                    : DependencyRollup.Level.PACKAGE, this::addPackage);
+        } finally {
+            phaseFinished(graphing);
+        }
+        graphs.clear();
+        this.graph = null;
+        reachability = null;
+
+        return getPackages();
+    }
+
+    /**
+     * Builds the classes of the registered directories and writes them as
+     * a partial result, to be analyzed with the partial results of the
+     * other directories, by <code>analyzePartialResults</code>. The
+     * partial result is only read by the same version of JDepend.
+     *
+     * @param out Output stream, left open.
+     * @throws IOException If the partial result cannot be written.
+     * @throws java.util.concurrent.CancellationException If the build was
+     *         cancelled.
+     * @since 2.11
+     */
+    public void writePartialResult(OutputStream out) throws IOException {
+        parser.resetSymbolTable();
+        PartialResult.write(builder, parser, stats, out);
+    }
+
+    /*
+     * Builds the classes in child processes, each writing the partial
+     * result of some of the registered directories, and merges their
+     * partial results.
+     */
+    private JavaClassDataset buildShards() {
+        List<File> directories = fileManager.getDirectories();
+        int shards = Math.min(shardCount, directories.size());
+        List<Process> processes = new ArrayList<>();
+        List<File> partialResults = new ArrayList<>();
+        try {
+            for (int i = 0; i < shards; i++) {
+                File partialResult = File.createTempFile("jdepend", ".partial");
+                partialResult.deleteOnExit();
+                partialResults.add(partialResult);
+
+                List<String> command = new ArrayList<>();
+                command.add(new File(System.getProperty("java.home"), "bin/java").getPath());
+                command.add("-cp");
+                command.add(System.getProperty("java.class.path"));
+                command.add("-Duser.home=" + System.getProperty("user.home"));
+                command.add(PartialResult.class.getName());
+                for (Object filter : getFilter().getFilters()) {
+                    command.add("-filter");
+                    command.add((String) filter);
+                }
+                command.add("-release");
+                command.add(String.valueOf(builder.getTargetRelease()));
+                if (!fileManager.isAcceptingInnerClasses()) {
+                    command.add("-noinner");
+                }
+                if (stats != null) {
+                    command.add("-stats");
+                }
+                command.add("-file");
+                command.add(partialResult.getPath());
+                for (int d = i; d < directories.size(); d += shards) {
+                    command.add(directories.get(d).getPath());
+                }
+                // a shard prints to standard error only
+                processes.add(new ProcessBuilder(command).inheritIO().start());
+            }
+
+            for (int i = 0; i < shards; i++) {
+                if (processes.get(i).waitFor() != 0) {
+                    throw new IOException("Shard " + (i + 1) + " of " + shards + " failed");
+                }
+            }
+
+            JavaClassDataset dataset = new JavaClassDataset();
+            PartialResult.merge(partialResults, dataset,
+                    parser.getSymbolTable(), stats);
+            return dataset;
+
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Analysis interrupted");
+        } catch (IOException ioe) {
+            throw new UncheckedIOException(ioe);
+        } finally {
+            for (Process process : processes) {
+                process.destroy();
+            }
+            for (File partialResult : partialResults) {
+                partialResult.delete();
+            }
+        }
+    }
+
+    /*
+     * Analyzes the packages without a class graph: the classes are
+     * recorded by an external aggregator as soon as they are parsed, and
+     * aggregated by package once all files are read.
+     */
+    private Collection<JavaPackage> analyzeOutOfCore() {
+        if (isModuleAnalysis) {
+            throw new IllegalStateException(
+                    "Module analysis needs the class graph in memory");
+        }
+
+        releaseGraph();
+        rollup = null;
+        parser.resetSymbolTable();
+        PackageFilter packageFilter = getFilter();
+
+        try (ExternalAggregator aggregator = new ExternalAggregator(
+                spillDirectory, ExternalAggregator.DEFAULT_RUN_SIZE)) {
+
+            AnalysisPhase building = phaseStarted(AnalysisPhase.BUILD);
+            try {
+                builder.build(jClass -> {
+                    if (packageFilter.accept(jClass.getPackageName())) {
+                        try {
+                            aggregator.add(jClass);
+                        } catch (IOException ioe) {
+                            throw new UncheckedIOException(ioe);
+                        }
+                    }
+                    if (parser.getSymbolTable().size() > SYMBOL_LIMIT) {
+                        parser.resetSymbolTable();
+                    }
+                });
+            } finally {
+                phaseFinished(building);
+            }
+
+            AnalysisPhase graphing = phaseStarted(AnalysisPhase.GRAPH);
+            try {
+                aggregator.aggregate(this::addPackage);
+            } finally {
+                phaseFinished(graphing);
+            }
 
-        for (JavaClass aClass : javaClasses.values()) {
-            analyzeClass(aClass);
+        } catch (IOException ioe) {
+            throw new UncheckedIOException("Cannot spill class dependencies to "
+                    + spillDirectory, ioe);
         }
 
+        duplicateClasses = Collections.emptyList();
+        graphs.clear();
+        this.graph = null;
+        reachability = null;
+
         return getPackages();
     }
 
+    /**
+     * Gives back the off-heap memory of the class graph of the last
+     * analysis, after which no other granularity can be derived from it.
+     * The analyzed packages remain available.
+     *
+     * @since 2.11
+     */
+    public void releaseGraph() {
+        if (rollup != null && graphStorage != null) {
+            rollup.getClassGraph().release();
+            rollup = null;
+        }
+    }
+
+    /**
+     * Returns the graphs of every granularity derived from the last
+     * analysis, without parsing the registered directories again.
+     *
+     * @return Dependency rollup, or <code>null</code> if nothing was
+     *         analyzed yet.
+     */
+    public DependencyRollup getRollup() {
+        return rollup;
+    }
+
+    /**
+     * Returns the analyzed nodes of the specified granularity.
+     *
+     * @param level Granularity.
+     * @return Collection of nodes.
+     * @throws IllegalStateException If nothing was analyzed yet.
+     */
+    public Collection<JavaPackage> getPackages(DependencyRollup.Level level) {
+        if (rollup == null) {
+            throw new IllegalStateException(spillDirectory == null
+                    ? "No analysis has been run"
+                    : "Only packages are analyzed out of core");
+        }
+        return rollup.getPackages(level);
+    }
+
+    /**
+     * Returns the name-ordered graph of the analyzed packages, built on
+     * first use after an analysis. User interfaces read the packages, their
+     * sorted classes and couplings from it instead of sorting copies.
+     *
+     * @return Package graph.
+     */
+    public PackageGraph getPackageGraph() {
+        if (graph == null) {
+            graph = new PackageGraph(getPackages());
+        }
+        return graph;
+    }
+
+    /**
+     * Returns the name-ordered graph of the analyzed nodes of the specified
+     * granularity, built on first use after an analysis.
+     *
+     * @param level Granularity.
+     * @return Package graph.
+     * @throws IllegalStateException If nothing was analyzed yet.
+     */
+    public PackageGraph getPackageGraph(DependencyRollup.Level level) {
+        PackageGraph levelGraph = graphs.get(level);
+        if (levelGraph == null) {
+            levelGraph = new PackageGraph(getPackages(level));
+            graphs.put(level, levelGraph);
+        }
+        return levelGraph;
+    }
+
     /**
      * Configures the module analysis.
      */
@@ -188,7 +529,7 @@ public class JDepend {
      * @param components Comma-separated list of components.
      */
     public void setComponents(String components) {
-        this.components = new ArrayList();
+        this.components = new ArrayList<>();
         StringTokenizer st = new StringTokenizer(components, ",");
         while (st.hasMoreTokens()) {
             String component = st.nextToken();
@@ -206,6 +547,128 @@ public class JDepend {
         fileManager.acceptInnerClasses(b);
     }
 
+    /**
+     * Sets the Java feature release, such as 11 or 17, whose versions of
+     * the classes of multi-release jars are analyzed.
+     *
+     * @param release Target release.
+     * @since 2.11
+     */
+    public void setTargetRelease(int release) {
+        builder.setTargetRelease(release);
+    }
+
+    /**
+     * Sets the cache of parsed jar, war and zip files shared with the
+     * other analyses of this process, so that a file analyzed by several
+     * of them is parsed once.
+     *
+     * @param jarCache Jar cache, or <code>null</code> to parse every file.
+     * @since 2.11
+     */
+    public void setJarCache(JarCache jarCache) {
+        builder.setJarCache(jarCache);
+    }
+
+    /**
+     * Sets the statistics the phases of the analysis, the files it opens
+     * and the classes it reads and parses are counted and timed in.
+     *
+     * @param stats Statistics, or <code>null</code> to measure nothing.
+     * @since 2.11
+     */
+    public void setStats(AnalysisStats stats) {
+        this.stats = stats;
+        builder.setStats(stats);
+    }
+
+    /**
+     * @return Statistics of the analysis, or <code>null</code>.
+     * @since 2.11
+     */
+    public AnalysisStats getStats() {
+        return stats;
+    }
+
+    /**
+     * Sets the storage the class graphs of the next analyses are kept in,
+     * off the heap. The storage is closed by its owner, after the last use
+     * of the analysis.
+     *
+     * @param storage Off-heap storage, or <code>null</code> to keep the
+     *        graphs on the heap.
+     * @since 2.11
+     */
+    public void setGraphStorage(OffHeapStorage storage) {
+        this.graphStorage = storage;
+    }
+
+    /**
+     * @return Off-heap storage of the class graphs, or <code>null</code>.
+     * @since 2.11
+     */
+    public OffHeapStorage getGraphStorage() {
+        return graphStorage;
+    }
+
+    /**
+     * Sets the directory the next analyses spill to, analyzing out of
+     * core: the dependencies of the classes are written to sorted run
+     * files as soon as they are parsed, and are aggregated by package
+     * with an external merge, so that the memory used is bounded by the
+     * package graph rather than by the number of classes.
+     * <p>
+     * Packages count their classes without keeping them, no class graph
+     * is kept, so only the package level is available, and classes
+     * found again with a different content are not reported.
+     *
+     * @param directory Spill directory, or <code>null</code> to analyze
+     *        in memory.
+     * @since 2.11
+     */
+    public void setSpillDirectory(File directory) {
+        this.spillDirectory = directory;
+    }
+
+    /**
+     * @return Spill directory of out-of-core analyses, or
+     *         <code>null</code>.
+     * @since 2.11
+     */
+    public File getSpillDirectory() {
+        return spillDirectory;
+    }
+
+    /**
+     * Sets the number of child processes the classes of the next analyses
+     * are built by. The registered directories are shared out among the
+     * processes, each of which writes a partial result, and the partial
+     * results are merged into the analysis a single process gives. The
+     * children run the Java of this process with its class path, write
+     * their messages to standard error, and add their statistics to those
+     * of this instance. They do not inform the parse listeners, and
+     * cannot use a jar cache. An out-of-core analysis builds the classes
+     * in this process.
+     *
+     * @param shardCount Number of processes, <code>1</code> to build the
+     *        classes in this process.
+     * @since 2.11
+     */
+    public void setShardCount(int shardCount) {
+        if (shardCount < 1) {
+            throw new IllegalArgumentException("Invalid shard count: " + shardCount);
+        }
+        this.shardCount = shardCount;
+    }
+
+    /**
+     * @return Number of processes the classes are built by.
+     * @since 2.11
+     */
+    public int getShardCount() {
+        return shardCount;
+    }
+
     /**
      * Returns the collection of analyzed packages.
      * 
@@ -243,6 +706,15 @@ public class JDepend {
         return builder.countClasses();
     }
 
+    /**
+     * Cancels the <code>analyze()</code> or <code>countClasses()</code>
+     * call running on another thread, which then throws a
+     * <code>java.util.concurrent.CancellationException</code>.
+     */
+    public void cancel() {
+        builder.cancel();
+    }
+
     /**
      * Indicates whether the packages contain one or more dependency cycles.
      * 
@@ -259,6 +731,142 @@ public class JDepend {
         return false;
     }
 
+    /**
+     * Returns the transitive dependency index of the analyzed packages,
+     * building it on first use after an analysis.
+     *
+     * @return Reachability index.
+     */
+    public ReachabilityIndex getReachabilityIndex() {
+        if (reachability == null) {
+            reachability = new ReachabilityIndex(getPackageGraph());
+        }
+        return reachability;
+    }
+
+    /**
+     * Returns the packages upon which the package of the specified name
+     * depends, directly or transitively, in name order.
+     *
+     * @param name Package name.
+     * @return Transitive efferents, or an empty list if the package was not
+     *         analyzed.
+     */
+    public List<JavaPackage> getTransitiveEfferents(String name) {
+        ReachabilityIndex index = getReachabilityIndex();
+        int id = index.getGraph().indexOf(name);
+        return id < 0 ? new ArrayList<>() : index.getTransitiveEfferents(id);
+    }
+
+    /**
+     * Returns the packages which depend, directly or transitively, upon
+     * the package of the specified name, in name order. These are the
+     * packages that may be impacted by a change to it.
+     *
+     * @param name Package name.
+     * @return Transitive afferents, or an empty list if the package was not
+     *         analyzed.
+     */
+    public List<JavaPackage> getTransitiveAfferents(String name) {
+        ReachabilityIndex index = getReachabilityIndex();
+        int id = index.getGraph().indexOf(name);
+        return id < 0 ? new ArrayList<>() : index.getTransitiveAfferents(id);
+    }
+
+    /**
+     * Indicates whether package <code>a</code> depends, directly or
+     * transitively, upon package <code>b</code>.
+     *
+     * @param a Name of the depending package.
+     * @param b Name of the package depended upon.
+     * @return <code>true</code> if <code>a</code> depends upon
+     *         <code>b</code>; <code>false</code> otherwise, or if either
+     *         package was not analyzed.
+     */
+    public boolean dependsTransitively(String a, String b) {
+        ReachabilityIndex index = getReachabilityIndex();
+        int from = index.getGraph().indexOf(a);
+        int to = index.getGraph().indexOf(b);
+        return from >= 0 && to >= 0 && index.reaches(from, to);
+    }
+
+    /**
+     * Enumerates the elementary dependency cycles of the analyzed packages,
+     * informing the specified listener of each one.
+     *
+     * @param listener Cycle listener, or <code>null</code>.
+     * @param maxCycles Number of cycles after which to stop.
+     * @param maxLength Maximum number of packages in a cycle.
+     * @return Enumerator holding the cycle count and the number of cycles
+     *         each dependency takes part in.
+     */
+    public CycleEnumerator enumerateCycles(CycleListener listener,
+            int maxCycles, int maxLength) {
+        CycleEnumerator enumerator =
+            new CycleEnumerator(getReachabilityIndex().getComponents());
+        enumerator.setMaxCycles(maxCycles);
+        enumerator.setMaxLength(maxLength);
+        enumerator.enumerate(listener);
+        return enumerator;
+    }
+
+    /**
+     * Computes a cheap set of dependencies whose removal breaks every
+     * dependency cycle of the analyzed packages.
+     *
+     * @return Feedback arc set.
+     */
+    public FeedbackArcSet getFeedbackArcSet() {
+        return new FeedbackArcSet(getReachabilityIndex().getComponents());
+    }
+
+    /**
+     * Returns the classes defined with different content by several of
+     * the analyzed files in the last analysis, whose dependencies are
+     * those of one of the definitions.
+     *
+     * @return Duplicate classes, in name order.
+     * @since 2.11
+     */
+    public List<DuplicateClass> getDuplicateClasses() {
+        return duplicateClasses;
+    }
+
+    /**
+     * Checks the dependencies of the analyzed packages against the
+     * specified architecture rules.
+     *
+     * @param rules Architecture rules.
+     * @return Violations, in name order of their packages.
+     */
+    public List<RuleViolation> checkRules(ArchitectureRules rules) {
+        PackageGraph checked = getReachabilityIndex().getGraph();
+
+        //
+        // The contributing classes are found at the level of the analyzed
+        // nodes, which are components or modules when so configured.
+        //
+        if (rollup == null) {
+            return rules.check(checked, this::importsComponent);
+        }
+        DependencyRollup.Level level = isModuleAnalysis
+                ? DependencyRollup.Level.MODULE
+                : components != null ? DependencyRollup.Level.COMPONENT
+                : DependencyRollup.Level.PACKAGE;
+        return rules.check(checked,
+                (jClass, name) -> rollup.dependsUpon(level, jClass, name));
+    }
+
+    private boolean importsComponent(JavaClass jClass, String name) {
+        ClassSummary summary = jClass.getSummary();
+        for (int i = 0; i < summary.getImportedPackageCount(); i++) {
+            if (toComponent(summary.getImportedPackage(i)).equals(name)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     /**
      * Indicates whether the analyzed packages match the specified 
      * dependency constraint.
@@ -279,6 +887,48 @@ public class JDepend {
         parser.addParseListener(listener);
     }
 
+    /**
+     * Registers the specified batch parser listener, informed of the
+     * parsed classes in batches of at most the specified size, and at
+     * least at the specified interval while classes are parsed.
+     *
+     * @param listener Batch parser listener.
+     * @param batchSize Maximum number of classes of a batch.
+     * @param intervalMillis Maximum time between two batches, in
+     *        milliseconds; 0 to only deliver full batches before the end
+     *        of the build phase.
+     * @since 2.11
+     */
+    public void addParseListener(BatchParserListener listener, int batchSize,
+            long intervalMillis) {
+        BatchingParserListener batching =
+            new BatchingParserListener(listener, batchSize, intervalMillis);
+        batchListeners.add(batching);
+        parser.addParseListener(batching);
+    }
+
+    /*
+     * Informs the batch listeners that the specified phase starts, and
+     * begins measuring it.
+     */
+    private AnalysisPhase phaseStarted(String name) {
+        for (BatchingParserListener listener : batchListeners) {
+            listener.phaseStarted(name);
+        }
+        return AnalysisPhase.begin(name, stats);
+    }
+
+    /*
+     * Ends the measure of the specified phase, and informs the batch
+     * listeners that it finished.
+     */
+    private void phaseFinished(AnalysisPhase phase) {
+        phase.close();
+        for (BatchingParserListener listener : batchListeners) {
+            listener.phaseFinished(phase.getName());
+        }
+    }
+
     /**
      * Adds the specified Java package name to the collection of analyzed
      * packages.
@@ -299,8 +949,7 @@ public class JDepend {
 
     private String toComponent(String packageName) {
         if (components != null) {
-            for (Iterator i = components.iterator(); i.hasNext();) {
-                String component = (String)i.next();
+            for (String component : components) {
                 if (packageName.startsWith(component + ".")) {
                     return component;
                 }
@@ -331,6 +980,7 @@ public class JDepend {
     public void addPackage(JavaPackage pkg) {
         if (!packages.containsValue(pkg)) {
             packages.put(pkg.getName(), pkg);
+            reachability = null;
         }
     }
 
@@ -349,59 +999,6 @@ public class JDepend {
         this.filter = filter;
     }
 
-    private void analyzeClass(JavaClass clazz) {
-
-        String packageName = clazz.getPackageName();
-
-        if (!getFilter().accept(packageName)) {
-            return;
-        }
-
-        if (isModuleAnalysis) {
-            analyzeClassByModule(clazz);
-        } else {
-            analyzeClassByPackage(clazz);
-        }
-    }
-
-    private void analyzeClassByPackage(JavaClass clazz) {
-        String packageName = clazz.getPackageName();
-        JavaPackage clazzPackage = addPackage(packageName);
-        clazzPackage.addClass(clazz);
-
-        Collection<JavaPackage> imports = clazz.getImportedPackages();
-        for (JavaPackage importedPackage : imports) {
-            importedPackage = addPackage(importedPackage.getName());
-            clazzPackage.dependsUpon(importedPackage, 1);
-        }
-    }
-
-    private void analyzeClassByModule(JavaClass clazz) {
-        JavaPackage module = addModule(clazz.getName());
-        module.addClass(clazz);
-
-        Map<String, Integer> dependencies = clazz.getDependencies();
-        for (Map.Entry<String, Integer> dependency : dependencies.entrySet()) {
-            String depClz = dependency.getKey();
-            JavaPackage depModule = addModule(depClz);
-            module.dependsUpon(depModule, dependency.getValue());
-
-            if (javaClasses.containsKey(depClz)) {
-                JavaClass jc = javaClasses.get(depClz);
-                depModule.addClass(jc);
-            }
-        }
-    }
-
-    private JavaPackage addModule(String clazzName) {
-        String moduleName = classModules.get(clazzName);
-        if (moduleName == null) {
-            System.err.println("WARN: cannot detect module of class: " + clazzName);
-        }
-
-        return addPackage(moduleName == null ? "default" : moduleName);
-    }
-
     public void setModuleAnalysis(boolean isModuleAnalysis) {
     }
 }
@@ -0,0 +1,399 @@
+package jdepend.framework;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * The <code>JImageFile</code> class reads the resources of a Java runtime
+ * image file, the <code>lib/modules</code> file of a JDK or of a runtime
+ * built by jlink, in place.
+ * <p>
+ * The file is memory-mapped. Its index is decoded when the file is
+ * opened, and the content of a resource is only read when its stream is,
+ * so classes skipped by the analysis are never touched. Resources
+ * compressed with the <code>zip</code> plugin of jlink are inflated;
+ * those of other plugins cannot be read.
+ *
+ * @since 2.11
+ */
+
+public class JImageFile implements Closeable {
+
+    private static final int MAGIC = 0xCAFEDADA;
+
+    private static final int MAJOR_VERSION = 1;
+
+    private static final int HEADER_SIZE = 7 * 4;
+
+    private static final int COMPRESSED_MAGIC = 0xCAFEFAFA;
+
+    private static final int COMPRESSED_HEADER_SIZE = 4 + 8 + 8 + 4 + 4 + 1;
+
+    private static final int ATTRIBUTE_END = 0;
+    private static final int ATTRIBUTE_MODULE = 1;
+    private static final int ATTRIBUTE_PARENT = 2;
+    private static final int ATTRIBUTE_BASE = 3;
+    private static final int ATTRIBUTE_EXTENSION = 4;
+    private static final int ATTRIBUTE_OFFSET = 5;
+    private static final int ATTRIBUTE_COMPRESSED = 6;
+    private static final int ATTRIBUTE_UNCOMPRESSED = 7;
+    private static final int ATTRIBUTE_COUNT = 8;
+
+    private final String name;
+
+    private final FileChannel channel;
+
+    private final ByteBuffer image;
+
+    private final int stringsStart;
+
+    private final long resourcesStart;
+
+    private final List<Entry> entries;
+
+    /**
+     * Opens the specified runtime image file.
+     *
+     * @param file Runtime image file.
+     * @throws IOException If the file cannot be read or is not a runtime
+     *         image.
+     */
+    public JImageFile(File file) throws IOException {
+        name = file.getPath();
+        channel = new FileInputStream(file).getChannel();
+        try {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Runtime image too large: " + name);
+            }
+            MappedByteBuffer mapped =
+                channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+
+            //
+            // The image is written in the byte order of the platform which
+            // built it, which the magic number tells.
+            //
+            image = mapped.order(ByteOrder.LITTLE_ENDIAN);
+            if (image.limit() < HEADER_SIZE) {
+                throw new IOException("Not a runtime image: " + name);
+            }
+            if (image.getInt(0) != MAGIC) {
+                image.order(ByteOrder.BIG_ENDIAN);
+                if (image.getInt(0) != MAGIC) {
+                    throw new IOException("Not a runtime image: " + name);
+                }
+            }
+            int major = image.getInt(4) >>> 16;
+            if (major != MAJOR_VERSION) {
+                throw new IOException("Unsupported runtime image version "
+                        + major + ": " + name);
+            }
+
+            int tableLength = image.getInt(16);
+            int locationsSize = image.getInt(20);
+            int stringsSize = image.getInt(24);
+            int offsetsStart = HEADER_SIZE + tableLength * 4;
+            int locationsStart = offsetsStart + tableLength * 4;
+            stringsStart = locationsStart + locationsSize;
+            resourcesStart = (long) stringsStart + stringsSize;
+            if (tableLength < 0 || locationsSize < 0 || stringsSize < 0
+                    || resourcesStart > image.limit()) {
+                throw new IOException("Corrupt runtime image: " + name);
+            }
+
+            List<Entry> list = new ArrayList<>(tableLength);
+            long[] attributes = new long[ATTRIBUTE_COUNT];
+            for (int i = 0; i < tableLength; i++) {
+                int location = locationsStart + image.getInt(offsetsStart + i * 4);
+                decodeLocation(location, attributes);
+                list.add(new Entry(this, attributes));
+            }
+            entries = Collections.unmodifiableList(list);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Indicates whether the specified file is a runtime image, from its
+     * magic number.
+     *
+     * @param file File.
+     * @return <code>true</code> if the file is a runtime image.
+     */
+    public static boolean isImageFile(File file) {
+        if (!file.isFile() || file.length() < HEADER_SIZE) {
+            return false;
+        }
+        try (InputStream in = new FileInputStream(file)) {
+            byte[] magic = new byte[4];
+            if (in.read(magic) != 4) {
+                return false;
+            }
+            int little = (magic[0] & 0xff) | (magic[1] & 0xff) << 8
+                    | (magic[2] & 0xff) << 16 | (magic[3] & 0xff) << 24;
+            int big = Integer.reverseBytes(little);
+            return little == MAGIC || big == MAGIC;
+        } catch (IOException ioe) {
+            return false;
+        }
+    }
+
+    /*
+     * Decodes the attributes of the location at the specified position:
+     * each is a byte holding its kind and length, followed by its value in
+     * big-endian order.
+     */
+    private void decodeLocation(int position, long[] attributes)
+            throws IOException {
+        Arrays.fill(attributes, 0);
+        int i = position;
+        while (true) {
+            if (i >= stringsStart) {
+                throw new IOException("Corrupt runtime image: " + name);
+            }
+            int data = image.get(i++) & 0xff;
+            int kind = data >>> 3;
+            if (kind == ATTRIBUTE_END) {
+                return;
+            }
+            if (kind >= ATTRIBUTE_COUNT) {
+                throw new IOException("Corrupt runtime image: " + name);
+            }
+            int length = (data & 0x7) + 1;
+            long value = 0;
+            for (int j = 0; j < length; j++) {
+                value = (value << 8) | (image.get(i++) & 0xff);
+            }
+            attributes[kind] = value;
+        }
+    }
+
+    /*
+     * Returns the null-terminated string at the specified offset of the
+     * strings table.
+     */
+    private String getString(long offset) {
+        int start = stringsStart + (int) offset;
+        int end = start;
+        while (image.get(end) != 0) {
+            end++;
+        }
+        byte[] bytes = new byte[end - start];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = image.get(start + i);
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @return Path of this image file.
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return Resources of this image, in index order.
+     */
+    public List<Entry> entries() {
+        return entries;
+    }
+
+    /**
+     * Returns a stream over the content of the specified resource, read
+     * from the mapped file.
+     *
+     * @param entry Resource of this image.
+     * @return Content stream.
+     * @throws IOException If the resource cannot be decompressed.
+     */
+    public InputStream getInputStream(Entry entry) throws IOException {
+        long start = resourcesStart + entry.offset;
+        if (entry.compressedSize == 0) {
+            return new ByteBufferInputStream(slice(start, entry.size));
+        }
+        return new ByteArrayInputStream(decompress(
+                slice(start, entry.compressedSize), entry.size));
+    }
+
+    private ByteBuffer slice(long start, long size) throws IOException {
+        if (start + size > image.limit()) {
+            throw new IOException("Corrupt runtime image: " + name);
+        }
+        ByteBuffer slice = image.duplicate();
+        slice.position((int) start);
+        slice.limit((int) (start + size));
+        return slice.slice().order(image.order());
+    }
+
+    /*
+     * Undoes the compressions applied to a resource, each described by a
+     * header preceding the content it produced.
+     */
+    private byte[] decompress(ByteBuffer content, long size) throws IOException {
+        byte[] bytes = new byte[content.remaining()];
+        content.get(bytes);
+
+        ByteBuffer header = ByteBuffer.wrap(bytes).order(image.order());
+        while (bytes.length >= COMPRESSED_HEADER_SIZE
+                && header.getInt(0) == COMPRESSED_MAGIC) {
+            long uncompressedSize = header.getLong(12);
+            String decompressor = getString(header.getInt(20) & 0xffffffffL);
+            if (!decompressor.equals("zip")) {
+                throw new IOException("Unsupported " + decompressor
+                        + " compression in runtime image: " + name);
+            }
+            bytes = inflate(bytes, COMPRESSED_HEADER_SIZE, uncompressedSize);
+            header = ByteBuffer.wrap(bytes).order(image.order());
+        }
+
+        if (bytes.length != size) {
+            throw new IOException("Corrupt runtime image: " + name);
+        }
+        return bytes;
+    }
+
+    private byte[] inflate(byte[] compressed, int offset, long size)
+            throws IOException {
+        if (size > Integer.MAX_VALUE) {
+            throw new IOException("Corrupt runtime image: " + name);
+        }
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(compressed, offset, compressed.length - offset);
+            byte[] result = new byte[(int) size];
+            int n = 0;
+            while (n < result.length && !inflater.finished()) {
+                int count = inflater.inflate(result, n, result.length - n);
+                if (count == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                n += count;
+            }
+            if (n != result.length) {
+                throw new IOException("Corrupt runtime image: " + name);
+            }
+            return result;
+        } catch (DataFormatException dfe) {
+            throw new IOException("Corrupt runtime image: " + name, dfe);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    /**
+     * Closes this image. The mapping is released when it is no longer
+     * referenced.
+     */
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * The <code>Entry</code> class describes a resource of a runtime
+     * image.
+     */
+    public static class Entry {
+
+        private final String module;
+        private final String name;
+        private final long offset;
+        private final long compressedSize;
+        private final long size;
+
+        Entry(JImageFile image, long[] attributes) {
+            module = image.getString(attributes[ATTRIBUTE_MODULE]);
+
+            StringBuilder path = new StringBuilder();
+            String parent = image.getString(attributes[ATTRIBUTE_PARENT]);
+            if (parent.length() > 0) {
+                path.append(parent).append('/');
+            }
+            path.append(image.getString(attributes[ATTRIBUTE_BASE]));
+            String extension = image.getString(attributes[ATTRIBUTE_EXTENSION]);
+            if (extension.length() > 0) {
+                path.append('.').append(extension);
+            }
+            name = path.toString();
+
+            offset = attributes[ATTRIBUTE_OFFSET];
+            compressedSize = attributes[ATTRIBUTE_COMPRESSED];
+            size = attributes[ATTRIBUTE_UNCOMPRESSED];
+        }
+
+        /**
+         * @return Name of the module of this resource.
+         */
+        public String getModule() {
+            return module;
+        }
+
+        /**
+         * @return Path of this resource in its module, such as
+         *         <code>java/lang/Object.class</code>.
+         */
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * @return Uncompressed size of this resource.
+         */
+        public long getSize() {
+            return size;
+        }
+
+        public String toString() {
+            return "/" + module + "/" + name;
+        }
+    }
+
+    //
+    // Stream over a slice of the mapped image.
+    //
+    private static class ByteBufferInputStream extends InputStream {
+
+        private final ByteBuffer buffer;
+
+        ByteBufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xff : -1;
+        }
+
+        public int read(byte[] b, int off, int len) {
+            if (len == 0) {
+                return 0;
+            }
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            int n = Math.min(len, buffer.remaining());
+            buffer.get(b, off, n);
+            return n;
+        }
+
+        public long skip(long n) {
+            int skipped = (int) Math.max(0, Math.min(n, buffer.remaining()));
+            buffer.position(buffer.position() + skipped);
+            return skipped;
+        }
+
+        public int available() {
+            return buffer.remaining();
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package jdepend.framework;
+
+import java.io.*;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The <code>JarCache</code> class shares the classes parsed from jar, war
+ * and zip files between analyses, so that a library used by many projects
+ * is parsed once per process.
+ * <p>
+ * Entries are keyed by the SHA-256 hash of the file content, so copies of
+ * a jar at different paths share an entry, and by the parse settings,
+ * since the package filter applies while parsing. Concurrent analyses
+ * asking for the same entry wait for the one parsing it.
+ * <p>
+ * The cached <code>JavaClass</code> instances and module descriptors are
+ * shared by the analyses, which only read them. The module names inferred
+ * from the paths of the files are not cached. Parse listeners are not
+ * informed of classes taken from the cache.
+ *
+ * @since 2.11
+ */
+
+public class JarCache {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final ConcurrentMap<String, Future<JavaClassDataset>> entries =
+        new ConcurrentHashMap<>();
+
+    /**
+     * Content hashes by path, size and modification time, so a file shared
+     * by several projects is only read once to be hashed.
+     */
+    private final ConcurrentMap<String, String> digests =
+        new ConcurrentHashMap<>();
+
+    private final AtomicInteger hits = new AtomicInteger();
+
+    private final AtomicInteger misses = new AtomicInteger();
+
+    /**
+     * Returns the classes and module descriptor of the specified file
+     * parsed with the specified settings, calling the specified parser if
+     * they are not cached yet.
+     *
+     * @param file Jar, war or zip file.
+     * @param settings Parse settings the classes depend upon.
+     * @param parser Parses the classes of the file.
+     * @return Dataset of the file, which must not be modified.
+     * @throws IOException If the file cannot be read or parsed.
+     */
+    public JavaClassDataset get(File file, String settings,
+            Callable<JavaClassDataset> parser) throws IOException {
+
+        String key = digest(file) + ' ' + settings;
+
+        FutureTask<JavaClassDataset> task = new FutureTask<>(parser);
+        Future<JavaClassDataset> entry = entries.putIfAbsent(key, task);
+        if (entry == null) {
+            misses.incrementAndGet();
+            entry = task;
+            task.run();
+        } else {
+            hits.incrementAndGet();
+        }
+
+        try {
+            return entry.get();
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while parsing "
+                    + file.getPath());
+        } catch (ExecutionException ee) {
+            entries.remove(key, entry);
+            Throwable cause = ee.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IOException(cause);
+        }
+    }
+
+    private String digest(File file) throws IOException {
+        String location = file.getCanonicalPath() + ' ' + file.length() + ' '
+                + file.lastModified();
+        String digest = digests.get(location);
+        if (digest == null) {
+            digest = computeDigest(file);
+            digests.put(location, digest);
+        }
+        return digest;
+    }
+
+    private static String computeDigest(File file) throws IOException {
+        MessageDigest md;
+        try {
+            md = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException nsae) {
+            throw new IllegalStateException(nsae);
+        }
+
+        byte[] buffer = new byte[BUFFER_SIZE];
+        try (InputStream is = new FileInputStream(file)) {
+            int n;
+            while ((n = is.read(buffer)) > 0) {
+                md.update(buffer, 0, n);
+            }
+        }
+
+        StringBuilder hex = new StringBuilder(64);
+        for (byte b : md.digest()) {
+            hex.append(Character.forDigit((b >> 4) & 0xf, 16));
+            hex.append(Character.forDigit(b & 0xf, 16));
+        }
+        return hex.toString();
+    }
+
+    /**
+     * @return Number of requests answered from the cache.
+     */
+    public int getHitCount() {
+        return hits.get();
+    }
+
+    /**
+     * @return Number of requests which parsed a file.
+     */
+    public int getMissCount() {
+        return misses.get();
+    }
+
+    /**
+     * @return Number of cached files.
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Removes all cached classes.
+     */
+    public void clear() {
+        entries.clear();
+        digests.clear();
+    }
+}
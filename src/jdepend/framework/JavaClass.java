@@ -12,57 +12,89 @@ import java.util.*;
 
 public class JavaClass {
 
-    private String className;
-    private String packageName;
-    private boolean isAbstract;
-    private final HashMap<String, JavaPackage> imports;
-    private String sourceFile;
+    /**
+     * The name, package, source file and dependencies of this class, as
+     * of its last build.
+     */
+    private ClassSummary summary;
 
     /**
-     * The collection of classes on which this class depends.
+     * The summary being changed by the mutators of this class, if it was
+     * changed since its last build.
      */
-    private final Map<String, Integer> dependencies;
+    private volatile ClassSummary.Builder builder;
 
     public JavaClass(String name) {
-        className = name;
-        packageName = "default";
-        isAbstract = false;
-        imports = new HashMap<>();
-        dependencies = new HashMap<>();
-        sourceFile = "Unknown";
+        builder = new ClassSummary.Builder(name, "default", "Unknown");
+    }
+
+    /**
+     * Constructs a <code>JavaClass</code> viewing the summary read by a
+     * <code>ClassFileParser</code>.
+     *
+     * @param summary Class summary.
+     * @since 2.11
+     */
+    public JavaClass(ClassSummary summary) {
+        this.summary = summary;
+    }
+
+    /**
+     * Returns the summary this class views. The mutators of this class
+     * change a copy of it, built into a new summary when the
+     * dependencies of the class are next read.
+     *
+     * @return Class summary.
+     * @since 2.11
+     */
+    public ClassSummary getSummary() {
+        return summary();
     }
 
-    public void setName(String name) {
-        className = name;
+    public synchronized void setName(String name) {
+        changing().name = name;
     }
 
     public String getName() {
-        return className;
+        ClassSummary.Builder b = builder;
+        return b != null ? b.name : summary.getName();
     }
 
-    public void setPackageName(String name) {
-        packageName = name;
+    public synchronized void setPackageName(String name) {
+        changing().packageName = name;
     }
 
     public String getPackageName() {
-        return packageName;
+        ClassSummary.Builder b = builder;
+        return b != null ? b.packageName : summary.getPackageName();
     }
 
-    public void setSourceFile(String name) {
-        sourceFile = name;
+    public synchronized void setSourceFile(String name) {
+        changing().sourceFile = name;
     }
 
     public String getSourceFile() {
-        return sourceFile;
+        ClassSummary.Builder b = builder;
+        return b != null ? b.sourceFile : summary.getSourceFile();
     }
 
+    /**
+     * Returns the packages imported by this class, as new
+     * <code>JavaPackage</code> instances.
+     */
     public Collection<JavaPackage> getImportedPackages() {
-        return imports.values();
+        ClassSummary summary = summary();
+        List<JavaPackage> imports = new ArrayList<>(summary.getImportedPackageCount());
+        for (int i = 0; i < summary.getImportedPackageCount(); i++) {
+            imports.add(new JavaPackage(summary.getImportedPackage(i)));
+        }
+        return imports;
     }
 
-    public void addImportedPackage(JavaPackage jPackage) {
-        if (!jPackage.getName().equals(getPackageName())) {
-            imports.put(jPackage.getName(), jPackage);
+    public synchronized void addImportedPackage(JavaPackage jPackage) {
+        ClassSummary.Builder b = changing();
+        if (!jPackage.getName().equals(b.packageName)) {
+            b.addImportedPackage(jPackage.getName());
         }
     }
 
@@ -71,29 +103,56 @@ public class JavaClass {
      *
      * @param className Name of the class on which this class depends.
      */
-    public void addDependency(String className) {
+    public synchronized void addDependency(String className) {
         if (className == null || className.isBlank()) {
             return;
         }
 
-        Integer count = dependencies.get(className);
-        count = count == null ? 1 : count + 1;
-        dependencies.put(className, count);
+        changing().addDependency(className);
     }
 
     /**
-     * Returns classes on which this class depends.
+     * Returns classes on which this class depends, with the number of
+     * references to each, as an unmodifiable view of the summary.
      */
     public Map<String, Integer> getDependencies() {
-        return dependencies;
+        return new Dependencies();
     }
 
     public boolean isAbstract() {
-        return isAbstract;
+        ClassSummary.Builder b = builder;
+        return b != null ? b.isAbstract : summary.isAbstract();
+    }
+
+    public synchronized void isAbstract(boolean isAbstract) {
+        changing().isAbstract = isAbstract;
+    }
+
+    /*
+     * Returns the summary of this class, built if it was changed.
+     */
+    private ClassSummary summary() {
+        if (builder == null) {
+            return summary;
+        }
+        synchronized (this) {
+            if (builder != null) {
+                summary = builder.build();
+                builder = null;
+            }
+            return summary;
+        }
     }
 
-    public void isAbstract(boolean isAbstract) {
-        this.isAbstract = isAbstract;
+    /*
+     * Returns the builder of the changes to this class, started from its
+     * summary by the first change since it was built.
+     */
+    private ClassSummary.Builder changing() {
+        if (builder == null) {
+            builder = new ClassSummary.Builder(summary);
+        }
+        return builder;
     }
 
     public boolean equals(Object other) {
@@ -110,13 +169,65 @@ public class JavaClass {
         return getName().hashCode();
     }
 
-    public static class ClassComparator implements Comparator {
-
-        public int compare(Object a, Object b) {
-            JavaClass c1 = (JavaClass) a;
-            JavaClass c2 = (JavaClass) b;
+    public static class ClassComparator implements Comparator<JavaClass> {
 
+        public int compare(JavaClass c1, JavaClass c2) {
             return c1.getName().compareTo(c2.getName());
         }
     }
+
+    /*
+     * The dependencies of the current summary, as a map of class name to
+     * number of references.
+     */
+    private class Dependencies extends AbstractMap<String, Integer> {
+
+        public int size() {
+            return summary().getDependencyCount();
+        }
+
+        public boolean containsKey(Object key) {
+            return key instanceof String
+                    && summary().indexOfDependency((String) key) >= 0;
+        }
+
+        public Integer get(Object key) {
+            ClassSummary summary = summary();
+            int index = key instanceof String
+                    ? summary.indexOfDependency((String) key) : -1;
+            return index < 0 ? null : summary.getReferenceCount(index);
+        }
+
+        public Set<Map.Entry<String, Integer>> entrySet() {
+            return new AbstractSet<Map.Entry<String, Integer>>() {
+
+                public int size() {
+                    return summary().getDependencyCount();
+                }
+
+                public Iterator<Map.Entry<String, Integer>> iterator() {
+                    ClassSummary viewed = summary();
+                    return new Iterator<Map.Entry<String, Integer>>() {
+
+                        private int index;
+
+                        public boolean hasNext() {
+                            return index < viewed.getDependencyCount();
+                        }
+
+                        public Map.Entry<String, Integer> next() {
+                            if (!hasNext()) {
+                                throw new NoSuchElementException();
+                            }
+                            Map.Entry<String, Integer> entry = new SimpleImmutableEntry<>(
+                                    viewed.getDependency(index),
+                                    viewed.getReferenceCount(index));
+                            index++;
+                            return entry;
+                        }
+                    };
+                }
+            };
+        }
+    }
 }
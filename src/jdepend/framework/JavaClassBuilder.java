@@ -1,14 +1,20 @@
 package jdepend.framework;
 
 import java.io.*;
+import java.lang.module.InvalidModuleDescriptorException;
+import java.lang.module.ModuleDescriptor;
 import java.util.*;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 import java.util.jar.*;
 import java.util.zip.*;
 
 /**
  * The <code>JavaClassBuilder</code> builds <code>JavaClass</code> 
- * instances from .class, .jar, .war, or .zip files.
+ * instances from .class, .jar, .war, .zip or .jmod files, and from
+ * runtime images.
  * 
  * @author <b>Mike Clark</b>
  * @author Clarkware Consulting, Inc.
@@ -17,7 +23,24 @@ import java.util.zip.*;
 public class JavaClassBuilder {
 
     private AbstractParser parser;
+    private AbstractParser entryFilter;
     private FileManager fileManager;
+    private final AtomicBoolean cancelled;
+
+    /**
+     * Directory of the version-specific classes of a multi-release jar.
+     */
+    private static final String VERSIONS_DIRECTORY = "META-INF/versions/";
+
+    private static final String MULTI_RELEASE = "Multi-Release";
+
+    private static final String MODULE_INFO = "module-info.class";
+
+    private static final String JMOD_CLASSES = "classes/";
+
+    private int targetRelease = Runtime.version().feature();
+    private JarCache jarCache;
+    private AnalysisStats stats;
 
     public JavaClassBuilder() {
         this(new ClassFileParser(), new FileManager());
@@ -28,8 +51,61 @@ public class JavaClassBuilder {
     }
 
     public JavaClassBuilder(AbstractParser parser, FileManager fm) {
+        this(parser, parser, fm, new AtomicBoolean());
+    }
+
+    private JavaClassBuilder(AbstractParser parser, AbstractParser entryFilter,
+            FileManager fm, AtomicBoolean cancelled) {
         this.parser = parser;
+        this.entryFilter = entryFilter;
         this.fileManager = fm;
+        this.cancelled = cancelled;
+    }
+
+    /**
+     * Cancels the build or class count in progress, which then throws a
+     * <code>CancellationException</code>. The request may be called from
+     * any thread, and is consumed by the first build to observe it. A
+     * request no build observed is dropped when the next build starts.
+     */
+    public void cancel() {
+        cancelled.set(true);
+    }
+
+    /**
+     * Sets the cache sharing the classes parsed from jar, war and zip files
+     * with other builders.
+     *
+     * @param jarCache Jar cache, or <code>null</code> to parse every file.
+     * @since 2.11
+     */
+    public void setJarCache(JarCache jarCache) {
+        this.jarCache = jarCache;
+    }
+
+    /**
+     * @return Jar cache, or <code>null</code>.
+     * @since 2.11
+     */
+    public JarCache getJarCache() {
+        return jarCache;
+    }
+
+    /**
+     * Sets the statistics the files opened and the classes read and
+     * parsed are counted and timed in.
+     *
+     * @param stats Statistics, or <code>null</code> to measure nothing.
+     * @since 2.11
+     */
+    public void setStats(AnalysisStats stats) {
+        this.stats = stats;
+    }
+
+    private void checkCancelled() {
+        if (cancelled.get() && cancelled.getAndSet(false)) {
+            throw new CancellationException("Analysis cancelled");
+        }
     }
 
     public int countClasses() {
@@ -42,7 +118,7 @@ public class JavaClassBuilder {
             }
         };
 
-        new JavaClassBuilder(counter, fileManager).build();
+        new JavaClassBuilder(counter, parser, fileManager, cancelled).build();
         return count.get();
     }
 
@@ -50,25 +126,80 @@ public class JavaClassBuilder {
      * Builds the <code>JavaClass</code> instances.
      * 
      * @return A <code>JavaClassDataset</code> contains classes and their modules.
+     * @throws CancellationException If the build was cancelled.
      */
     public JavaClassDataset build() {
 
         JavaClassDataset dataset = new JavaClassDataset();
+        build(dataset, file -> { });
+        return dataset;
+    }
 
+    /**
+     * Builds the <code>JavaClass</code> instances into the specified
+     * dataset, informing the specified consumer of each file, in order,
+     * before its classes are built.
+     *
+     * @param dataset The dataset to be populated with the classes.
+     * @param files Consumer of the files.
+     * @throws CancellationException If the build was cancelled.
+     * @since 2.11
+     */
+    public void build(JavaClassDataset dataset, Consumer<File> files) {
+        cancelled.set(false);
         for (Object o : fileManager.extractFiles()) {
+            files.accept((File) o);
+            scan((File) o, dataset);
+        }
+    }
 
-            File nextFile = (File) o;
-
-            try {
+    /**
+     * Builds the <code>JavaClass</code> instances, handing each to the
+     * specified consumer as soon as it is parsed rather than collecting
+     * them, so that the classes of the analyzed files are never held at
+     * once. A class defined by several files is handed once per file, and
+     * the last one handed supersedes the others, as in a dataset. Classes
+     * found again with the same content are only skipped within a file,
+     * and modules are not recorded.
+     *
+     * @param consumer Consumer of the classes, in the order of the files.
+     * @throws CancellationException If the build was cancelled.
+     * @since 2.11
+     */
+    public void build(Consumer<JavaClass> consumer) {
+        cancelled.set(false);
+        for (Object o : fileManager.extractFiles()) {
+            scan((File) o, new JavaClassDataset() {
 
-                buildClasses(nextFile, dataset);
+                public void addJavaClass(JavaClass javaClass) {
+                    consumer.accept(javaClass);
+                }
 
-            } catch (IOException ioe) {
-                System.err.println("\n" + ioe.getMessage());
-            }
+                public void putJavaClassModule(JavaClass javaClass, String moduleName) {
+                }
+            });
         }
+    }
 
-        return dataset;
+    private void scan(File file, JavaClassDataset dataset) {
+        checkCancelled();
+
+        AnalysisEvents.FileScanned event = new AnalysisEvents.FileScanned();
+        event.begin();
+        try {
+
+            buildClasses(file, dataset);
+
+        } catch (IOException ioe) {
+            System.err.println("\n" + ioe.getMessage());
+        }
+        event.end();
+        if (event.shouldCommit()) {
+            event.path = file.getPath();
+            event.size = file.length();
+            event.commit();
+        }
+        increment(AnalysisStats.FILES_SCANNED);
     }
 
     /**
@@ -80,20 +211,73 @@ public class JavaClassBuilder {
      */
     public void buildClasses(File file, JavaClassDataset dataset) throws IOException {
 
-        if (fileManager.acceptClassFile(file)) {
-            try (InputStream is = new FileInputStream(file)) {
-                JavaClass parsedClass = parser.parse(is);
+        if (fileManager.acceptClassFile(file)
+                && file.getName().equals(MODULE_INFO)) {
+            try (InputStream is = new BufferedInputStream(new FileInputStream(file))) {
+                dataset.putModuleDescriptor(inferModule(file), readModuleDescriptor(is));
+            }
+        } else if (fileManager.acceptClassFile(file)) {
+            DuplicateClassIndex index = dataset.getDuplicateClassIndex();
+            long size = file.length();
+
+            //
+            // The path of a class file from the root of its packages is
+            // only known once it is parsed, and its checksum once it is
+            // read through.
+            //
+            try (CheckedInputStream is = new CheckedInputStream(
+                    new FileInputStream(file), new CRC32())) {
+                JavaClass parsedClass = parseClass(is, null, file.getPath());
                 if (parsedClass != null) {
+                    is.transferTo(OutputStream.nullOutputStream());
+                    long checksum = is.getChecksum().getValue();
+                    if (!index.addContent(DuplicateClassIndex.classPath(parsedClass.getName()),
+                            size, checksum)) {
+                        increment(AnalysisStats.CLASSES_DUPLICATE);
+                        return;
+                    }
                     dataset.addJavaClass(parsedClass);
                     dataset.putJavaClassModule(parsedClass, inferModule(file));
+                    index.addClass(parsedClass.getName(), size, checksum,
+                            null, file.getPath());
                 }
             }
+        } else if ((fileManager.acceptJarFile(file)
+                || fileManager.acceptImageFile(file)) && jarCache != null) {
+
+            //
+            // The module name of a jar depends on the path of the file
+            // rather than on its content, so it is not cached. A runtime
+            // image records the module of each class.
+            //
+            boolean image = fileManager.acceptImageFile(file);
+            String module = inferModule(file.getPath());
+            JavaClassDataset fileDataset = jarCache.get(file, getCacheSettings(),
+                    () -> parseArchive(file));
+            for (JavaClass jc : fileDataset.getJavaClasses().values()) {
+                dataset.addJavaClass(jc);
+                dataset.putJavaClassModule(jc, image
+                        ? fileDataset.getJavaClassModule().get(jc.getName())
+                        : module);
+            }
+            for (ModuleDescriptor descriptor : fileDataset.getModuleDescriptors().values()) {
+                dataset.putModuleDescriptor(module, descriptor);
+            }
+            dataset.getDuplicateClassIndex().addAll(
+                    fileDataset.getDuplicateClassIndex(), file.getPath());
+
         } else if (fileManager.acceptJarFile(file)) {
 
-            JarFile jarFile = new JarFile(file);
+            JarFile jarFile = openJarFile(file);
             buildClasses(jarFile, dataset);
             jarFile.close();
 
+        } else if (fileManager.acceptImageFile(file)) {
+
+            try (JImageFile image = openImageFile(file)) {
+                buildClasses(image, dataset);
+            }
+
         } else {
             throw new IOException("File is not a valid " + 
                 ".class, .jar, .war, or .zip file: " + 
@@ -104,51 +288,446 @@ public class JavaClassBuilder {
     /**
      * Builds the <code>JavaClass</code> instances from the specified 
      * jar, war, or zip file.
+     * <p>
+     * Of the versions of a class in a multi-release jar, only the one
+     * effective at the target release is parsed. The module-info class
+     * is read as the descriptor of the module of the file. A class whose
+     * content was found before is not parsed again.
      * 
      * @param file Jar, war, or zip file.
      * @param dataset The dataset to be populated with the classes.
      */
     public void buildClasses(JarFile file, JavaClassDataset dataset) {
         String module = inferModule(file);
+        boolean jmod = file.getName().toLowerCase().endsWith(".jmod");
+        Map<String, String> effectiveEntries = isMultiRelease(file)
+                ? resolveReleases(file) : null;
+        DuplicateClassIndex index = dataset.getDuplicateClassIndex();
         Enumeration<JarEntry> entries = file.entries();
         while (entries.hasMoreElements()) {
             ZipEntry e = entries.nextElement();
-            if (fileManager.acceptClassFileName(e.getName())) {
+            checkCancelled();
+            String name = e.getName();
+            if (jmod) {
+                //
+                // The classes of a jmod file are in its classes section,
+                // beside native code, commands and configuration.
+                //
+                if (!name.startsWith(JMOD_CLASSES)) {
+                    continue;
+                }
+                name = name.substring(JMOD_CLASSES.length());
+            }
+            String path = releasePath(name);
+            if (effectiveEntries != null
+                    ? !name.equals(effectiveEntries.get(path))
+                    : name.startsWith(VERSIONS_DIRECTORY)) {
+                continue;
+            }
+            if (path.equals(MODULE_INFO)) {
                 try (InputStream is = new BufferedInputStream(file.getInputStream(e))) {
-                    JavaClass jc = parser.parse(is);
+                    dataset.putModuleDescriptor(module, readModuleDescriptor(is));
+                } catch (IOException ioe) {
+                    System.err.println("Failed loading " + e.getName() + " in " + file.getName() + ": " + ioe);
+                }
+            } else if (fileManager.acceptClassFileName(name)) {
+                if (isSkippedEntry(name)) {
+                    increment(AnalysisStats.CLASSES_FILTERED);
+                    continue;
+                }
+                if (!index.addContent(path, e.getSize(), e.getCrc())) {
+                    increment(AnalysisStats.CLASSES_DUPLICATE);
+                    continue;
+                }
+                try (InputStream is = new BufferedInputStream(file.getInputStream(e))) {
+                    JavaClass jc = parseClass(is, file.getName(), e.getName());
                     if (jc != null) {
                         dataset.addJavaClass(jc);
                         dataset.putJavaClassModule(jc, module);
+                        index.addClass(jc.getName(), e.getSize(), e.getCrc(),
+                                file.getName(), e.getName());
                     }
                 } catch (IOException ioe) {
                     System.out.println("Failed loading " + e.getName() + " in " + file.getName() + ": " + ioe);
                 }
-            } else if (fileManager.acceptJarFileName(e.getName())) {
+            } else if (!jmod && fileManager.acceptJarFileName(name)) {
                 parseJarEntry(file, e, dataset);
             }
         }
     }
 
+    /**
+     * Builds the <code>JavaClass</code> instances from the specified
+     * runtime image, reading each class in place. The module of each
+     * class is the one the image records.
+     *
+     * @param image Runtime image.
+     * @param dataset The dataset to be populated with the classes.
+     * @since 2.11
+     */
+    public void buildClasses(JImageFile image, JavaClassDataset dataset) {
+        for (JImageFile.Entry e : image.entries()) {
+            checkCancelled();
+            String name = e.getName();
+            if (name.equals(MODULE_INFO)
+                    || !fileManager.acceptClassFileName(name)) {
+                continue;
+            }
+            if (isSkippedEntry(name)) {
+                increment(AnalysisStats.CLASSES_FILTERED);
+                continue;
+            }
+            try (InputStream is = image.getInputStream(e)) {
+                JavaClass jc = parseClass(is, image.getName(),
+                        e.getModule() + "/" + e.getName());
+                if (jc != null) {
+                    dataset.addJavaClass(jc);
+                    dataset.putJavaClassModule(jc, e.getModule());
+                }
+            } catch (IOException ioe) {
+                System.out.println("Failed loading " + e + " in " + image.getName() + ": " + ioe);
+            }
+        }
+    }
+
+    /**
+     * Sets the Java feature release, such as 11 or 17, whose versions of
+     * the classes of multi-release jars are analyzed. It defaults to the
+     * release of the running Java platform.
+     *
+     * @param release Target release.
+     * @since 2.11
+     */
+    public void setTargetRelease(int release) {
+        this.targetRelease = release;
+    }
+
+    int getTargetRelease() {
+        return targetRelease;
+    }
+
+    private static boolean isMultiRelease(JarFile file) {
+        try {
+            Manifest manifest = file.getManifest();
+            return manifest != null && "true".equalsIgnoreCase(
+                    manifest.getMainAttributes().getValue(MULTI_RELEASE));
+        } catch (IOException ioe) {
+            return false;
+        }
+    }
+
+    /*
+     * Maps the path of each class of a multi-release jar to the name of
+     * the entry of its highest version not above the target release, from
+     * the central directory, so that shadowed versions are never inflated.
+     */
+    private Map<String, String> resolveReleases(JarFile file) {
+        Map<String, String> effectiveEntries = new HashMap<>();
+        Enumeration<JarEntry> entries = file.entries();
+        while (entries.hasMoreElements()) {
+            String name = entries.nextElement().getName();
+            int release = releaseOf(name);
+            if (release > targetRelease) {
+                continue;
+            }
+            String path = releasePath(name);
+            String current = effectiveEntries.get(path);
+            if (current == null || release > releaseOf(current)) {
+                effectiveEntries.put(path, name);
+            }
+        }
+        return effectiveEntries;
+    }
+
+    /*
+     * Returns the release of the specified entry: 0 for a base entry, and
+     * Integer.MAX_VALUE for a malformed versioned entry so that it is
+     * never effective.
+     */
+    private static int releaseOf(String entryName) {
+        if (!entryName.startsWith(VERSIONS_DIRECTORY)) {
+            return 0;
+        }
+        int slash = entryName.indexOf('/', VERSIONS_DIRECTORY.length());
+        try {
+            return slash < 0 ? Integer.MAX_VALUE : Integer.parseInt(
+                    entryName.substring(VERSIONS_DIRECTORY.length(), slash));
+        } catch (NumberFormatException nfe) {
+            return Integer.MAX_VALUE;
+        }
+    }
+
+    /*
+     * Returns the specified entry name without the versions directory
+     * prefix of a versioned entry.
+     */
+    private static String releasePath(String entryName) {
+        if (!entryName.startsWith(VERSIONS_DIRECTORY)) {
+            return entryName;
+        }
+        int slash = entryName.indexOf('/', VERSIONS_DIRECTORY.length());
+        return slash < 0 ? entryName : entryName.substring(slash + 1);
+    }
+
+    private static ModuleDescriptor readModuleDescriptor(InputStream is)
+            throws IOException {
+        try {
+            return ModuleDescriptor.read(is);
+        } catch (InvalidModuleDescriptorException imde) {
+            throw new IOException(imde.getMessage());
+        }
+    }
+
+    /*
+     * Indicates whether the class of the specified archive entry is of a
+     * filtered package, judging from the directories of the entry, so that
+     * the entry is not even read. The package of a class is checked again
+     * from its name once parsed.
+     */
+    private boolean isSkippedEntry(String entryName) {
+        if (!entryFilter.isSkippingFilteredClasses()) {
+            return false;
+        }
+
+        String path = releasePath(entryName);
+        int lastSlash = path.lastIndexOf('/');
+        String packageName = lastSlash < 0 ? ""
+                : path.substring(0, lastSlash).replace('/', '.');
+
+        return !entryFilter.getFilter().accept(packageName);
+    }
+
+    private JavaClassDataset parseArchive(File file) throws IOException {
+        JavaClassDataset archiveDataset = new JavaClassDataset();
+        if (fileManager.acceptImageFile(file)) {
+            try (JImageFile image = openImageFile(file)) {
+                buildClasses(image, archiveDataset);
+            }
+        } else {
+            try (JarFile jarFile = openJarFile(file)) {
+                buildClasses(jarFile, archiveDataset);
+            }
+        }
+        return archiveDataset;
+    }
+
+    /*
+     * The settings affecting the classes parsed from a file: the parser,
+     * the package filter applied to dependencies, inner classes and the
+     * target release.
+     */
+    private String getCacheSettings() {
+        StringBuilder settings = new StringBuilder(parser.getClass().getName());
+        settings.append(" release ").append(targetRelease);
+        settings.append(fileManager.isAcceptingInnerClasses() ? " inner" : " outer");
+        settings.append(parser.isSkippingFilteredClasses() ? " skip" : " keep");
+        List<String> filters = new ArrayList<>();
+        for (Object filter : parser.getFilter().getFilters()) {
+            filters.add((String) filter);
+        }
+        Collections.sort(filters);
+        for (String filter : filters) {
+            settings.append(' ').append(filter);
+        }
+        return settings.toString();
+    }
+
+    /*
+     * Builds the classes of an archive nested in another, read as a stream.
+     * Its versions of a class cannot be resolved before they are read, so
+     * those of a multi-release archive not above the target release are
+     * parsed, and the highest kept. Its module-info class describes a
+     * module other than that of the enclosing file, and is ignored. The
+     * sizes and checksums of its entries are only known once they are
+     * read, so a class is indexed from its bytes.
+     */
     private void parseJarEntry(JarFile file, ZipEntry jarEntry, JavaClassDataset dataset) {
         String module = inferModule(file);
-        try (final ZipInputStream zip = new ZipInputStream(file.getInputStream(jarEntry))) {
+        DuplicateClassIndex index = dataset.getDuplicateClassIndex();
+        Map<String, JavaClass> effectiveClasses = new HashMap<>();
+        Map<String, Integer> effectiveReleases = new HashMap<>();
+        Map<String, long[]> effectiveContents = new HashMap<>();
+        try (final JarInputStream zip = new JarInputStream(file.getInputStream(jarEntry), false)) {
+            Manifest manifest = zip.getManifest();
+            boolean multiRelease = manifest != null && "true".equalsIgnoreCase(
+                    manifest.getMainAttributes().getValue(MULTI_RELEASE));
             ZipEntry entry;
             while ((entry = zip.getNextEntry()) != null) {
-                if (fileManager.acceptClassFileName(entry.getName())) {
-                    JavaClass jc = parser.parse(zip);
-                    if (jc != null) {
-                        dataset.addJavaClass(jc);
-                        dataset.putJavaClassModule(jc, module);
-                    }
+                checkCancelled();
+                String path = releasePath(entry.getName());
+                int release = releaseOf(entry.getName());
+                if (release > 0 && (!multiRelease || release > targetRelease)) {
+                    continue;
+                }
+                Integer current = effectiveReleases.get(path);
+                if (current != null && current > release) {
+                    continue;
+                }
+                if (path.equals(MODULE_INFO)
+                        || !fileManager.acceptClassFileName(entry.getName())) {
+                    continue;
+                }
+                if (isSkippedEntry(entry.getName())) {
+                    increment(AnalysisStats.CLASSES_FILTERED);
+                    continue;
+                }
+                byte[] bytes = readClass(zip);
+                long checksum = checksum(bytes);
+                if (!index.addContent(path, bytes.length, checksum)) {
+                    increment(AnalysisStats.CLASSES_DUPLICATE);
+                    effectiveClasses.remove(path);
+                    effectiveReleases.put(path, release);
+                    continue;
+                }
+                JavaClass jc = parseClass(bytes, file.getName(),
+                        jarEntry.getName() + "!/" + entry.getName());
+                if (jc != null) {
+                    effectiveClasses.put(path, jc);
+                    effectiveReleases.put(path, release);
+                    effectiveContents.put(path, new long[] {bytes.length, checksum});
                 }
             }
         } catch (IOException e) {
             System.out.println("Failed loading " + jarEntry.getName() + " in " + file.getName() + ": " + e);
         }
+        for (Map.Entry<String, JavaClass> entry : effectiveClasses.entrySet()) {
+            String path = entry.getKey();
+            JavaClass jc = entry.getValue();
+            int release = effectiveReleases.get(path);
+            long[] content = effectiveContents.get(path);
+            dataset.addJavaClass(jc);
+            dataset.putJavaClassModule(jc, module);
+            index.addClass(jc.getName(), content[0], content[1], file.getName(),
+                    jarEntry.getName() + "!/" + (release > 0
+                            ? VERSIONS_DIRECTORY + release + "/" + path : path));
+        }
+    }
+
+    private JarFile openJarFile(File file) throws IOException {
+        AnalysisEvents.ArchiveOpened event = new AnalysisEvents.ArchiveOpened();
+        event.begin();
+        long start = startTime();
+        JarFile jarFile = new JarFile(file);
+        addTime(AnalysisStats.OPEN_TIME, start);
+        increment(AnalysisStats.ARCHIVES_OPENED);
+        event.end();
+        if (event.shouldCommit()) {
+            event.path = file.getPath();
+            event.entries = jarFile.size();
+            event.commit();
+        }
+        return jarFile;
+    }
+
+    private JImageFile openImageFile(File file) throws IOException {
+        AnalysisEvents.ArchiveOpened event = new AnalysisEvents.ArchiveOpened();
+        event.begin();
+        long start = startTime();
+        JImageFile image = new JImageFile(file);
+        addTime(AnalysisStats.OPEN_TIME, start);
+        increment(AnalysisStats.ARCHIVES_OPENED);
+        event.end();
+        if (event.shouldCommit()) {
+            event.path = file.getPath();
+            event.entries = image.entries().size();
+            event.commit();
+        }
+        return image;
+    }
+
+    /*
+     * Reads a class file of a nested archive, which inflates it.
+     */
+    private byte[] readClass(InputStream is) throws IOException {
+        long start = startTime();
+        byte[] bytes = is.readAllBytes();
+        addTime(AnalysisStats.READ_TIME, start);
+        return bytes;
+    }
+
+    /*
+     * Parses a class file read from an entry of a nested archive.
+     */
+    private JavaClass parseClass(byte[] bytes, String container, String entry)
+            throws IOException {
+        AnalysisEvents.ClassParsed event = new AnalysisEvents.ClassParsed();
+        event.begin();
+        long start = startTime();
+        JavaClass jc = parser.parse(bytes, 0, bytes.length);
+        if (stats != null) {
+            stats.addTime(AnalysisStats.PARSE_TIME, System.nanoTime() - start);
+            stats.increment(AnalysisStats.CLASSES_PARSED);
+            stats.add(AnalysisStats.CLASS_BYTES, bytes.length);
+        }
+        event.end();
+        if (event.shouldCommit()) {
+            event.location = container + "!/" + entry;
+            event.className = jc == null ? null : jc.getName();
+            event.size = bytes.length;
+            event.commit();
+        }
+        return jc;
+    }
+
+    /*
+     * Parses a class file streamed from the specified location: an entry
+     * of an archive, or a file if the container is null. The stream is
+     * only measured when statistics or events are recorded.
+     */
+    private JavaClass parseClass(InputStream is, String container, String entry)
+            throws IOException {
+        AnalysisEvents.ClassParsed event = new AnalysisEvents.ClassParsed();
+        if (stats == null && !event.isEnabled()) {
+            return parser.parse(is);
+        }
+        MeasuredInputStream measured = new MeasuredInputStream(is);
+        event.begin();
+        long start = System.nanoTime();
+        JavaClass jc = parser.parse(measured);
+        if (stats != null) {
+            long time = System.nanoTime() - start;
+            stats.addTime(AnalysisStats.READ_TIME, measured.readTime);
+            stats.addTime(AnalysisStats.PARSE_TIME, time - measured.readTime);
+            stats.increment(AnalysisStats.CLASSES_PARSED);
+            stats.add(AnalysisStats.CLASS_BYTES, measured.count);
+        }
+        event.end();
+        if (event.shouldCommit()) {
+            event.location = container == null ? entry : container + "!/" + entry;
+            event.className = jc == null ? null : jc.getName();
+            event.size = measured.count;
+            event.commit();
+        }
+        return jc;
+    }
+
+    private long startTime() {
+        return stats != null ? System.nanoTime() : 0L;
+    }
+
+    private void addTime(String timer, long start) {
+        if (stats != null) {
+            stats.addTime(timer, System.nanoTime() - start);
+        }
+    }
+
+    private void increment(String counter) {
+        if (stats != null) {
+            stats.increment(counter);
+        }
+    }
+
+    private static long checksum(byte[] bytes) {
+        CRC32 crc = new CRC32();
+        crc.update(bytes, 0, bytes.length);
+        return crc.getValue();
     }
 
     private String inferModule(JarFile jar) {
-        String fileName = jar.getName();
+        return inferModule(jar.getName());
+    }
+
+    private String inferModule(String fileName) {
         int lastSlash = fileName.lastIndexOf('/');
         return lastSlash > -1 ? fileName.substring(lastSlash + 1) : fileName;
     }
@@ -158,4 +737,46 @@ public class JavaClassBuilder {
         int firstSlash = path.indexOf('/');
         return firstSlash > -1 ? path.substring(0, firstSlash) : path;
     }
+
+    /*
+     * An input stream counting the bytes read from it and the time spent
+     * reading them, which includes inflating an archive entry.
+     */
+    private static class MeasuredInputStream extends FilterInputStream {
+
+        long count;
+        long readTime;
+
+        MeasuredInputStream(InputStream in) {
+            super(in);
+        }
+
+        public int read() throws IOException {
+            long start = System.nanoTime();
+            int b = in.read();
+            readTime += System.nanoTime() - start;
+            if (b >= 0) {
+                count++;
+            }
+            return b;
+        }
+
+        public int read(byte[] b, int off, int len) throws IOException {
+            long start = System.nanoTime();
+            int n = in.read(b, off, len);
+            readTime += System.nanoTime() - start;
+            if (n > 0) {
+                count += n;
+            }
+            return n;
+        }
+
+        public long skip(long n) throws IOException {
+            long start = System.nanoTime();
+            long skipped = in.skip(n);
+            readTime += System.nanoTime() - start;
+            count += skipped;
+            return skipped;
+        }
+    }
 }
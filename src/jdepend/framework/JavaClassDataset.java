@@ -1,5 +1,6 @@
 package jdepend.framework;
 
+import java.lang.module.ModuleDescriptor;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
@@ -22,9 +23,32 @@ public class JavaClassDataset {
       */
     private final Map<String, String> javaClassModule;
 
+    /**
+     * Map of inferred module name to the descriptor read from the
+     * module-info class of the module.
+     */
+    private final Map<String, ModuleDescriptor> moduleDescriptors;
+
+    /**
+     * Index of the classes found, by name and content.
+     */
+    private final DuplicateClassIndex duplicateClassIndex;
+
     public JavaClassDataset() {
+        this(new DuplicateClassIndex());
+    }
+
+    /**
+     * Constructs a dataset indexing its classes in the specified index.
+     *
+     * @param duplicateClassIndex Index of the classes found.
+     * @since 2.11
+     */
+    protected JavaClassDataset(DuplicateClassIndex duplicateClassIndex) {
         javaClasses = new HashMap<>();
         javaClassModule = new HashMap<>();
+        moduleDescriptors = new HashMap<>();
+        this.duplicateClassIndex = duplicateClassIndex;
     }
 
     public Map<String, JavaClass> getJavaClasses() {
@@ -46,4 +70,48 @@ public class JavaClassDataset {
 //        System.out.println("map " + javaClass.getName() + " to " + moduleName);
         javaClassModule.put(javaClass.getName(), moduleName);
     }
+
+    /**
+     * @return Map of inferred module name to module descriptor.
+     * @since 2.11
+     */
+    public Map<String, ModuleDescriptor> getModuleDescriptors() {
+        return moduleDescriptors;
+    }
+
+    /**
+     * Records the descriptor read from the module-info class of the
+     * specified inferred module.
+     *
+     * @param moduleName Inferred module name.
+     * @param descriptor Module descriptor.
+     * @since 2.11
+     */
+    public void putModuleDescriptor(String moduleName, ModuleDescriptor descriptor) {
+        moduleDescriptors.put(moduleName, descriptor);
+    }
+
+    /**
+     * @return Index of the classes found, by name and content.
+     * @since 2.11
+     */
+    public DuplicateClassIndex getDuplicateClassIndex() {
+        return duplicateClassIndex;
+    }
+
+    /**
+     * Returns the name of the module of the specified class: the name
+     * declared by its module descriptor if there is one, the module name
+     * inferred from its location otherwise.
+     *
+     * @param className Class name.
+     * @return Module name, or <code>null</code> if unknown.
+     * @since 2.11
+     */
+    public String getModuleName(String className) {
+        String module = javaClassModule.get(className);
+        ModuleDescriptor descriptor = module == null ? null
+                : moduleDescriptors.get(module);
+        return descriptor != null ? descriptor.name() : module;
+    }
 }
@@ -14,6 +14,8 @@ public class JavaPackage {
     private final String name;
     private int volatility;
     private final HashSet<JavaClass> classes;
+    private int countedClasses;
+    private int countedAbstractClasses;
     private final Map<JavaPackage, Integer> afferents;
     private final Map<JavaPackage, Integer> efferents;
 
@@ -123,16 +125,29 @@ public class JavaPackage {
         classes.add(clazz);
     }
 
+    /**
+     * Adds classes which are counted without being kept, as an out-of-core
+     * analysis does. They are not part of <code>getClasses()</code>.
+     *
+     * @param count Number of classes.
+     * @param abstractCount Number of them which are abstract.
+     * @since 2.11
+     */
+    public void addClasses(int count, int abstractCount) {
+        countedClasses += count;
+        countedAbstractClasses += abstractCount;
+    }
+
     public Collection<JavaClass> getClasses() {
         return classes;
     }
 
     public int getClassCount() {
-        return classes.size();
+        return classes.size() + countedClasses;
     }
 
     public int getAbstractClassCount() {
-        int count = 0;
+        int count = countedAbstractClasses;
 
         for (Iterator i = classes.iterator(); i.hasNext();) {
             JavaClass clazz = (JavaClass)i.next();
@@ -145,7 +160,7 @@ public class JavaPackage {
     }
 
     public int getConcreteClassCount() {
-        int count = 0;
+        int count = countedClasses - countedAbstractClasses;
 
         for (Iterator i = classes.iterator(); i.hasNext();) {
             JavaClass clazz = (JavaClass)i.next();
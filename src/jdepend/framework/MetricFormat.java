@@ -0,0 +1,258 @@
+package jdepend.framework;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.text.DecimalFormat;
+import java.text.DecimalFormatSymbols;
+import java.text.NumberFormat;
+import java.util.Locale;
+
+/**
+ * The <code>MetricFormat</code> class formats metric values with a fixed
+ * maximum number of fraction digits, writing the characters straight into
+ * a caller's buffer.
+ * <p>
+ * The output is that of a <code>NumberFormat</code> of the same locale
+ * with the same maximum fraction digits: half-even rounding of the exact
+ * value, no trailing fraction zeros, and grouped integer digits. Unlike a
+ * <code>NumberFormat</code>, a <code>MetricFormat</code> is immutable, so
+ * one instance may be shared by threads rendering reports in parallel.
+ *
+ * @since 2.11
+ */
+
+public class MetricFormat {
+
+    /*
+     * 39 integer digits, 12 grouping separators, decimal separator and 8
+     * fraction digits.
+     */
+    private static final int MAX_FINITE_LENGTH = 60;
+
+    private static final double EXACT_LIMIT = 0x1p53;
+
+    private static final long[] POWERS_OF_TEN = {
+        1L, 10L, 100L, 1000L, 10000L, 100000L, 1000000L, 10000000L, 100000000L
+    };
+
+    private final int fractionDigits;
+    private final char zeroDigit;
+    private final char decimalSeparator;
+    private final char groupingSeparator;
+    private final int groupingSize;
+    private final String positivePrefix;
+    private final String positiveSuffix;
+    private final String negativePrefix;
+    private final String negativeSuffix;
+    private final String nan;
+    private final String infinity;
+
+    /**
+     * Constructs a <code>MetricFormat</code> formatting like a
+     * <code>NumberFormat</code> of the default locale with 2 fraction
+     * digits.
+     */
+    public MetricFormat() {
+        this(Locale.getDefault(Locale.Category.FORMAT), 2, true);
+    }
+
+    /**
+     * Constructs a <code>MetricFormat</code> formatting like a
+     * <code>NumberFormat</code> of the specified locale.
+     *
+     * @param locale Locale.
+     * @param fractionDigits Maximum number of fraction digits, from 0 to 8.
+     * @param groupingUsed <code>true</code> to group the integer digits as
+     *        the locale does.
+     */
+    public MetricFormat(Locale locale, int fractionDigits,
+            boolean groupingUsed) {
+        if (fractionDigits < 0 || fractionDigits >= POWERS_OF_TEN.length) {
+            throw new IllegalArgumentException("Invalid fraction digits: "
+                    + fractionDigits);
+        }
+        this.fractionDigits = fractionDigits;
+
+        NumberFormat format = NumberFormat.getInstance(locale);
+        DecimalFormat decimal = format instanceof DecimalFormat
+                ? (DecimalFormat) format : new DecimalFormat();
+        DecimalFormatSymbols symbols = decimal.getDecimalFormatSymbols();
+
+        zeroDigit = symbols.getZeroDigit();
+        decimalSeparator = symbols.getDecimalSeparator();
+        groupingSeparator = symbols.getGroupingSeparator();
+        groupingSize = groupingUsed && decimal.isGroupingUsed()
+                ? decimal.getGroupingSize() : 0;
+        positivePrefix = decimal.getPositivePrefix();
+        positiveSuffix = decimal.getPositiveSuffix();
+        negativePrefix = decimal.getNegativePrefix();
+        negativeSuffix = decimal.getNegativeSuffix();
+        nan = symbols.getNaN();
+        infinity = symbols.getInfinity();
+    }
+
+    /**
+     * Returns a locale-independent <code>MetricFormat</code>: ASCII digits,
+     * a '.' decimal separator and no grouping, as suits machine-readable
+     * reports.
+     *
+     * @param fractionDigits Maximum number of fraction digits, from 0 to 8.
+     * @return Metric format.
+     */
+    public static MetricFormat getPlainInstance(int fractionDigits) {
+        return new MetricFormat(Locale.ROOT, fractionDigits, false);
+    }
+
+    /**
+     * Formats the specified value into the specified buffer.
+     *
+     * @param value Value.
+     * @param dest Destination buffer, with at least
+     *        <code>getMaxLength()</code> characters from
+     *        <code>offset</code>.
+     * @param offset Offset of the first character to write.
+     * @return Offset following the last character written.
+     */
+    public int format(float value, char[] dest, int offset) {
+        int pos = offset;
+
+        if (Float.isNaN(value)) {
+            return write(nan, dest, pos);
+        }
+
+        boolean negative = Float.floatToRawIntBits(value) < 0;
+        pos = write(negative ? negativePrefix : positivePrefix, dest, pos);
+        pos = formatMagnitude(value, dest, pos);
+        return write(negative ? negativeSuffix : positiveSuffix, dest, pos);
+    }
+
+    private static int write(String s, char[] dest, int pos) {
+        s.getChars(0, s.length(), dest, pos);
+        return pos + s.length();
+    }
+
+    private int formatMagnitude(float value, char[] dest, int pos) {
+        if (Float.isInfinite(value)) {
+            return write(infinity, dest, pos);
+        }
+
+        //
+        // A float has 24 significant bits and a power of ten up to 10^8
+        // at most 27, so the scaled value and its fraction are exact and
+        // rounding needs no decimal arithmetic.
+        //
+        double scaled = Math.abs((double) value) * POWERS_OF_TEN[fractionDigits];
+        if (scaled >= EXACT_LIMIT) {
+            //
+            // Such a value is an integer. Like NumberFormat, only the
+            // shortest digits identifying the double are significant.
+            //
+            String digits = new BigDecimal(Double.toString(Math.abs((double) value)))
+                    .setScale(fractionDigits, RoundingMode.HALF_EVEN)
+                    .unscaledValue().toString();
+            return formatDigits(digits, dest, pos);
+        }
+
+        double floor = Math.floor(scaled);
+        long units = (long) floor;
+        double fraction = scaled - floor;
+        if (fraction > 0.5 || (fraction == 0.5 && (units & 1) != 0)) {
+            units++;
+        }
+
+        pos = formatInteger(units / POWERS_OF_TEN[fractionDigits], dest, pos);
+
+        long fractionUnits = units % POWERS_OF_TEN[fractionDigits];
+        int digits = fractionDigits;
+        while (digits > 0 && fractionUnits % 10 == 0) {
+            fractionUnits /= 10;
+            digits--;
+        }
+        if (digits > 0) {
+            dest[pos++] = decimalSeparator;
+            for (int i = pos + digits - 1; i >= pos; i--) {
+                dest[i] = (char) (zeroDigit + fractionUnits % 10);
+                fractionUnits /= 10;
+            }
+            pos += digits;
+        }
+
+        return pos;
+    }
+
+    /*
+     * Writes the specified integer part, grouped, back to front.
+     */
+    private int formatInteger(long value, char[] dest, int pos) {
+        int count = 1;
+        for (long v = value / 10; v != 0; v /= 10) {
+            count++;
+        }
+        int end = pos + count;
+        if (groupingSize > 0) {
+            end += (count - 1) / groupingSize;
+        }
+
+        int i = end;
+        int written = 0;
+        do {
+            if (groupingSize > 0 && written > 0 && written % groupingSize == 0) {
+                dest[--i] = groupingSeparator;
+            }
+            dest[--i] = (char) (zeroDigit + value % 10);
+            value /= 10;
+            written++;
+        } while (value != 0);
+
+        return end;
+    }
+
+    /*
+     * Writes the unscaled decimal digits of a value too large for a long,
+     * whose last fractionDigits digits are the fraction.
+     */
+    private int formatDigits(String digits, char[] dest, int pos) {
+        int point = digits.length() - fractionDigits;
+
+        for (int i = 0; i < point; i++) {
+            if (groupingSize > 0 && i > 0 && (point - i) % groupingSize == 0) {
+                dest[pos++] = groupingSeparator;
+            }
+            dest[pos++] = (char) (zeroDigit + (digits.charAt(i) - '0'));
+        }
+
+        int last = digits.length();
+        while (last > point && digits.charAt(last - 1) == '0') {
+            last--;
+        }
+        if (last > point) {
+            dest[pos++] = decimalSeparator;
+            for (int i = point; i < last; i++) {
+                dest[pos++] = (char) (zeroDigit + (digits.charAt(i) - '0'));
+            }
+        }
+
+        return pos;
+    }
+
+    /**
+     * @return Maximum number of characters written for a value.
+     */
+    public int getMaxLength() {
+        return Math.max(negativePrefix.length() + negativeSuffix.length(),
+                positivePrefix.length() + positiveSuffix.length())
+                + Math.max(MAX_FINITE_LENGTH,
+                Math.max(nan.length(), infinity.length()));
+    }
+
+    /**
+     * Formats the specified value.
+     *
+     * @param value Value.
+     * @return Formatted value.
+     */
+    public String format(float value) {
+        char[] buffer = new char[getMaxLength()];
+        return new String(buffer, 0, format(value, buffer, 0));
+    }
+}
@@ -0,0 +1,81 @@
+package jdepend.framework;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The <code>NameTable</code> class interns names into dense integer ids,
+ * starting at zero, so that dependency graphs can be kept in arrays
+ * indexed by id rather than in maps keyed by name.
+ *
+ * @since 2.11
+ */
+public class NameTable {
+
+    private final Map<String, Integer> ids;
+    private String[] names;
+    private int size;
+
+    public NameTable() {
+        this(64);
+    }
+
+    public NameTable(int capacity) {
+        ids = new HashMap<>(Math.max(16, capacity * 2));
+        names = new String[Math.max(1, capacity)];
+        size = 0;
+    }
+
+    /**
+     * Returns the id of the specified name, assigning the next free id if
+     * the name has not been seen before.
+     *
+     * @param name Name to intern.
+     * @return Id of the name.
+     */
+    public int intern(String name) {
+        Integer id = ids.get(name);
+        if (id != null) {
+            return id;
+        }
+
+        if (size == names.length) {
+            names = Arrays.copyOf(names, size * 2);
+        }
+        names[size] = name;
+        ids.put(name, size);
+        return size++;
+    }
+
+    /**
+     * Returns the id of the specified name.
+     *
+     * @param name Name to look up.
+     * @return Id of the name, or <code>-1</code> if it was never interned.
+     */
+    public int find(String name) {
+        Integer id = ids.get(name);
+        return id == null ? -1 : id;
+    }
+
+    /**
+     * Returns the name interned under the specified id.
+     *
+     * @param id Name id.
+     * @return Name.
+     */
+    public String getName(int id) {
+        if (id < 0 || id >= size) {
+            throw new IndexOutOfBoundsException("Unknown name id: " + id);
+        }
+        return names[id];
+    }
+
+    /**
+     * @return Number of interned names.
+     */
+    public int size() {
+        return size;
+    }
+}
@@ -0,0 +1,188 @@
+package jdepend.framework;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.util.Arrays;
+
+/**
+ * The <code>OffHeapNameTable</code> class is a <code>NameTable</code>
+ * keeping its names and their index in the chunks of an
+ * <code>OffHeapStorage</code>. Names are stored as characters, so
+ * <code>getName()</code> returns a new string on each call.
+ *
+ * @since 2.11
+ */
+
+class OffHeapNameTable extends NameTable {
+
+    private final OffHeapStorage storage;
+    private final int shift;
+    private final int mask;
+    private ByteBuffer[] buffers = new ByteBuffer[8];
+    private CharBuffer[] chunks = new CharBuffer[8];
+    private int chunkCount;
+    private int position;
+
+    private final IntArray starts;
+    private final IntArray lengths;
+    private final IntArray hashes;
+    private IntArray slots;
+    private int capacity;
+    private int size;
+
+    OffHeapNameTable(OffHeapStorage storage) {
+        super(1);
+        this.storage = storage;
+        int charsPerChunk = storage.getChunkSize() / Character.BYTES;
+        shift = Integer.numberOfTrailingZeros(charsPerChunk);
+        mask = charsPerChunk - 1;
+        starts = IntArray.create(storage);
+        lengths = IntArray.create(storage);
+        hashes = IntArray.create(storage);
+        capacity = 1024;
+        slots = IntArray.create(storage);
+        slots.resize(capacity);
+    }
+
+    public int intern(String name) {
+        int slot = slot(name);
+        if (slots.get(slot) != 0) {
+            return slots.get(slot) - 1;
+        }
+
+        int id = size++;
+        starts.add(store(name));
+        lengths.add(name.length());
+        hashes.add(name.hashCode());
+        slots.set(slot, id + 1);
+
+        if (size * 2 > capacity) {
+            rehash();
+        }
+        return id;
+    }
+
+    public int find(String name) {
+        return slots.get(slot(name)) - 1;
+    }
+
+    public String getName(int id) {
+        if (id < 0 || id >= size) {
+            throw new IndexOutOfBoundsException("Unknown name id: " + id);
+        }
+        int length = lengths.get(id);
+        if (length == 0) {
+            return "";
+        }
+        int start = starts.get(id);
+        char[] chars = new char[length];
+        chunks[start >>> shift].get(start & mask, chars);
+        return new String(chars);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Gives back the memory of this table, which must not be used
+     * afterwards.
+     */
+    void release() {
+        for (int i = 0; i < chunkCount; i++) {
+            storage.free(buffers[i]);
+        }
+        chunkCount = 0;
+        starts.release();
+        lengths.release();
+        hashes.release();
+        slots.release();
+    }
+
+    /*
+     * Returns the slot holding the specified name, or the empty slot it
+     * would be interned in.
+     */
+    private int slot(String name) {
+        int hash = name.hashCode();
+        int slotMask = capacity - 1;
+        int slot = (hash ^ (hash >>> 16)) & slotMask;
+        int id;
+        while ((id = slots.get(slot) - 1) >= 0) {
+            if (hashes.get(id) == hash && matches(id, name)) {
+                break;
+            }
+            slot = (slot + 1) & slotMask;
+        }
+        return slot;
+    }
+
+    private boolean matches(int id, String name) {
+        if (lengths.get(id) != name.length()) {
+            return false;
+        }
+        int start = starts.get(id);
+        CharBuffer chunk = chunks[start >>> shift];
+        int offset = start & mask;
+        for (int i = 0; i < name.length(); i++) {
+            if (chunk.get(offset + i) != name.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /*
+     * Copies the characters of the specified name, within a single chunk,
+     * and returns their start.
+     */
+    private int store(String name) {
+        int length = name.length();
+        if (length > mask + 1) {
+            throw new IllegalArgumentException("Name longer than a chunk: "
+                    + name.substring(0, 64) + "...");
+        }
+        if ((position & mask) + length > mask + 1) {
+            position = (position | mask) + 1;
+        }
+        while ((long) chunkCount << shift < (long) position + length) {
+            addChunk();
+        }
+
+        int start = position;
+        CharBuffer chunk = chunks[start >>> shift];
+        int offset = start & mask;
+        for (int i = 0; i < length; i++) {
+            chunk.put(offset + i, name.charAt(i));
+        }
+        position += length;
+        return start;
+    }
+
+    private void addChunk() {
+        if (chunkCount == chunks.length) {
+            buffers = Arrays.copyOf(buffers, chunkCount * 2);
+            chunks = Arrays.copyOf(chunks, chunkCount * 2);
+        }
+        ByteBuffer buffer = storage.allocate();
+        buffers[chunkCount] = buffer;
+        chunks[chunkCount++] = buffer.asCharBuffer();
+    }
+
+    private void rehash() {
+        IntArray old = slots;
+        capacity *= 2;
+        slots = IntArray.create(storage);
+        slots.resize(capacity);
+        int slotMask = capacity - 1;
+        for (int id = 0; id < size; id++) {
+            int hash = hashes.get(id);
+            int slot = (hash ^ (hash >>> 16)) & slotMask;
+            while (slots.get(slot) != 0) {
+                slot = (slot + 1) & slotMask;
+            }
+            slots.set(slot, id + 1);
+        }
+        old.release();
+    }
+}
@@ -0,0 +1,195 @@
+package jdepend.framework;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * The <code>OffHeapStorage</code> class provides the memory of class
+ * graphs kept off the Java heap, so that the heap size no longer caps the
+ * number of classes and dependencies an analysis can hold.
+ * <p>
+ * Memory is handed out in chunks of a fixed size: direct buffers while
+ * the memory limit allows, then regions of a temporary file mapped in
+ * memory, which the operating system pages in and out as needed. Chunks
+ * given back are reused by later graphs. Closing the storage deletes the
+ * spill file; graphs kept in it must not be used afterwards.
+ * <p>
+ * <blockquote>
+ *
+ * <pre>
+ * try (OffHeapStorage storage = new OffHeapStorage(512L &lt;&lt; 20)) {
+ *     jdepend.setGraphStorage(storage);
+ *     jdepend.analyze();
+ *     printReport(jdepend.getPackages());
+ * }
+ * </pre>
+ *
+ * </blockquote>
+ *
+ * @since 2.11
+ */
+
+public class OffHeapStorage implements AutoCloseable {
+
+    /**
+     * Default size of the chunks, in bytes.
+     */
+    public static final int DEFAULT_CHUNK_SIZE = 1 << 22;
+
+    private final long memoryLimit;
+    private final File spillDirectory;
+    private final int chunkSize;
+
+    private final Deque<ByteBuffer> freeChunks = new ArrayDeque<>();
+    private long memoryBytes;
+    private long spilledBytes;
+    private File spillFile;
+    private FileChannel spillChannel;
+    private boolean closed;
+
+    /**
+     * Constructs an <code>OffHeapStorage</code> instance spilling to the
+     * default temporary directory.
+     *
+     * @param memoryLimit Bytes of direct memory used before spilling.
+     */
+    public OffHeapStorage(long memoryLimit) {
+        this(memoryLimit, null, DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * Constructs an <code>OffHeapStorage</code> instance.
+     *
+     * @param memoryLimit Bytes of direct memory used before spilling.
+     * @param spillDirectory Directory of the spill file, or
+     *        <code>null</code> for the default temporary directory.
+     * @param chunkSize Size of the chunks, in bytes: a power of two of at
+     *        least 4096.
+     */
+    public OffHeapStorage(long memoryLimit, File spillDirectory, int chunkSize) {
+        if (memoryLimit < 0 || chunkSize < 4096 || Integer.bitCount(chunkSize) != 1) {
+            throw new IllegalArgumentException("Invalid memory limit "
+                    + memoryLimit + " or chunk size " + chunkSize);
+        }
+        this.memoryLimit = memoryLimit;
+        this.spillDirectory = spillDirectory;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * @return Size of the chunks, in bytes.
+     */
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    /**
+     * @return Bytes of direct memory allocated.
+     */
+    public synchronized long getMemoryBytes() {
+        return memoryBytes;
+    }
+
+    /**
+     * @return Bytes of the spill file mapped in memory.
+     */
+    public synchronized long getSpilledBytes() {
+        return spilledBytes;
+    }
+
+    /**
+     * Returns a zeroed chunk, in native byte order.
+     *
+     * @return Chunk.
+     * @throws IllegalStateException If the storage is closed.
+     * @throws UncheckedIOException If the spill file cannot be extended.
+     */
+    synchronized ByteBuffer allocate() {
+        if (closed) {
+            throw new IllegalStateException("Off-heap storage closed");
+        }
+
+        ByteBuffer chunk = freeChunks.poll();
+        if (chunk != null) {
+            clear(chunk);
+        } else {
+            chunk = memoryBytes + chunkSize <= memoryLimit ? allocateDirect() : null;
+            if (chunk == null) {
+                chunk = allocateSpilled();
+            }
+        }
+        return chunk.order(ByteOrder.nativeOrder());
+    }
+
+    /**
+     * Gives back a chunk for reuse.
+     *
+     * @param chunk Chunk returned by <code>allocate()</code>.
+     */
+    synchronized void free(ByteBuffer chunk) {
+        if (!closed) {
+            freeChunks.push(chunk);
+        }
+    }
+
+    /**
+     * Releases the chunks and deletes the spill file.
+     */
+    public synchronized void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        freeChunks.clear();
+        if (spillChannel != null) {
+            try {
+                spillChannel.close();
+            } catch (IOException ignored) {
+            }
+            spillFile.delete();
+        }
+    }
+
+    private ByteBuffer allocateDirect() {
+        try {
+            ByteBuffer chunk = ByteBuffer.allocateDirect(chunkSize);
+            memoryBytes += chunkSize;
+            return chunk;
+        } catch (OutOfMemoryError oome) {
+            // direct memory is capped below the limit; spill instead
+            return null;
+        }
+    }
+
+    private ByteBuffer allocateSpilled() {
+        try {
+            if (spillChannel == null) {
+                spillFile = File.createTempFile("jdepend", ".graph", spillDirectory);
+                spillFile.deleteOnExit();
+                spillChannel = FileChannel.open(spillFile.toPath(),
+                        StandardOpenOption.READ, StandardOpenOption.WRITE);
+            }
+            ByteBuffer chunk = spillChannel.map(FileChannel.MapMode.READ_WRITE,
+                    spilledBytes, chunkSize);
+            spilledBytes += chunkSize;
+            return chunk;
+        } catch (IOException ioe) {
+            throw new UncheckedIOException("Cannot spill class graph to "
+                    + spillFile, ioe);
+        }
+    }
+
+    private static void clear(ByteBuffer chunk) {
+        byte[] zeros = new byte[Math.min(chunk.capacity(), 1 << 16)];
+        for (int i = 0; i < chunk.capacity(); i += zeros.length) {
+            chunk.put(i, zeros, 0, Math.min(zeros.length, chunk.capacity() - i));
+        }
+    }
+}
@@ -11,7 +11,7 @@ import java.util.Comparator;
  * @author Clarkware Consulting, Inc.
  */
 
-public class PackageComparator implements Comparator {
+public class PackageComparator implements Comparator<JavaPackage> {
 
     private PackageComparator byWhat;
 
@@ -35,10 +35,7 @@ public class PackageComparator implements Comparator {
         return byWhat;
     }
 
-    public int compare(Object p1, Object p2) {
-
-        JavaPackage a = (JavaPackage) p1;
-        JavaPackage b = (JavaPackage) p2;
+    public int compare(JavaPackage a, JavaPackage b) {
 
         if (byWhat() == byName()) {
             return a.getName().compareTo(b.getName());
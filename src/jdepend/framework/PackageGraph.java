@@ -0,0 +1,317 @@
+package jdepend.framework;
+
+import java.util.*;
+
+/**
+ * The <code>PackageGraph</code> class is an immutable, array-based index
+ * of a collection of analyzed packages and their couplings.
+ * <p>
+ * Packages are assigned dense ids in name order, and the efferents and
+ * afferents of each package are stored as runs of ids, with their
+ * reference counts, in flat arrays. Graph algorithms work on the ids
+ * instead of walking <code>JavaPackage</code> maps.
+ * <p>
+ * The classes of each package are sorted once, on first use, into a run
+ * of abstract classes followed by a run of concrete classes, each in name
+ * order, so reports read them without copying or sorting.
+ *
+ * @since 2.11
+ */
+public class PackageGraph {
+
+    private final JavaPackage[] packages;
+    private final Map<String, Integer> ids;
+
+    private final int[] efferentStart;
+    private final int[] efferentTarget;
+    private final int[] efferentCount;
+
+    private final int[] afferentStart;
+    private final int[] afferentTarget;
+    private final int[] afferentCount;
+
+    private final List<JavaPackage> packageList;
+
+    private volatile ClassRuns classRuns;
+
+    /**
+     * Constructs a <code>PackageGraph</code> of the specified packages.
+     * Couplings to packages outside the collection are ignored.
+     *
+     * @param packages Analyzed packages.
+     */
+    public PackageGraph(Collection<?> packages) {
+        this.packages = packages.toArray(new JavaPackage[0]);
+        Arrays.sort(this.packages, new PackageComparator(PackageComparator.byName()));
+        packageList = Collections.unmodifiableList(Arrays.asList(this.packages));
+
+        ids = new HashMap<>(this.packages.length * 2);
+        for (int id = 0; id < this.packages.length; id++) {
+            ids.put(this.packages[id].getName(), id);
+        }
+
+        int n = this.packages.length;
+        efferentStart = new int[n + 1];
+        afferentStart = new int[n + 1];
+        int efferentSize = 0;
+        int afferentSize = 0;
+        for (JavaPackage jPackage : this.packages) {
+            efferentSize += jPackage.getEfferents().size();
+            afferentSize += jPackage.getAfferents().size();
+        }
+        efferentTarget = new int[efferentSize];
+        efferentCount = new int[efferentSize];
+        afferentTarget = new int[afferentSize];
+        afferentCount = new int[afferentSize];
+
+        efferentSize = 0;
+        afferentSize = 0;
+        for (int id = 0; id < n; id++) {
+            JavaPackage jPackage = this.packages[id];
+
+            efferentStart[id] = efferentSize;
+            for (JavaPackage efferent : jPackage.getEfferents()) {
+                Integer target = ids.get(efferent.getName());
+                if (target != null) {
+                    efferentTarget[efferentSize] = target;
+                    efferentCount[efferentSize] = jPackage.getEfferentCount(efferent);
+                    efferentSize++;
+                }
+            }
+            sortRun(efferentTarget, efferentCount, efferentStart[id], efferentSize);
+
+            afferentStart[id] = afferentSize;
+            for (JavaPackage afferent : jPackage.getAfferents()) {
+                Integer source = ids.get(afferent.getName());
+                if (source != null) {
+                    afferentTarget[afferentSize] = source;
+                    afferentCount[afferentSize] = jPackage.getAfferentCount(afferent);
+                    afferentSize++;
+                }
+            }
+            sortRun(afferentTarget, afferentCount, afferentStart[id], afferentSize);
+        }
+        efferentStart[n] = efferentSize;
+        afferentStart[n] = afferentSize;
+    }
+
+    /*
+     * Sorts a run of ids, and their counts, so couplings are in name order.
+     */
+    private static void sortRun(int[] targets, int[] counts, int from, int to) {
+        long[] run = new long[to - from];
+        for (int i = from; i < to; i++) {
+            run[i - from] = ((long) targets[i] << 32) | (counts[i] & 0xFFFFFFFFL);
+        }
+        Arrays.sort(run);
+        for (int i = from; i < to; i++) {
+            targets[i] = (int) (run[i - from] >>> 32);
+            counts[i] = (int) run[i - from];
+        }
+    }
+
+    /**
+     * @return Number of packages.
+     */
+    public int size() {
+        return packages.length;
+    }
+
+    public JavaPackage getPackage(int id) {
+        return packages[id];
+    }
+
+    /**
+     * @return The packages, in name order, as an unmodifiable view.
+     */
+    public List<JavaPackage> getPackages() {
+        return packageList;
+    }
+
+    public String getName(int id) {
+        return packages[id].getName();
+    }
+
+    /**
+     * Returns the id of the package of the specified name.
+     *
+     * @param name Package name.
+     * @return Id, or <code>-1</code> if the package is not in this graph.
+     */
+    public int indexOf(String name) {
+        Integer id = ids.get(name);
+        return id == null ? -1 : id;
+    }
+
+    /**
+     * Efferents of package <code>id</code> are the edge indexes from
+     * <code>getEfferentStart(id)</code> (inclusive) to
+     * <code>getEfferentStart(id + 1)</code> (exclusive), in name order.
+     */
+    public int getEfferentStart(int id) {
+        return efferentStart[id];
+    }
+
+    public int getEfferentTarget(int edge) {
+        return efferentTarget[edge];
+    }
+
+    public int getEfferentCount(int edge) {
+        return efferentCount[edge];
+    }
+
+    /**
+     * Returns the depending package of the specified efferent edge.
+     *
+     * @param edge Efferent edge index.
+     * @return Package id.
+     */
+    public int getEfferentSource(int edge) {
+        int low = 0;
+        int high = packages.length - 1;
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+            if (efferentStart[mid] <= edge) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Returns the efferent edge from package <code>source</code> to package
+     * <code>target</code>.
+     *
+     * @param source Package id.
+     * @param target Package id.
+     * @return Edge index, or <code>-1</code> if there is no such edge.
+     */
+    public int indexOfEdge(int source, int target) {
+        int edge = Arrays.binarySearch(efferentTarget, efferentStart[source],
+                efferentStart[source + 1], target);
+        return edge < 0 ? -1 : edge;
+    }
+
+    /**
+     * Afferents of package <code>id</code> are the edge indexes from
+     * <code>getAfferentStart(id)</code> (inclusive) to
+     * <code>getAfferentStart(id + 1)</code> (exclusive), in name order.
+     */
+    public int getAfferentStart(int id) {
+        return afferentStart[id];
+    }
+
+    public int getAfferentSource(int edge) {
+        return afferentTarget[edge];
+    }
+
+    public int getAfferentCount(int edge) {
+        return afferentCount[edge];
+    }
+
+    /**
+     * @return Total number of efferent edges.
+     */
+    public int getEdgeCount() {
+        return efferentStart[packages.length];
+    }
+
+    /**
+     * Indicates whether every package coupled to the specified package is
+     * in this graph, so that its runs of efferents and afferents are
+     * complete.
+     *
+     * @param id Package id.
+     */
+    public boolean isClosed(int id) {
+        return efferentStart[id + 1] - efferentStart[id] == packages[id].getEfferents().size()
+                && afferentStart[id + 1] - afferentStart[id] == packages[id].getAfferents().size();
+    }
+
+    /**
+     * Returns the abstract classes of the specified package.
+     *
+     * @param id Package id.
+     * @return Unmodifiable view of the classes, in name order.
+     */
+    public List<JavaClass> getAbstractClasses(int id) {
+        ClassRuns runs = getClassRuns();
+        return runs.view(runs.start[id], runs.concreteStart[id]);
+    }
+
+    /**
+     * Returns the concrete classes of the specified package.
+     *
+     * @param id Package id.
+     * @return Unmodifiable view of the classes, in name order.
+     */
+    public List<JavaClass> getConcreteClasses(int id) {
+        ClassRuns runs = getClassRuns();
+        return runs.view(runs.concreteStart[id], runs.start[id + 1]);
+    }
+
+    private ClassRuns getClassRuns() {
+        ClassRuns runs = classRuns;
+        if (runs == null) {
+            synchronized (this) {
+                runs = classRuns;
+                if (runs == null) {
+                    runs = new ClassRuns(packages);
+                    classRuns = runs;
+                }
+            }
+        }
+        return runs;
+    }
+
+    /*
+     * Classes of all the packages, in one array of per-package runs.
+     */
+    private static class ClassRuns {
+
+        final JavaClass[] classes;
+        final int[] start;
+        final int[] concreteStart;
+        final List<JavaClass> list;
+
+        ClassRuns(JavaPackage[] packages) {
+            int n = packages.length;
+            start = new int[n + 1];
+            concreteStart = new int[n];
+
+            int size = 0;
+            for (JavaPackage jPackage : packages) {
+                size += jPackage.getClasses().size();
+            }
+            classes = new JavaClass[size];
+
+            Comparator<JavaClass> byName = new JavaClass.ClassComparator();
+            size = 0;
+            for (int id = 0; id < n; id++) {
+                start[id] = size;
+                for (JavaClass jClass : packages[id].getClasses()) {
+                    if (jClass.isAbstract()) {
+                        classes[size++] = jClass;
+                    }
+                }
+                concreteStart[id] = size;
+                for (JavaClass jClass : packages[id].getClasses()) {
+                    if (!jClass.isAbstract()) {
+                        classes[size++] = jClass;
+                    }
+                }
+                Arrays.sort(classes, start[id], concreteStart[id], byName);
+                Arrays.sort(classes, concreteStart[id], size, byName);
+            }
+            start[n] = size;
+
+            list = Collections.unmodifiableList(Arrays.asList(classes));
+        }
+
+        List<JavaClass> view(int from, int to) {
+            return list.subList(from, to);
+        }
+    }
+}
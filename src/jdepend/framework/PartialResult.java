@@ -0,0 +1,637 @@
+package jdepend.framework;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.lang.module.ModuleDescriptor;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+/**
+ * The <code>PartialResult</code> class writes and merges the partial
+ * results of a sharded analysis, in which each shard builds the classes
+ * of some of the analyzed directories, in another process or on another
+ * machine.
+ * <p>
+ * A partial result records, file by file, what the builder of its shard
+ * put in its dataset: the classes with their dependencies and reference
+ * counts, their modules, the module descriptors, and the contents and
+ * definitions indexed to find duplicates, along with the names interned
+ * by the parser in the order it met them. Merging partial results
+ * replays these records file by file, in the order a single build reads
+ * the files, so that the merged dataset is the one a single build of all
+ * the directories produces, down to the name ids of the class summaries
+ * and the classes skipped as duplicates. Module descriptors only keep
+ * their name. The statistics of a shard, if it counts any, follow its
+ * records and are added to those of the merge.
+ * <p>
+ * A shard is run by the <code>main</code> method of this class:
+ * <p>
+ * <blockquote>
+ *
+ * <pre>
+ * java jdepend.framework.PartialResult [-filter &lt;package&gt;]...
+ *     [-release &lt;release&gt;] [-noinner] [-stats]
+ *     -file &lt;partial result&gt;
+ *     &lt;directory&gt; [directory2 [directory 3] ...]
+ * </pre>
+ *
+ * </blockquote>
+ * <p>
+ * A shard writes its messages to standard error, which the process
+ * running it may share with its own report.
+ *
+ * @since 2.11
+ */
+
+public class PartialResult {
+
+    private static final int MAGIC = 0x4A445052;
+    private static final int VERSION = 2;
+
+    private static final int END = 0;
+    private static final int FILE = 1;
+    private static final int NAMES = 2;
+    private static final int CLASS = 3;
+    private static final int MODULE = 4;
+    private static final int DESCRIPTOR = 5;
+    private static final int CONTENT = 6;
+    private static final int DEFINITION = 7;
+
+    private PartialResult() {
+    }
+
+    /**
+     * Builds the classes of the files of the specified builder, writing
+     * them as a partial result rather than keeping them.
+     *
+     * @param builder Builder of the shard.
+     * @param parser Parser of the builder.
+     * @param stats Statistics of the builder, or <code>null</code>.
+     * @param out Output stream, left open.
+     * @throws IOException If the partial result cannot be written.
+     */
+    static void write(JavaClassBuilder builder, ClassFileParser parser,
+            AnalysisStats stats, OutputStream out) throws IOException {
+
+        DataOutputStream data = new DataOutputStream(
+                new BufferedOutputStream(out, 1 << 16));
+        data.writeInt(MAGIC);
+        data.writeInt(VERSION);
+
+        Recorder recorder = new Recorder(parser.getSymbolTable(), data);
+        try {
+            builder.build(recorder, recorder::startFile);
+            recorder.flushNames();
+        } catch (UncheckedIOException uioe) {
+            throw uioe.getCause();
+        }
+
+        data.writeByte(END);
+        writeStats(data, stats);
+        data.flush();
+    }
+
+    /**
+     * Merges the specified partial results into the specified dataset, as
+     * a single build of all their files.
+     *
+     * @param partialResults Partial results, in any order.
+     * @param dataset Dataset to be populated with the classes.
+     * @param symbols Symbol table of the merged class summaries.
+     * @param stats Statistics the statistics of the shards are added
+     *        to, or <code>null</code>.
+     * @throws IOException If a partial result cannot be read.
+     */
+    public static void merge(List<File> partialResults,
+            JavaClassDataset dataset, SymbolTable symbols,
+            AnalysisStats stats) throws IOException {
+
+        List<Replay> replays = new ArrayList<>();
+        PriorityQueue<Replay> queue = new PriorityQueue<>(
+                (a, b) -> a.file.compareTo(b.file));
+        try {
+            for (File partialResult : partialResults) {
+                Replay replay = new Replay(partialResult, dataset, symbols);
+                replays.add(replay);
+                if (replay.file != null) {
+                    queue.add(replay);
+                }
+            }
+
+            //
+            // A file under two overlapping directories of different
+            // shards is built once by a single build.
+            //
+            File last = null;
+            Replay replay;
+            while ((replay = queue.poll()) != null) {
+                boolean apply = !replay.file.equals(last);
+                last = replay.file;
+                if (replay.replayFile(apply)) {
+                    queue.add(replay);
+                }
+            }
+
+            for (Replay r : replays) {
+                readStats(r.in, stats);
+            }
+        } finally {
+            for (Replay r : replays) {
+                r.in.close();
+            }
+        }
+    }
+
+    /*
+     * Returns the key under which DuplicateClassIndex records a content,
+     * or null if the content is unknown.
+     */
+    private static String contentKey(String path, long size, long checksum) {
+        if (size == DuplicateClassIndex.UNKNOWN
+                || checksum == DuplicateClassIndex.UNKNOWN) {
+            return null;
+        }
+        return DuplicateClassIndex.contentKey(path, size, checksum);
+    }
+
+    private static void writeStats(DataOutputStream out, AnalysisStats stats)
+            throws IOException {
+        out.writeBoolean(stats != null);
+        if (stats == null) {
+            return;
+        }
+        Map<String, Long> counters = stats.getCounters();
+        out.writeInt(counters.size());
+        for (Map.Entry<String, Long> counter : counters.entrySet()) {
+            out.writeUTF(counter.getKey());
+            out.writeLong(counter.getValue());
+        }
+        Map<String, Long> times = stats.getTimes();
+        out.writeInt(times.size());
+        for (Map.Entry<String, Long> time : times.entrySet()) {
+            out.writeUTF(time.getKey());
+            out.writeLong(stats.getTimeCount(time.getKey()));
+            out.writeLong(time.getValue());
+        }
+    }
+
+    private static void readStats(DataInputStream in, AnalysisStats stats)
+            throws IOException {
+        if (!in.readBoolean()) {
+            return;
+        }
+        for (int i = in.readInt(); i > 0; i--) {
+            String counter = in.readUTF();
+            long value = in.readLong();
+            if (stats != null) {
+                stats.add(counter, value);
+            }
+        }
+        for (int i = in.readInt(); i > 0; i--) {
+            String timer = in.readUTF();
+            long count = in.readLong();
+            long nanos = in.readLong();
+            if (stats != null) {
+                stats.addTime(timer, count, nanos);
+            }
+        }
+    }
+
+    private static void writeNullable(DataOutputStream out, String s)
+            throws IOException {
+        out.writeBoolean(s != null);
+        if (s != null) {
+            out.writeUTF(s);
+        }
+    }
+
+    private static String readNullable(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    /*
+     * A dataset recording what is put in it, without keeping the classes.
+     * The builder puts the module of a class right after the class, and
+     * indexes its definition right after that.
+     */
+    private static class Recorder extends JavaClassDataset {
+
+        private final SymbolTable symbols;
+        private final DataOutputStream out;
+        private int flushedNames;
+
+        Recorder(SymbolTable symbols, DataOutputStream out) {
+            super(new RecordingIndex());
+            ((RecordingIndex) getDuplicateClassIndex()).recorder = this;
+            this.symbols = symbols;
+            this.out = out;
+        }
+
+        void startFile(File file) {
+            try {
+                event(FILE);
+                out.writeUTF(file.getPath());
+            } catch (IOException ioe) {
+                throw new UncheckedIOException(ioe);
+            }
+        }
+
+        public void addJavaClass(JavaClass javaClass) {
+            ClassSummary summary = javaClass.getSummary();
+            if (summary.getSymbols() != symbols) {
+                throw new IllegalStateException("Class not parsed by the shard: "
+                        + javaClass.getName());
+            }
+            try {
+                event(CLASS);
+                out.writeInt(summary.getNameId());
+                out.writeInt(summary.getPackageId());
+                out.writeInt(sourceFileId(summary));
+                out.writeBoolean(summary.isAbstract());
+                out.writeInt(summary.getDependencyCount());
+                for (int i = 0; i < summary.getDependencyCount(); i++) {
+                    out.writeInt(summary.getDependencyId(i));
+                    out.writeInt(summary.getReferenceCount(i));
+                }
+                out.writeInt(summary.getImportedPackageCount());
+                for (int i = 0; i < summary.getImportedPackageCount(); i++) {
+                    out.writeInt(summary.getImportedPackageId(i));
+                }
+            } catch (IOException ioe) {
+                throw new UncheckedIOException(ioe);
+            }
+        }
+
+        public void putJavaClassModule(JavaClass javaClass, String moduleName) {
+            try {
+                event(MODULE);
+                writeNullable(out, moduleName);
+            } catch (IOException ioe) {
+                throw new UncheckedIOException(ioe);
+            }
+        }
+
+        public void putModuleDescriptor(String moduleName, ModuleDescriptor descriptor) {
+            try {
+                event(DESCRIPTOR);
+                out.writeUTF(moduleName);
+                out.writeUTF(descriptor.name());
+            } catch (IOException ioe) {
+                throw new UncheckedIOException(ioe);
+            }
+        }
+
+        void addContent(String path, long size, long checksum) {
+            try {
+                event(CONTENT);
+                out.writeUTF(path);
+                out.writeLong(size);
+                out.writeLong(checksum);
+            } catch (IOException ioe) {
+                throw new UncheckedIOException(ioe);
+            }
+        }
+
+        void addClass(String className, long size, long checksum,
+                String container, String entry) {
+            try {
+                event(DEFINITION);
+                out.writeUTF(className);
+                out.writeLong(size);
+                out.writeLong(checksum);
+                writeNullable(out, container);
+                out.writeUTF(entry);
+            } catch (IOException ioe) {
+                throw new UncheckedIOException(ioe);
+            }
+        }
+
+        /*
+         * The summary has no id for an unknown source file; the name it
+         * returns is that of its id otherwise.
+         */
+        private int sourceFileId(ClassSummary summary) {
+            String sourceFile = summary.getSourceFile();
+            return sourceFile == null ? -1 : symbols.find(sourceFile);
+        }
+
+        /*
+         * Writes the names interned since the last event, so that the
+         * names of the classes of a file are in its records.
+         */
+        private void event(int type) throws IOException {
+            flushNames();
+            out.writeByte(type);
+        }
+
+        void flushNames() throws IOException {
+            int size = symbols.size();
+            if (size > flushedNames) {
+                out.writeByte(NAMES);
+                out.writeInt(size - flushedNames);
+                for (int id = flushedNames; id < size; id++) {
+                    out.writeUTF(symbols.getName(id));
+                }
+                flushedNames = size;
+            }
+        }
+    }
+
+    /*
+     * An index recording the contents and definitions of a shard. It
+     * skips the contents found before in the shard, as a single build
+     * does, but keeps no definitions.
+     */
+    private static class RecordingIndex extends DuplicateClassIndex {
+
+        Recorder recorder;
+
+        public boolean addContent(String path, long size, long checksum) {
+            recorder.addContent(path, size, checksum);
+            return super.addContent(path, size, checksum);
+        }
+
+        public void addClass(String className, long size, long checksum,
+                String container, String entry) {
+            recorder.addClass(className, size, checksum, container, entry);
+        }
+    }
+
+    /*
+     * A partial result being merged, positioned at the start of the
+     * records of a file.
+     */
+    private static class Replay {
+
+        final DataInputStream in;
+        private final JavaClassDataset dataset;
+        private final SymbolTable symbols;
+        private final String name;
+
+        /**
+         * Merged ids of the names of the partial result, by id.
+         */
+        private int[] ids = new int[1024];
+        private int names;
+
+        File file;
+
+        /**
+         * Keys of the contents of the file found before in other files,
+         * whose classes a single build skips.
+         */
+        private final Set<String> skipped = new HashSet<>();
+
+        private JavaClass pending;
+        private String pendingModule;
+        private boolean pendingHasModule;
+
+        Replay(File partialResult, JavaClassDataset dataset, SymbolTable symbols)
+                throws IOException {
+            this.in = new DataInputStream(new BufferedInputStream(
+                    new FileInputStream(partialResult), 1 << 16));
+            this.dataset = dataset;
+            this.symbols = symbols;
+            this.name = partialResult.getPath();
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                in.close();
+                throw new IOException("Not a partial result: " + name);
+            }
+            nextFile(in.readByte());
+        }
+
+        /*
+         * Replays the records of the current file, merging them into the
+         * dataset if apply is true, and moves to the next file.
+         */
+        boolean replayFile(boolean apply) throws IOException {
+            skipped.clear();
+            int type;
+            while ((type = in.readByte()) != FILE && type != END) {
+                switch (type) {
+                case NAMES:
+                    readNames();
+                    break;
+                case CLASS:
+                    JavaClass jClass = readClass();
+                    if (apply) {
+                        flush();
+                        pending = jClass;
+                    }
+                    break;
+                case MODULE:
+                    pendingModule = readNullable(in);
+                    pendingHasModule = true;
+                    break;
+                case DESCRIPTOR:
+                    String module = in.readUTF();
+                    String descriptor = in.readUTF();
+                    if (apply) {
+                        flush();
+                        dataset.putModuleDescriptor(module,
+                                ModuleDescriptor.newModule(descriptor).build());
+                    }
+                    break;
+                case CONTENT:
+                    String path = in.readUTF();
+                    long size = in.readLong();
+                    long checksum = in.readLong();
+                    if (apply) {
+                        flush();
+                        if (!dataset.getDuplicateClassIndex().addContent(path, size, checksum)) {
+                            skipped.add(contentKey(path, size, checksum));
+                        }
+                    }
+                    break;
+                case DEFINITION:
+                    readDefinition(apply);
+                    break;
+                default:
+                    throw new IOException("Corrupt partial result: " + name);
+                }
+            }
+            if (apply) {
+                flush();
+            }
+            return nextFile(type);
+        }
+
+        private boolean nextFile(int type) throws IOException {
+            if (type == END) {
+                file = null;
+                return false;
+            }
+            if (type != FILE) {
+                throw new IOException("Corrupt partial result: " + name);
+            }
+            file = new File(in.readUTF());
+            return true;
+        }
+
+        private void readNames() throws IOException {
+            int count = in.readInt();
+            if (names + count > ids.length) {
+                ids = Arrays.copyOf(ids, Math.max(names + count, ids.length * 2));
+            }
+            for (int i = 0; i < count; i++) {
+                ids[names++] = symbols.intern(in.readUTF());
+            }
+        }
+
+        private JavaClass readClass() throws IOException {
+            int className = id(in.readInt());
+            int packageName = id(in.readInt());
+            int sourceFile = id(in.readInt());
+            boolean isAbstract = in.readBoolean();
+
+            long[] dependencies = new long[in.readInt()];
+            for (int i = 0; i < dependencies.length; i++) {
+                int dependency = id(in.readInt());
+                dependencies[i] = (long) dependency << 32 | in.readInt();
+            }
+            Arrays.sort(dependencies);
+            int[] dependencyIds = new int[dependencies.length];
+            int[] referenceCounts = new int[dependencies.length];
+            for (int i = 0; i < dependencies.length; i++) {
+                dependencyIds[i] = (int) (dependencies[i] >>> 32);
+                referenceCounts[i] = (int) dependencies[i];
+            }
+
+            int[] importedPackages = new int[in.readInt()];
+            for (int i = 0; i < importedPackages.length; i++) {
+                importedPackages[i] = id(in.readInt());
+            }
+            Arrays.sort(importedPackages);
+
+            return new JavaClass(new ClassSummary(symbols, className,
+                    packageName, sourceFile, isAbstract, dependencyIds,
+                    referenceCounts, importedPackages));
+        }
+
+        private void readDefinition(boolean apply) throws IOException {
+            String className = in.readUTF();
+            long size = in.readLong();
+            long checksum = in.readLong();
+            String container = readNullable(in);
+            String entry = in.readUTF();
+            if (!apply) {
+                return;
+            }
+
+            String key = contentKey(DuplicateClassIndex.classPath(className),
+                    size, checksum);
+            if (pending != null && pending.getName().equals(className)
+                    && key != null && skipped.contains(key)) {
+                // found before in another shard: a single build skips it
+                pending = null;
+                pendingHasModule = false;
+                return;
+            }
+            flush();
+            dataset.getDuplicateClassIndex().addClass(className, size,
+                    checksum, container, entry);
+        }
+
+        private void flush() {
+            if (pending != null) {
+                dataset.addJavaClass(pending);
+                if (pendingHasModule) {
+                    dataset.putJavaClassModule(pending, pendingModule);
+                }
+            }
+            pending = null;
+            pendingModule = null;
+            pendingHasModule = false;
+        }
+
+        private int id(int shardId) throws IOException {
+            if (shardId < 0) {
+                return -1;
+            }
+            if (shardId >= names) {
+                throw new IOException("Corrupt partial result: " + name);
+            }
+            return ids[shardId];
+        }
+    }
+
+    /**
+     * Runs a shard, writing its partial result.
+     */
+    public static void main(String[] args) {
+
+        //
+        // The partial result is the output of a shard; whatever else it
+        // prints must not end up in the report of the process running it.
+        //
+        System.setOut(System.err);
+
+        List<String> filters = new ArrayList<>();
+        List<String> directories = new ArrayList<>();
+        String file = null;
+        int release = -1;
+        boolean inner = true;
+        boolean stats = false;
+
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("-filter") && i + 1 < args.length) {
+                filters.add(args[++i]);
+            } else if (args[i].equals("-release") && i + 1 < args.length) {
+                release = Integer.parseInt(args[++i]);
+            } else if (args[i].equals("-noinner")) {
+                inner = false;
+            } else if (args[i].equals("-stats")) {
+                stats = true;
+            } else if (args[i].equals("-file") && i + 1 < args.length) {
+                file = args[++i];
+            } else if (args[i].startsWith("-")) {
+                usage("Invalid argument: " + args[i]);
+            } else {
+                directories.add(args[i]);
+            }
+        }
+        if (file == null) {
+            usage("Partial result file not specified.");
+        }
+
+        JDepend jdepend = new JDepend(new PackageFilter(filters));
+        jdepend.analyzeInnerClasses(inner);
+        if (release > 0) {
+            jdepend.setTargetRelease(release);
+        }
+        if (stats) {
+            jdepend.setStats(new AnalysisStats());
+        }
+
+        try (OutputStream out = new FileOutputStream(file)) {
+            for (String directory : directories) {
+                jdepend.addDirectory(directory);
+            }
+            jdepend.writePartialResult(out);
+        } catch (IOException ioe) {
+            System.err.println(ioe.getMessage());
+            System.exit(1);
+        }
+    }
+
+    private static void usage(String message) {
+        System.err.println(message);
+        System.err.println("usage: PartialResult [-filter <package>]..."
+                + " [-release <release>] [-noinner] [-stats] -file <partial result>"
+                + " <directory> [directory2 [directory 3] ...]");
+        System.exit(1);
+    }
+}
@@ -86,7 +86,8 @@ public class PropertyConfigurator {
             if (!key.startsWith("ignore")
                     && !key.equals("analyzeInnerClasses")
                     && !key.equals("projectRoot")
-                    && !key.equals("moduleAnalysis")) {
+                    && !key.equals("moduleAnalysis")
+                    && !key.equals("targetRelease")) {
                 String v = properties.getProperty(key);
                 packages.add(new JavaPackage(key, Integer.parseInt(v)));
             }
@@ -114,6 +115,19 @@ public class PropertyConfigurator {
         return Boolean.parseBoolean(properties.getProperty("moduleAnalysis", "false"));
     }
 
+    /**
+     * Returns the Java feature release whose versions of the classes of
+     * multi-release jars are analyzed.
+     *
+     * @return Target release, by default that of the running platform.
+     * @since 2.11
+     */
+    public int getTargetRelease() {
+        String value = properties.getProperty("targetRelease");
+        return value == null ? Runtime.version().feature()
+                : Integer.parseInt(value.trim());
+    }
+
     public static File getDefaultPropertyFile() {
         String home = System.getProperty("user.home");
         return new File(home, DEFAULT_PROPERTY_FILE);
@@ -0,0 +1,183 @@
+package jdepend.framework;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The <code>ReachabilityIndex</code> class answers transitive dependency
+ * questions about a <code>PackageGraph</code> without walking the graph
+ * per query.
+ * <p>
+ * The index is computed once on the condensation of the graph, in which
+ * every strongly connected component is a single node. Each component
+ * holds a bitset (a <code>long[]</code>) of the components it reaches and
+ * another of the components reaching it, so that "does A depend upon B"
+ * is a single bit test and the transitive efferents or afferents of a
+ * package are a scan of <i>n</i>/64 words.
+ * <p>
+ * Example API use:
+ * <p>
+ * <blockquote>
+ *
+ * <pre>
+ * JDepend jdepend = new JDepend();
+ * jdepend.addDirectory(&quot;/path/to/classes&quot;);
+ * jdepend.analyze();
+ *
+ * // Everything that may break if com.xyz.util changes
+ * Collection impacted = jdepend.getTransitiveAfferents(&quot;com.xyz.util&quot;);
+ * boolean b = jdepend.dependsTransitively(&quot;com.xyz.web&quot;, &quot;com.xyz.util&quot;);
+ * </pre>
+ *
+ * </blockquote>
+ * </p>
+ *
+ * @since 2.11
+ */
+public class ReachabilityIndex {
+
+    private final PackageGraph graph;
+    private final StronglyConnectedComponents components;
+    private final long[][] descendants;
+    private final long[][] ancestors;
+
+    /**
+     * Builds the reachability index of the specified graph.
+     *
+     * @param graph Package graph.
+     */
+    public ReachabilityIndex(PackageGraph graph) {
+        this(new StronglyConnectedComponents(graph));
+    }
+
+    /**
+     * Builds the reachability index of the graph of the specified
+     * components.
+     *
+     * @param components Strongly connected components of a package graph.
+     */
+    public ReachabilityIndex(StronglyConnectedComponents components) {
+        this.graph = components.getGraph();
+        this.components = components;
+
+        int count = components.getCount();
+        int words = (count + 63) >>> 6;
+        descendants = new long[count][];
+        ancestors = new long[count][];
+
+        //
+        // Components are numbered in reverse topological order, so the
+        // successors of a component are complete before it is visited.
+        //
+        for (int c = 0; c < count; c++) {
+            long[] bits = new long[words];
+            for (int member : components.getMembers(c)) {
+                for (int e = graph.getEfferentStart(member); e < graph.getEfferentStart(member + 1); e++) {
+                    int target = components.getComponent(graph.getEfferentTarget(e));
+                    if (target != c && (bits[target >>> 6] & (1L << target)) == 0) {
+                        or(bits, descendants[target]);
+                        bits[target >>> 6] |= 1L << target;
+                    }
+                }
+            }
+            if (components.isCyclic(c)) {
+                bits[c >>> 6] |= 1L << c;
+            }
+            descendants[c] = bits;
+        }
+
+        for (int c = count - 1; c >= 0; c--) {
+            long[] bits = new long[words];
+            for (int member : components.getMembers(c)) {
+                for (int e = graph.getAfferentStart(member); e < graph.getAfferentStart(member + 1); e++) {
+                    int source = components.getComponent(graph.getAfferentSource(e));
+                    if (source != c && (bits[source >>> 6] & (1L << source)) == 0) {
+                        or(bits, ancestors[source]);
+                        bits[source >>> 6] |= 1L << source;
+                    }
+                }
+            }
+            if (components.isCyclic(c)) {
+                bits[c >>> 6] |= 1L << c;
+            }
+            ancestors[c] = bits;
+        }
+    }
+
+    private static void or(long[] bits, long[] other) {
+        for (int i = 0; i < bits.length; i++) {
+            bits[i] |= other[i];
+        }
+    }
+
+    public PackageGraph getGraph() {
+        return graph;
+    }
+
+    public StronglyConnectedComponents getComponents() {
+        return components;
+    }
+
+    /**
+     * Indicates whether package <code>a</code> depends, directly or
+     * transitively, upon package <code>b</code>. A package only depends
+     * upon itself if it takes part in a dependency cycle.
+     *
+     * @param a Package id.
+     * @param b Package id.
+     * @return <code>true</code> if <code>a</code> reaches <code>b</code>.
+     */
+    public boolean reaches(int a, int b) {
+        int target = components.getComponent(b);
+        return (descendants[components.getComponent(a)][target >>> 6]
+                & (1L << target)) != 0;
+    }
+
+    /**
+     * Returns the packages upon which the specified package depends,
+     * directly or transitively, in name order. The package itself is not
+     * included.
+     *
+     * @param packageId Package id.
+     * @return Transitive efferents.
+     */
+    public List<JavaPackage> getTransitiveEfferents(int packageId) {
+        return collect(descendants[components.getComponent(packageId)], packageId);
+    }
+
+    /**
+     * Returns the packages which depend, directly or transitively, upon
+     * the specified package, in name order. These are the packages which
+     * may be impacted by a change to it. The package itself is not
+     * included.
+     *
+     * @param packageId Package id.
+     * @return Transitive afferents.
+     */
+    public List<JavaPackage> getTransitiveAfferents(int packageId) {
+        return collect(ancestors[components.getComponent(packageId)], packageId);
+    }
+
+    private List<JavaPackage> collect(long[] bits, int exclude) {
+        boolean[] marked = new boolean[graph.size()];
+        for (int word = 0; word < bits.length; word++) {
+            long w = bits[word];
+            while (w != 0) {
+                int c = (word << 6) + Long.numberOfTrailingZeros(w);
+                w &= w - 1;
+                for (int member : components.getMembers(c)) {
+                    marked[member] = true;
+                }
+            }
+        }
+        marked[exclude] = false;
+
+        List<JavaPackage> result = new ArrayList<>();
+        for (int id = 0; id < marked.length; id++) {
+            if (marked[id]) {
+                result.add(graph.getPackage(id));
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,62 @@
+package jdepend.framework;
+
+import java.util.List;
+
+/**
+ * The <code>RuleViolation</code> class represents a package dependency
+ * forbidden by <code>ArchitectureRules</code>.
+ *
+ * @since 2.11
+ */
+
+public class RuleViolation {
+
+    private final String rule;
+    private final JavaPackage source;
+    private final JavaPackage target;
+    private final int references;
+    private final List<JavaClass> classes;
+
+    public RuleViolation(String rule, JavaPackage source, JavaPackage target,
+            int references, List<JavaClass> classes) {
+        this.rule = rule;
+        this.source = source;
+        this.target = target;
+        this.references = references;
+        this.classes = classes;
+    }
+
+    /**
+     * @return The violated rule, as written in the rule language.
+     */
+    public String getRule() {
+        return rule;
+    }
+
+    public JavaPackage getSource() {
+        return source;
+    }
+
+    public JavaPackage getTarget() {
+        return target;
+    }
+
+    /**
+     * @return Number of references from the source to the target package.
+     */
+    public int getReferences() {
+        return references;
+    }
+
+    /**
+     * @return Classes of the source package depending upon the target
+     *         package, in name order.
+     */
+    public List<JavaClass> getClasses() {
+        return classes;
+    }
+
+    public String toString() {
+        return source.getName() + " -> " + target.getName() + " (" + rule + ")";
+    }
+}
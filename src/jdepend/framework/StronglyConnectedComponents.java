@@ -0,0 +1,174 @@
+package jdepend.framework;
+
+import java.util.Arrays;
+
+/**
+ * The <code>StronglyConnectedComponents</code> class partitions a
+ * <code>PackageGraph</code> into its strongly connected components, using
+ * an iterative version of Tarjan's algorithm that runs in linear time.
+ * <p>
+ * Two packages are in the same component if and only if each depends,
+ * directly or transitively, upon the other. Every package dependency cycle
+ * therefore lies within a single component.
+ * <p>
+ * Components are numbered in reverse topological order: a component only
+ * depends upon components with a smaller number.
+ *
+ * @since 2.11
+ */
+public class StronglyConnectedComponents {
+
+    private final PackageGraph graph;
+    private final int[] component;
+    private final int[] memberStart;
+    private final int[] members;
+    private final boolean[] cyclic;
+    private final int count;
+
+    /**
+     * Computes the strongly connected components of the specified graph.
+     *
+     * @param graph Package graph.
+     */
+    public StronglyConnectedComponents(PackageGraph graph) {
+        this.graph = graph;
+
+        int n = graph.size();
+        component = new int[n];
+        Arrays.fill(component, -1);
+
+        int[] index = new int[n];
+        int[] lowLink = new int[n];
+        Arrays.fill(index, -1);
+        boolean[] onStack = new boolean[n];
+        int[] stack = new int[n];
+        int stackSize = 0;
+        int[] callStack = new int[n];
+        int[] callEdge = new int[n];
+        int nextIndex = 0;
+        int components = 0;
+
+        for (int root = 0; root < n; root++) {
+            if (index[root] >= 0) {
+                continue;
+            }
+
+            int depth = 0;
+            callStack[0] = root;
+            callEdge[0] = graph.getEfferentStart(root);
+            index[root] = lowLink[root] = nextIndex++;
+            stack[stackSize++] = root;
+            onStack[root] = true;
+
+            while (depth >= 0) {
+                int v = callStack[depth];
+                int edge = callEdge[depth];
+
+                if (edge < graph.getEfferentStart(v + 1)) {
+                    callEdge[depth] = edge + 1;
+                    int w = graph.getEfferentTarget(edge);
+                    if (index[w] < 0) {
+                        index[w] = lowLink[w] = nextIndex++;
+                        stack[stackSize++] = w;
+                        onStack[w] = true;
+                        depth++;
+                        callStack[depth] = w;
+                        callEdge[depth] = graph.getEfferentStart(w);
+                    } else if (onStack[w]) {
+                        lowLink[v] = Math.min(lowLink[v], index[w]);
+                    }
+                    continue;
+                }
+
+                if (lowLink[v] == index[v]) {
+                    int w;
+                    do {
+                        w = stack[--stackSize];
+                        onStack[w] = false;
+                        component[w] = components;
+                    } while (w != v);
+                    components++;
+                }
+
+                depth--;
+                if (depth >= 0) {
+                    int parent = callStack[depth];
+                    lowLink[parent] = Math.min(lowLink[parent], lowLink[v]);
+                }
+            }
+        }
+
+        count = components;
+
+        memberStart = new int[count + 1];
+        for (int v = 0; v < n; v++) {
+            memberStart[component[v] + 1]++;
+        }
+        for (int c = 0; c < count; c++) {
+            memberStart[c + 1] += memberStart[c];
+        }
+        members = new int[n];
+        int[] fill = Arrays.copyOf(memberStart, count);
+        for (int v = 0; v < n; v++) {
+            members[fill[component[v]]++] = v;
+        }
+
+        cyclic = new boolean[count];
+        for (int v = 0; v < n; v++) {
+            if (getSize(component[v]) > 1) {
+                cyclic[component[v]] = true;
+            }
+        }
+    }
+
+    public PackageGraph getGraph() {
+        return graph;
+    }
+
+    /**
+     * @return Number of components.
+     */
+    public int getCount() {
+        return count;
+    }
+
+    /**
+     * Returns the component of the specified package.
+     *
+     * @param packageId Package id.
+     * @return Component number.
+     */
+    public int getComponent(int packageId) {
+        return component[packageId];
+    }
+
+    /**
+     * @return Number of packages in the specified component.
+     */
+    public int getSize(int component) {
+        return memberStart[component + 1] - memberStart[component];
+    }
+
+    /**
+     * Returns the ids of the packages in the specified component, in name
+     * order.
+     *
+     * @param component Component number.
+     * @return Package ids.
+     */
+    public int[] getMembers(int component) {
+        return Arrays.copyOfRange(members, memberStart[component],
+                memberStart[component + 1]);
+    }
+
+    /**
+     * Indicates whether the specified component contains a package
+     * dependency cycle, i.e. has more than one package.
+     *
+     * @param component Component number.
+     * @return <code>true</code> if the component is cyclic.
+     */
+    public boolean isCyclic(int component) {
+        return cyclic[component];
+    }
+}
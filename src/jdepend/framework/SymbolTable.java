@@ -0,0 +1,130 @@
+package jdepend.framework;
+
+import java.util.Arrays;
+
+/**
+ * The <code>SymbolTable</code> class interns the class, package and source
+ * file names of parsed classes into dense integer ids, starting at zero,
+ * shared by their <code>ClassSummary</code> instances.
+ * <p>
+ * Names are interned under a lock, so that the threads parsing with one
+ * parser share its table, and each name is kept once whatever the number
+ * of classes referencing it. The name of an id may be read without
+ * locking by any thread the id was safely handed to.
+ *
+ * @since 2.11
+ */
+
+public class SymbolTable {
+
+    private volatile String[] names;
+    private int[] slots;
+    private int size;
+
+    public SymbolTable() {
+        this(1024);
+    }
+
+    public SymbolTable(int capacity) {
+        capacity = Math.max(16, Integer.highestOneBit(capacity - 1) << 1);
+        names = new String[capacity];
+        slots = new int[capacity * 2];
+        size = 0;
+    }
+
+    /**
+     * Returns the id of the specified name, assigning the next free id if
+     * the name has not been seen before.
+     *
+     * @param name Name to intern.
+     * @return Id of the name.
+     */
+    public synchronized int intern(String name) {
+        int slot = slot(name);
+        if (slots[slot] != 0) {
+            return slots[slot] - 1;
+        }
+
+        int id = size;
+        String[] current = names;
+        if (id == current.length) {
+            current = Arrays.copyOf(current, id * 2);
+            current[id] = name;
+            names = current;
+        } else {
+            current[id] = name;
+        }
+        slots[slot] = id + 1;
+        size++;
+
+        if (size * 2 > slots.length) {
+            rehash();
+        }
+        return id;
+    }
+
+    /**
+     * Returns the id of the specified name.
+     *
+     * @param name Name to look up.
+     * @return Id of the name, or <code>-1</code> if it was never interned.
+     */
+    public synchronized int find(String name) {
+        return slots[slot(name)] - 1;
+    }
+
+    /**
+     * Returns the name interned under the specified id.
+     *
+     * @param id Name id.
+     * @return Name.
+     */
+    public String getName(int id) {
+        String[] current = names;
+        String name = id >= 0 && id < current.length ? current[id] : null;
+        if (name == null) {
+            throw new IndexOutOfBoundsException("Unknown name id: " + id);
+        }
+        return name;
+    }
+
+    /**
+     * @return Number of interned names.
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    /*
+     * Returns the slot holding the specified name, or the empty slot it
+     * would be interned in.
+     */
+    private int slot(String name) {
+        int hash = name.hashCode();
+        int mask = slots.length - 1;
+        int slot = (hash ^ (hash >>> 16)) & mask;
+        int id;
+        while ((id = slots[slot] - 1) >= 0) {
+            String interned = names[id];
+            if (interned.hashCode() == hash && interned.equals(name)) {
+                break;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void rehash() {
+        slots = new int[slots.length * 2];
+        int mask = slots.length - 1;
+        String[] current = names;
+        for (int id = 0; id < size; id++) {
+            int hash = current[id].hashCode();
+            int slot = (hash ^ (hash >>> 16)) & mask;
+            while (slots[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            slots[slot] = id + 1;
+        }
+    }
+}
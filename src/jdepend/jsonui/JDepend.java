@@ -0,0 +1,485 @@
+package jdepend.jsonui;
+
+import jdepend.framework.DependencyRollup;
+import jdepend.framework.DuplicateClass;
+import jdepend.framework.JavaClass;
+import jdepend.framework.JavaPackage;
+import jdepend.framework.MetricFormat;
+import jdepend.framework.RuleViolation;
+
+import java.io.BufferedWriter;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * The <code>JDepend</code> class analyzes directories of Java class files,
+ * generates metrics for each Java package, and reports the metrics as JSON
+ * Lines: one JSON object per line, whose <code>type</code> member is
+ * <code>package</code>, <code>cycle</code>, <code>impact</code>,
+ * <code>elementaryCycle</code>, <code>elementaryCycles</code>,
+ * <code>cycleParticipation</code>, <code>removeToBreakCycles</code>,
+ * <code>ruleViolation</code> or <code>duplicateClass</code>.
+ * <p>
+ * Each object is written as its parts are reported, straight to the
+ * writer, so memory use does not grow with the size of the report and the
+ * output can be read a line at a time.
+ *
+ * @since 2.11
+ */
+
+public class JDepend extends jdepend.textui.JDepend {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final char[] digits = new char[20];
+
+    private DependencyRollup.Level level;
+
+    private boolean firstElement;
+
+    /**
+     * Constructs a <code>JDepend</code> instance using standard output,
+     * encoded in UTF-8.
+     */
+    public JDepend() {
+        this(new PrintWriter(new BufferedWriter(new OutputStreamWriter(
+                System.out, StandardCharsets.UTF_8), BUFFER_SIZE)));
+    }
+
+    /**
+     * Constructs a <code>JDepend</code> instance with the specified writer.
+     *
+     * @param writer Writer.
+     */
+    public JDepend(PrintWriter writer) {
+        super(writer);
+
+        metricFormat = MetricFormat.getPlainInstance(2);
+    }
+
+    /**
+     * Returns <code>false</code>: the separators between members depend on
+     * the hooks called before, so sections are rendered in order.
+     */
+    protected boolean supportsParallelRendering() {
+        return false;
+    }
+
+    protected String getReportExtension() {
+        return ".jsonl";
+    }
+
+    protected void printLevelHeader(DependencyRollup.Level level) {
+        this.level = level;
+    }
+
+    protected void printLevelFooter(DependencyRollup.Level level) {
+        this.level = null;
+    }
+
+    protected void printPackagesHeader() {
+        // do nothing
+    }
+
+    protected void printPackagesFooter() {
+        // do nothing
+    }
+
+    protected void printPackageHeader(JavaPackage jPackage) {
+        beginObject("package");
+        if (level != null) {
+            writeMember("level", level.toString());
+        }
+        writeMember("name", jPackage.getName());
+    }
+
+    protected void printPackageFooter(JavaPackage jPackage) {
+        endObject();
+    }
+
+    protected void printNoStats() {
+        writeMember("error",
+                "No stats available: package referenced, but not analyzed.");
+    }
+
+    protected void printStatistics(JavaPackage jPackage) {
+        writeKey("stats");
+        getWriter().write('{');
+        firstElement = true;
+        writeMember("totalClasses", jPackage.getClassCount());
+        writeMember("concreteClasses", jPackage.getConcreteClassCount());
+        writeMember("abstractClasses", jPackage.getAbstractClassCount());
+        writeMember("ca", jPackage.afferentCoupling());
+        writeMember("ce", jPackage.efferentCoupling());
+        writeMember("a", jPackage.abstractness());
+        writeMember("i", jPackage.instability());
+        writeMember("d", jPackage.distance());
+        writeMember("v", jPackage.getVolatility());
+        getWriter().write('}');
+        firstElement = false;
+    }
+
+    protected void printClassName(JavaClass jClass) {
+        beginElement();
+        getWriter().write('{');
+        firstElement = true;
+        writeMember("name", jClass.getName());
+        writeMember("sourceFile", jClass.getSourceFile());
+        getWriter().write('}');
+        firstElement = false;
+    }
+
+    protected void printCoupledPackage(JavaPackage p, int referenceCount) {
+        beginElement();
+        getWriter().write('{');
+        firstElement = true;
+        writeMember("name", p.getName());
+        writeMember("count", referenceCount);
+        getWriter().write('}');
+        firstElement = false;
+    }
+
+    protected void printAbstractClassesHeader() {
+        beginArray("abstractClasses");
+    }
+
+    protected void printAbstractClassesFooter() {
+        endArray();
+    }
+
+    protected void printConcreteClassesHeader() {
+        beginArray("concreteClasses");
+    }
+
+    protected void printConcreteClassesFooter() {
+        endArray();
+    }
+
+    protected void printEfferentsHeader() {
+        beginArray("dependsUpon");
+    }
+
+    protected void printEfferentsFooter() {
+        endArray();
+    }
+
+    protected void printEfferentsError() {
+        // do nothing
+    }
+
+    protected void printAfferentsHeader() {
+        beginArray("usedBy");
+    }
+
+    protected void printAfferentsFooter() {
+        endArray();
+    }
+
+    protected void printAfferentsError() {
+        // do nothing
+    }
+
+    protected void printCyclesHeader() {
+        // do nothing
+    }
+
+    protected void printCyclesFooter() {
+        // do nothing
+    }
+
+    protected void printCycleHeader(JavaPackage jPackage) {
+        beginObject("cycle");
+        if (level != null) {
+            writeMember("level", level.toString());
+        }
+        writeMember("package", jPackage.getName());
+        beginArray("path");
+    }
+
+    protected void printCycleFooter() {
+        endArray();
+        endObject();
+    }
+
+    protected void printCycleTarget(JavaPackage jPackage) {
+        printCycleContributor(jPackage);
+    }
+
+    protected void printCycleContributor(JavaPackage jPackage) {
+        beginElement();
+        writeString(jPackage.getName());
+    }
+
+    protected void printImpactHeader(String packageName) {
+        beginObject("impact");
+        writeMember("package", packageName);
+    }
+
+    protected void printImpactFooter(String packageName) {
+        endObject();
+    }
+
+    protected void printTransitiveEfferentsHeader() {
+        beginArray("dependsUpon");
+    }
+
+    protected void printTransitiveEfferentsFooter() {
+        endArray();
+    }
+
+    protected void printTransitiveAfferentsHeader() {
+        beginArray("usedBy");
+    }
+
+    protected void printTransitiveAfferentsFooter() {
+        endArray();
+    }
+
+    protected void printImpactedPackage(JavaPackage p) {
+        beginElement();
+        writeString(p.getName());
+    }
+
+    protected void printElementaryCyclesHeader() {
+        // do nothing
+    }
+
+    protected void printElementaryCycle(List<JavaPackage> cycle) {
+        beginObject("elementaryCycle");
+        beginArray("packages");
+        for (int i = 0; i < cycle.size(); i++) {
+            beginElement();
+            writeString(cycle.get(i).getName());
+        }
+        endArray();
+        endObject();
+    }
+
+    protected void printElementaryCyclesFooter(int count, boolean truncated) {
+        beginObject("elementaryCycles");
+        writeMember("count", count);
+        writeKey("truncated");
+        getWriter().write(truncated ? "true" : "false");
+        endObject();
+    }
+
+    protected void printCycleParticipationHeader() {
+        // do nothing
+    }
+
+    protected void printCycleParticipationFooter() {
+        // do nothing
+    }
+
+    protected void printCycleParticipation(JavaPackage from, JavaPackage to,
+            int count) {
+        beginObject("cycleParticipation");
+        writeMember("from", from.getName());
+        writeMember("to", to.getName());
+        writeMember("cycles", count);
+        endObject();
+    }
+
+    protected void printFeedbackArcSetHeader() {
+        // do nothing
+    }
+
+    protected void printFeedbackArc(JavaPackage from, JavaPackage to,
+            int references) {
+        beginObject("removeToBreakCycles");
+        writeMember("from", from.getName());
+        writeMember("to", to.getName());
+        writeMember("references", references);
+        endObject();
+    }
+
+    protected void printFeedbackArcSetFooter(int count, long references) {
+        // do nothing
+    }
+
+    protected void printRuleViolationsHeader() {
+        // do nothing
+    }
+
+    protected void printRuleViolation(RuleViolation violation) {
+        beginObject("ruleViolation");
+        writeMember("from", violation.getSource().getName());
+        writeMember("to", violation.getTarget().getName());
+        writeMember("rule", violation.getRule());
+        beginArray("classes");
+        for (JavaClass jClass : violation.getClasses()) {
+            beginElement();
+            writeString(jClass.getName());
+        }
+        endArray();
+        endObject();
+    }
+
+    protected void printRuleViolationsFooter(int count) {
+        // do nothing
+    }
+
+    protected void printDuplicateClassesHeader() {
+        // do nothing
+    }
+
+    protected void printDuplicateClass(DuplicateClass duplicate) {
+        beginObject("duplicateClass");
+        writeMember("name", duplicate.getName());
+        beginArray("locations");
+        for (String location : duplicate.getLocations()) {
+            beginElement();
+            writeString(location);
+        }
+        endArray();
+        endObject();
+    }
+
+    protected void printDuplicateClassesFooter(int count) {
+        // do nothing
+    }
+
+    protected void printSummary(Collection packages) {
+        // do nothing
+    }
+
+    protected void printSectionBreak() {
+        // do nothing
+    }
+
+    private void beginObject(String type) {
+        getWriter().write('{');
+        firstElement = true;
+        writeMember("type", type);
+    }
+
+    private void endObject() {
+        getWriter().write('}');
+        getWriter().write('\n');
+    }
+
+    private void beginArray(String key) {
+        writeKey(key);
+        getWriter().write('[');
+        firstElement = true;
+    }
+
+    private void endArray() {
+        getWriter().write(']');
+        firstElement = false;
+    }
+
+    /*
+     * Writes the separator before an array element or object member.
+     */
+    private void beginElement() {
+        if (!firstElement) {
+            getWriter().write(',');
+        }
+        firstElement = false;
+    }
+
+    private void writeKey(String key) {
+        beginElement();
+        writeString(key);
+        getWriter().write(':');
+    }
+
+    private void writeMember(String key, String value) {
+        writeKey(key);
+        writeString(value);
+    }
+
+    private void writeMember(String key, long value) {
+        writeKey(key);
+        writeNumber(value);
+    }
+
+    private void writeMember(String key, float value) {
+        writeKey(key);
+        if (Float.isNaN(value) || Float.isInfinite(value)) {
+            getWriter().write("null");
+        } else {
+            printFormatted(value);
+        }
+    }
+
+    /*
+     * Writes the specified string as a JSON string, copying the runs of
+     * characters which need no escaping straight from the string.
+     */
+    private void writeString(String s) {
+        PrintWriter out = getWriter();
+        if (s == null) {
+            out.write("null");
+            return;
+        }
+
+        out.write('"');
+        int start = 0;
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c >= 0x20 && c != '"' && c != '\\') {
+                continue;
+            }
+            out.write(s, start, i - start);
+            start = i + 1;
+            switch (c) {
+            case '"':
+                out.write("\\\"");
+                break;
+            case '\\':
+                out.write("\\\\");
+                break;
+            case '\n':
+                out.write("\\n");
+                break;
+            case '\r':
+                out.write("\\r");
+                break;
+            case '\t':
+                out.write("\\t");
+                break;
+            default:
+                out.write("\\u00");
+                out.write(Character.forDigit(c >> 4, 16));
+                out.write(Character.forDigit(c & 0xf, 16));
+            }
+        }
+        out.write(s, start, s.length() - start);
+        out.write('"');
+    }
+
+    /*
+     * Writes the specified number through a reused buffer instead of
+     * converting it to a string.
+     */
+    private void writeNumber(long value) {
+        if (value == Long.MIN_VALUE) {
+            getWriter().write(Long.toString(value));
+            return;
+        }
+
+        boolean negative = value < 0;
+        long n = negative ? -value : value;
+        int pos = digits.length;
+        do {
+            digits[--pos] = (char) ('0' + (n % 10));
+            n /= 10;
+        } while (n != 0);
+        if (negative) {
+            digits[--pos] = '-';
+        }
+        getWriter().write(digits, pos, digits.length - pos);
+    }
+
+    /**
+     * Main.
+     */
+    public static void main(String args[]) {
+        new JDepend().instanceMain(args);
+    }
+}
@@ -25,6 +25,18 @@ public class AfferentNode extends PackageNode {
         super(parent, jPackage);
     }
 
+    /**
+     * Constructs a root <code>AfferentNode</code> over the packages of the
+     * specified table. Its children are added as the packages become
+     * available.
+     *
+     * @param table Package table.
+     * @since 2.11
+     */
+    public AfferentNode(PackageTable table) {
+        super(null, new JavaPackage("root"), table);
+    }
+
     /**
      * Creates and returns a <code>PackageNode</code> with the specified
      * parent node and Java package.
@@ -47,6 +59,14 @@ public class AfferentNode extends PackageNode {
         return getPackage().getAfferents();
     }
 
+    protected int getCoupledCount(PackageTable table, int id) {
+        return table.getAfferentCount(id);
+    }
+
+    protected int getCoupled(PackageTable table, int id, int index) {
+        return table.getAfferent(id, index);
+    }
+
     /**
      * Returns the string representation of this node in it's current tree
      * context.
@@ -56,7 +76,7 @@ public class AfferentNode extends PackageNode {
     public String toString() {
         if (getParent() == null) {
             return "Used By - Afferent Dependencies" + " ("
-                    + getChildren().size() + " Packages)";
+                    + getChildCount() + " Packages)";
         }
 
         return super.toString();
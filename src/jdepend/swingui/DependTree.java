@@ -15,7 +15,8 @@ import jdepend.framework.JavaPackage;
  * @author Clarkware Consulting, Inc.
  */
 
-public class DependTree extends JPanel implements TreeSelectionListener {
+public class DependTree extends JPanel
+        implements TreeSelectionListener, TreeModelListener {
 
     private JTree tree;
 
@@ -52,10 +53,13 @@ public class DependTree extends JPanel implements TreeSelectionListener {
      * @param model Tree model.
      */
     public void setModel(DependTreeModel model) {
+        if (this.model != null) {
+            this.model.removeTreeModelListener(this);
+        }
         this.model = model;
         setBorder(BorderFactory.createTitledBorder(model.getRoot().toString()));
         getTree().setModel(this.model);
-
+        this.model.addTreeModelListener(this);
     }
 
     /**
@@ -91,6 +95,41 @@ public class DependTree extends JPanel implements TreeSelectionListener {
         }
     }
 
+    /**
+     * Callback method triggered whenever nodes are inserted in the model.
+     * Root level insertions update the title and keep the hidden root
+     * expanded.
+     *
+     * @param e Event that characterizes the change.
+     */
+    public void treeNodesInserted(TreeModelEvent e) {
+        if (e.getTreePath().getPathCount() == 1) {
+            setBorder(BorderFactory.createTitledBorder(
+                    model.getRoot().toString()));
+            getTree().expandPath(e.getTreePath());
+        }
+    }
+
+    public void treeNodesChanged(TreeModelEvent e) {
+        // do nothing
+    }
+
+    public void treeNodesRemoved(TreeModelEvent e) {
+        // do nothing
+    }
+
+    /**
+     * Callback method triggered whenever the model is filtered. Keeps the
+     * hidden root expanded.
+     *
+     * @param e Event that characterizes the change.
+     */
+    public void treeStructureChanged(TreeModelEvent e) {
+        if (e.getTreePath().getPathCount() == 1) {
+            getTree().expandPath(e.getTreePath());
+        }
+    }
+
     /**
      * Creates and returns a scroll pane.
      * 
@@ -4,6 +4,8 @@ import java.util.*;
 import javax.swing.tree.*;
 import javax.swing.event.*;
 
+import jdepend.framework.JavaPackage;
+
 /**
  * The <code>DependTreeModel</code> class defines the data model being
  * observed by a <code>DependTree</code> instance.
@@ -18,6 +20,10 @@ public class DependTreeModel implements TreeModel {
 
     private Vector listeners;
 
+    private BitSet filter;
+
+    private int[] visible;
+
     /**
      * Constructs a <code>DependTreeModel</code> with the specified root
      * package node.
@@ -53,16 +59,12 @@ public class DependTreeModel implements TreeModel {
     public Object getChild(Object parent, int index) {
 
         Object answer = null;
-        ArrayList children;
 
-        if (parent instanceof PackageNode) {
-            children = ((PackageNode) parent).getChildren();
-
-            if (children != null) {
-                if (index < children.size()) {
-                    answer = children.get(index);
-                }
-            }
+        if (parent == root && visible != null) {
+            answer = index < visible.length ? root.getChild(visible[index])
+                    : null;
+        } else if (parent instanceof PackageNode) {
+            answer = ((PackageNode) parent).getChild(index);
         }
 
         return answer;
@@ -81,14 +83,11 @@ public class DependTreeModel implements TreeModel {
     public int getChildCount(Object parent) {
 
         int answer = 0;
-        ArrayList children;
-
-        if (parent instanceof PackageNode) {
-            children = ((PackageNode) parent).getChildren();
 
-            if (children != null) {
-                answer = children.size();
-            }
+        if (parent == root && visible != null) {
+            answer = visible.length;
+        } else if (parent instanceof PackageNode) {
+            answer = ((PackageNode) parent).getChildCount();
         }
 
         return answer;
@@ -133,19 +132,109 @@ public class DependTreeModel implements TreeModel {
      */
     public int getIndexOfChild(Object parent, Object child) {
         int answer = -1;
-        ArrayList children = null;
 
-        if (parent instanceof PackageNode) {
-            children = ((PackageNode) parent).getChildren();
-
-            if (children != null) {
-                answer = children.indexOf(child);
+        if (parent instanceof PackageNode && child instanceof PackageNode) {
+            answer = ((PackageNode) parent).getIndex((PackageNode) child);
+            if (parent == root && visible != null && answer >= 0) {
+                answer = Math.max(-1, Arrays.binarySearch(visible, answer));
             }
         }
 
         return answer;
     }
 
+    /**
+     * Appends nodes for the specified packages to the children of the root,
+     * informing the listeners of the inserted nodes. This lets the tree
+     * fill incrementally while an analysis completes.
+     * <p>
+     * Must be called on the event dispatch thread.
+     *
+     * @param packages Packages to append, in display order.
+     */
+    public void addPackages(Collection packages) {
+        int first = root.getChildCount();
+
+        List<PackageNode> added = new ArrayList<>();
+        for (Iterator i = packages.iterator(); i.hasNext();) {
+            PackageNode node = root.addChild((JavaPackage) i.next());
+            if (node != null) {
+                added.add(node);
+            }
+        }
+
+        if (added.isEmpty()) {
+            return;
+        }
+
+        int[] indices = new int[added.size()];
+        for (int i = 0; i < indices.length; i++) {
+            indices[i] = first + i;
+        }
+
+        //
+        // While filtered, only the matching packages are inserted, after
+        // the displayed ones.
+        //
+        if (visible != null) {
+            int shown = visible.length;
+            visible = Arrays.copyOf(visible, shown + indices.length);
+            int count = 0;
+            for (int i = 0; i < indices.length; i++) {
+                if (filter.get(root.getChildId(first + i))) {
+                    visible[shown + count] = first + i;
+                    added.set(count, added.get(i));
+                    indices[count] = shown + count;
+                    count++;
+                }
+            }
+            visible = Arrays.copyOf(visible, shown + count);
+            if (count == 0) {
+                return;
+            }
+            indices = Arrays.copyOf(indices, count);
+            added.subList(count, added.size()).clear();
+        }
+
+        TreeModelEvent event = new TreeModelEvent(this,
+                new Object[] { root }, indices, added.toArray());
+        for (int i = 0; i < listeners.size(); i++) {
+            ((TreeModelListener) listeners.elementAt(i)).treeNodesInserted(event);
+        }
+    }
+
+    /**
+     * Restricts the children of the root to the packages with the
+     * specified table ids. The package nodes are kept, so clearing or
+     * changing the filter does not rebuild them.
+     * <p>
+     * Must be called on the event dispatch thread.
+     *
+     * @param ids Ids of the packages to display, or <code>null</code> to
+     *        display all packages.
+     * @since 2.11
+     */
+    public void setFilter(BitSet ids) {
+        filter = ids;
+        visible = null;
+
+        if (ids != null) {
+            int[] shown = new int[root.getChildCount()];
+            int count = 0;
+            for (int i = 0; i < shown.length; i++) {
+                if (ids.get(root.getChildId(i))) {
+                    shown[count++] = i;
+                }
+            }
+            visible = Arrays.copyOf(shown, count);
+        }
+
+        TreeModelEvent event = new TreeModelEvent(this, new Object[] { root });
+        for (int i = 0; i < listeners.size(); i++) {
+            ((TreeModelListener) listeners.elementAt(i)).treeStructureChanged(event);
+        }
+    }
+
     /**
      * Adds a listener for the <code>TreeModelEvent</code> posted after the
      * tree changes.
@@ -25,6 +25,18 @@ public class EfferentNode extends PackageNode {
         super(parent, jPackage);
     }
 
+    /**
+     * Constructs a root <code>EfferentNode</code> over the packages of the
+     * specified table. Its children are added as the packages become
+     * available.
+     *
+     * @param table Package table.
+     * @since 2.11
+     */
+    public EfferentNode(PackageTable table) {
+        super(null, new JavaPackage("root"), table);
+    }
+
     /**
      * Creates and returns a <code>PackageNode</code> with the specified
      * parent node and Java package.
@@ -68,6 +80,14 @@ public class EfferentNode extends PackageNode {
         return false;
     }
 
+    protected int getCoupledCount(PackageTable table, int id) {
+        return table.getEfferentCount(id);
+    }
+
+    protected int getCoupled(PackageTable table, int id, int index) {
+        return table.getEfferent(id, index);
+    }
+
     /**
      * Returns the string representation of this node in it's current tree
      * context.
@@ -77,7 +97,7 @@ public class EfferentNode extends PackageNode {
     public String toString() {
         if (getParent() == null) {
             return "Depends Upon - Efferent Dependencies" + " ("
-                    + getChildren().size() + " Packages)";
+                    + getChildCount() + " Packages)";
         }
 
         return super.toString();
@@ -2,18 +2,24 @@ package jdepend.swingui;
 
 import java.awt.*;
 import java.awt.event.*;
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
 import java.io.*;
 import java.util.*;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
 import javax.swing.*;
 import javax.swing.border.*;
 import javax.swing.event.*;
 import javax.swing.tree.*;
 
+import jdepend.framework.AnalysisPhase;
+import jdepend.framework.BatchParserListener;
 import jdepend.framework.JavaClass;
 import jdepend.framework.JavaPackage;
-import jdepend.framework.PackageComparator;
 import jdepend.framework.PackageFilter;
-import jdepend.framework.ParserListener;
 
 /**
  * The <code>JDepend</code> class analyzes directories of Java class files,
@@ -24,7 +30,7 @@ import jdepend.framework.ParserListener;
  * @author Clarkware Consulting, Inc.
  */
 
-public class JDepend implements ParserListener {
+public class JDepend implements BatchParserListener {
 
     private jdepend.framework.JDepend analyzer;
 
@@ -40,12 +46,49 @@ public class JDepend implements ParserListener {
 
     private DependTree efferentTree;
 
+    private JTextField searchField;
+
+    private SearchIndex searchIndex;
+
     private Hashtable resourceStrings;
 
     private Hashtable actions;
 
+    private AnalysisWorker worker;
+
+    private javax.swing.Timer progressTimer;
+
+    /**
+     * Number of classes parsed so far, updated by the analysis thread and
+     * read by the progress timer.
+     */
+    private final AtomicInteger parsedClasses = new AtomicInteger();
+
+    private volatile int classCount;
+
+    /**
+     * Indicates whether the graphs are being built, once the classes are
+     * parsed.
+     */
+    private volatile boolean buildingGraph;
+
     private static Font BOLD_FONT = new Font("dialog", Font.BOLD, 12);
 
+    /**
+     * Interval between two progress bar updates, in milliseconds.
+     */
+    private static final int PROGRESS_INTERVAL = 100;
+
+    /**
+     * Maximum number of parsed classes counted at once.
+     */
+    private static final int PROGRESS_BATCH = 1024;
+
+    /**
+     * Number of packages added to the trees at a time.
+     */
+    private static final int PACKAGE_CHUNK = 256;
+
     /**
      * Constructs a <code>JDepend</code> instance.
      */
@@ -53,7 +96,7 @@ public class JDepend implements ParserListener {
 
         analyzer = new jdepend.framework.JDepend();
 
-        analyzer.addParseListener(this);
+        analyzer.addParseListener(this, PROGRESS_BATCH, PROGRESS_INTERVAL);
 
         //
         // Force the cross platform L&F.
@@ -71,13 +114,14 @@ public class JDepend implements ParserListener {
         //
         resourceStrings = new Hashtable();
         resourceStrings.put("menubar", "File");
-        resourceStrings.put("File", "About Exit");
+        resourceStrings.put("File", "About Stop Exit");
 
         //
         // Install the action table.
         //
         actions = new Hashtable();
         actions.put("About", new AboutAction());
+        actions.put("Stop", new StopAction());
         actions.put("Exit", new ExitAction());
     }
 
@@ -111,36 +155,69 @@ public class JDepend implements ParserListener {
     /**
      * Analyzes the registered directories, generates metrics for each Java
      * package, and reports the metrics in a graphical format.
+     * <p>
+     * The analysis runs in the background and may be stopped from the
+     * File menu; the trees fill as the packages become available.
      */
     public void analyze() {
 
         display();
 
-        startProgressMonitor(analyzer.countClasses());
+        SwingUtilities.invokeLater(new Runnable() {
 
-        ArrayList packages = new ArrayList(analyzer.analyze());
+            public void run() {
+                startAnalysis();
+            }
+        });
+    }
 
-        Collections.sort(packages, new PackageComparator(PackageComparator
-                .byName()));
+    /**
+     * Stops the analysis in progress, if any.
+     */
+    public void cancelAnalysis() {
+        if (worker != null && !worker.isDone()) {
+            worker.cancel(false);
+            analyzer.cancel();
+        }
+    }
 
-        stopProgressMonitor();
+    /**
+     * Called when a phase of the analysis starts.
+     *
+     * @param phase Phase name.
+     */
+    public void onPhaseStarted(String phase) {
+        buildingGraph = phase.equals(AnalysisPhase.GRAPH);
+    }
 
-        updateTree(packages);
+    /**
+     * Called with a batch of parsed classes.
+     * <p>
+     * This is called on the analysis thread, so it only counts the
+     * classes; the progress bar picks the count up at a fixed rate.
+     *
+     * @param parsedClasses Parsed Java classes.
+     */
+    public void onParsedJavaClasses(List<JavaClass> parsedClasses) {
+        this.parsedClasses.addAndGet(parsedClasses.size());
     }
 
     /**
-     * Called whenever a Java source file is parsed into the specified
-     * <code>JavaClass</code> instance.
-     * 
-     * @param jClass Parsed Java class.
+     * Called when a phase of the analysis ends.
+     *
+     * @param phase Phase name.
      */
-    public void onParsedJavaClass(final JavaClass jClass) {
-        SwingUtilities.invokeLater(new Runnable() {
+    public void onPhaseFinished(String phase) {
+        buildingGraph = false;
+    }
 
-            public void run() {
-                getProgressBar().setValue(getProgressBar().getValue() + 1);
-            }
-        });
+    private void startAnalysis() {
+        searchIndex = null;
+        updateTree(new PackageTable(new ArrayList()));
+        startProgressMonitor();
+
+        worker = new AnalysisWorker();
+        worker.execute();
     }
 
     private void display() {
@@ -148,41 +225,67 @@ public class JDepend implements ParserListener {
         frame.setVisible(true);
     }
 
-    private void updateTree(ArrayList packages) {
+    private void updateTree(PackageTable table) {
+        getAfferentTree().setModel(new DependTreeModel(new AfferentNode(table)));
+        getEfferentTree().setModel(new DependTreeModel(new EfferentNode(table)));
+        applySearch();
+    }
 
-        JavaPackage jPackage = new JavaPackage("root");
-        jPackage.setAfferents(packages);
-        jPackage.setEfferents(packages);
+    /*
+     * Filters both trees to the packages matching the search field. This
+     * runs on every keystroke, so it only queries the prebuilt index.
+     */
+    private void applySearch() {
+        if (searchIndex == null) {
+            return;
+        }
 
-        AfferentNode ah = new AfferentNode(null, jPackage);
-        getAfferentTree().setModel(new DependTreeModel(ah));
+        String query = getSearchField().getText();
+        BitSet matches = searchIndex.search(query);
+        getAfferentTree().getModel().setFilter(matches);
+        getEfferentTree().getModel().setFilter(matches);
 
-        EfferentNode eh = new EfferentNode(null, jPackage);
-        getEfferentTree().setModel(new DependTreeModel(eh));
+        if (matches != null) {
+            showStatusMessage(matches.cardinality() + " packages match \""
+                    + query.trim() + "\".");
+        }
     }
 
-    private void startProgressMonitor(final int maxValue) {
-        SwingUtilities.invokeLater(new Runnable() {
+    private void startProgressMonitor() {
+        parsedClasses.set(0);
+        classCount = 0;
 
-            public void run() {
-                getProgressBar().setMinimum(0);
-                getProgressBar().setMaximum(maxValue);
-                getStatusPanel().setStatusComponent(getProgressBar());
-            }
-        });
+        getProgressBar().setMinimum(0);
+        getProgressBar().setValue(0);
+        getProgressBar().setIndeterminate(true);
+        getStatusPanel().setStatusComponent(getProgressBar());
+        getActionForCommand("Stop").setEnabled(true);
+
+        progressTimer = new javax.swing.Timer(PROGRESS_INTERVAL,
+                new ActionListener() {
+
+                    public void actionPerformed(ActionEvent e) {
+                        updateProgress();
+                    }
+                });
+        progressTimer.start();
     }
 
-    private void stopProgressMonitor() {
-        SwingUtilities.invokeLater(new Runnable() {
+    private void updateProgress() {
+        if (buildingGraph) {
+            getProgressBar().setIndeterminate(true);
+        } else if (classCount > 0) {
+            getProgressBar().setIndeterminate(false);
+            getProgressBar().setMaximum(classCount);
+            getProgressBar().setValue(parsedClasses.get());
+        }
+    }
 
-            public void run() {
-                getStatusPanel().setStatusComponent(getStatusField());
-                int classCount = analyzer.countClasses();
-                int packageCount = analyzer.countPackages();
-                showStatusMessage("Analyzed " + packageCount + " packages ("
-                        + classCount + " classes).");
-            }
-        });
+    private void stopProgressMonitor() {
+        progressTimer.stop();
+        getActionForCommand("Stop").setEnabled(false);
+        getProgressBar().setIndeterminate(false);
+        getStatusPanel().setStatusComponent(getStatusField());
     }
 
     private JFrame createUI() {
@@ -192,9 +295,11 @@ public class JDepend implements ParserListener {
         JMenuBar menuBar = createMenubar();
         frame.setJMenuBar(menuBar);
 
+        JPanel searchPanel = createSearchPanel();
         JPanel treePanel = createTreePanel();
         StatusPanel statusPanel = getStatusPanel();
 
+        frame.getContentPane().add("North", searchPanel);
         frame.getContentPane().add("Center", treePanel);
         frame.getContentPane().add("South", statusPanel);
         frame.pack();
@@ -247,6 +352,26 @@ public class JDepend implements ParserListener {
         return panel;
     }
 
+    private JPanel createSearchPanel() {
+
+        JPanel panel = new JPanel();
+
+        panel.setLayout(new BorderLayout());
+        panel.setBorder(BorderFactory.createEmptyBorder(5, 5, 5, 5));
+        panel.add(new JLabel("Find: "), "West");
+        panel.add(getSearchField(), "Center");
+
+        return panel;
+    }
+
+    private JTextField createSearchField() {
+        JTextField searchField = new JTextField();
+        searchField.setToolTipText("Package or class name");
+        searchField.getDocument().addDocumentListener(new SearchListener());
+
+        return searchField;
+    }
+
     private StatusPanel createStatusPanel() {
         StatusPanel panel = new StatusPanel();
         panel.setStatusComponent(getStatusField());
@@ -311,7 +436,7 @@ public class JDepend implements ParserListener {
 
     private JMenuItem createMenuItem(String key) {
 
-        JMenuItem mi = new JMenuItem(key);
+        final JMenuItem mi = new JMenuItem(key);
 
         char mnemonic = key.charAt(0);
         mi.setMnemonic(mnemonic);
@@ -323,10 +448,18 @@ public class JDepend implements ParserListener {
         String actionString = key;
         mi.setActionCommand(actionString);
 
-        Action a = getActionForCommand(actionString);
+        final Action a = getActionForCommand(actionString);
         if (a != null) {
             mi.addActionListener(a);
             mi.setEnabled(a.isEnabled());
+            a.addPropertyChangeListener(new PropertyChangeListener() {
+
+                public void propertyChange(PropertyChangeEvent e) {
+                    if ("enabled".equals(e.getPropertyName())) {
+                        mi.setEnabled(a.isEnabled());
+                    }
+                }
+            });
         } else {
             mi.setEnabled(false);
         }
@@ -364,6 +497,13 @@ public class JDepend implements ParserListener {
         return efferentTree;
     }
 
+    private JTextField getSearchField() {
+        if (searchField == null) {
+            searchField = createSearchField();
+        }
+        return searchField;
+    }
+
     private StatusPanel getStatusPanel() {
         if (statusPanel == null) {
             statusPanel = createStatusPanel();
@@ -429,6 +569,73 @@ public class JDepend implements ParserListener {
         });
     }
 
+    //
+    // Background analysis. Classes are counted and analyzed, and the
+    // package table is built, off the event dispatch thread. The sorted
+    // packages are then published in chunks so that the trees fill without
+    // blocking the UI. No package is published during the parse, since the
+    // classes and couplings of a package are only known once every file
+    // is read.
+    //
+    private class AnalysisWorker
+            extends SwingWorker<List<JavaPackage>, List<JavaPackage>> {
+
+        private volatile PackageTable table;
+
+        private volatile SearchIndex index;
+
+        private boolean tableInstalled;
+
+        protected List<JavaPackage> doInBackground() {
+            classCount = analyzer.countClasses();
+
+            analyzer.analyze();
+            table = new PackageTable(analyzer.getPackageGraph());
+            List<JavaPackage> packages = analyzer.getPackageGraph().getPackages();
+            index = new SearchIndex(table);
+
+            for (int i = 0; i < packages.size() && !isCancelled(); i += PACKAGE_CHUNK) {
+                publish(packages.subList(i,
+                        Math.min(i + PACKAGE_CHUNK, packages.size())));
+            }
+
+            return packages;
+        }
+
+        protected void process(List<List<JavaPackage>> chunks) {
+            if (!tableInstalled) {
+                searchIndex = index;
+                updateTree(table);
+                tableInstalled = true;
+            }
+
+            for (List<JavaPackage> chunk : chunks) {
+                getAfferentTree().getModel().addPackages(chunk);
+                getEfferentTree().getModel().addPackages(chunk);
+            }
+        }
+
+        protected void done() {
+            stopProgressMonitor();
+
+            try {
+                List<JavaPackage> packages = get();
+                showStatusMessage("Analyzed " + packages.size() + " packages ("
+                        + classCount + " classes).");
+            } catch (CancellationException ce) {
+                showStatusError("Analysis stopped.");
+            } catch (InterruptedException ie) {
+                showStatusError("Analysis stopped.");
+            } catch (ExecutionException ee) {
+                if (ee.getCause() instanceof CancellationException) {
+                    showStatusError("Analysis stopped.");
+                } else {
+                    showStatusError("Analysis failed: " + ee.getCause());
+                }
+            }
+        }
+    }
+
     //
     // Tree selection handler.
     //
@@ -457,6 +664,24 @@ public class JDepend implements ParserListener {
         }
     }
 
+    //
+    // Search field handler.
+    //
+    private class SearchListener implements DocumentListener {
+
+        public void insertUpdate(DocumentEvent e) {
+            applySearch();
+        }
+
+        public void removeUpdate(DocumentEvent e) {
+            applySearch();
+        }
+
+        public void changedUpdate(DocumentEvent e) {
+            // attributes only
+        }
+    }
+
     //
     // About action handler.
     //
@@ -480,6 +705,29 @@ public class JDepend implements ParserListener {
         }
     }
 
+    //
+    // Stop action handler.
+    //
+    private class StopAction extends AbstractAction {
+
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * Constructs a <code>StopAction</code> instance.
+         */
+        StopAction() {
+            super("Stop");
+            setEnabled(false);
+        }
+
+        /**
+         * Handles the action.
+         */
+        public void actionPerformed(ActionEvent e) {
+            cancelAnalysis();
+        }
+    }
+
     //
     // Exit action handler.
     //
@@ -496,6 +744,7 @@ public class JDepend implements ParserListener {
          * Handles the action.
          */
         public void actionPerformed(ActionEvent e) {
+            cancelAnalysis();
             frame.dispose();
             System.exit(0);
         }
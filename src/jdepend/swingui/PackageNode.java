@@ -1,6 +1,5 @@
 package jdepend.swingui;
 
-import java.text.NumberFormat;
 import java.util.*;
 
 import jdepend.framework.*;
@@ -15,17 +14,25 @@ import jdepend.framework.*;
 
 public abstract class PackageNode {
 
+    private static final int UNKNOWN = -2;
+
     private PackageNode parent;
 
     private JavaPackage jPackage;
 
-    private ArrayList children;
+    private PackageTable table;
 
-    private static NumberFormat formatter;
-    static {
-        formatter = NumberFormat.getInstance();
-        formatter.setMaximumFractionDigits(2);
-    }
+    private int id;
+
+    private int index;
+
+    private int[] childIds;
+
+    private int childCount;
+
+    private PackageNode[] childNodes;
+
+    private String label;
 
     /**
      * Constructs a <code>PackageNode</code> with the specified package and
@@ -35,9 +42,29 @@ public abstract class PackageNode {
      * @param jPackage Java package.
      */
     public PackageNode(PackageNode parent, JavaPackage jPackage) {
+        this(parent, jPackage, null);
+    }
+
+    /**
+     * Constructs a <code>PackageNode</code> with the specified package,
+     * whose descendants are read from the specified table. A root node
+     * built this way has no children until they are added.
+     *
+     * @param parent Parent package node.
+     * @param jPackage Java package.
+     * @param table Package table, or <code>null</code> to use the table
+     *        of the parent, or to build one from the coupled packages of a
+     *        root node.
+     * @since 2.11
+     */
+    protected PackageNode(PackageNode parent, JavaPackage jPackage,
+            PackageTable table) {
         this.parent = parent;
         this.jPackage = jPackage;
-        children = null;
+        this.table = table;
+        this.id = parent == null ? -1 : UNKNOWN;
+        this.index = -1;
+        this.childCount = -1;
     }
 
     /**
@@ -65,11 +92,7 @@ public abstract class PackageNode {
      *         otherwise.
      */
     public boolean isLeaf() {
-        if (getCoupledPackages().size() > 0) {
-            return false;
-        }
-
-        return true;
+        return getChildCount() == 0;
     }
 
     /**
@@ -91,6 +114,29 @@ public abstract class PackageNode {
      */
     protected abstract Collection getCoupledPackages();
 
+    /**
+     * Returns the number of packages of the table coupled to the specified
+     * package.
+     *
+     * @param table Package table.
+     * @param id Package id.
+     * @return Number of coupled packages.
+     * @since 2.11
+     */
+    protected abstract int getCoupledCount(PackageTable table, int id);
+
+    /**
+     * Returns the <code>index</code>-th package, in name order, of the
+     * table coupled to the specified package.
+     *
+     * @param table Package table.
+     * @param id Package id.
+     * @param index Index of the coupled package.
+     * @return Id of the coupled package.
+     * @since 2.11
+     */
+    protected abstract int getCoupled(PackageTable table, int id, int index);
+
     /**
      * Indicates whether the specified package should be displayed as a child of
      * this node.
@@ -104,29 +150,192 @@ public abstract class PackageNode {
     }
 
     /**
-     * Returns the child package nodes of this node.
+     * Returns the table holding the packages of this node's tree.
+     *
+     * @return Package table.
+     * @since 2.11
+     */
+    public PackageTable getTable() {
+        if (table == null) {
+            table = parent != null ? parent.getTable()
+                    : new PackageTable(getCoupledPackages());
+        }
+        return table;
+    }
+
+    private int getId() {
+        if (id == UNKNOWN) {
+            id = getTable().indexOf(jPackage);
+        }
+        return id;
+    }
+
+    /*
+     * Determines the children of this node. Unless some coupled packages
+     * are not displayed, the children are read straight from the shared
+     * table instead of being copied.
+     */
+    private void computeChildren() {
+        if (childCount >= 0) {
+            return;
+        }
+
+        PackageTable t = getTable();
+        int packageId = getId();
+
+        if (packageId < 0) {
+            int[] ids = new int[getCoupledPackages().size()];
+            int count = 0;
+            for (Iterator i = getCoupledPackages().iterator(); i.hasNext();) {
+                JavaPackage coupled = (JavaPackage) i.next();
+                int coupledId = t.indexOf(coupled);
+                if (coupledId >= 0 && isChild(coupled)) {
+                    ids[count++] = coupledId;
+                }
+            }
+            childIds = Arrays.copyOf(ids, count);
+            Arrays.sort(childIds);
+            childCount = count;
+            return;
+        }
+
+        int count = getCoupledCount(t, packageId);
+        int[] ids = null;
+        int kept = 0;
+        for (int i = 0; i < count; i++) {
+            int coupledId = getCoupled(t, packageId, i);
+            if (isChild(t.getPackage(coupledId))) {
+                if (ids != null) {
+                    ids[kept] = coupledId;
+                }
+                kept++;
+            } else if (ids == null) {
+                ids = new int[count];
+                for (int j = 0; j < i; j++) {
+                    ids[j] = getCoupled(t, packageId, j);
+                }
+            }
+        }
+        childIds = ids == null ? null : Arrays.copyOf(ids, kept);
+        childCount = kept;
+    }
+
+    /**
+     * Returns the number of child nodes of this node.
+     *
+     * @return Number of children.
+     * @since 2.11
+     */
+    public int getChildCount() {
+        computeChildren();
+        return childCount;
+    }
+
+    /**
+     * Returns the child node at the specified index. Child nodes are only
+     * created when first requested.
+     *
+     * @param index Child index.
+     * @return Child node.
+     * @since 2.11
+     */
+    public PackageNode getChild(int index) {
+        computeChildren();
+        if (index < 0 || index >= childCount) {
+            return null;
+        }
+
+        if (childNodes == null || childNodes.length < childCount) {
+            childNodes = childNodes == null ? new PackageNode[childCount]
+                    : Arrays.copyOf(childNodes, childCount);
+        }
+
+        PackageNode child = childNodes[index];
+        if (child == null) {
+            int childId = getChildId(index);
+            child = makeNode(this, getTable().getPackage(childId));
+            child.id = childId;
+            child.index = index;
+            childNodes[index] = child;
+        }
+        return child;
+    }
+
+    /**
+     * Returns the table id of the package of the child node at the
+     * specified index, without creating the node.
+     */
+    int getChildId(int index) {
+        computeChildren();
+        return childIds != null ? childIds[index]
+                : getCoupled(getTable(), getId(), index);
+    }
+
+    /**
+     * Returns the index of the specified child node.
+     *
+     * @param child Child node.
+     * @return Index, or <code>-1</code> if it is not a child of this node.
+     * @since 2.11
+     */
+    public int getIndex(PackageNode child) {
+        if (child.getParent() != this) {
+            return -1;
+        }
+        if (child.index < 0) {
+            for (int i = 0; i < getChildCount(); i++) {
+                if (getChild(i).getPackage().equals(child.getPackage())) {
+                    return i;
+                }
+            }
+        }
+        return child.index;
+    }
+
+    /**
+     * Returns the child package nodes of this node, creating all of them.
+     * Prefer <code>getChildCount()</code> and <code>getChild()</code>,
+     * which only create the nodes that are displayed.
      * 
      * @return Collection of child package nodes.
      */
     public ArrayList getChildren() {
+        ArrayList children = new ArrayList(getChildCount());
+        for (int i = 0; i < getChildCount(); i++) {
+            children.add(getChild(i));
+        }
 
-        if (children == null) {
-
-            children = new ArrayList();
-            ArrayList packages = new ArrayList(getCoupledPackages());
-            Collections.sort(packages, new PackageComparator(PackageComparator
-                    .byName()));
-            Iterator i = packages.iterator();
-            while (i.hasNext()) {
-                JavaPackage jPackage = (JavaPackage) i.next();
-                if (isChild(jPackage)) {
-                    PackageNode childNode = makeNode(this, jPackage);
-                    children.add(childNode);
-                }
+        return children;
+    }
+
+    /**
+     * Appends a child node for the specified package, if it should be
+     * displayed, after the existing children.
+     *
+     * @param jPackage Package to add.
+     * @return The new child node, or <code>null</code> if the package is
+     *         not displayed as a child of this node or is not in its table.
+     */
+    public PackageNode addChild(JavaPackage jPackage) {
+        computeChildren();
+
+        int childId = getTable().indexOf(jPackage);
+        if (childId < 0 || !isChild(jPackage)) {
+            return null;
+        }
+
+        if (childIds == null) {
+            childIds = new int[childCount];
+            for (int i = 0; i < childCount; i++) {
+                childIds[i] = getCoupled(getTable(), getId(), i);
             }
         }
+        if (childCount == childIds.length) {
+            childIds = Arrays.copyOf(childIds, Math.max(16, childCount * 2));
+        }
+        childIds[childCount++] = childId;
 
-        return children;
+        return getChild(childCount - 1);
     }
 
     /**
@@ -135,24 +344,12 @@ public abstract class PackageNode {
      * @return Metrics string.
      */
     public String toMetricsString() {
-        StringBuffer label = new StringBuffer();
-        label.append(getPackage().getName());
-        label.append("  (");
-        label.append("CC: " + getPackage().getConcreteClassCount() + "  ");
-        label.append("AC: " + getPackage().getAbstractClassCount() + "  ");
-        label.append("Ca: " + getPackage().afferentCoupling() + "  ");
-        label.append("Ce: " + getPackage().efferentCoupling() + "  ");
-        label.append("A: " + format(getPackage().abstractness()) + "  ");
-        label.append("I: " + format(getPackage().instability()) + "  ");
-        label.append("D: " + format(getPackage().distance()) + "  ");
-        label.append("V: " + getPackage().getVolatility());
-        if (getPackage().containsCycle()) {
-            label.append(" Cyclic");
+        if (getId() >= 0) {
+            return getTable().getMetricsString(getId());
         }
 
-        label.append(")");
-
-        return label.toString();
+        return PackageTable.toMetricsString(getPackage(),
+                getPackage().containsCycle());
     }
 
     /**
@@ -163,19 +360,14 @@ public abstract class PackageNode {
      */
     public String toString() {
 
-        if (getParent().getParent() == null) {
-            return toMetricsString();
+        if (label == null) {
+            if (getParent().getParent() == null) {
+                label = toMetricsString();
+            } else {
+                label = getPackage().getName();
+            }
         }
 
-        return getPackage().getName();
-    }
-
-    /*
-     * Returns the specified number in a displayable format. @param number
-     * Number to format. @return Formatted number.
-     */
-    private static String format(float f) {
-        return formatter.format(f);
+        return label;
     }
 }
-
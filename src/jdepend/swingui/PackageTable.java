@@ -0,0 +1,173 @@
+package jdepend.swingui;
+
+import java.util.*;
+
+import jdepend.framework.*;
+
+/**
+ * The <code>PackageTable</code> class holds the data shared by all the
+ * <code>PackageNode</code> instances of the dependency trees: the packages
+ * in name order, their name-ordered couplings, and their metrics labels.
+ * <p>
+ * A package may appear under many nodes, so its children and label are
+ * computed once here instead of once per node. The table is immutable and
+ * may be built off the event dispatch thread.
+ *
+ * @since 2.11
+ */
+
+public class PackageTable {
+
+    private final PackageGraph graph;
+
+    private final boolean[] reachesCycle;
+
+    private final String[] metrics;
+
+    /**
+     * Constructs a <code>PackageTable</code> for the specified packages,
+     * computing their metrics labels.
+     *
+     * @param packages Analyzed packages.
+     */
+    public PackageTable(Collection packages) {
+        this(new PackageGraph(packages));
+    }
+
+    /**
+     * Constructs a <code>PackageTable</code> for the packages of the
+     * specified graph, computing their metrics labels.
+     *
+     * @param graph Package graph.
+     */
+    public PackageTable(PackageGraph graph) {
+        this.graph = graph;
+
+        //
+        // A package contains a cycle if it depends, directly or
+        // transitively, upon a package dependency cycle. Components are in
+        // reverse topological order, so those depended upon come first.
+        //
+        StronglyConnectedComponents components =
+            new StronglyConnectedComponents(graph);
+        boolean[] componentReachesCycle = new boolean[components.getCount()];
+        for (int c = 0; c < components.getCount(); c++) {
+            boolean cycle = components.isCyclic(c);
+            int[] members = components.getMembers(c);
+            for (int m = 0; m < members.length && !cycle; m++) {
+                for (int e = graph.getEfferentStart(members[m]); e < graph.getEfferentStart(members[m] + 1); e++) {
+                    if (componentReachesCycle[components.getComponent(graph.getEfferentTarget(e))]) {
+                        cycle = true;
+                        break;
+                    }
+                }
+            }
+            componentReachesCycle[c] = cycle;
+        }
+
+        reachesCycle = new boolean[graph.size()];
+        for (int id = 0; id < graph.size(); id++) {
+            reachesCycle[id] = componentReachesCycle[components.getComponent(id)];
+        }
+
+        MetricFormat formatter = new MetricFormat();
+        metrics = new String[graph.size()];
+        for (int id = 0; id < graph.size(); id++) {
+            metrics[id] = toMetricsString(graph.getPackage(id),
+                    reachesCycle[id], formatter);
+        }
+    }
+
+    /**
+     * @return Number of packages.
+     */
+    public int size() {
+        return graph.size();
+    }
+
+    public JavaPackage getPackage(int id) {
+        return graph.getPackage(id);
+    }
+
+    /**
+     * Returns the id of the specified package.
+     *
+     * @param jPackage Package.
+     * @return Id, or <code>-1</code> if the package is not in this table.
+     */
+    public int indexOf(JavaPackage jPackage) {
+        return graph.indexOf(jPackage.getName());
+    }
+
+    /**
+     * @return Number of packages the specified package depends upon.
+     */
+    public int getEfferentCount(int id) {
+        return graph.getEfferentStart(id + 1) - graph.getEfferentStart(id);
+    }
+
+    /**
+     * Returns the <code>index</code>-th package, in name order, upon which
+     * the specified package depends.
+     */
+    public int getEfferent(int id, int index) {
+        return graph.getEfferentTarget(graph.getEfferentStart(id) + index);
+    }
+
+    /**
+     * @return Number of packages which depend upon the specified package.
+     */
+    public int getAfferentCount(int id) {
+        return graph.getAfferentStart(id + 1) - graph.getAfferentStart(id);
+    }
+
+    /**
+     * Returns the <code>index</code>-th package, in name order, which
+     * depends upon the specified package.
+     */
+    public int getAfferent(int id, int index) {
+        return graph.getAfferentSource(graph.getAfferentStart(id) + index);
+    }
+
+    /**
+     * Indicates whether the specified package depends, directly or
+     * transitively, upon a package dependency cycle. This is the
+     * precomputed value of <code>JavaPackage.containsCycle()</code>.
+     */
+    public boolean containsCycle(int id) {
+        return reachesCycle[id];
+    }
+
+    /**
+     * @return The metrics label of the specified package.
+     */
+    public String getMetricsString(int id) {
+        return metrics[id];
+    }
+
+    static String toMetricsString(JavaPackage jPackage, boolean containsCycle) {
+        return toMetricsString(jPackage, containsCycle, new MetricFormat());
+    }
+
+    private static String toMetricsString(JavaPackage jPackage,
+            boolean containsCycle, MetricFormat formatter) {
+        StringBuffer label = new StringBuffer();
+        label.append(jPackage.getName());
+        label.append("  (");
+        label.append("CC: " + jPackage.getConcreteClassCount() + "  ");
+        label.append("AC: " + jPackage.getAbstractClassCount() + "  ");
+        label.append("Ca: " + jPackage.afferentCoupling() + "  ");
+        label.append("Ce: " + jPackage.efferentCoupling() + "  ");
+        label.append("A: " + formatter.format(jPackage.abstractness()) + "  ");
+        label.append("I: " + formatter.format(jPackage.instability()) + "  ");
+        label.append("D: " + formatter.format(jPackage.distance()) + "  ");
+        label.append("V: " + jPackage.getVolatility());
+        if (containsCycle) {
+            label.append(" Cyclic");
+        }
+
+        label.append(")");
+
+        return label.toString();
+    }
+}
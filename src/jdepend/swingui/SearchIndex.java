@@ -0,0 +1,207 @@
+package jdepend.swingui;
+
+import java.util.*;
+
+import jdepend.framework.*;
+
+/**
+ * The <code>SearchIndex</code> class finds the packages of a
+ * <code>PackageTable</code> whose name, or the name of one of whose
+ * classes, contains a query string, ignoring case.
+ * <p>
+ * The index is built once after an analysis so that each query, typically
+ * one per keystroke, avoids scanning every name:
+ * <ul>
+ * <li>Queries of three characters or more look up the packages containing
+ * each trigram of the query in an n-gram index, intersect these posting
+ * lists, and only check the remaining candidates.</li>
+ * <li>Shorter queries match the start of a package name segment or of a
+ * class name, found by binary search in the sorted array of these
+ * names.</li>
+ * </ul>
+ *
+ * @since 2.11
+ */
+
+public class SearchIndex {
+
+    private final int size;
+
+    private final String[] packageNames;
+
+    private final String[][] classNames;
+
+    private final Map<Long, int[]> trigrams;
+
+    private final String[] prefixKeys;
+
+    private final int[] prefixIds;
+
+    /**
+     * Builds the search index of the packages of the specified table.
+     *
+     * @param table Package table.
+     */
+    public SearchIndex(PackageTable table) {
+        size = table.size();
+        packageNames = new String[size];
+        classNames = new String[size][];
+
+        Map<Long, int[]> postings = new HashMap<>();
+        List<String> keys = new ArrayList<>();
+        List<Integer> keyIds = new ArrayList<>();
+
+        for (int id = 0; id < size; id++) {
+            JavaPackage jPackage = table.getPackage(id);
+            packageNames[id] = jPackage.getName().toLowerCase(Locale.ENGLISH);
+
+            Collection classes = jPackage.getClasses();
+            classNames[id] = new String[classes.size()];
+            int c = 0;
+            for (Iterator i = classes.iterator(); i.hasNext();) {
+                String name = ((JavaClass) i.next()).getName();
+                classNames[id][c++] = name.substring(name.lastIndexOf('.') + 1)
+                        .toLowerCase(Locale.ENGLISH);
+            }
+
+            addTrigrams(packageNames[id], id, postings);
+            StringTokenizer st = new StringTokenizer(packageNames[id], ".");
+            while (st.hasMoreTokens()) {
+                keys.add(st.nextToken());
+                keyIds.add(id);
+            }
+            for (String className : classNames[id]) {
+                addTrigrams(className, id, postings);
+                keys.add(className);
+                keyIds.add(id);
+            }
+        }
+
+        //
+        // Posting lists are built with their length in the first slot;
+        // trim them to exact, ascending id arrays.
+        //
+        trigrams = new HashMap<>(postings.size() * 2);
+        for (Map.Entry<Long, int[]> entry : postings.entrySet()) {
+            int[] list = entry.getValue();
+            trigrams.put(entry.getKey(), Arrays.copyOfRange(list, 1, list[0] + 1));
+        }
+
+        Integer[] order = new Integer[keys.size()];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, Comparator.comparing(keys::get));
+        prefixKeys = new String[order.length];
+        prefixIds = new int[order.length];
+        for (int i = 0; i < order.length; i++) {
+            prefixKeys[i] = keys.get(order[i]);
+            prefixIds[i] = keyIds.get(order[i]);
+        }
+    }
+
+    private static long trigram(String s, int i) {
+        return ((long) s.charAt(i) << 32) | ((long) s.charAt(i + 1) << 16)
+                | s.charAt(i + 2);
+    }
+
+    private static void addTrigrams(String name, int id, Map<Long, int[]> postings) {
+        for (int i = 0; i + 3 <= name.length(); i++) {
+            Long key = trigram(name, i);
+            int[] list = postings.get(key);
+            if (list == null) {
+                list = new int[4];
+                postings.put(key, list);
+            } else if (list[list[0]] == id) {
+                continue;
+            } else if (list[0] + 1 == list.length) {
+                list = Arrays.copyOf(list, list.length * 2);
+                postings.put(key, list);
+            }
+            list[++list[0]] = id;
+        }
+    }
+
+    /**
+     * Returns the ids of the packages matching the specified query.
+     *
+     * @param query Query string.
+     * @return Matching package ids, or <code>null</code> if the query is
+     *         blank and every package matches.
+     */
+    public BitSet search(String query) {
+        String q = query.trim().toLowerCase(Locale.ENGLISH);
+        if (q.length() == 0) {
+            return null;
+        }
+
+        BitSet result = new BitSet(size);
+
+        if (q.length() < 3) {
+            int low = 0;
+            int high = prefixKeys.length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (prefixKeys[mid].compareTo(q) < 0) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            for (int i = low; i < prefixKeys.length && prefixKeys[i].startsWith(q); i++) {
+                result.set(prefixIds[i]);
+            }
+            return result;
+        }
+
+        int[] candidates = null;
+        for (int i = 0; i + 3 <= q.length(); i++) {
+            int[] list = trigrams.get(trigram(q, i));
+            if (list == null) {
+                return result;
+            }
+            candidates = candidates == null ? list : intersect(candidates, list);
+            if (candidates.length == 0) {
+                return result;
+            }
+        }
+
+        for (int id : candidates) {
+            if (matches(id, q)) {
+                result.set(id);
+            }
+        }
+        return result;
+    }
+
+    private boolean matches(int id, String q) {
+        if (packageNames[id].indexOf(q) >= 0) {
+            return true;
+        }
+        for (String className : classNames[id]) {
+            if (className.indexOf(q) >= 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static int[] intersect(int[] a, int[] b) {
+        int[] result = new int[Math.min(a.length, b.length)];
+        int size = 0;
+        int i = 0;
+        int j = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] < b[j]) {
+                i++;
+            } else if (a[i] > b[j]) {
+                j++;
+            } else {
+                result[size++] = a[i];
+                i++;
+                j++;
+            }
+        }
+        return Arrays.copyOf(result, size);
+    }
+}
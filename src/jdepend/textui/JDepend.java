@@ -1,16 +1,38 @@
 package jdepend.textui;
 
+import jdepend.framework.AnalysisPhase;
+import jdepend.framework.AnalysisStats;
+import jdepend.framework.ArchitectureRules;
+import jdepend.framework.BatchManifest;
+import jdepend.framework.CycleEnumerator;
+import jdepend.framework.CycleListener;
+import jdepend.framework.DependencyRollup;
+import jdepend.framework.DuplicateClass;
+import jdepend.framework.FeedbackArcSet;
+import jdepend.framework.JarCache;
 import jdepend.framework.JavaClass;
 import jdepend.framework.JavaPackage;
-import jdepend.framework.PackageComparator;
+import jdepend.framework.MetricFormat;
+import jdepend.framework.OffHeapStorage;
 import jdepend.framework.PackageFilter;
+import jdepend.framework.PackageGraph;
+import jdepend.framework.RuleViolation;
 
+import java.io.BufferedWriter;
+import java.io.CharArrayWriter;
+import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.OutputStreamWriter;
 import java.io.PrintWriter;
 import java.text.NumberFormat;
 import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
 
 /**
  * The <code>JDepend</code> class analyzes directories of Java class files,
@@ -27,8 +49,71 @@ public class JDepend {
 
     private PrintWriter writer;
 
+    /**
+     * Format of the metrics. Metrics are written with
+     * {@link #metricFormat} unless this field is set to another format or
+     * {@link #toFormattedString(float)} is overridden.
+     */
     protected NumberFormat formatter;
 
+    protected MetricFormat metricFormat;
+
+    /*
+     * The format <code>formatter</code> is constructed with, which
+     * <code>metricFormat</code> stands for.
+     */
+    private final NumberFormat defaultFormatter;
+
+    /*
+     * Indicates whether a subclass overrides <code>toFormattedString</code>.
+     */
+    private final boolean formatsStrings;
+
+    private char[] formatBuffer;
+
+    private List<DependencyRollup.Level> levels;
+
+    private String impactPackage;
+
+    private int maxCycles;
+
+    private int maxCycleLength = Integer.MAX_VALUE;
+
+    private boolean breakCycles;
+
+    private ArchitectureRules rules;
+
+    /**
+     * Name-ordered graph of the packages being reported.
+     */
+    private PackageGraph reportGraph;
+
+    private int threads = 1;
+
+    private BatchManifest batch;
+
+    private ExecutorService renderer;
+
+    /**
+     * Buffer the print hooks write to while rendering a batch of sections
+     * on a renderer thread.
+     */
+    private final ThreadLocal<RenderBuffer> renderBuffer = new ThreadLocal<>();
+
+    private final Queue<RenderBuffer> renderBuffers =
+        new ConcurrentLinkedQueue<>();
+
+    /**
+     * Number of packages rendered by one renderer task.
+     */
+    private static final int RENDER_BATCH = 32;
+
+    /**
+     * Number of renderer tasks per thread whose output may wait to be
+     * written.
+     */
+    private static final int RENDER_WINDOW = 4;
+
     /**
      * Constructs a <code>JDepend</code> instance using standard output.
      */
@@ -46,6 +131,9 @@ public class JDepend {
 
         formatter = NumberFormat.getInstance();
         formatter.setMaximumFractionDigits(2);
+        defaultFormatter = formatter;
+        metricFormat = new MetricFormat();
+        formatsStrings = overridesToFormattedString();
 
         setWriter(writer);
     }
@@ -60,7 +148,8 @@ public class JDepend {
     }
 
     protected PrintWriter getWriter() {
-        return writer;
+        RenderBuffer buffer = renderBuffer.get();
+        return buffer != null ? buffer.writer : writer;
     }
 
     /**
@@ -79,6 +168,144 @@ public class JDepend {
         analyzer.setComponents(components);
     }
 
+    /**
+     * Sets the comma-separated list of levels (class, package, component,
+     * module) to report on. All levels are derived from a single analysis.
+     *
+     * @param levels Comma-separated level names.
+     * @throws IllegalArgumentException If a level name is unknown.
+     */
+    public void setLevels(String levels) {
+        this.levels = new ArrayList<>();
+        StringTokenizer st = new StringTokenizer(levels, ",");
+        while (st.hasMoreTokens()) {
+            this.levels.add(DependencyRollup.Level.parse(st.nextToken()));
+        }
+    }
+
+    /**
+     * Sets the name of the package whose transitive impact set is reported
+     * after the metrics.
+     *
+     * @param name Package name.
+     */
+    public void setImpactPackage(String name) {
+        this.impactPackage = name;
+    }
+
+    /**
+     * Sets the number of elementary dependency cycles to enumerate and
+     * report after the metrics, together with the dependencies taking part
+     * in the most cycles.
+     *
+     * @param maxCycles Maximum number of cycles; 0 to not enumerate cycles.
+     * @param maxLength Maximum number of packages in a cycle.
+     */
+    public void setCycleEnumeration(int maxCycles, int maxLength) {
+        this.maxCycles = maxCycles;
+        this.maxCycleLength = maxLength;
+    }
+
+    /**
+     * Determines whether the dependencies to remove to break all package
+     * dependency cycles are reported after the metrics.
+     *
+     * @param b <code>true</code> to report the dependencies to remove.
+     */
+    public void setBreakCycles(boolean b) {
+        this.breakCycles = b;
+    }
+
+    /**
+     * Sets the architecture rules whose violations are reported after the
+     * metrics.
+     *
+     * @param rules Architecture rules, or <code>null</code>.
+     */
+    public void setRules(ArchitectureRules rules) {
+        this.rules = rules;
+    }
+
+    /**
+     * Sets the number of threads rendering the package and cycle sections
+     * of the report. With more than one thread, the sections are rendered
+     * concurrently into buffers and written in package name order, so the
+     * report is the same. In a batch analysis, this is the number of
+     * projects analyzed concurrently instead.
+     *
+     * @param threads Number of rendering threads.
+     * @since 2.11
+     */
+    public void setThreads(int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("Invalid thread count: "
+                    + threads);
+        }
+        this.threads = threads;
+    }
+
+    /**
+     * Sets the statistics the analysis and the rendering of the report are
+     * counted and timed in. In a batch analysis, they collect the totals
+     * of all projects.
+     *
+     * @param stats Statistics, or <code>null</code> to measure nothing.
+     * @since 2.11
+     */
+    public void setStats(AnalysisStats stats) {
+        analyzer.setStats(stats);
+    }
+
+    /**
+     * Sets the storage the class graph is kept in, off the heap. In a
+     * batch analysis, it is shared by all projects, each giving back its
+     * memory once reported.
+     *
+     * @param storage Off-heap storage, or <code>null</code> for the heap.
+     * @since 2.11
+     */
+    public void setGraphStorage(OffHeapStorage storage) {
+        analyzer.setGraphStorage(storage);
+    }
+
+    /**
+     * Sets the directory the analysis spills to, analyzing out of core.
+     * Only the package level can then be reported, and packages list no
+     * classes.
+     *
+     * @param directory Spill directory, or <code>null</code> to analyze
+     *        in memory.
+     * @since 2.11
+     */
+    public void setSpillDirectory(File directory) {
+        analyzer.setSpillDirectory(directory);
+    }
+
+    /**
+     * Sets the number of child processes the classes are built by, each
+     * building those of some of the directories.
+     *
+     * @param shardCount Number of processes, <code>1</code> to build the
+     *        classes in this process.
+     * @since 2.11
+     */
+    public void setShardCount(int shardCount) {
+        analyzer.setShardCount(shardCount);
+    }
+
+    /**
+     * Indicates whether the print hooks of the package and cycle sections
+     * may run concurrently for different packages, each writing to its own
+     * <code>getWriter()</code>. Subclasses keeping state between hooks
+     * return <code>false</code>.
+     *
+     * @return <code>true</code> if the sections may be rendered in parallel.
+     * @since 2.11
+     */
+    protected boolean supportsParallelRendering() {
+        return true;
+    }
+
     /**
      * Adds the specified directory name to the collection of directories to be
      * analyzed.
@@ -108,40 +335,311 @@ public class JDepend {
 
         printHeader();
 
-        Collection packages = analyzer.analyze();
+        analyzer.analyze();
+
+        AnalysisPhase phase =
+            AnalysisPhase.begin(AnalysisPhase.REPORT, analyzer.getStats());
+        try {
+            if (threads > 1 && supportsParallelRendering()) {
+                renderer = Executors.newFixedThreadPool(threads);
+            }
+
+            try {
+                if (levels == null) {
+                    printReport(analyzer.getPackageGraph());
+                } else {
+                    for (DependencyRollup.Level level : levels) {
+                        printLevelHeader(level);
+                        printReport(analyzer.getPackageGraph(level));
+                        printLevelFooter(level);
+                    }
+                }
+            } finally {
+                if (renderer != null) {
+                    renderer.shutdownNow();
+                    renderer = null;
+                    renderBuffers.clear();
+                }
+            }
+
+            if (impactPackage != null) {
+                printImpact(impactPackage);
+            }
+
+            if (maxCycles > 0) {
+                printElementaryCycles();
+            }
+
+            if (breakCycles) {
+                printFeedbackArcSet();
+            }
+
+            if (rules != null) {
+                printRuleViolations(analyzer.checkRules(rules));
+            }
+
+            List<DuplicateClass> duplicates = analyzer.getDuplicateClasses();
+            if (!duplicates.isEmpty()) {
+                printDuplicateClasses(duplicates);
+            }
+
+            printFooter();
+
+            getWriter().flush();
+        } finally {
+            phase.close();
+        }
+    }
+
+    /**
+     * Analyzes each project of the specified manifest, writing its report
+     * to its own file, in the format of this instance and with its report
+     * options.
+     * <p>
+     * The projects are analyzed in this process, as many at a time as the
+     * thread count, and share a <code>JarCache</code> so that a jar, war
+     * or zip file used by several projects is parsed once, unless their
+     * classes are built by shard processes. A project which
+     * cannot be analyzed is reported to standard error and does not stop
+     * the others.
+     *
+     * @param manifest Projects to analyze.
+     * @return Number of projects which could not be analyzed.
+     * @since 2.11
+     */
+    public int analyzeBatch(BatchManifest manifest) {
+        List<BatchManifest.Project> projects = manifest.getProjects();
+        if (projects.isEmpty()) {
+            return 0;
+        }
+
+        JarCache jarCache = new JarCache();
+        ExecutorService executor =
+            Executors.newFixedThreadPool(Math.min(threads, projects.size()));
+
+        int failures = 0;
+        try {
+            List<Future<?>> results = new ArrayList<>();
+            for (BatchManifest.Project project : projects) {
+                results.add(executor.submit(() -> {
+                    analyzeProject(project, jarCache);
+                    return null;
+                }));
+            }
+
+            for (int i = 0; i < projects.size(); i++) {
+                try {
+                    results.get(i).get();
+                } catch (ExecutionException ee) {
+                    failures++;
+                    System.err.println("Failed to analyze project "
+                            + projects.get(i).getName() + ": "
+                            + ee.getCause());
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    failures += projects.size() - i;
+                    break;
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        return failures;
+    }
 
-        ArrayList packageList = new ArrayList(packages);
+    private void analyzeProject(BatchManifest.Project project,
+            JarCache jarCache) throws IOException {
 
-        Collections.sort(packageList, new PackageComparator(PackageComparator
-                .byName()));
+        JDepend report = createReport();
 
-        printPackages(packageList);
+        PackageFilter filter = new PackageFilter();
+        filter.addPackages(project.getIgnoredPackages());
+        report.setFilter(filter);
+        if (project.getComponents() != null) {
+            report.setComponents(project.getComponents());
+        }
+        for (File directory : project.getDirectories()) {
+            report.addDirectory(directory.getPath());
+        }
+        if (analyzer.getShardCount() == 1) {
+            report.analyzer.setJarCache(jarCache);
+        }
+        report.analyzer.setStats(analyzer.getStats());
+        report.analyzer.setGraphStorage(analyzer.getGraphStorage());
+        report.analyzer.setSpillDirectory(analyzer.getSpillDirectory());
+        report.analyzer.setShardCount(analyzer.getShardCount());
+
+        report.levels = levels;
+        report.impactPackage = impactPackage;
+        report.maxCycles = maxCycles;
+        report.maxCycleLength = maxCycleLength;
+        report.breakCycles = breakCycles;
+        report.rules = rules;
+
+        File file = project.getReportFile(getReportExtension());
+        File parent = file.getAbsoluteFile().getParentFile();
+        if (parent != null) {
+            parent.mkdirs();
+        }
+        try (PrintWriter out = new PrintWriter(new BufferedWriter(
+                new OutputStreamWriter(new FileOutputStream(file), "UTF8")))) {
+            report.setWriter(out);
+            try {
+                report.analyze();
+            } finally {
+                report.analyzer.releaseGraph();
+            }
+            if (out.checkError()) {
+                throw new IOException("Failed writing " + file.getPath());
+            }
+        }
+    }
+
+    /**
+     * Creates the instance reporting a project of a batch analysis. The
+     * default implementation calls the public no-argument constructor of
+     * the class of this instance.
+     *
+     * @return Report instance.
+     * @since 2.11
+     */
+    protected JDepend createReport() {
+        try {
+            return getClass().getConstructor().newInstance();
+        } catch (ReflectiveOperationException roe) {
+            throw new IllegalStateException("Cannot create a report: " + roe);
+        }
+    }
+
+    /**
+     * @return Extension of the report files of a batch analysis.
+     * @since 2.11
+     */
+    protected String getReportExtension() {
+        return ".txt";
+    }
+
+    protected void printReport(Collection packages) {
+        printReport(new PackageGraph(packages));
+    }
+
+    /**
+     * Prints the report of the packages of the specified graph, reading
+     * their sorted classes and couplings from it.
+     *
+     * @param graph Package graph.
+     * @since 2.11
+     */
+    protected void printReport(PackageGraph graph) {
+        reportGraph = graph;
+        try {
+            List<JavaPackage> packageList = graph.getPackages();
 
-        printCycles(packageList);
+            printPackages(packageList);
 
-        printSummary(packageList);
+            printCycles(packageList);
 
-        printFooter();
+            printSummary(packageList);
+        } finally {
+            reportGraph = null;
+        }
+    }
 
-        getWriter().flush();
+    /*
+     * Returns the id of the specified package in the graph being reported,
+     * or -1 if it is not in it.
+     */
+    private int reportId(JavaPackage jPackage) {
+        if (reportGraph == null) {
+            return -1;
+        }
+        int id = reportGraph.indexOf(jPackage.getName());
+        return id >= 0 && reportGraph.getPackage(id) == jPackage ? id : -1;
     }
 
     protected void printPackages(Collection packages) {
         printPackagesHeader();
 
-        Iterator i = packages.iterator();
-        while (i.hasNext()) {
-            printPackage((JavaPackage) i.next());
-        }
+        render(packages, this::printPackage);
 
         printPackagesFooter();
     }
 
+    /*
+     * Prints the specified section for each package, in order. With a
+     * renderer, batches of sections are rendered concurrently, a bounded
+     * number ahead of the one being written.
+     */
+    private void render(Collection<?> packages,
+            Consumer<JavaPackage> section) {
+        if (renderer == null) {
+            for (Object jPackage : packages) {
+                section.accept((JavaPackage) jPackage);
+            }
+            return;
+        }
+
+        List<?> list = packages instanceof List
+                ? (List<?>) packages : new ArrayList<>(packages);
+        Deque<Future<RenderBuffer>> pending = new ArrayDeque<>();
+        int next = 0;
+
+        while (next < list.size() || !pending.isEmpty()) {
+            while (next < list.size()
+                    && pending.size() < threads * RENDER_WINDOW) {
+                List<?> batch = list.subList(next,
+                        Math.min(next + RENDER_BATCH, list.size()));
+                pending.add(renderer.submit(() -> renderBatch(batch, section)));
+                next += batch.size();
+            }
+
+            RenderBuffer buffer = take(pending.remove());
+            buffer.writeTo(writer);
+            renderBuffers.add(buffer);
+        }
+    }
+
+    private RenderBuffer renderBatch(List<?> batch,
+            Consumer<JavaPackage> section) {
+        RenderBuffer buffer = renderBuffers.poll();
+        if (buffer == null) {
+            buffer = new RenderBuffer();
+        }
+
+        renderBuffer.set(buffer);
+        try {
+            for (Object jPackage : batch) {
+                section.accept((JavaPackage) jPackage);
+            }
+        } finally {
+            renderBuffer.remove();
+        }
+        return buffer;
+    }
+
+    private static RenderBuffer take(Future<RenderBuffer> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Rendering interrupted");
+        } catch (ExecutionException ee) {
+            if (ee.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) ee.getCause();
+            }
+            if (ee.getCause() instanceof Error) {
+                throw (Error) ee.getCause();
+            }
+            throw new IllegalStateException(ee.getCause());
+        }
+    }
+
     protected void printPackage(JavaPackage jPackage) {
 
         printPackageHeader(jPackage);
 
-        if (jPackage.getClasses().size() == 0) {
+        if (jPackage.getClassCount() == 0) {
             printNoStats();
             printPackageFooter(jPackage);
             return;
@@ -171,6 +669,15 @@ public class JDepend {
     protected void printAbstractClasses(JavaPackage jPackage) {
         printAbstractClassesHeader();
 
+        int id = reportId(jPackage);
+        if (id >= 0) {
+            for (JavaClass jClass : reportGraph.getAbstractClasses(id)) {
+                printClassName(jClass);
+            }
+            printAbstractClassesFooter();
+            return;
+        }
+
         ArrayList members = new ArrayList(jPackage.getClasses());
         Collections.sort(members, new JavaClass.ClassComparator());
         Iterator memberIter = members.iterator();
@@ -187,6 +694,15 @@ public class JDepend {
     protected void printConcreteClasses(JavaPackage jPackage) {
         printConcreteClassesHeader();
 
+        int id = reportId(jPackage);
+        if (id >= 0) {
+            for (JavaClass jClass : reportGraph.getConcreteClasses(id)) {
+                printClassName(jClass);
+            }
+            printConcreteClassesFooter();
+            return;
+        }
+
         ArrayList members = new ArrayList(jPackage.getClasses());
         Collections.sort(members, new JavaClass.ClassComparator());
         Iterator memberIter = members.iterator();
@@ -204,9 +720,17 @@ public class JDepend {
         printEfferentsHeader();
 
         Collection<JavaPackage> efferents = pkg.getEfferents();
-        efferents.stream()
-                .sorted(Comparator.comparing(JavaPackage::getName))
-                .forEach(p -> printCoupledPackage(p, pkg.getEfferentCount(p)));
+        int id = reportId(pkg);
+        if (id >= 0 && reportGraph.isClosed(id)) {
+            for (int e = reportGraph.getEfferentStart(id); e < reportGraph.getEfferentStart(id + 1); e++) {
+                printCoupledPackage(reportGraph.getPackage(reportGraph.getEfferentTarget(e)),
+                        reportGraph.getEfferentCount(e));
+            }
+        } else {
+            efferents.stream()
+                    .sorted(Comparator.comparing(JavaPackage::getName))
+                    .forEach(p -> printCoupledPackage(p, pkg.getEfferentCount(p)));
+        }
 
         if (efferents.isEmpty()) {
             printEfferentsError();
@@ -219,9 +743,17 @@ public class JDepend {
         printAfferentsHeader();
 
         Collection<JavaPackage> afferents = pkg.getAfferents();
-        afferents.stream()
-                .sorted(Comparator.comparing(JavaPackage::getName))
-                .forEach(p -> printCoupledPackage(p, pkg.getAfferentCount(p)));
+        int id = reportId(pkg);
+        if (id >= 0 && reportGraph.isClosed(id)) {
+            for (int e = reportGraph.getAfferentStart(id); e < reportGraph.getAfferentStart(id + 1); e++) {
+                printCoupledPackage(reportGraph.getPackage(reportGraph.getAfferentSource(e)),
+                        reportGraph.getAfferentCount(e));
+            }
+        } else {
+            afferents.stream()
+                    .sorted(Comparator.comparing(JavaPackage::getName))
+                    .forEach(p -> printCoupledPackage(p, pkg.getAfferentCount(p)));
+        }
 
         if (afferents.isEmpty()) {
             printAfferentsError();
@@ -233,10 +765,7 @@ public class JDepend {
     protected void printCycles(Collection packages) {
         printCyclesHeader();
 
-        Iterator i = packages.iterator();
-        while (i.hasNext()) {
-            printCycle((JavaPackage) i.next());
-        }
+        render(packages, this::printCycle);
 
         printCyclesFooter();
     }
@@ -274,6 +803,92 @@ public class JDepend {
         printCycleFooter();
     }
 
+    protected void printImpact(String packageName) {
+        printImpactHeader(packageName);
+
+        List<JavaPackage> efferents = analyzer.getTransitiveEfferents(packageName);
+        printTransitiveEfferentsHeader();
+        for (JavaPackage p : efferents) {
+            printImpactedPackage(p);
+        }
+        if (efferents.isEmpty()) {
+            printEfferentsError();
+        }
+        printTransitiveEfferentsFooter();
+
+        printSectionBreak();
+
+        List<JavaPackage> afferents = analyzer.getTransitiveAfferents(packageName);
+        printTransitiveAfferentsHeader();
+        for (JavaPackage p : afferents) {
+            printImpactedPackage(p);
+        }
+        if (afferents.isEmpty()) {
+            printAfferentsError();
+        }
+        printTransitiveAfferentsFooter();
+
+        printImpactFooter(packageName);
+    }
+
+    protected void printElementaryCycles() {
+        printElementaryCyclesHeader();
+
+        CycleEnumerator cycles = analyzer.enumerateCycles(new CycleListener() {
+            public void onCycle(List<JavaPackage> cycle) {
+                printElementaryCycle(cycle);
+            }
+        }, maxCycles, maxCycleLength);
+
+        printElementaryCyclesFooter(cycles.getCycleCount(), cycles.isTruncated());
+
+        printCycleParticipationHeader();
+        PackageGraph graph = cycles.getGraph();
+        for (int edge : cycles.getEdgesByParticipation()) {
+            printCycleParticipation(
+                    graph.getPackage(graph.getEfferentSource(edge)),
+                    graph.getPackage(graph.getEfferentTarget(edge)),
+                    cycles.getParticipation(edge));
+        }
+        printCycleParticipationFooter();
+    }
+
+    protected void printFeedbackArcSet() {
+        FeedbackArcSet arcs = analyzer.getFeedbackArcSet();
+        PackageGraph graph = arcs.getGraph();
+
+        printFeedbackArcSetHeader();
+        for (int edge : arcs.getEdges()) {
+            printFeedbackArc(graph.getPackage(graph.getEfferentSource(edge)),
+                    graph.getPackage(graph.getEfferentTarget(edge)),
+                    graph.getEfferentCount(edge));
+        }
+        printFeedbackArcSetFooter(arcs.size(), arcs.getWeight());
+    }
+
+    protected void printRuleViolations(List<RuleViolation> violations) {
+        printRuleViolationsHeader();
+        for (RuleViolation violation : violations) {
+            printRuleViolation(violation);
+        }
+        printRuleViolationsFooter(violations.size());
+    }
+
+    /**
+     * Prints the classes defined with different content by several of the
+     * analyzed files.
+     *
+     * @param duplicates Duplicate classes, in name order.
+     * @since 2.11
+     */
+    protected void printDuplicateClasses(List<DuplicateClass> duplicates) {
+        printDuplicateClassesHeader();
+        for (DuplicateClass duplicate : duplicates) {
+            printDuplicateClass(duplicate);
+        }
+        printDuplicateClassesFooter(duplicates.size());
+    }
+
     protected void printHeader() {
         // do nothing
     }
@@ -282,6 +897,18 @@ public class JDepend {
         // do nothing
     }
 
+    protected void printLevelHeader(DependencyRollup.Level level) {
+        getWriter().println(
+                "\n==================================================");
+        getWriter().println("= Level: " + level);
+        getWriter().println(
+                "==================================================");
+    }
+
+    protected void printLevelFooter(DependencyRollup.Level level) {
+        // do nothing
+    }
+
     protected void printPackagesHeader() {
         // do nothing
     }
@@ -323,12 +950,15 @@ public class JDepend {
         getWriter().println(tab() + "Ca: " + jPackage.afferentCoupling());
         getWriter().println(tab() + "Ce: " + jPackage.efferentCoupling());
         getWriter().println("");
-        getWriter().println(
-                tab() + "A: " + toFormattedString(jPackage.abstractness()));
-        getWriter().println(
-                tab() + "I: " + toFormattedString(jPackage.instability()));
-        getWriter().println(
-                tab() + "D: " + toFormattedString(jPackage.distance()));
+        getWriter().print(tab() + "A: ");
+        printFormatted(jPackage.abstractness());
+        getWriter().println();
+        getWriter().print(tab() + "I: ");
+        printFormatted(jPackage.instability());
+        getWriter().println();
+        getWriter().print(tab() + "D: ");
+        printFormatted(jPackage.distance());
+        getWriter().println();
     }
 
     protected void printClassName(JavaClass jClass) {
@@ -379,6 +1009,138 @@ public class JDepend {
         getWriter().println(tab() + "Not used by any packages.");
     }
 
+    protected void printImpactHeader(String packageName) {
+        getWriter().println(
+                "\n--------------------------------------------------");
+        getWriter().println("- Transitive Impact: " + packageName);
+        getWriter().println(
+                "--------------------------------------------------\n");
+    }
+
+    protected void printImpactFooter(String packageName) {
+        // do nothing
+    }
+
+    protected void printTransitiveEfferentsHeader() {
+        getWriter().println("Transitively Depends Upon:");
+    }
+
+    protected void printTransitiveEfferentsFooter() {
+        // do nothing
+    }
+
+    protected void printTransitiveAfferentsHeader() {
+        getWriter().println("Transitively Used By:");
+    }
+
+    protected void printTransitiveAfferentsFooter() {
+        // do nothing
+    }
+
+    protected void printImpactedPackage(JavaPackage p) {
+        getWriter().println(tab() + p.getName());
+    }
+
+    protected void printElementaryCyclesHeader() {
+        getWriter().println(
+                "\n--------------------------------------------------");
+        getWriter().println("- Elementary Cycles:");
+        getWriter().println(
+                "--------------------------------------------------\n");
+    }
+
+    protected void printElementaryCycle(List<JavaPackage> cycle) {
+        StringBuffer s = new StringBuffer();
+        for (JavaPackage p : cycle) {
+            s.append(p.getName()).append(" -> ");
+        }
+        s.append(cycle.get(0).getName());
+        getWriter().println(s.toString());
+    }
+
+    protected void printElementaryCyclesFooter(int count, boolean truncated) {
+        printSectionBreak();
+        getWriter().println(count + " cycles" +
+                (truncated ? " (enumeration truncated)" : ""));
+    }
+
+    protected void printCycleParticipationHeader() {
+        printSectionBreak();
+        getWriter().println("Dependencies By Cycle Participation:");
+    }
+
+    protected void printCycleParticipationFooter() {
+        // do nothing
+    }
+
+    protected void printCycleParticipation(JavaPackage from, JavaPackage to,
+            int count) {
+        getWriter().println(tab() + from.getName() + " -> " + to.getName() +
+                ": " + count);
+    }
+
+    protected void printFeedbackArcSetHeader() {
+        getWriter().println(
+                "\n--------------------------------------------------");
+        getWriter().println("- Dependencies To Remove To Break Cycles:");
+        getWriter().println(
+                "--------------------------------------------------\n");
+    }
+
+    protected void printFeedbackArc(JavaPackage from, JavaPackage to,
+            int references) {
+        getWriter().println(from.getName() + " -> " + to.getName() +
+                " (" + references + " references)");
+    }
+
+    protected void printFeedbackArcSetFooter(int count, long references) {
+        printSectionBreak();
+        getWriter().println(count + " dependencies, " + references +
+                " references");
+    }
+
+    protected void printRuleViolationsHeader() {
+        getWriter().println(
+                "\n--------------------------------------------------");
+        getWriter().println("- Rule Violations:");
+        getWriter().println(
+                "--------------------------------------------------\n");
+    }
+
+    protected void printRuleViolation(RuleViolation violation) {
+        getWriter().println(violation.getSource().getName() + " -> " +
+                violation.getTarget().getName() + " (" + violation.getRule() +
+                ")");
+        for (JavaClass jClass : violation.getClasses()) {
+            getWriter().println(tab() + jClass.getName());
+        }
+    }
+
+    protected void printRuleViolationsFooter(int count) {
+        printSectionBreak();
+        getWriter().println(count + " violations");
+    }
+
+    protected void printDuplicateClassesHeader() {
+        getWriter().println(
+                "\n--------------------------------------------------");
+        getWriter().println("- Duplicate Classes:");
+        getWriter().println(
+                "--------------------------------------------------\n");
+    }
+
+    protected void printDuplicateClass(DuplicateClass duplicate) {
+        getWriter().println(duplicate.getName());
+        for (String location : duplicate.getLocations()) {
+            getWriter().println(tab() + location);
+        }
+    }
+
+    protected void printDuplicateClassesFooter(int count) {
+        printSectionBreak();
+        getWriter().println(count + " duplicate classes");
+    }
+
     protected void printCyclesHeader() {
         printSectionBreak();
         getWriter().println(
@@ -428,9 +1190,12 @@ public class JDepend {
             getWriter().print(jPackage.getAbstractClassCount() + ",");
             getWriter().print(jPackage.afferentCoupling() + ",");
             getWriter().print(jPackage.efferentCoupling() + ",");
-            getWriter().print(toFormattedString(jPackage.abstractness()) + ",");
-            getWriter().print(toFormattedString(jPackage.instability()) + ",");
-            getWriter().print(toFormattedString(jPackage.distance()) + ",");
+            printFormatted(jPackage.abstractness());
+            getWriter().print(',');
+            printFormatted(jPackage.instability());
+            getWriter().print(',');
+            printFormatted(jPackage.distance());
+            getWriter().print(',');
             getWriter().println(jPackage.getVolatility());
         }
     }
@@ -440,7 +1205,47 @@ public class JDepend {
     }
 
     protected String toFormattedString(float f) {
-        return formatter.format(f);
+        return formatter != defaultFormatter ? formatter.format(f)
+                : metricFormat.format(f);
+    }
+
+    /**
+     * Writes the specified metric value, formatted, without creating a
+     * string unless <code>formatter</code> is set to another format or
+     * <code>toFormattedString</code> is overridden.
+     *
+     * @param f Metric value.
+     * @since 2.11
+     */
+    protected void printFormatted(float f) {
+        if (formatsStrings || formatter != defaultFormatter) {
+            getWriter().print(toFormattedString(f));
+            return;
+        }
+
+        RenderBuffer buffer = renderBuffer.get();
+        char[] chars = buffer != null ? buffer.formatBuffer : formatBuffer;
+        if (chars == null || chars.length < metricFormat.getMaxLength()) {
+            chars = new char[metricFormat.getMaxLength()];
+            if (buffer != null) {
+                buffer.formatBuffer = chars;
+            } else {
+                formatBuffer = chars;
+            }
+        }
+        getWriter().write(chars, 0, metricFormat.format(f, chars, 0));
+    }
+
+    private boolean overridesToFormattedString() {
+        for (Class<?> c = getClass(); c != JDepend.class; c = c.getSuperclass()) {
+            try {
+                c.getDeclaredMethod("toFormattedString", float.class);
+                return true;
+            } catch (NoSuchMethodException nsme) {
+                // not declared by this class
+            }
+        }
+        return false;
     }
 
     protected String tab() {
@@ -465,8 +1270,19 @@ public class JDepend {
         System.err.println("");
         System.err.println("usage: ");
         System.err.println(baseUsage + "[-components <components>]" +
+                " [-levels <levels>] [-impact <package>]" +
+                " [-allcycles <max cycles>] [-cyclelength <max length>]" +
+                " [-breakcycles] [-rules <rule file>] [-threads <count>]" +
+                " [-stats] [-offheap <megabytes>] [-spill <directory>]" +
+                " [-shards <count>]" +
                 " [-file <output file>] <directory> " +
                 "[directory2 [directory 3] ...]");
+        System.err.println(baseUsage + "[-levels <levels>] [-impact <package>]" +
+                " [-allcycles <max cycles>] [-cyclelength <max length>]" +
+                " [-breakcycles] [-rules <rule file>] [-threads <count>]" +
+                " [-stats] [-offheap <megabytes>] [-spill <directory>]" +
+                " [-shards <count>]" +
+                " -batch <manifest>");
         System.exit(1);
     }
 
@@ -487,8 +1303,9 @@ public class JDepend {
                     }
 
                     try {
-                        setWriter(new PrintWriter(new OutputStreamWriter(
-                                new FileOutputStream(args[++i]), "UTF8")));
+                        setWriter(new PrintWriter(new BufferedWriter(
+                                new OutputStreamWriter(new FileOutputStream(
+                                        args[++i]), "UTF8"))));
                     } catch (IOException ioe) {
                         usage(ioe.getMessage());
                     }
@@ -497,6 +1314,102 @@ public class JDepend {
                         usage("Components not specified.");
                     }
                     setComponents(args[++i]);
+                } else if (args[i].equalsIgnoreCase("-impact")) {
+                    if (args.length <= i + 1) {
+                        usage("Impact package not specified.");
+                    }
+                    setImpactPackage(args[++i]);
+                } else if (args[i].equalsIgnoreCase("-allcycles")) {
+                    if (args.length <= i + 1) {
+                        usage("Maximum cycle count not specified.");
+                    }
+                    try {
+                        setCycleEnumeration(Integer.parseInt(args[++i]),
+                                maxCycleLength);
+                    } catch (NumberFormatException nfe) {
+                        usage("Invalid cycle count: " + args[i]);
+                    }
+                } else if (args[i].equalsIgnoreCase("-cyclelength")) {
+                    if (args.length <= i + 1) {
+                        usage("Maximum cycle length not specified.");
+                    }
+                    try {
+                        maxCycleLength = Integer.parseInt(args[++i]);
+                    } catch (NumberFormatException nfe) {
+                        usage("Invalid cycle length: " + args[i]);
+                    }
+                } else if (args[i].equalsIgnoreCase("-breakcycles")) {
+                    setBreakCycles(true);
+                } else if (args[i].equalsIgnoreCase("-rules")) {
+                    if (args.length <= i + 1) {
+                        usage("Rule file not specified.");
+                    }
+                    try {
+                        setRules(ArchitectureRules.load(new File(args[++i])));
+                    } catch (IOException ioe) {
+                        usage(ioe.getMessage());
+                    } catch (IllegalArgumentException iae) {
+                        usage(iae.getMessage());
+                    }
+                } else if (args[i].equalsIgnoreCase("-threads")) {
+                    if (args.length <= i + 1) {
+                        usage("Thread count not specified.");
+                    }
+                    try {
+                        setThreads(Integer.parseInt(args[++i]));
+                    } catch (IllegalArgumentException iae) {
+                        usage("Invalid thread count: " + args[i]);
+                    }
+                } else if (args[i].equalsIgnoreCase("-batch")) {
+                    if (args.length <= i + 1) {
+                        usage("Manifest file not specified.");
+                    }
+                    try {
+                        batch = BatchManifest.load(new File(args[++i]));
+                    } catch (IOException ioe) {
+                        usage(ioe.getMessage());
+                    } catch (IllegalArgumentException iae) {
+                        usage(iae.getMessage());
+                    }
+                } else if (args[i].equalsIgnoreCase("-stats")) {
+                    setStats(new AnalysisStats());
+                } else if (args[i].equalsIgnoreCase("-offheap")) {
+                    if (args.length <= i + 1) {
+                        usage("Off-heap memory not specified.");
+                    }
+                    try {
+                        setGraphStorage(new OffHeapStorage(
+                                Long.parseLong(args[++i]) << 20));
+                    } catch (IllegalArgumentException iae) {
+                        usage("Invalid off-heap memory: " + args[i]);
+                    }
+                } else if (args[i].equalsIgnoreCase("-spill")) {
+                    if (args.length <= i + 1) {
+                        usage("Spill directory not specified.");
+                    }
+                    File directory = new File(args[++i]);
+                    if (!directory.isDirectory()) {
+                        usage("Spill directory does not exist: " + args[i]);
+                    }
+                    setSpillDirectory(directory);
+                } else if (args[i].equalsIgnoreCase("-shards")) {
+                    if (args.length <= i + 1) {
+                        usage("Shard count not specified.");
+                    }
+                    try {
+                        setShardCount(Integer.parseInt(args[++i]));
+                    } catch (IllegalArgumentException iae) {
+                        usage("Invalid shard count: " + args[i]);
+                    }
+                } else if (args[i].equalsIgnoreCase("-levels")) {
+                    if (args.length <= i + 1) {
+                        usage("Levels not specified.");
+                    }
+                    try {
+                        setLevels(args[++i]);
+                    } catch (IllegalArgumentException iae) {
+                        usage("Invalid levels: " + args[i]);
+                    }
                 } else {
                     usage("Invalid argument: " + args[i]);
                 }
@@ -510,11 +1423,70 @@ public class JDepend {
             }
         }
 
+        if (levels != null && analyzer.getSpillDirectory() != null) {
+            usage("Only packages are analyzed out of core.");
+        }
+
+        if (batch != null) {
+            if (directoryCount > 0) {
+                usage("Directories of a batch are listed in its manifest.");
+            }
+            int failures = analyzeBatch(batch);
+            printStats();
+            closeGraphStorage();
+            if (failures > 0) {
+                System.exit(1);
+            }
+            return;
+        }
+
         if (directoryCount == 0) {
             usage("Must specify at least one directory.");
         }
 
         analyze();
+        printStats();
+        closeGraphStorage();
+    }
+
+    private void closeGraphStorage() {
+        OffHeapStorage storage = analyzer.getGraphStorage();
+        if (storage != null) {
+            storage.close();
+        }
+    }
+
+    /*
+     * Prints the statistics requested by the -stats option to standard
+     * error, apart from the report.
+     */
+    private void printStats() {
+        AnalysisStats stats = analyzer.getStats();
+        if (stats != null) {
+            stats.print(new PrintWriter(System.err));
+        }
+    }
+
+    //
+    // Pooled buffer the sections of one renderer task are written to.
+    //
+    private static class RenderBuffer {
+
+        final CharArrayWriter chars = new CharArrayWriter(8192);
+
+        final PrintWriter writer = new PrintWriter(chars);
+
+        char[] formatBuffer;
+
+        void writeTo(PrintWriter out) {
+            writer.flush();
+            try {
+                chars.writeTo(out);
+            } catch (IOException ioe) {
+                // a PrintWriter does not throw
+            }
+            chars.reset();
+        }
     }
 
     public static void main(String args[]) {
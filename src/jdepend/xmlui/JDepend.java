@@ -1,11 +1,15 @@
 package jdepend.xmlui;
 
+import jdepend.framework.DependencyRollup;
+import jdepend.framework.DuplicateClass;
 import jdepend.framework.JavaClass;
 import jdepend.framework.JavaPackage;
+import jdepend.framework.MetricFormat;
+import jdepend.framework.RuleViolation;
 
 import java.io.PrintWriter;
-import java.text.NumberFormat;
 import java.util.Collection;
+import java.util.List;
 import java.util.Locale;
 
 /**
@@ -34,8 +38,11 @@ public class JDepend extends jdepend.textui.JDepend {
     public JDepend(PrintWriter writer) {
         super(writer);
 
-        formatter = NumberFormat.getInstance(Locale.ENGLISH);
-        formatter.setMaximumFractionDigits(2);
+        metricFormat = new MetricFormat(Locale.ENGLISH, 2, true);
+    }
+
+    protected String getReportExtension() {
+        return ".xml";
     }
 
     protected void printHeader() {
@@ -47,6 +54,14 @@ public class JDepend extends jdepend.textui.JDepend {
         getWriter().println("</JDepend>");
     }
 
+    protected void printLevelHeader(DependencyRollup.Level level) {
+        getWriter().println(tab() + "<Level name=\"" + level + "\">");
+    }
+
+    protected void printLevelFooter(DependencyRollup.Level level) {
+        getWriter().println(tab() + "</Level>");
+    }
+
     protected void printPackagesHeader() {
         getWriter().println(tab() + "<Packages>");
     }
@@ -86,15 +101,15 @@ public class JDepend extends jdepend.textui.JDepend {
                 tab(4) + "<Ca>" + jPackage.afferentCoupling() + "</Ca>");
         getWriter().println(
                 tab(4) + "<Ce>" + jPackage.efferentCoupling() + "</Ce>");
-        getWriter().println(
-                tab(4) + "<A>" + toFormattedString(jPackage.abstractness())
-                        + "</A>");
-        getWriter().println(
-                tab(4) + "<I>" + toFormattedString(jPackage.instability())
-                        + "</I>");
-        getWriter().println(
-                tab(4) + "<D>" + toFormattedString(jPackage.distance())
-                        + "</D>");
+        getWriter().print(tab(4) + "<A>");
+        printFormatted(jPackage.abstractness());
+        getWriter().println("</A>");
+        getWriter().print(tab(4) + "<I>");
+        printFormatted(jPackage.instability());
+        getWriter().println("</I>");
+        getWriter().print(tab(4) + "<D>");
+        printFormatted(jPackage.distance());
+        getWriter().println("</D>");
         getWriter().println(tab(4) + "<V>" + jPackage.getVolatility() + "</V>");
         getWriter().println(tab(3) + "</Stats>");
     }
@@ -182,6 +197,134 @@ public class JDepend extends jdepend.textui.JDepend {
                 tab(3) + "<Package>" + jPackage.getName() + "</Package>");
     }
 
+    protected void printImpactHeader(String packageName) {
+        printSectionBreak();
+        getWriter().println(
+                tab() + "<Impact package=\"" + packageName + "\">");
+    }
+
+    protected void printImpactFooter(String packageName) {
+        getWriter().println(tab() + "</Impact>");
+    }
+
+    protected void printTransitiveEfferentsHeader() {
+        getWriter().println(tab(2) + "<DependsUpon>");
+    }
+
+    protected void printTransitiveEfferentsFooter() {
+        getWriter().println(tab(2) + "</DependsUpon>");
+    }
+
+    protected void printTransitiveAfferentsHeader() {
+        getWriter().println(tab(2) + "<UsedBy>");
+    }
+
+    protected void printTransitiveAfferentsFooter() {
+        getWriter().println(tab(2) + "</UsedBy>");
+    }
+
+    protected void printImpactedPackage(JavaPackage p) {
+        getWriter().println(tab(3) + "<Package>" + p.getName() + "</Package>");
+    }
+
+    protected void printElementaryCyclesHeader() {
+        printSectionBreak();
+        getWriter().println(tab() + "<ElementaryCycles>");
+    }
+
+    protected void printElementaryCycle(List<JavaPackage> cycle) {
+        getWriter().println(tab(2) + "<Cycle>");
+        for (JavaPackage p : cycle) {
+            getWriter().println(
+                    tab(3) + "<Package>" + p.getName() + "</Package>");
+        }
+        getWriter().println(tab(2) + "</Cycle>");
+    }
+
+    protected void printElementaryCyclesFooter(int count, boolean truncated) {
+        getWriter().println(tab(2) + "<Count truncated=\"" + truncated +
+                "\">" + count + "</Count>");
+    }
+
+    protected void printCycleParticipationHeader() {
+        getWriter().println(tab(2) + "<Participation>");
+    }
+
+    protected void printCycleParticipationFooter() {
+        getWriter().println(tab(2) + "</Participation>");
+        getWriter().println(tab() + "</ElementaryCycles>");
+    }
+
+    protected void printCycleParticipation(JavaPackage from, JavaPackage to,
+            int count) {
+        getWriter().println(tab(3) + "<Dependency from=\"" + from.getName() +
+                "\" to=\"" + to.getName() + "\" cycles=\"" + count + "\"/>");
+    }
+
+    protected void printFeedbackArcSetHeader() {
+        printSectionBreak();
+        getWriter().println(tab() + "<RemoveToBreakCycles>");
+    }
+
+    protected void printFeedbackArc(JavaPackage from, JavaPackage to,
+            int references) {
+        getWriter().println(tab(2) + "<Dependency from=\"" + from.getName() +
+                "\" to=\"" + to.getName() + "\" references=\"" + references +
+                "\"/>");
+    }
+
+    protected void printFeedbackArcSetFooter(int count, long references) {
+        getWriter().println(tab() + "</RemoveToBreakCycles>");
+    }
+
+    protected void printRuleViolationsHeader() {
+        printSectionBreak();
+        getWriter().println(tab() + "<RuleViolations>");
+    }
+
+    protected void printRuleViolation(RuleViolation violation) {
+        getWriter().println(tab(2) + "<Violation from=\"" +
+                escape(violation.getSource().getName()) + "\" to=\"" +
+                escape(violation.getTarget().getName()) + "\" rule=\"" +
+                escape(violation.getRule()) + "\">");
+        for (JavaClass jClass : violation.getClasses()) {
+            getWriter().println(tab(3) + "<Class>" + escape(jClass.getName()) +
+                    "</Class>");
+        }
+        getWriter().println(tab(2) + "</Violation>");
+    }
+
+    /*
+     * Escapes the markup characters of an attribute value or element text.
+     */
+    private static String escape(String s) {
+        return s.replace("&", "&amp;").replace("<", "&lt;")
+                .replace(">", "&gt;").replace("\"", "&quot;");
+    }
+
+    protected void printRuleViolationsFooter(int count) {
+        getWriter().println(tab() + "</RuleViolations>");
+    }
+
+    protected void printDuplicateClassesHeader() {
+        printSectionBreak();
+        getWriter().println(tab() + "<DuplicateClasses>");
+    }
+
+    protected void printDuplicateClass(DuplicateClass duplicate) {
+        getWriter().println(tab(2) + "<Class name=\"" +
+                escape(duplicate.getName()) + "\">");
+        for (String location : duplicate.getLocations()) {
+            getWriter().println(tab(3) + "<Location>" + escape(location) +
+                    "</Location>");
+        }
+        getWriter().println(tab(2) + "</Class>");
+    }
+
+    protected void printDuplicateClassesFooter(int count) {
+        getWriter().println(tab() + "</DuplicateClasses>");
+    }
+
     protected void printSummary(Collection packages) {
         // do nothing
     }
@@ -25,6 +25,25 @@ public class AllTests {
         suite.addTestSuite(MetricTest.class);
         suite.addTestSuite(PropertyConfiguratorTest.class);
         suite.addTestSuite(ExampleTest.class);
+        suite.addTestSuite(RollupTest.class);
+        suite.addTestSuite(ReachabilityTest.class);
+        suite.addTestSuite(CycleEnumeratorTest.class);
+        suite.addTestSuite(FeedbackArcSetTest.class);
+        suite.addTestSuite(RulesTest.class);
+        suite.addTestSuite(MetricFormatTest.class);
+        suite.addTestSuite(BatchTest.class);
+        suite.addTestSuite(MultiReleaseJarTest.class);
+        suite.addTestSuite(RuntimeImageTest.class);
+        suite.addTestSuite(DuplicateClassTest.class);
+        suite.addTestSuite(AnalysisStatsTest.class);
+        suite.addTestSuite(BatchParserListenerTest.class);
+        suite.addTestSuite(ClassSummaryTest.class);
+        suite.addTestSuite(OffHeapStorageTest.class);
+        suite.addTestSuite(ExternalAggregatorTest.class);
+        suite.addTestSuite(PartialResultTest.class);
+        suite.addTestSuite(SearchIndexTest.class);
+        suite.addTestSuite(DependTreeModelTest.class);
+        suite.addTestSuite(JsonReportTest.class);
 
         return suite;
     }
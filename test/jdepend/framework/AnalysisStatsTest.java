@@ -0,0 +1,60 @@
+package jdepend.framework;
+
+import java.io.IOException;
+
+/**
+ * @since 2.11
+ */
+
+public class AnalysisStatsTest extends JDependTestCase {
+
+    public AnalysisStatsTest(String name) {
+        super(name);
+    }
+
+    public void testCountersAndTimers() {
+        AnalysisStats stats = new AnalysisStats();
+        stats.increment("a");
+        stats.add("a", 2);
+        stats.addTime("t", 5);
+        stats.addTime("t", 7);
+
+        assertEquals(3, stats.getCount("a"));
+        assertEquals(0, stats.getCount("b"));
+        assertEquals(12, stats.getTime("t"));
+        assertEquals(2, stats.getTimeCount("t"));
+        assertEquals(Long.valueOf(3), stats.getCounters().get("a"));
+
+        stats.clear();
+        assertEquals(0, stats.getCount("a"));
+        assertTrue(stats.getTimes().isEmpty());
+    }
+
+    public void testAnalysisMeasured() throws IOException {
+        JDepend jdepend = new JDepend();
+        jdepend.addDirectory(getTestDataDir() + "test.jar");
+        AnalysisStats stats = new AnalysisStats();
+        jdepend.setStats(stats);
+        jdepend.analyze();
+
+        assertEquals(1, stats.getCount(AnalysisStats.FILES_SCANNED));
+        assertEquals(1, stats.getCount(AnalysisStats.ARCHIVES_OPENED));
+        assertEquals(jdepend.countClasses(),
+                stats.getCount(AnalysisStats.CLASSES_PARSED));
+        assertEquals(stats.getCount(AnalysisStats.CLASSES_PARSED),
+                stats.getTimeCount(AnalysisStats.PARSE_TIME));
+        assertTrue(stats.getCount(AnalysisStats.CLASS_BYTES) > 0);
+        assertEquals(1, stats.getTimeCount(
+                AnalysisStats.PHASE_PREFIX + AnalysisPhase.BUILD));
+        assertEquals(1, stats.getTimeCount(
+                AnalysisStats.PHASE_PREFIX + AnalysisPhase.GRAPH));
+    }
+
+    public void testNothingMeasuredByDefault() throws IOException {
+        JDepend jdepend = new JDepend();
+        jdepend.addDirectory(getTestDataDir() + "test.jar");
+        jdepend.analyze();
+
+        assertNull(jdepend.getStats());
+    }
+}
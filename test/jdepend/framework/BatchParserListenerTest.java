@@ -0,0 +1,77 @@
+package jdepend.framework;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * @since 2.11
+ */
+
+public class BatchParserListenerTest extends JDependTestCase {
+
+    private final List<String> events = new ArrayList<>();
+    private final List<Integer> batchSizes = new ArrayList<>();
+    private int classCount;
+
+    private final BatchParserListener recorder = new BatchParserListener() {
+
+        public void onPhaseStarted(String phase) {
+            events.add("start " + phase);
+        }
+
+        public void onParsedJavaClasses(List<JavaClass> parsedClasses) {
+            events.add("batch");
+            batchSizes.add(parsedClasses.size());
+            classCount += parsedClasses.size();
+        }
+
+        public void onPhaseFinished(String phase) {
+            events.add("end " + phase);
+        }
+    };
+
+    public BatchParserListenerTest(String name) {
+        super(name);
+    }
+
+    public void testBatchSize() {
+        BatchingParserListener listener = new BatchingParserListener(recorder, 3, 0);
+        for (int i = 0; i < 7; i++) {
+            listener.onParsedJavaClass(new JavaClass("C" + i));
+        }
+        assertEquals(2, batchSizes.size());
+
+        listener.flush();
+        assertEquals(List.of(3, 3, 1), batchSizes);
+
+        listener.flush();
+        assertEquals(3, batchSizes.size());
+    }
+
+    public void testInterval() throws InterruptedException {
+        BatchingParserListener listener = new BatchingParserListener(recorder, 100, 1);
+        listener.onParsedJavaClass(new JavaClass("A"));
+        Thread.sleep(5);
+        listener.onParsedJavaClass(new JavaClass("B"));
+
+        assertEquals(List.of(2), batchSizes);
+    }
+
+    public void testAnalysisPhases() throws IOException {
+        JDepend jdepend = new JDepend();
+        jdepend.addDirectory(getTestDataDir() + "test.jar");
+        jdepend.addParseListener(recorder, 2, 0);
+        jdepend.analyze();
+
+        assertEquals(jdepend.countClasses(), classCount);
+        assertEquals("start build", events.get(0));
+        assertEquals("end build", events.get(events.size() - 3));
+        assertEquals("batch", events.get(events.size() - 4));
+        assertEquals("start graph", events.get(events.size() - 2));
+        assertEquals("end graph", events.get(events.size() - 1));
+        for (int size : batchSizes) {
+            assertTrue(size <= 2);
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package jdepend.framework;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Arrays;
+
+/**
+ * @since 2.11
+ */
+
+public class BatchTest extends JDependTestCase {
+
+    private static final String MANIFEST =
+        "# two projects sharing a library\n" +
+        "project orders\n" +
+        "directories orders/classes, /lib/commons.jar\n" +
+        "ignore java., javax.*\n" +
+        "components com.xyz.orders\n" +
+        "report reports/orders.txt\n" +
+        "\n" +
+        "project billing\n" +
+        "directories billing/classes, /lib/commons.jar\n";
+
+    public BatchTest(String name) {
+        super(name);
+    }
+
+    public void testManifest() throws IOException {
+        File base = new File("/work");
+        BatchManifest manifest = BatchManifest.parse(new StringReader(MANIFEST), base);
+
+        assertEquals(2, manifest.getProjects().size());
+
+        BatchManifest.Project orders = manifest.getProjects().get(0);
+        assertEquals("orders", orders.getName());
+        assertEquals(Arrays.asList(new File(base, "orders/classes"),
+                new File("/lib/commons.jar")), orders.getDirectories());
+        assertEquals(Arrays.asList("java.", "javax.*"), orders.getIgnoredPackages());
+        assertEquals("com.xyz.orders", orders.getComponents());
+        assertEquals(new File(base, "reports/orders.txt"), orders.getReportFile(".xml"));
+
+        BatchManifest.Project billing = manifest.getProjects().get(1);
+        assertEquals("billing", billing.getName());
+        assertNull(billing.getComponents());
+        assertEquals(new File(base, "billing.xml"), billing.getReportFile(".xml"));
+    }
+
+    public void testInvalidManifest() throws IOException {
+        assertInvalid("directories classes\n");
+        assertInvalid("project a\nproject a\ndirectories classes\n");
+        assertInvalid("project a\n");
+        assertInvalid("project a\ndirectories classes\nreport\n");
+        assertInvalid("project a\ndirectories classes\nfilter java.\n");
+    }
+
+    private void assertInvalid(String manifest) throws IOException {
+        try {
+            BatchManifest.parse(new StringReader(manifest), new File("."));
+            fail("Should raise IllegalArgumentException");
+        } catch (IllegalArgumentException expected) {
+            assertTrue(true);
+        }
+    }
+
+    public void testJarCacheSharedByAnalyses() throws IOException {
+        String jarFile = getTestDataDir() + "test.jar";
+        JarCache cache = new JarCache();
+
+        JDepend first = new JDepend(new PackageFilter());
+        first.setJarCache(cache);
+        first.addDirectory(jarFile);
+        first.analyze();
+
+        JDepend second = new JDepend(new PackageFilter());
+        second.setJarCache(cache);
+        second.addDirectory(jarFile);
+        second.analyze();
+
+        assertEquals(1, cache.getMissCount());
+        assertEquals(1, cache.getHitCount());
+        assertEquals(first.countPackages(), second.countPackages());
+        assertEquals(first.countClasses(), second.getPackage(
+                "jdepend.framework").getClassCount());
+    }
+
+    public void testJarCacheSeparatesParseSettings() throws IOException {
+        String jarFile = getTestDataDir() + "test.jar";
+        JarCache cache = new JarCache();
+
+        JDepend all = new JDepend(new PackageFilter());
+        all.setJarCache(cache);
+        all.addDirectory(jarFile);
+        all.analyze();
+
+        JDepend outer = new JDepend(new PackageFilter());
+        outer.setJarCache(cache);
+        outer.analyzeInnerClasses(false);
+        outer.addDirectory(jarFile);
+        outer.analyze();
+
+        assertEquals(2, cache.getMissCount());
+        assertEquals(0, cache.getHitCount());
+        assertTrue(outer.getPackage("jdepend.framework").getClassCount()
+                < all.getPackage("jdepend.framework").getClassCount());
+    }
+}
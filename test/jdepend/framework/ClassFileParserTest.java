@@ -2,8 +2,14 @@ package jdepend.framework;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 /**
  * @author <b>Mike Clark</b>
@@ -172,6 +178,54 @@ public class ClassFileParserTest extends JDependTestCase {
 
     }
     
+    public void testAnnotationAttributes() throws IOException {
+
+        File f = new File(getBuildDir() + getPackageSubDir() +
+                          "ExampleAnnotatedClass.class");
+
+        JavaClass clazz = parser.parse(f);
+
+        Collection imports = clazz.getImportedPackages();
+        assertEquals(8, imports.size());
+
+        assertTrue(imports.contains(new JavaPackage("java.lang")));
+        assertTrue(imports.contains(new JavaPackage("jdepend.framework.p4")));
+
+        // invisible annotations of the class, first field and first method
+        assertTrue(imports.contains(new JavaPackage("java.util.zip")));
+        assertTrue(imports.contains(new JavaPackage("java.util.logging")));
+        assertTrue(imports.contains(new JavaPackage("java.util.prefs")));
+
+        // parameter annotations
+        assertTrue(imports.contains(new JavaPackage("java.util.concurrent.locks")));
+
+        // type annotations of a field and of a local variable
+        assertTrue(imports.contains(new JavaPackage("java.util.regex")));
+        assertTrue(imports.contains(new JavaPackage("java.util.function")));
+
+        // a primitive class value is no dependency
+        assertFalse(imports.contains(new JavaPackage("Default")));
+        assertTrue(clazz.getDependencies().containsKey(
+                "jdepend.framework.p4.ExampleInvisibleAnnotation"));
+        assertTrue(clazz.getDependencies().containsKey(
+                "jdepend.framework.p4.ExampleTypeAnnotation"));
+    }
+
+    public void testAnnotationDefault() throws IOException {
+
+        File f = new File(getBuildDir() + getPackageSubDir() +
+                          "p4" + File.separator + "ExampleInvisibleAnnotation.class");
+
+        JavaClass clazz = parser.parse(f);
+
+        Collection imports = clazz.getImportedPackages();
+        assertEquals(3, imports.size());
+
+        assertTrue(imports.contains(new JavaPackage("java.lang")));
+        assertTrue(imports.contains(new JavaPackage("java.lang.annotation")));
+        assertTrue(imports.contains(new JavaPackage("java.util.jar")));
+    }
+
     public void testExampleClassFileFromTimDrury() throws IOException {
         // see http://github.com/clarkware/jdepend/issues#issue/1
         parser.parse(ClassFileParser.class.getResourceAsStream("/data/example_class1.bin"));
@@ -180,5 +234,126 @@ public class ClassFileParserTest extends JDependTestCase {
     public void testExampleClassFile2() throws IOException {
         parser.parse(ClassFileParser.class.getResourceAsStream("/data/example_class2.bin"));
 	}
-}
 
+    public void testSummary() throws IOException {
+
+        byte[] bytes = read("ExampleInterface.class");
+
+        ClassSummary summary = parser.parseSummary(bytes, 0, bytes.length);
+
+        assertEquals("jdepend.framework.ExampleInterface", summary.getName());
+        assertEquals("jdepend.framework", summary.getPackageName());
+        assertEquals("ExampleInterface.java", summary.getSourceFile());
+        assertTrue(summary.isAbstract());
+        assertEquals(6, summary.getImportedPackageCount());
+
+        JavaClass clazz = new JavaClass(summary);
+        assertEquals(summary.getDependencyCount(), clazz.getDependencies().size());
+        for (int i = 0; i < summary.getDependencyCount(); i++) {
+            assertEquals(Integer.valueOf(summary.getReferenceCount(i)),
+                    clazz.getDependencies().get(summary.getDependency(i)));
+        }
+    }
+
+    public void testParserReused() throws IOException {
+
+        byte[] concrete = read("ExampleConcreteClass.class");
+        byte[] inner = read("ExampleConcreteClass$ExampleInnerClass.class");
+
+        JavaClass first = parser.parse(concrete, 0, concrete.length);
+        parser.parse(inner, 0, inner.length);
+        JavaClass again = parser.parse(concrete, 0, concrete.length);
+
+        assertEquals(first.getDependencies(), again.getDependencies());
+        assertEquals(19, again.getImportedPackages().size());
+    }
+
+    public void testSymbolTableReset() throws IOException {
+
+        byte[] concrete = read("ExampleConcreteClass.class");
+
+        JavaClass first = parser.parse(concrete, 0, concrete.length);
+        SymbolTable symbols = parser.getSymbolTable();
+        parser.resetSymbolTable();
+        JavaClass again = parser.parse(concrete, 0, concrete.length);
+
+        assertTrue(symbols != parser.getSymbolTable());
+        assertSame(symbols, first.getSummary().getSymbols());
+        assertSame(parser.getSymbolTable(), again.getSummary().getSymbols());
+        assertEquals(first.getDependencies(), again.getDependencies());
+    }
+
+    public void testSymbolTableResetByAnalysis() throws IOException {
+
+        JDepend jdepend = new JDepend();
+        jdepend.addDirectory(getBuildDir() + getPackageSubDir());
+        List<SymbolTable> tables = new ArrayList<>();
+        jdepend.addParseListener(parsedClass ->
+                tables.add(parsedClass.getSummary().getSymbols()));
+
+        jdepend.analyze();
+        SymbolTable first = tables.get(tables.size() - 1);
+        jdepend.analyze();
+        SymbolTable again = tables.get(tables.size() - 1);
+
+        assertTrue(first != again);
+        assertEquals(first.size(), again.size());
+    }
+
+    public void testStreamParsingSubclass() throws IOException {
+
+        byte[] concrete = read("ExampleConcreteClass.class");
+        List<InputStream> streams = new ArrayList<>();
+        ClassFileParser streamParser = new ClassFileParser() {
+
+            public JavaClass parse(InputStream is) throws IOException {
+                streams.add(is);
+                return super.parse(is);
+            }
+        };
+
+        JavaClass clazz = streamParser.parse(concrete, 0, concrete.length);
+
+        assertEquals(1, streams.size());
+        assertEquals(19, clazz.getImportedPackages().size());
+    }
+
+    public void testParserSharedByThreads() throws Exception {
+
+        byte[] concrete = read("ExampleConcreteClass.class");
+        byte[] abstractClass = read("ExampleAbstractClass.class");
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<JavaClass>> results = new ArrayList<>();
+            for (int i = 0; i < 200; i++) {
+                byte[] bytes = i % 2 == 0 ? concrete : abstractClass;
+                results.add(executor.submit(
+                        () -> parser.parse(bytes, 0, bytes.length)));
+            }
+            for (int i = 0; i < results.size(); i++) {
+                JavaClass clazz = results.get(i).get();
+                assertEquals(i % 2 == 0 ? 19 : 7,
+                        clazz.getImportedPackages().size());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    public void testTruncatedClassFile() throws IOException {
+
+        byte[] bytes = read("ExampleConcreteClass.class");
+
+        try {
+            parser.parse(bytes, 0, bytes.length / 2);
+            fail("Truncated class file: Should raise IOException");
+        } catch (IOException expected) {
+            assertTrue(true);
+        }
+    }
+
+    private byte[] read(String classFile) throws IOException {
+        return Files.readAllBytes(new File(getBuildDir() + getPackageSubDir()
+                + classFile).toPath());
+    }
+}
@@ -0,0 +1,135 @@
+package jdepend.framework;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Map;
+
+/**
+ * @since 2.11
+ */
+
+public class ClassSummaryTest extends JDependTestCase {
+
+    private ClassFileParser parser;
+
+    public ClassSummaryTest(String name) {
+        super(name);
+    }
+
+    protected void setUp() {
+        super.setUp();
+        parser = new ClassFileParser(new PackageFilter(new ArrayList()));
+    }
+
+    public void testNamesShared() throws IOException {
+        ClassSummary concrete = parse("ExampleConcreteClass.class");
+        ClassSummary inner = parse("ExampleConcreteClass$ExampleInnerClass.class");
+
+        assertSame(parser.getSymbolTable(), concrete.getSymbols());
+        assertSame(concrete.getSymbols(), inner.getSymbols());
+        assertEquals(concrete.getPackageId(), inner.getPackageId());
+        assertSame(concrete.getSourceFile(), inner.getSourceFile());
+
+        int index = concrete.indexOfDependency(inner.getName());
+        assertTrue(index >= 0);
+        assertEquals(inner.getNameId(), concrete.getDependencyId(index));
+    }
+
+    public void testDependenciesSorted() throws IOException {
+        ClassSummary summary = parse("ExampleConcreteClass.class");
+
+        for (int i = 1; i < summary.getDependencyCount(); i++) {
+            assertTrue(summary.getDependencyId(i - 1) < summary.getDependencyId(i));
+            assertTrue(summary.getReferenceCount(i) > 0);
+        }
+        for (int i = 1; i < summary.getImportedPackageCount(); i++) {
+            assertTrue(summary.getImportedPackageId(i - 1)
+                    < summary.getImportedPackageId(i));
+        }
+        assertEquals(1, summary.indexOfDependency(summary.getDependency(1)));
+        assertTrue(summary.indexOfDependency("no.such.Class") < 0);
+    }
+
+    public void testJavaClassView() throws IOException {
+        ClassSummary summary = parse("ExampleConcreteClass.class");
+        JavaClass jClass = new JavaClass(summary);
+
+        assertSame(summary, jClass.getSummary());
+        Map<String, Integer> dependencies = jClass.getDependencies();
+        assertEquals(summary.getDependencyCount(), dependencies.size());
+        for (int i = 0; i < summary.getDependencyCount(); i++) {
+            assertEquals(Integer.valueOf(summary.getReferenceCount(i)),
+                    dependencies.get(summary.getDependency(i)));
+        }
+        assertEquals(summary.getImportedPackageCount(),
+                jClass.getImportedPackages().size());
+    }
+
+    public void testJavaClassChangesCopied() throws IOException {
+        ClassSummary summary = parse("ExampleInterface.class");
+        JavaClass jClass = new JavaClass(summary);
+        String dependency = summary.getDependency(0);
+        int references = summary.getReferenceCount(0);
+
+        jClass.addDependency(dependency);
+        jClass.addDependency("a.b.New");
+        jClass.addDependency(" ");
+        jClass.addImportedPackage(new JavaPackage("a.b"));
+        jClass.addImportedPackage(new JavaPackage("jdepend.framework"));
+        jClass.isAbstract(false);
+
+        assertTrue(summary != jClass.getSummary());
+        assertEquals(Integer.valueOf(references + 1),
+                jClass.getDependencies().get(dependency));
+        assertEquals(Integer.valueOf(1), jClass.getDependencies().get("a.b.New"));
+        assertEquals(summary.getDependencyCount() + 1, jClass.getDependencies().size());
+        assertEquals(7, jClass.getImportedPackages().size());
+        assertFalse(jClass.isAbstract());
+
+        assertTrue(summary.isAbstract());
+        assertEquals(6, summary.getImportedPackageCount());
+        assertTrue(summary.indexOfDependency("a.b.New") < 0);
+    }
+
+    public void testJavaClassChangesBuiltOnce() {
+        JavaClass jClass = new JavaClass("a.b.C");
+        for (int i = 0; i < 1000; i++) {
+            jClass.addDependency("a.b.D" + (i % 100));
+        }
+
+        ClassSummary summary = jClass.getSummary();
+        assertSame(summary, jClass.getSummary());
+        assertEquals(100, summary.getDependencyCount());
+        assertEquals(103, summary.getSymbols().size());
+        assertEquals(Integer.valueOf(10), jClass.getDependencies().get("a.b.D7"));
+
+        jClass.addDependency("a.b.D7");
+        assertTrue(summary != jClass.getSummary());
+        assertSame(summary.getSymbols(), jClass.getSummary().getSymbols());
+        assertEquals(Integer.valueOf(11), jClass.getDependencies().get("a.b.D7"));
+        assertEquals(Integer.valueOf(10), Integer.valueOf(summary.getReferenceCount(
+                summary.indexOfDependency("a.b.D7"))));
+    }
+
+    public void testNewJavaClass() {
+        JavaClass jClass = new JavaClass("a.b.C");
+
+        assertEquals("a.b.C", jClass.getName());
+        assertEquals("default", jClass.getPackageName());
+        assertEquals("Unknown", jClass.getSourceFile());
+        assertTrue(jClass.getDependencies().isEmpty());
+
+        jClass.setPackageName("a.b");
+        jClass.setSourceFile("C.java");
+        assertEquals("a.b", jClass.getPackageName());
+        assertEquals("C.java", jClass.getSourceFile());
+    }
+
+    private ClassSummary parse(String classFile) throws IOException {
+        byte[] bytes = Files.readAllBytes(new File(getBuildDir()
+                + getPackageSubDir() + classFile).toPath());
+        return parser.parseSummary(bytes, 0, bytes.length);
+    }
+}
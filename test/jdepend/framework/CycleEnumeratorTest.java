@@ -0,0 +1,115 @@
+package jdepend.framework;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * @since 2.11
+ */
+
+public class CycleEnumeratorTest extends JDependTestCase {
+
+    private JavaPackage a;
+    private JavaPackage b;
+    private JavaPackage c;
+    private JavaPackage d;
+    private JavaPackage e;
+    private PackageGraph graph;
+    private List<String> cycles;
+    private CycleListener listener;
+
+    public CycleEnumeratorTest(String name) {
+        super(name);
+    }
+
+    protected void setUp() {
+        super.setUp();
+
+        a = new JavaPackage("A");
+        b = new JavaPackage("B");
+        c = new JavaPackage("C");
+        d = new JavaPackage("D");
+        e = new JavaPackage("E");
+
+        // A <-> B, B -> C -> A, C -> D -> E
+        a.dependsUpon(b, 1);
+        b.dependsUpon(a, 1);
+        b.dependsUpon(c, 1);
+        c.dependsUpon(a, 1);
+        c.dependsUpon(d, 1);
+        d.dependsUpon(e, 1);
+
+        graph = new PackageGraph(Arrays.asList(a, b, c, d, e));
+
+        cycles = new ArrayList<>();
+        listener = new CycleListener() {
+            public void onCycle(List<JavaPackage> cycle) {
+                StringBuffer s = new StringBuffer();
+                for (JavaPackage p : cycle) {
+                    s.append(p.getName());
+                }
+                cycles.add(s.toString());
+            }
+        };
+    }
+
+    public void testElementaryCycles() {
+        CycleEnumerator enumerator = new CycleEnumerator(graph);
+        assertEquals(2, enumerator.enumerate(listener));
+        assertEquals(Arrays.asList("AB", "ABC"), cycles);
+        assertFalse(enumerator.isTruncated());
+    }
+
+    public void testParticipation() {
+        CycleEnumerator enumerator = new CycleEnumerator(graph);
+        enumerator.enumerate(null);
+
+        assertEquals(2, enumerator.getParticipation(a, b));
+        assertEquals(1, enumerator.getParticipation(b, a));
+        assertEquals(1, enumerator.getParticipation(c, a));
+        assertEquals(0, enumerator.getParticipation(c, d));
+        assertEquals(0, enumerator.getParticipation(a, c));
+
+        int[] edges = enumerator.getEdgesByParticipation();
+        assertEquals(4, edges.length);
+        assertEquals(graph.indexOf("A"), enumerator.getEdgeSource(edges[0]));
+        assertEquals(graph.indexOf("A"), graph.getEfferentSource(edges[0]));
+        assertEquals(graph.indexOf("B"), graph.getEfferentTarget(edges[0]));
+    }
+
+    public void testMaxLength() {
+        CycleEnumerator enumerator = new CycleEnumerator(graph);
+        enumerator.setMaxLength(2);
+        assertEquals(1, enumerator.enumerate(listener));
+        assertEquals(Arrays.asList("AB"), cycles);
+        assertTrue(enumerator.isTruncated());
+    }
+
+    public void testCompleteGraph() {
+        JavaPackage[] packages = new JavaPackage[4];
+        for (int i = 0; i < packages.length; i++) {
+            packages[i] = new JavaPackage("p" + i);
+        }
+        for (JavaPackage from : packages) {
+            for (JavaPackage to : packages) {
+                if (from != to) {
+                    from.dependsUpon(to, 1);
+                }
+            }
+        }
+
+        CycleEnumerator enumerator =
+            new CycleEnumerator(new PackageGraph(Arrays.asList(packages)));
+        assertEquals(20, enumerator.enumerate(null));
+
+        enumerator.setMaxLength(2);
+        assertEquals(6, enumerator.enumerate(null));
+
+        enumerator.setMaxLength(Integer.MAX_VALUE);
+        enumerator.setMaxCycles(5);
+        assertEquals(5, enumerator.enumerate(listener));
+        assertEquals(5, cycles.size());
+        assertTrue(enumerator.isTruncated());
+    }
+}
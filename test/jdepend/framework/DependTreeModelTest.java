@@ -0,0 +1,133 @@
+package jdepend.framework;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import javax.swing.event.TreeModelEvent;
+import javax.swing.event.TreeModelListener;
+
+import jdepend.swingui.DependTreeModel;
+import jdepend.swingui.EfferentNode;
+import jdepend.swingui.PackageNode;
+import jdepend.swingui.PackageTable;
+
+/**
+ * @since 2.11
+ */
+
+public class DependTreeModelTest extends JDependTestCase {
+
+    private List<JavaPackage> packages;
+    private PackageNode root;
+    private DependTreeModel model;
+    private List<TreeModelEvent> inserted;
+
+    public DependTreeModelTest(String name) {
+        super(name);
+    }
+
+    protected void setUp() {
+        super.setUp();
+
+        List<JavaPackage> analyzed = new ArrayList<>();
+        for (String name : new String[] { "a", "b", "c", "d", "e" }) {
+            JavaPackage jPackage = new JavaPackage(name);
+            JavaClass jClass = new JavaClass(name + ".Example");
+            jClass.setPackageName(name);
+            jPackage.addClass(jClass);
+            analyzed.add(jPackage);
+        }
+
+        PackageGraph graph = new PackageGraph(analyzed);
+        packages = graph.getPackages();
+        root = new EfferentNode(new PackageTable(graph));
+        model = new DependTreeModel(root);
+
+        inserted = new ArrayList<>();
+        model.addTreeModelListener(new TreeModelListener() {
+            public void treeNodesChanged(TreeModelEvent e) {
+            }
+
+            public void treeNodesInserted(TreeModelEvent e) {
+                inserted.add(e);
+            }
+
+            public void treeNodesRemoved(TreeModelEvent e) {
+            }
+
+            public void treeStructureChanged(TreeModelEvent e) {
+            }
+        });
+    }
+
+    private static BitSet ids(int... ids) {
+        BitSet result = new BitSet();
+        for (int id : ids) {
+            result.set(id);
+        }
+        return result;
+    }
+
+    private String children() {
+        StringBuffer names = new StringBuffer();
+        for (int i = 0; i < model.getChildCount(root); i++) {
+            names.append(((PackageNode) model.getChild(root, i))
+                    .getPackage().getName());
+        }
+        return names.toString();
+    }
+
+    public void testSetFilter() {
+        model.addPackages(packages);
+        assertEquals("abcde", children());
+
+        model.setFilter(ids(1, 3));
+        assertEquals("bd", children());
+        assertNull(model.getChild(root, 2));
+
+        model.setFilter(new BitSet());
+        assertEquals("", children());
+
+        model.setFilter(null);
+        assertEquals("abcde", children());
+    }
+
+    public void testIndexOfChildFiltered() {
+        model.addPackages(packages);
+        PackageNode c = (PackageNode) model.getChild(root, 2);
+        PackageNode d = (PackageNode) model.getChild(root, 3);
+        assertEquals(3, model.getIndexOfChild(root, d));
+
+        model.setFilter(ids(1, 3));
+        assertEquals(1, model.getIndexOfChild(root, d));
+        assertEquals(-1, model.getIndexOfChild(root, c));
+
+        model.setFilter(null);
+        assertEquals(2, model.getIndexOfChild(root, c));
+    }
+
+    public void testAddPackagesWhileFiltered() {
+        model.addPackages(packages.subList(0, 2));
+        model.setFilter(ids(1, 3));
+        assertEquals("b", children());
+        inserted.clear();
+
+        model.addPackages(packages.subList(2, 5));
+        assertEquals("bd", children());
+
+        assertEquals(1, inserted.size());
+        TreeModelEvent event = inserted.get(0);
+        assertTrue(Arrays.equals(new int[] { 1 }, event.getChildIndices()));
+        assertEquals(1, event.getChildren().length);
+        assertEquals("d", ((PackageNode) event.getChildren()[0])
+                .getPackage().getName());
+
+        inserted.clear();
+        model.addPackages(Arrays.asList(new JavaPackage("other")));
+        assertEquals(0, inserted.size());
+
+        model.setFilter(null);
+        assertEquals("abcde", children());
+    }
+}
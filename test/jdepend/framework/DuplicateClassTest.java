@@ -0,0 +1,187 @@
+package jdepend.framework;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.jar.JarOutputStream;
+
+/**
+ * @since 2.11
+ */
+
+public class DuplicateClassTest extends JDependTestCase {
+
+    private static final String ENTRY = "jdepend/framework/ExampleInterface.class";
+
+    private File jarFile;
+    private int parseCount;
+
+    public DuplicateClassTest(String name) {
+        super(name);
+    }
+
+    protected void tearDown() {
+        if (jarFile != null) {
+            jarFile.delete();
+        }
+        super.tearDown();
+    }
+
+    public void testIdenticalDuplicatesNotParsed() throws IOException {
+        writeJar(false);
+        JavaClassDataset dataset = build(null);
+
+        int classCount = dataset.getJavaClasses().size();
+        assertEquals(classCount, parseCount);
+        assertEquals(classCount, dataset.getDuplicateClassIndex().getIdenticalCount());
+        assertEquals(0, dataset.getDuplicateClassIndex().getDuplicateClasses().size());
+    }
+
+    public void testConflictingDuplicateReported() throws IOException {
+        writeJar(true);
+        JavaClassDataset dataset = build(null);
+
+        assertConflict(dataset.getDuplicateClassIndex().getDuplicateClasses());
+    }
+
+    public void testConflictingDuplicateReportedFromJarCache() throws IOException {
+        writeJar(true);
+        JavaClassDataset dataset = build(new JarCache());
+
+        assertConflict(dataset.getDuplicateClassIndex().getDuplicateClasses());
+    }
+
+    public void testDirectoryClassesNotParsedFromJar() throws IOException {
+        File directory = writeDirectory();
+        try {
+            FileManager fm = new FileManager();
+            fm.addDirectory(directory.getPath());
+            fm.addDirectory(getTestDataDir() + "test.jar");
+            JavaClassDataset dataset = build(fm, null);
+
+            assertEquals(5, parseCount);
+            assertEquals(5, dataset.getJavaClasses().size());
+            assertEquals(5, dataset.getDuplicateClassIndex().getIdenticalCount());
+        } finally {
+            delete(directory);
+        }
+    }
+
+    public void testContentsKeyedByPackage() {
+        DuplicateClassIndex index = new DuplicateClassIndex();
+
+        assertTrue(index.addContent("p1/Example.class", 389, 1234));
+        assertTrue(index.addContent("p2/Example.class", 389, 1234));
+        assertFalse(index.addContent("p1/Example.class", 389, 1234));
+        assertEquals(1, index.getIdenticalCount());
+    }
+
+    private void assertConflict(List<DuplicateClass> duplicates) {
+        assertEquals(1, duplicates.size());
+        DuplicateClass duplicate = duplicates.get(0);
+        assertEquals("jdepend.framework.ExampleInterface", duplicate.getName());
+        assertEquals(2, duplicate.getLocations().size());
+        assertTrue(duplicate.getLocations().contains(
+                new File(getTestDataDir(), "test.jar").getPath() + "!/" + ENTRY));
+        assertTrue(duplicate.getLocations().contains(
+                jarFile.getPath() + "!/" + ENTRY));
+    }
+
+    private JavaClassDataset build(JarCache cache) throws IOException {
+        FileManager fm = new FileManager();
+        fm.addDirectory(getTestDataDir() + "test.jar");
+        fm.addDirectory(jarFile.getPath());
+        return build(fm, cache);
+    }
+
+    private JavaClassDataset build(FileManager fm, JarCache cache)
+            throws IOException {
+        AbstractParser parser = new ClassFileParser() {
+
+            public JavaClass parse(InputStream is) throws IOException {
+                parseCount++;
+                return super.parse(is);
+            }
+        };
+        JavaClassBuilder builder = new JavaClassBuilder(parser, fm);
+        builder.setJarCache(cache);
+        return builder.build();
+    }
+
+    /*
+     * Writes a copy of the classes of test.jar, with ExampleInterface.class
+     * altered when conflicting: its minor version changes its content but
+     * not its name.
+     */
+    private void writeJar(boolean conflicting) throws IOException {
+        jarFile = File.createTempFile("duplicates", ".jar");
+        try (JarFile source = new JarFile(getTestDataDir() + "test.jar");
+                JarOutputStream out = new JarOutputStream(
+                        new FileOutputStream(jarFile))) {
+            Enumeration<JarEntry> entries = source.entries();
+            while (entries.hasMoreElements()) {
+                JarEntry entry = entries.nextElement();
+                if (!entry.getName().endsWith(".class")) {
+                    continue;
+                }
+                byte[] bytes = read(source, entry);
+                if (conflicting && entry.getName().equals(ENTRY)) {
+                    bytes[5]++;
+                }
+                out.putNextEntry(new JarEntry(entry.getName()));
+                out.write(bytes);
+            }
+        }
+    }
+
+    /*
+     * Extracts the classes of test.jar into a new class directory.
+     */
+    private File writeDirectory() throws IOException {
+        File directory = File.createTempFile("duplicates", "");
+        directory.delete();
+        try (JarFile source = new JarFile(getTestDataDir() + "test.jar")) {
+            Enumeration<JarEntry> entries = source.entries();
+            while (entries.hasMoreElements()) {
+                JarEntry entry = entries.nextElement();
+                if (!entry.getName().endsWith(".class")) {
+                    continue;
+                }
+                File file = new File(directory, entry.getName());
+                file.getParentFile().mkdirs();
+                try (FileOutputStream out = new FileOutputStream(file)) {
+                    out.write(read(source, entry));
+                }
+            }
+        }
+        return directory;
+    }
+
+    private static void delete(File file) {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                delete(child);
+            }
+        }
+        file.delete();
+    }
+
+    private static byte[] read(JarFile source, JarEntry entry) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (InputStream in = source.getInputStream(entry)) {
+            byte[] buffer = new byte[4096];
+            int n;
+            while ((n = in.read(buffer)) > 0) {
+                bytes.write(buffer, 0, n);
+            }
+        }
+        return bytes.toByteArray();
+    }
+}
@@ -0,0 +1,32 @@
+package jdepend.framework;
+
+import jdepend.framework.p4.ExampleInvisibleAnnotation;
+import jdepend.framework.p4.ExampleTypeAnnotation;
+
+/**
+ * Annotated with each kind of annotation attribute, on the first field
+ * and method.
+ */
+
+@ExampleInvisibleAnnotation(java.util.zip.ZipFile.class)
+public class ExampleAnnotatedClass {
+
+    @ExampleInvisibleAnnotation(java.util.logging.Logger.class)
+    private int first;
+
+    private @ExampleTypeAnnotation(java.util.regex.Pattern.class) Object typed;
+
+    @ExampleInvisibleAnnotation(java.util.prefs.Preferences.class)
+    public ExampleAnnotatedClass() {
+    }
+
+    public Object parameter(
+            @ExampleInvisibleAnnotation(java.util.concurrent.locks.Lock.class) Object p) {
+        @ExampleTypeAnnotation(java.util.function.Supplier.class) Object local = p;
+        return local;
+    }
+
+    @ExampleInvisibleAnnotation(int.class)
+    public void primitive() {
+    }
+}
@@ -0,0 +1,110 @@
+package jdepend.framework;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * @since 2.11
+ */
+
+public class ExternalAggregatorTest extends JDependTestCase {
+
+    private File directory;
+
+    public ExternalAggregatorTest(String name) {
+        super(name);
+    }
+
+    protected void setUp() {
+        super.setUp();
+        directory = new File(getBuildDir());
+    }
+
+    public void testMergePasses() throws IOException {
+        Map<String, JavaPackage> nodes = new HashMap<>();
+        try (ExternalAggregator aggregator = new ExternalAggregator(directory, 1)) {
+            for (int i = 0; i < 100; i++) {
+                aggregator.add(newClass("b.C" + i, i % 3 == 0, "a"));
+            }
+            aggregator.add(newClass("a.A", false, "b"));
+            aggregator.aggregate(name -> nodes.computeIfAbsent(name, JavaPackage::new));
+
+            assertTrue(aggregator.getSpilledRunCount() > 101);
+        }
+        assertEquals(0, listRuns().length);
+
+        JavaPackage a = nodes.get("a");
+        JavaPackage b = nodes.get("b");
+        assertEquals(100, b.getClassCount());
+        assertEquals(34, b.getAbstractClassCount());
+        assertEquals(66, b.getConcreteClassCount());
+        assertEquals(0, b.getClasses().size());
+        assertEquals(Integer.valueOf(100), b.getEfferentCount(a));
+        assertEquals(100, a.afferentCoupling());
+        assertEquals(1, a.efferentCoupling());
+        assertTrue(a.containsCycle());
+    }
+
+    public void testLastClassCounts() throws IOException {
+        Map<String, JavaPackage> nodes = new HashMap<>();
+        try (ExternalAggregator aggregator = new ExternalAggregator(directory, 2)) {
+            aggregator.add(newClass("a.A", false, "b"));
+            aggregator.add(newClass("a.B", false));
+            aggregator.add(newClass("a.A", true, "c"));
+            aggregator.aggregate(name -> nodes.computeIfAbsent(name, JavaPackage::new));
+        }
+
+        JavaPackage a = nodes.get("a");
+        assertEquals(2, a.getClassCount());
+        assertEquals(1, a.getAbstractClassCount());
+        assertEquals(1, a.efferentCoupling());
+        assertNull(a.getEfferentCount(new JavaPackage("b")));
+        assertEquals(Integer.valueOf(1), a.getEfferentCount(new JavaPackage("c")));
+    }
+
+    public void testSameAnalysis() throws IOException {
+        JDepend memory = new JDepend();
+        memory.addDirectory(getBuildDir());
+        memory.analyze();
+
+        JDepend external = new JDepend();
+        external.addDirectory(getBuildDir());
+        external.setSpillDirectory(directory);
+        external.analyze();
+
+        assertEquals(memory.countPackages(), external.countPackages());
+        for (JavaPackage expected : memory.getPackages()) {
+            JavaPackage actual = external.getPackage(expected.getName());
+            assertEquals(expected.getClassCount(), actual.getClassCount());
+            assertEquals(expected.getAbstractClassCount(),
+                    actual.getAbstractClassCount());
+            assertEquals(expected.afferentCoupling(), actual.afferentCoupling());
+            assertEquals(expected.efferentCoupling(), actual.efferentCoupling());
+            assertEquals(expected.containsCycle(), actual.containsCycle());
+        }
+        assertEquals(0, listRuns().length);
+
+        try {
+            external.getPackages(DependencyRollup.Level.CLASS);
+            fail("Levels should not be available out of core");
+        } catch (IllegalStateException success) {
+        }
+    }
+
+    private static JavaClass newClass(String name, boolean isAbstract,
+            String... imports) {
+        JavaClass jClass = new JavaClass(name);
+        jClass.setPackageName(name.substring(0, name.lastIndexOf('.')));
+        jClass.isAbstract(isAbstract);
+        for (String imported : imports) {
+            jClass.addImportedPackage(new JavaPackage(imported));
+        }
+        return jClass;
+    }
+
+    private File[] listRuns() {
+        return directory.listFiles((dir, name) -> name.endsWith(".run"));
+    }
+}
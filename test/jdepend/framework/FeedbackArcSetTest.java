@@ -0,0 +1,89 @@
+package jdepend.framework;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * @since 2.11
+ */
+
+public class FeedbackArcSetTest extends JDependTestCase {
+
+    public FeedbackArcSetTest(String name) {
+        super(name);
+    }
+
+    public void testWeightedCycles() {
+        JavaPackage a = new JavaPackage("A");
+        JavaPackage b = new JavaPackage("B");
+        JavaPackage c = new JavaPackage("C");
+        JavaPackage d = new JavaPackage("D");
+
+        // A <-> B, B -> C -> A, C -> D
+        a.dependsUpon(b, 10);
+        b.dependsUpon(a, 1);
+        b.dependsUpon(c, 5);
+        c.dependsUpon(a, 5);
+        c.dependsUpon(d, 1);
+
+        FeedbackArcSet arcs =
+            new FeedbackArcSet(new PackageGraph(Arrays.asList(a, b, c, d)));
+
+        assertEquals(2, arcs.size());
+        assertEquals(6, arcs.getWeight());
+        assertTrue(arcs.contains(b, a));
+        assertTrue(arcs.contains(c, a));
+        assertFalse(arcs.contains(a, b));
+        assertFalse(arcs.contains(c, d));
+    }
+
+    public void testNoCycles() {
+        JavaPackage a = new JavaPackage("A");
+        JavaPackage b = new JavaPackage("B");
+        a.dependsUpon(b, 1);
+
+        FeedbackArcSet arcs =
+            new FeedbackArcSet(new PackageGraph(Arrays.asList(a, b)));
+        assertEquals(0, arcs.size());
+        assertEquals(0, arcs.getWeight());
+    }
+
+    public void testBreaksAllCycles() {
+        Random random = new Random(42);
+        JavaPackage[] packages = new JavaPackage[60];
+        for (int i = 0; i < packages.length; i++) {
+            packages[i] = new JavaPackage("p" + (100 + i));
+        }
+        for (int i = 0; i < 300; i++) {
+            int from = random.nextInt(packages.length);
+            int to = random.nextInt(packages.length);
+            if (from != to) {
+                packages[from].dependsUpon(packages[to], 1 + random.nextInt(9));
+            }
+        }
+
+        PackageGraph graph = new PackageGraph(Arrays.asList(packages));
+        FeedbackArcSet arcs = new FeedbackArcSet(graph);
+        assertTrue(arcs.size() > 0);
+
+        JavaPackage[] remaining = new JavaPackage[packages.length];
+        for (int id = 0; id < graph.size(); id++) {
+            remaining[id] = new JavaPackage(graph.getName(id));
+        }
+        for (int id = 0; id < graph.size(); id++) {
+            for (int e = graph.getEfferentStart(id); e < graph.getEfferentStart(id + 1); e++) {
+                JavaPackage target = graph.getPackage(graph.getEfferentTarget(e));
+                if (!arcs.contains(graph.getPackage(id), target)) {
+                    remaining[id].dependsUpon(
+                            remaining[graph.getEfferentTarget(e)], 1);
+                }
+            }
+        }
+
+        StronglyConnectedComponents components = new StronglyConnectedComponents(
+                new PackageGraph(Arrays.asList(remaining)));
+        for (int c = 0; c < components.getCount(); c++) {
+            assertFalse(components.isCyclic(c));
+        }
+    }
+}
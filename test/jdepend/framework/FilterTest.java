@@ -61,6 +61,34 @@ public class FilterTest extends JDependTestCase {
         assertEquals(1, filter.getFilters().size());
     }
 
+    public void testSkipFilteredClasses() throws IOException {
+        Collection filters = new ArrayList();
+        filters.add("jdepend.framework");
+        ClassFileParser parser = new ClassFileParser(new PackageFilter(filters));
+
+        File f = new File(getBuildDir() + getPackageSubDir() +
+                          "ExampleInterface.class");
+
+        assertNotNull(parser.parse(f));
+
+        parser.skipFilteredClasses(true);
+        assertNull(parser.parse(f));
+    }
+
+    public void testSkipFilteredJarEntries() throws IOException {
+        Collection filters = new ArrayList();
+        filters.add("jdepend.framework");
+        ClassFileParser parser = new ClassFileParser(new PackageFilter(filters));
+        parser.skipFilteredClasses(true);
+
+        FileManager fm = new FileManager();
+        fm.addDirectory(getTestDataDir() + "test.jar");
+        JavaClassBuilder builder = new JavaClassBuilder(parser, fm);
+
+        assertEquals(0, builder.countClasses());
+        assertEquals(0, builder.build().getJavaClasses().size());
+    }
+
     private void assertFiltersExist(PackageFilter filter) {
         assertFalse(filter.accept("java.lang"));
         assertFalse(filter.accept("javax.ejb"));
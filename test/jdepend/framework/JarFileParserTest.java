@@ -3,6 +3,7 @@ package jdepend.framework;
 import java.io.File;
 import java.io.IOException;
 import java.util.Collection;
+import java.util.concurrent.CancellationException;
 
 /**
  * @author <b>Mike Clark</b>
@@ -119,6 +120,32 @@ public class JarFileParserTest extends JDependTestCase {
         assertEquals(8, jdepend.countClasses());
     }
 
+    public void testCancel() throws IOException {
+
+        JDepend jdepend = new JDepend();
+        jdepend.addDirectory(getTestDataDir());
+
+        // a request made while the build runs cancels it
+        jdepend.addParseListener(parsedClass -> jdepend.cancel());
+        try {
+            jdepend.analyze();
+            fail("Should raise CancellationException");
+        } catch (CancellationException expected) {
+            assertTrue(true);
+        }
+    }
+
+    public void testCancelAfterBuild() throws IOException {
+
+        JDepend jdepend = new JDepend();
+        jdepend.addDirectory(getTestDataDir());
+        jdepend.analyze();
+
+        // a request no build observed does not cancel the next analysis
+        jdepend.cancel();
+        assertTrue(jdepend.analyze().size() > 0);
+    }
+
     private void assertClassesExist(Collection classes) {
         assertTrue(classes.contains(new JavaClass(
                 "jdepend.framework.ExampleAbstractClass")));
@@ -0,0 +1,282 @@
+package jdepend.framework;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * @since 2.11
+ */
+
+public class JsonReportTest extends JDependTestCase {
+
+    private static final String QUOTED = "quote\"d.back\\slash";
+    private static final String CONTROL = "control\u0001\t\n.pkg";
+    private static final String LOCATION = "C:\\lib\\\"x\".jar!/a\u001f.class";
+
+    private List<Map<String, Object>> lines;
+
+    public JsonReportTest(String name) {
+        super(name);
+    }
+
+    protected void setUp() {
+        super.setUp();
+
+        JavaPackage quoted = new JavaPackage(QUOTED);
+        JavaPackage control = new JavaPackage(CONTROL);
+        JavaPackage referenced = new JavaPackage("referenced");
+        JavaPackage undefined = new JavaPackage("undefined") {
+            public float distance() {
+                return Float.NaN;
+            }
+        };
+
+        addClass(quoted, QUOTED + ".Abstract\"Class", true);
+        addClass(quoted, QUOTED + ".Concrete", false);
+        addClass(control, CONTROL + ".Concrete", false);
+        addClass(undefined, "undefined.Concrete", false);
+
+        quoted.dependsUpon(control, 2);
+        control.dependsUpon(quoted, 1);
+        quoted.dependsUpon(referenced, 1);
+
+        StringWriter out = new StringWriter();
+        new Report(new PrintWriter(out)).report(
+                Arrays.asList(quoted, control, referenced, undefined),
+                Arrays.asList(new DuplicateClass("a\u001f",
+                        Arrays.asList(LOCATION, "b\\c"))));
+
+        lines = new ArrayList<>();
+        for (String line : out.toString().split("\n")) {
+            lines.add(parseObject(line));
+        }
+    }
+
+    private static void addClass(JavaPackage jPackage, String name,
+            boolean isAbstract) {
+        JavaClass jClass = new JavaClass(name);
+        jClass.setPackageName(jPackage.getName());
+        jClass.setSourceFile("Tab\tFile\".java");
+        jClass.isAbstract(isAbstract);
+        jPackage.addClass(jClass);
+    }
+
+    private List<Map<String, Object>> objects(String type) {
+        List<Map<String, Object>> objects = new ArrayList<>();
+        for (Map<String, Object> line : lines) {
+            if (type.equals(line.get("type"))) {
+                objects.add(line);
+            }
+        }
+        return objects;
+    }
+
+    private Map<String, Object> packageNamed(String name) {
+        for (Map<String, Object> line : objects("package")) {
+            if (name.equals(line.get("name"))) {
+                return line;
+            }
+        }
+        fail("No package " + name);
+        return null;
+    }
+
+    public void testEscapedNames() {
+        assertEquals(4, objects("package").size());
+
+        Map<String, Object> quoted = packageNamed(QUOTED);
+        List<?> abstractClasses = (List<?>) quoted.get("abstractClasses");
+        assertEquals(1, abstractClasses.size());
+        Map<?, ?> jClass = (Map<?, ?>) abstractClasses.get(0);
+        assertEquals(QUOTED + ".Abstract\"Class", jClass.get("name"));
+        assertEquals("Tab\tFile\".java", jClass.get("sourceFile"));
+
+        List<?> dependsUpon = (List<?>) quoted.get("dependsUpon");
+        assertEquals(CONTROL, ((Map<?, ?>) dependsUpon.get(0)).get("name"));
+        assertEquals(2.0, ((Map<?, ?>) dependsUpon.get(0)).get("count"));
+
+        packageNamed(CONTROL);
+    }
+
+    public void testStatistics() {
+        Map<?, ?> stats = (Map<?, ?>) packageNamed(QUOTED).get("stats");
+        assertEquals(2.0, stats.get("totalClasses"));
+        assertEquals(1.0, stats.get("abstractClasses"));
+        assertEquals(0.5, stats.get("a"));
+        assertEquals(1.0, stats.get("ca"));
+        assertEquals(3.0, stats.get("ce"));
+        assertEquals(0.75, stats.get("i"));
+
+        Map<?, ?> undefined = (Map<?, ?>) packageNamed("undefined").get("stats");
+        assertTrue(undefined.containsKey("d"));
+        assertNull(undefined.get("d"));
+    }
+
+    public void testNoStats() {
+        Map<String, Object> referenced = packageNamed("referenced");
+        assertFalse(referenced.containsKey("stats"));
+        assertEquals("No stats available: package referenced, but not analyzed.",
+                referenced.get("error"));
+    }
+
+    public void testCycles() {
+        List<Map<String, Object>> cycles = objects("cycle");
+        assertEquals(2, cycles.size());
+
+        Map<String, Object> cycle = cycles.get(0);
+        assertEquals(CONTROL, cycle.get("package"));
+        assertEquals(Arrays.asList(QUOTED, CONTROL), cycle.get("path"));
+    }
+
+    public void testDuplicateClasses() {
+        List<Map<String, Object>> duplicates = objects("duplicateClass");
+        assertEquals(1, duplicates.size());
+        assertEquals("a\u001f", duplicates.get(0).get("name"));
+        assertEquals(Arrays.asList(LOCATION, "b\\c"),
+                duplicates.get(0).get("locations"));
+    }
+
+    private static class Report extends jdepend.jsonui.JDepend {
+
+        Report(PrintWriter writer) {
+            super(writer);
+        }
+
+        void report(Collection<JavaPackage> packages,
+                List<DuplicateClass> duplicates) {
+            printReport(packages);
+            printDuplicateClasses(duplicates);
+            getWriter().flush();
+        }
+    }
+
+    //
+    // A strict parser of the JSON values the report writes, which fails on
+    // anything else, such as unescaped control characters.
+    //
+
+    private static Map<String, Object> parseObject(String line) {
+        int[] pos = new int[1];
+        Object value = parseValue(line, pos);
+        assertEquals("Trailing characters in " + line, line.length(), pos[0]);
+        assertTrue("Not an object: " + line, value instanceof Map);
+        @SuppressWarnings("unchecked")
+        Map<String, Object> object = (Map<String, Object>) value;
+        return object;
+    }
+
+    private static Object parseValue(String s, int[] pos) {
+        assertTrue("Unexpected end of " + s, pos[0] < s.length());
+        char c = s.charAt(pos[0]);
+        if (c == '{') {
+            Map<String, Object> object = new LinkedHashMap<>();
+            pos[0]++;
+            if (s.charAt(pos[0]) == '}') {
+                pos[0]++;
+                return object;
+            }
+            while (true) {
+                Object key = parseValue(s, pos);
+                assertTrue("Key is not a string in " + s, key instanceof String);
+                expect(s, pos, ':');
+                assertFalse("Duplicate key " + key, object.containsKey(key));
+                object.put((String) key, parseValue(s, pos));
+                if (s.charAt(pos[0]) == '}') {
+                    pos[0]++;
+                    return object;
+                }
+                expect(s, pos, ',');
+            }
+        } else if (c == '[') {
+            List<Object> array = new ArrayList<>();
+            pos[0]++;
+            if (s.charAt(pos[0]) == ']') {
+                pos[0]++;
+                return array;
+            }
+            while (true) {
+                array.add(parseValue(s, pos));
+                if (s.charAt(pos[0]) == ']') {
+                    pos[0]++;
+                    return array;
+                }
+                expect(s, pos, ',');
+            }
+        } else if (c == '"') {
+            return parseString(s, pos);
+        } else if (s.startsWith("null", pos[0])) {
+            pos[0] += 4;
+            return null;
+        } else if (s.startsWith("true", pos[0])) {
+            pos[0] += 4;
+            return Boolean.TRUE;
+        } else if (s.startsWith("false", pos[0])) {
+            pos[0] += 5;
+            return Boolean.FALSE;
+        }
+
+        int start = pos[0];
+        while (pos[0] < s.length() && "-+.eE0123456789".indexOf(s.charAt(pos[0])) >= 0) {
+            pos[0]++;
+        }
+        assertTrue("Unexpected character in " + s, pos[0] > start);
+        return Double.valueOf(s.substring(start, pos[0]));
+    }
+
+    private static String parseString(String s, int[] pos) {
+        StringBuffer value = new StringBuffer();
+        pos[0]++;
+        while (true) {
+            char c = s.charAt(pos[0]++);
+            assertTrue("Unescaped control character in " + s, c >= 0x20);
+            if (c == '"') {
+                return value.toString();
+            } else if (c != '\\') {
+                value.append(c);
+                continue;
+            }
+
+            char escaped = s.charAt(pos[0]++);
+            switch (escaped) {
+            case '"':
+            case '\\':
+            case '/':
+                value.append(escaped);
+                break;
+            case 'n':
+                value.append('\n');
+                break;
+            case 'r':
+                value.append('\r');
+                break;
+            case 't':
+                value.append('\t');
+                break;
+            case 'b':
+                value.append('\b');
+                break;
+            case 'f':
+                value.append('\f');
+                break;
+            case 'u':
+                value.append((char) Integer.parseInt(
+                        s.substring(pos[0], pos[0] + 4), 16));
+                pos[0] += 4;
+                break;
+            default:
+                fail("Invalid escape in " + s);
+            }
+        }
+    }
+
+    private static void expect(String s, int[] pos, char c) {
+        assertEquals("Unexpected character in " + s, c, s.charAt(pos[0]));
+        pos[0]++;
+    }
+}
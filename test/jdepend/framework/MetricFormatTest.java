@@ -0,0 +1,100 @@
+package jdepend.framework;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.text.NumberFormat;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * @since 2.11
+ */
+
+public class MetricFormatTest extends JDependTestCase {
+
+    public MetricFormatTest(String name) {
+        super(name);
+    }
+
+    public void testRounding() {
+        MetricFormat format = new MetricFormat(Locale.ENGLISH, 2, true);
+
+        assertEquals("0", format.format(0f));
+        assertEquals("-0", format.format(-0f));
+        assertEquals("0.5", format.format(0.5f));
+        assertEquals("0.12", format.format(0.125f));
+        assertEquals("0.38", format.format(0.375f));
+        assertEquals("0.33", format.format(1f / 3));
+        assertEquals("1", format.format(0.999f));
+        assertEquals("1,234.5", format.format(1234.5f));
+        assertEquals("-1,000", format.format(-1000f));
+    }
+
+    public void testPlain() {
+        MetricFormat format = MetricFormat.getPlainInstance(2);
+
+        assertEquals("1234.5", format.format(1234.5f));
+        assertEquals("0.67", format.format(2f / 3));
+    }
+
+    public void testBuffer() {
+        MetricFormat format = new MetricFormat(Locale.ENGLISH, 2, true);
+        char[] buffer = new char[2 + format.getMaxLength()];
+        buffer[0] = '<';
+
+        int end = format.format(0.25f, buffer, 1);
+
+        assertEquals("<0.25", new String(buffer, 0, end));
+    }
+
+    public void testSameAsNumberFormat() {
+        Locale[] locales = { Locale.US, Locale.GERMANY, Locale.FRANCE,
+                new Locale("ar", "EG"), new Locale("hi", "IN") };
+        Random random = new Random(0);
+
+        for (Locale locale : locales) {
+            NumberFormat expected = NumberFormat.getInstance(locale);
+            expected.setMaximumFractionDigits(2);
+            MetricFormat actual = new MetricFormat(locale, 2, true);
+
+            for (int i = 0; i < 10000; i++) {
+                float f = i % 2 == 0 ? random.nextInt(200001) / 1000f - 100
+                        : Float.intBitsToFloat(random.nextInt());
+                assertEquals(expected.format(f), actual.format(f));
+            }
+        }
+    }
+
+    public void testInvalidFractionDigits() {
+        try {
+            MetricFormat.getPlainInstance(9);
+            fail("Invalid fraction digits should fail");
+        } catch (IllegalArgumentException expected) {
+        }
+    }
+
+    public void testReportFormatHooks() throws IOException {
+        StringWriter out = new StringWriter();
+        jdepend.textui.JDepend report =
+            new jdepend.textui.JDepend(new PrintWriter(out)) {
+                protected String toFormattedString(float f) {
+                    return "<" + f + ">";
+                }
+            };
+        report.addDirectory(getBuildDir() + "jdepend/textui");
+        report.analyze();
+        assertTrue(out.toString().indexOf("A: <0.0>") >= 0);
+
+        out = new StringWriter();
+        report = new jdepend.textui.JDepend(new PrintWriter(out)) {
+            {
+                formatter = NumberFormat.getInstance(Locale.ENGLISH);
+                formatter.setMinimumFractionDigits(3);
+            }
+        };
+        report.addDirectory(getBuildDir() + "jdepend/textui");
+        report.analyze();
+        assertTrue(out.toString().indexOf("A: 0.000") >= 0);
+    }
+}
@@ -131,7 +131,7 @@ public class MetricTest extends JDependTestCase {
         JavaPackage analyzedPkg = jdepend.getPackage(pkg.getName());
         assertEquals(0, analyzedPkg.getVolatility());
         assertEquals(format(0.0f), format(analyzedPkg.distance()));
-        assertEquals(7, analyzedPkg.getConcreteClassCount());
+        assertEquals(9, analyzedPkg.getConcreteClassCount());
     }
 
     private String format(float f) {
@@ -0,0 +1,102 @@
+package jdepend.framework;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.jar.Attributes;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
+
+/**
+ * @since 2.11
+ */
+
+public class MultiReleaseJarTest extends JDependTestCase {
+
+    private static final String ENTRY = "jdepend/framework/ExampleInterface.class";
+
+    private File jarFile;
+
+    public MultiReleaseJarTest(String name) {
+        super(name);
+    }
+
+    protected void tearDown() {
+        if (jarFile != null) {
+            jarFile.delete();
+        }
+        super.tearDown();
+    }
+
+    public void testBaseVersionBelowTargetRelease() throws IOException {
+        writeJar(true);
+        JavaClassDataset dataset = build(9);
+
+        assertEquals(1, dataset.getJavaClasses().size());
+        assertNotNull(dataset.getJavaClasses().get("jdepend.framework.ExampleInterface"));
+    }
+
+    public void testVersionEffectiveAtTargetRelease() throws IOException {
+        writeJar(true);
+        JavaClassDataset dataset = build(17);
+
+        assertEquals(1, dataset.getJavaClasses().size());
+        assertNotNull(dataset.getJavaClasses().get("jdepend.framework.ExamplePackageClass"));
+    }
+
+    public void testVersionsIgnoredWithoutMultiRelease() throws IOException {
+        writeJar(false);
+        JavaClassDataset dataset = build(17);
+
+        assertEquals(1, dataset.getJavaClasses().size());
+        assertNotNull(dataset.getJavaClasses().get("jdepend.framework.ExampleInterface"));
+    }
+
+    private JavaClassDataset build(int release) throws IOException {
+        FileManager fm = new FileManager();
+        fm.addDirectory(jarFile.getPath());
+        JavaClassBuilder builder = new JavaClassBuilder(fm);
+        builder.setTargetRelease(release);
+        return builder.build();
+    }
+
+    /*
+     * Writes a jar whose base version of ExampleInterface.class holds the
+     * ExampleInterface class, and whose release 11 version of it holds the
+     * ExamplePackageClass class, so that the parsed name tells which
+     * version was chosen.
+     */
+    private void writeJar(boolean multiRelease) throws IOException {
+        Manifest manifest = new Manifest();
+        manifest.getMainAttributes().put(Attributes.Name.MANIFEST_VERSION, "1.0");
+        if (multiRelease) {
+            manifest.getMainAttributes().put(Attributes.Name.MULTI_RELEASE, "true");
+        }
+
+        jarFile = File.createTempFile("multirelease", ".jar");
+        try (JarFile source = new JarFile(getTestDataDir() + "test.jar");
+                JarOutputStream out = new JarOutputStream(
+                        new FileOutputStream(jarFile), manifest)) {
+            out.putNextEntry(new JarEntry(ENTRY));
+            out.write(read(source, ENTRY));
+            out.putNextEntry(new JarEntry("META-INF/versions/11/" + ENTRY));
+            out.write(read(source, "jdepend/framework/ExamplePackageClass.class"));
+        }
+    }
+
+    private static byte[] read(JarFile source, String name) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (InputStream in = source.getInputStream(source.getEntry(name))) {
+            byte[] buffer = new byte[4096];
+            int n;
+            while ((n = in.read(buffer)) > 0) {
+                bytes.write(buffer, 0, n);
+            }
+        }
+        return bytes.toByteArray();
+    }
+}
@@ -0,0 +1,130 @@
+package jdepend.framework;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * @since 2.11
+ */
+
+public class OffHeapStorageTest extends JDependTestCase {
+
+    private OffHeapStorage storage;
+
+    public OffHeapStorageTest(String name) {
+        super(name);
+    }
+
+    protected void setUp() {
+        super.setUp();
+        storage = new OffHeapStorage(4 * 4096, null, 4096);
+    }
+
+    protected void tearDown() {
+        storage.close();
+        super.tearDown();
+    }
+
+    public void testIntArraySpills() {
+        IntArray array = IntArray.create(storage);
+        for (int i = 0; i < 10000; i++) {
+            array.add(i * 3);
+        }
+
+        assertEquals(10000, array.size());
+        for (int i = 0; i < 10000; i++) {
+            assertEquals(i * 3, array.get(i));
+        }
+        assertEquals(4 * 4096, storage.getMemoryBytes());
+        assertTrue(storage.getSpilledBytes() > 0);
+
+        array.resize(20000);
+        assertEquals(0, array.get(19999));
+        array.set(19999, 7);
+        assertEquals(7, array.get(19999));
+    }
+
+    public void testChunksReused() {
+        IntArray array = IntArray.create(storage);
+        array.resize(2048);
+        array.set(5, 42);
+        array.release();
+
+        array = IntArray.create(storage);
+        array.resize(2048);
+        assertEquals(0, array.get(5));
+        assertEquals(2 * 4096, storage.getMemoryBytes());
+    }
+
+    public void testNameTable() {
+        NameTable names = new OffHeapNameTable(storage);
+        assertEquals(-1, names.find("a.b"));
+        for (int i = 0; i < 5000; i++) {
+            assertEquals(i, names.intern("pkg" + (i % 7) + ".Class" + i));
+        }
+        assertEquals(5000, names.intern(""));
+        assertEquals(5000, names.intern(""));
+
+        assertEquals(5001, names.size());
+        assertEquals(1234, names.intern("pkg2.Class1234"));
+        assertEquals(4999, names.find("pkg1.Class4999"));
+        assertEquals("pkg4.Class3000", names.getName(3000));
+        assertEquals("", names.getName(5000));
+    }
+
+    public void testSameAnalysis() throws IOException {
+        JDepend heap = new JDepend();
+        heap.addDirectory(getBuildDir());
+        heap.analyze();
+
+        JDepend offHeap = new JDepend();
+        offHeap.addDirectory(getBuildDir());
+        offHeap.setGraphStorage(storage);
+        offHeap.analyze();
+
+        assertEquals(heap.countPackages(), offHeap.countPackages());
+        for (JavaPackage expected : heap.getPackages()) {
+            JavaPackage actual = offHeap.getPackage(expected.getName());
+            assertEquals(expected.getClassCount(), actual.getClassCount());
+            assertEquals(expected.afferentCoupling(), actual.afferentCoupling());
+            assertEquals(expected.efferentCoupling(), actual.efferentCoupling());
+            assertEquals(expected.containsCycle(), actual.containsCycle());
+        }
+        assertEquals(heap.getPackages(DependencyRollup.Level.CLASS).size(),
+                offHeap.getPackages(DependencyRollup.Level.CLASS).size());
+
+        offHeap.releaseGraph();
+        assertNull(offHeap.getRollup());
+        assertEquals(heap.countPackages(), offHeap.countPackages());
+    }
+
+    public void testGraphReleasedOnReanalysis() throws IOException {
+        JDepend offHeap = new JDepend();
+        offHeap.addDirectory(getBuildDir());
+        offHeap.setGraphStorage(storage);
+        offHeap.analyze();
+        long allocated = storage.getMemoryBytes() + storage.getSpilledBytes();
+
+        offHeap.analyze();
+        assertEquals(allocated, storage.getMemoryBytes() + storage.getSpilledBytes());
+    }
+
+    public void testSpillFileDeleted() {
+        File directory = new File(getBuildDir());
+        OffHeapStorage spilled = new OffHeapStorage(0, directory, 4096);
+        IntArray.create(spilled).add(1);
+        assertEquals(4096, spilled.getSpilledBytes());
+        spilled.close();
+
+        File[] files = directory.listFiles((dir, name) -> name.endsWith(".graph"));
+        assertEquals(0, files.length);
+    }
+
+    public void testInvalidChunkSize() {
+        try {
+            new OffHeapStorage(0, null, 5000);
+            fail("Invalid chunk size should fail");
+        } catch (IllegalArgumentException success) {
+        }
+    }
+}
@@ -0,0 +1,186 @@
+package jdepend.framework;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * @since 2.11
+ */
+
+public class PartialResultTest extends JDependTestCase {
+
+    private List<File> partialResults;
+
+    public PartialResultTest(String name) {
+        super(name);
+    }
+
+    protected void setUp() {
+        super.setUp();
+        partialResults = new ArrayList<>();
+    }
+
+    protected void tearDown() {
+        for (File partialResult : partialResults) {
+            partialResult.delete();
+        }
+        super.tearDown();
+    }
+
+    public void testMergedAnalysis() throws IOException {
+        String framework = getBuildDir() + "jdepend/framework";
+        String textui = getBuildDir() + "jdepend/textui";
+        String xmlui = getBuildDir() + "jdepend/xmlui";
+
+        JDepend single = new JDepend();
+        single.addDirectory(framework);
+        single.addDirectory(textui);
+        single.addDirectory(xmlui);
+        single.analyze();
+
+        // the framework classes are analyzed by both shards
+        JDepend merged = new JDepend();
+        merged.analyzePartialResults(Arrays.asList(
+                writePartialResult(xmlui, framework),
+                writePartialResult(textui, framework)));
+
+        assertSameAnalysis(single, merged);
+    }
+
+    public void testShardProcesses() throws IOException {
+        JDepend single = new JDepend();
+        single.addDirectory(getBuildDir() + "jdepend/framework");
+        single.addDirectory(getBuildDir() + "jdepend/textui");
+        single.analyze();
+
+        JDepend sharded = new JDepend();
+        sharded.addDirectory(getBuildDir() + "jdepend/framework");
+        sharded.addDirectory(getBuildDir() + "jdepend/textui");
+        sharded.setShardCount(2);
+        sharded.analyze();
+
+        assertSameAnalysis(single, sharded);
+    }
+
+    public void testShardStatistics() throws IOException {
+        AnalysisStats singleStats = new AnalysisStats();
+        JDepend single = new JDepend();
+        single.addDirectory(getBuildDir() + "jdepend/framework");
+        single.addDirectory(getBuildDir() + "jdepend/textui");
+        single.setStats(singleStats);
+        single.analyze();
+
+        AnalysisStats shardedStats = new AnalysisStats();
+        JDepend sharded = new JDepend();
+        sharded.addDirectory(getBuildDir() + "jdepend/framework");
+        sharded.addDirectory(getBuildDir() + "jdepend/textui");
+        sharded.setShardCount(2);
+        sharded.setStats(shardedStats);
+        sharded.analyze();
+
+        assertEquals(singleStats.getCount(AnalysisStats.FILES_SCANNED),
+                shardedStats.getCount(AnalysisStats.FILES_SCANNED));
+        assertEquals(singleStats.getCount(AnalysisStats.CLASSES_PARSED),
+                shardedStats.getCount(AnalysisStats.CLASSES_PARSED));
+        assertEquals(singleStats.getTimeCount(AnalysisStats.PARSE_TIME),
+                shardedStats.getTimeCount(AnalysisStats.PARSE_TIME));
+        assertEquals(1, shardedStats.getTimeCount(
+                AnalysisStats.PHASE_PREFIX + AnalysisPhase.BUILD));
+    }
+
+    public void testShardsWithoutJarCache() throws IOException {
+        JDepend sharded = new JDepend();
+        sharded.addDirectory(getBuildDir() + "jdepend/framework");
+        sharded.addDirectory(getBuildDir() + "jdepend/textui");
+        sharded.setShardCount(2);
+        sharded.setJarCache(new JarCache());
+
+        try {
+            sharded.analyze();
+            fail("Shards should not use a jar cache");
+        } catch (IllegalStateException success) {
+        }
+    }
+
+    public void testInvalidPartialResult() throws IOException {
+        File partialResult = newPartialResult();
+        Files.write(partialResult.toPath(), new byte[] {1, 2, 3, 4, 5, 6, 7, 8});
+
+        try {
+            new JDepend().analyzePartialResults(Arrays.asList(partialResult));
+            fail("Invalid partial result should fail");
+        } catch (UncheckedIOException success) {
+        }
+    }
+
+    public void testInvalidShardCount() {
+        try {
+            new JDepend().setShardCount(0);
+            fail("Invalid shard count should fail");
+        } catch (IllegalArgumentException success) {
+        }
+    }
+
+    private File writePartialResult(String... directories) throws IOException {
+        JDepend shard = new JDepend();
+        for (String directory : directories) {
+            shard.addDirectory(directory);
+        }
+        File partialResult = newPartialResult();
+        try (OutputStream out = new FileOutputStream(partialResult)) {
+            shard.writePartialResult(out);
+        }
+        return partialResult;
+    }
+
+    private File newPartialResult() throws IOException {
+        File partialResult = File.createTempFile("jdepend", ".partial",
+                new File(getBuildDir()));
+        partialResults.add(partialResult);
+        return partialResult;
+    }
+
+    private static void assertSameAnalysis(JDepend expected, JDepend actual) {
+        assertEquals(expected.countPackages(), actual.countPackages());
+        for (JavaPackage expectedPackage : expected.getPackages()) {
+            JavaPackage actualPackage = actual.getPackage(expectedPackage.getName());
+            assertEquals(expectedPackage.getClassCount(),
+                    actualPackage.getClassCount());
+            assertEquals(expectedPackage.getAbstractClassCount(),
+                    actualPackage.getAbstractClassCount());
+            assertEquals(expectedPackage.afferentCoupling(),
+                    actualPackage.afferentCoupling());
+            assertEquals(expectedPackage.efferentCoupling(),
+                    actualPackage.efferentCoupling());
+            assertEquals(expectedPackage.containsCycle(),
+                    actualPackage.containsCycle());
+
+            for (JavaClass expectedClass : expectedPackage.getClasses()) {
+                JavaClass actualClass = find(actualPackage, expectedClass.getName());
+                assertNotNull(expectedClass.getName(), actualClass);
+                assertEquals(expectedClass.getSourceFile(),
+                        actualClass.getSourceFile());
+                assertEquals(expectedClass.getDependencies(),
+                        actualClass.getDependencies());
+            }
+        }
+        assertEquals(expected.getDuplicateClasses().size(),
+                actual.getDuplicateClasses().size());
+    }
+
+    private static JavaClass find(JavaPackage jPackage, String className) {
+        for (JavaClass jClass : jPackage.getClasses()) {
+            if (jClass.getName().equals(className)) {
+                return jClass;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,155 @@
+package jdepend.framework;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * @since 2.11
+ */
+
+public class ReachabilityTest extends JDependTestCase {
+
+    private JavaPackage a;
+    private JavaPackage b;
+    private JavaPackage c;
+    private JavaPackage d;
+    private JavaPackage e;
+    private PackageGraph graph;
+    private ReachabilityIndex index;
+
+    public ReachabilityTest(String name) {
+        super(name);
+    }
+
+    protected void setUp() {
+        super.setUp();
+
+        a = new JavaPackage("A");
+        b = new JavaPackage("B");
+        c = new JavaPackage("C");
+        d = new JavaPackage("D");
+        e = new JavaPackage("E");
+
+        // A -> B <-> C -> D, E isolated
+        a.dependsUpon(b, 1);
+        b.dependsUpon(c, 2);
+        c.dependsUpon(b, 3);
+        c.dependsUpon(d, 1);
+
+        graph = new PackageGraph(Arrays.asList(e, d, c, b, a));
+        index = new ReachabilityIndex(graph);
+    }
+
+    public void testPackageGraph() {
+        assertEquals(5, graph.size());
+        assertEquals(4, graph.getEdgeCount());
+        assertEquals("A", graph.getName(0));
+        assertEquals(2, graph.indexOf("C"));
+        assertEquals(-1, graph.indexOf("X"));
+
+        int cId = graph.indexOf("C");
+        int first = graph.getEfferentStart(cId);
+        assertEquals(2, graph.getEfferentStart(cId + 1) - first);
+        assertEquals(graph.indexOf("B"), graph.getEfferentTarget(first));
+        assertEquals(3, graph.getEfferentCount(first));
+        assertEquals(graph.indexOf("D"), graph.getEfferentTarget(first + 1));
+    }
+
+    public void testSortedClasses() {
+        JavaClass concrete = new JavaClass("C.Zeta");
+        JavaClass other = new JavaClass("C.Alpha");
+        JavaClass abstractClass = new JavaClass("C.Beta");
+        abstractClass.isAbstract(true);
+        c.addClass(concrete);
+        c.addClass(abstractClass);
+        c.addClass(other);
+
+        graph = new PackageGraph(Arrays.asList(e, d, c, b, a));
+        int cId = graph.indexOf("C");
+
+        assertEquals(Arrays.asList(abstractClass), graph.getAbstractClasses(cId));
+        assertEquals(Arrays.asList(other, concrete), graph.getConcreteClasses(cId));
+        assertEquals(0, graph.getConcreteClasses(graph.indexOf("A")).size());
+        assertEquals(Arrays.asList(a, b, c, d, e), graph.getPackages());
+        assertTrue(graph.isClosed(cId));
+    }
+
+    public void testGraphRebuiltOnReanalysis() throws IOException {
+        JDepend jdepend = new JDepend();
+        jdepend.addDirectory(getBuildDir() + "jdepend/textui");
+        jdepend.analyze();
+        PackageGraph first = jdepend.getPackageGraph();
+
+        jdepend.analyze();
+        PackageGraph second = jdepend.getPackageGraph();
+
+        assertTrue(first != second);
+        assertEquals(jdepend.countPackages(), second.getPackages().size());
+        assertSame(second, jdepend.getPackageGraph());
+    }
+
+    public void testComponents() {
+        StronglyConnectedComponents scc = index.getComponents();
+        assertEquals(4, scc.getCount());
+
+        int bc = scc.getComponent(graph.indexOf("B"));
+        assertEquals(bc, scc.getComponent(graph.indexOf("C")));
+        assertTrue(scc.isCyclic(bc));
+        assertEquals(2, scc.getSize(bc));
+        assertFalse(scc.isCyclic(scc.getComponent(graph.indexOf("A"))));
+
+        // reverse topological order
+        assertTrue(scc.getComponent(graph.indexOf("D")) < bc);
+        assertTrue(bc < scc.getComponent(graph.indexOf("A")));
+    }
+
+    public void testReaches() {
+        assertTrue(index.reaches(id("A"), id("D")));
+        assertTrue(index.reaches(id("C"), id("B")));
+        assertTrue(index.reaches(id("B"), id("B")));
+        assertFalse(index.reaches(id("A"), id("A")));
+        assertFalse(index.reaches(id("D"), id("A")));
+        assertFalse(index.reaches(id("E"), id("B")));
+    }
+
+    public void testTransitiveEfferents() {
+        assertNames(index.getTransitiveEfferents(id("A")), "B", "C", "D");
+        assertNames(index.getTransitiveEfferents(id("B")), "C", "D");
+        assertNames(index.getTransitiveEfferents(id("D")));
+    }
+
+    public void testTransitiveAfferents() {
+        assertNames(index.getTransitiveAfferents(id("D")), "A", "B", "C");
+        assertNames(index.getTransitiveAfferents(id("C")), "A", "B");
+        assertNames(index.getTransitiveAfferents(id("E")));
+    }
+
+    public void testLargeChain() {
+        JavaPackage[] chain = new JavaPackage[200];
+        for (int i = 0; i < chain.length; i++) {
+            chain[i] = new JavaPackage("p" + (1000 + i));
+            if (i > 0) {
+                chain[i - 1].dependsUpon(chain[i], 1);
+            }
+        }
+
+        ReachabilityIndex chainIndex = new ReachabilityIndex(
+                new PackageGraph(Arrays.asList(chain)));
+        assertEquals(199, chainIndex.getTransitiveEfferents(0).size());
+        assertEquals(199, chainIndex.getTransitiveAfferents(199).size());
+        assertTrue(chainIndex.reaches(0, 199));
+        assertFalse(chainIndex.reaches(199, 0));
+    }
+
+    private int id(String name) {
+        return graph.indexOf(name);
+    }
+
+    private void assertNames(List<JavaPackage> packages, String... names) {
+        assertEquals(names.length, packages.size());
+        for (int i = 0; i < names.length; i++) {
+            assertEquals(names[i], packages.get(i).getName());
+        }
+    }
+}
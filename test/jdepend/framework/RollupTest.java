@@ -0,0 +1,144 @@
+package jdepend.framework;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * @since 2.11
+ */
+
+public class RollupTest extends JDependTestCase {
+
+    private DependencyRollup rollup;
+
+    public RollupTest(String name) {
+        super(name);
+    }
+
+    protected void setUp() {
+        super.setUp();
+
+        JavaClassDataset dataset = new JavaClassDataset();
+
+        addClass(dataset, "com.xyz.web.Page", "web.jar", false,
+                "com.xyz.web.Form", "com.xyz.ejb.Bean", "com.xyz.ejb.Bean",
+                "java.util.List");
+        addClass(dataset, "com.xyz.web.Form", "web.jar", false,
+                "com.xyz.ejb.Home");
+        addClass(dataset, "com.xyz.ejb.Bean", "ejb.jar", false,
+                "com.xyz.ejb.Home", "com.xyz.util.Strings");
+        addClass(dataset, "com.xyz.ejb.Home", "ejb.jar", true);
+        addClass(dataset, "com.xyz.util.Strings", "util.jar", false);
+        addClass(dataset, "com.xyz.tests.BeanTest", "test.jar", false,
+                "com.xyz.ejb.Bean");
+
+        PackageFilter filter = new PackageFilter(new ArrayList());
+        filter.addPackage("com.xyz.tests");
+
+        ClassGraph graph = ClassGraph.build(dataset, filter);
+        rollup = new DependencyRollup(graph, Arrays.asList("com.xyz"),
+                Arrays.asList(new JavaPackage("com.xyz.util", 0)));
+    }
+
+    public void testClassGraph() {
+        ClassGraph graph = rollup.getClassGraph();
+        assertEquals(5, graph.getAnalyzedClassCount());
+        assertEquals(6, graph.getClassCount());
+
+        int page = graph.getClassNames().find("com.xyz.web.Page");
+        assertTrue(graph.isAnalyzed(page));
+        assertEquals(-1, graph.getClassNames().find("com.xyz.tests.BeanTest"));
+
+        int list = graph.getClassNames().find("java.util.List");
+        assertFalse(graph.isAnalyzed(list));
+        assertNull(graph.getJavaClass(list));
+        assertEquals(-1, graph.getModuleId(list));
+        assertEquals("java.util",
+                graph.getPackageNames().getName(graph.getPackageId(list)));
+    }
+
+    public void testClassLevel() {
+        JavaPackage page = rollup.getPackage(DependencyRollup.Level.CLASS,
+                "com.xyz.web.Page");
+        JavaPackage bean = rollup.getPackage(DependencyRollup.Level.CLASS,
+                "com.xyz.ejb.Bean");
+
+        assertEquals(1, page.getClassCount());
+        assertEquals(3, page.getEfferents().size());
+        assertEquals(Integer.valueOf(2), page.getEfferentCount(bean));
+        assertEquals(0, page.afferentCoupling());
+    }
+
+    public void testPackageLevel() {
+        JavaPackage web = rollup.getPackage(DependencyRollup.Level.PACKAGE,
+                "com.xyz.web");
+        JavaPackage ejb = rollup.getPackage(DependencyRollup.Level.PACKAGE,
+                "com.xyz.ejb");
+        JavaPackage util = rollup.getPackage(DependencyRollup.Level.PACKAGE,
+                "com.xyz.util");
+
+        assertEquals(2, web.getClassCount());
+        assertEquals(2, ejb.getClassCount());
+        assertEquals(1, ejb.getAbstractClassCount());
+
+        // one reference per importing class
+        assertEquals(Integer.valueOf(2), web.getEfferentCount(ejb));
+        assertEquals(Integer.valueOf(1), ejb.getEfferentCount(util));
+        assertEquals(0, util.getVolatility());
+        assertNull(rollup.getPackage(DependencyRollup.Level.PACKAGE,
+                "com.xyz.tests"));
+    }
+
+    public void testComponentLevel() {
+        assertEquals(3, rollup.getPackages(DependencyRollup.Level.COMPONENT).size());
+
+        JavaPackage xyz = rollup.getPackage(DependencyRollup.Level.COMPONENT,
+                "com.xyz");
+        JavaPackage java = rollup.getPackage(DependencyRollup.Level.COMPONENT,
+                "java.util");
+
+        assertEquals(5, xyz.getClassCount());
+        assertEquals(1, xyz.efferentCoupling());
+        assertEquals(Integer.valueOf(1), xyz.getEfferentCount(java));
+    }
+
+    public void testModuleLevel() {
+        JavaPackage web = rollup.getPackage(DependencyRollup.Level.MODULE,
+                "web.jar");
+        JavaPackage ejb = rollup.getPackage(DependencyRollup.Level.MODULE,
+                "ejb.jar");
+        JavaPackage util = rollup.getPackage(DependencyRollup.Level.MODULE,
+                "util.jar");
+        JavaPackage unknown = rollup.getPackage(DependencyRollup.Level.MODULE,
+                "default");
+
+        assertEquals(Integer.valueOf(3), web.getEfferentCount(ejb));
+        assertEquals(Integer.valueOf(1), web.getEfferentCount(unknown));
+        assertEquals(Integer.valueOf(1), ejb.getEfferentCount(util));
+        assertEquals(3, ejb.afferentCoupling());
+    }
+
+    public void testLevelsAreCached() {
+        assertSame(rollup.getPackages(DependencyRollup.Level.PACKAGE),
+                rollup.getPackages(DependencyRollup.Level.PACKAGE));
+    }
+
+    public void testParseLevel() {
+        assertEquals(DependencyRollup.Level.COMPONENT,
+                DependencyRollup.Level.parse(" Component "));
+        assertEquals("module", DependencyRollup.Level.MODULE.toString());
+    }
+
+    private void addClass(JavaClassDataset dataset, String name, String module,
+            boolean isAbstract, String... dependencies) {
+        JavaClass jClass = new JavaClass(name);
+        jClass.setPackageName(ClassGraph.toPackageName(name));
+        jClass.isAbstract(isAbstract);
+        for (String dependency : dependencies) {
+            jClass.addDependency(dependency);
+            jClass.addImportedPackage(new JavaPackage(ClassGraph.toPackageName(dependency)));
+        }
+        dataset.addJavaClass(jClass);
+        dataset.putJavaClassModule(jClass, module);
+    }
+}
@@ -0,0 +1,152 @@
+package jdepend.framework;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * @since 2.11
+ */
+
+public class RulesTest extends JDependTestCase {
+
+    private static final String RULES =
+        "# web may only use the service layer and util\n" +
+        "layer web = com.xyz.web.*\n" +
+        "layer service = com.xyz.service.*\n" +
+        "layer persistence = com.xyz.dao.*, com.xyz.jdbc\n" +
+        "\n" +
+        "forbid web -> *\n" +
+        "allow web -> web\n" +
+        "allow web -> service\n" +
+        "allow web -> com.xyz.util.*\n" +
+        "forbid service -> web\n" +
+        "forbid * -> sun.*.internal\n";
+
+    private JavaPackage web;
+    private JavaPackage webForms;
+    private JavaPackage service;
+    private JavaPackage dao;
+    private JavaPackage util;
+    private JavaPackage misc;
+    private PackageGraph graph;
+
+    public RulesTest(String name) {
+        super(name);
+    }
+
+    protected void setUp() {
+        super.setUp();
+
+        web = new JavaPackage("com.xyz.web");
+        webForms = new JavaPackage("com.xyz.web.forms");
+        service = new JavaPackage("com.xyz.service");
+        dao = new JavaPackage("com.xyz.dao");
+        util = new JavaPackage("com.xyz.util");
+        misc = new JavaPackage("sun.misc.internal");
+
+        addClass(web, "com.xyz.web.Page", service, dao);
+        addClass(web, "com.xyz.web.Form", webForms, util);
+        addClass(web, "com.xyz.web.Grid", dao);
+        addClass(service, "com.xyz.service.Bean", dao, misc);
+
+        graph = new PackageGraph(
+                Arrays.asList(web, webForms, service, dao, util, misc));
+    }
+
+    private void addClass(JavaPackage jPackage, String name,
+            JavaPackage... imports) {
+        JavaClass jClass = new JavaClass(name);
+        jClass.setPackageName(jPackage.getName());
+        jPackage.addClass(jClass);
+        for (JavaPackage imported : imports) {
+            jClass.addImportedPackage(imported);
+            jPackage.dependsUpon(imported, 1);
+        }
+    }
+
+    public void testParse() throws IOException {
+        ArchitectureRules rules = ArchitectureRules.parse(new StringReader(RULES));
+        assertEquals(6, rules.getRuleCount());
+    }
+
+    public void testParseError() throws IOException {
+        try {
+            ArchitectureRules.parse(new StringReader("layer web\n"));
+            fail("Invalid layer should fail");
+        } catch (IllegalArgumentException expected) {
+            assertTrue(expected.getMessage().indexOf("line 1") > 0);
+        }
+
+        try {
+            ArchitectureRules.parse(new StringReader("\nforbid web\n"));
+            fail("Invalid rule should fail");
+        } catch (IllegalArgumentException expected) {
+            assertTrue(expected.getMessage().indexOf("line 2") > 0);
+        }
+    }
+
+    public void testViolations() throws IOException {
+        ArchitectureRules rules = ArchitectureRules.parse(new StringReader(RULES));
+        List<RuleViolation> violations = rules.check(graph);
+
+        assertEquals(2, violations.size());
+
+        RuleViolation first = violations.get(0);
+        assertEquals("com.xyz.service", first.getSource().getName());
+        assertEquals("sun.misc.internal", first.getTarget().getName());
+        assertEquals("forbid * -> sun.*.internal", first.getRule());
+
+        RuleViolation second = violations.get(1);
+        assertEquals("com.xyz.web", second.getSource().getName());
+        assertEquals("com.xyz.dao", second.getTarget().getName());
+        assertEquals("forbid web -> *", second.getRule());
+        assertEquals(2, second.getReferences());
+        assertEquals(2, second.getClasses().size());
+        assertEquals("com.xyz.web.Grid", second.getClasses().get(0).getName());
+        assertEquals("com.xyz.web.Page", second.getClasses().get(1).getName());
+    }
+
+    public void testNoRules() {
+        assertEquals(0, new ArchitectureRules().check(graph).size());
+    }
+
+    public void testManyRules() {
+        ArchitectureRules rules = new ArchitectureRules();
+        for (int i = 0; i < 2000; i++) {
+            rules.addLayer("layer" + i, Arrays.asList("com.xyz.l" + i + ".*"));
+            rules.forbid("layer" + i, "com.xyz.dao");
+        }
+        rules.forbid("com.xyz.web", "com.xyz.dao");
+
+        List<RuleViolation> violations = rules.check(graph);
+        assertEquals(1, violations.size());
+        assertEquals("forbid com.xyz.web -> com.xyz.dao",
+                violations.get(0).getRule());
+    }
+
+    public void testComponentViolations() throws IOException {
+        JDepend jdepend = new JDepend();
+        jdepend.setComponents("java,jdepend.textui");
+        jdepend.addDirectory(getBuildDir());
+        jdepend.analyze();
+
+        ArchitectureRules rules = new ArchitectureRules();
+        rules.forbid("jdepend.textui", "java");
+
+        List<RuleViolation> violations = jdepend.checkRules(rules);
+        assertEquals(1, violations.size());
+
+        RuleViolation violation = violations.get(0);
+        assertEquals("jdepend.textui", violation.getSource().getName());
+        assertEquals("java", violation.getTarget().getName());
+        assertFalse(violation.getClasses().isEmpty());
+        boolean found = false;
+        for (JavaClass jClass : violation.getClasses()) {
+            assertEquals("jdepend.textui", jClass.getPackageName());
+            found |= jClass.getName().equals("jdepend.textui.JDepend");
+        }
+        assertTrue(found);
+    }
+}
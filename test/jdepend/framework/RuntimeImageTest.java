@@ -0,0 +1,69 @@
+package jdepend.framework;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+
+/**
+ * @since 2.11
+ */
+
+public class RuntimeImageTest extends JDependTestCase {
+
+    private File imageFile;
+
+    public RuntimeImageTest(String name) {
+        super(name);
+    }
+
+    protected void setUp() {
+        super.setUp();
+        imageFile = new File(System.getProperty("java.home"), "lib/modules");
+    }
+
+    public void testAcceptImageFile() {
+        FileManager fm = new FileManager();
+        assertTrue(fm.acceptImageFile(imageFile));
+        assertTrue(fm.acceptFile(imageFile));
+        assertFalse(fm.acceptImageFile(new File(getTestDataDir() + "test.jar")));
+    }
+
+    public void testReadClass() throws IOException {
+        try (JImageFile image = new JImageFile(imageFile)) {
+            JImageFile.Entry object = null;
+            for (JImageFile.Entry entry : image.entries()) {
+                if (entry.getName().equals("java/lang/Object.class")) {
+                    object = entry;
+                }
+            }
+            assertNotNull(object);
+            assertEquals("java.base", object.getModule());
+
+            try (InputStream is = image.getInputStream(object)) {
+                JavaClass jClass = new ClassFileParser().parse(is);
+                assertEquals("java.lang.Object", jClass.getName());
+            }
+        }
+    }
+
+    public void testBuildClassesWithModules() throws IOException {
+        PackageFilter filter = new PackageFilter(new ArrayList());
+        filter.addPackage("javax.*");
+        filter.addPackage("jdk.*");
+        filter.addPackage("sun.*");
+        filter.addPackage("com.*");
+        filter.addPackage("org.*");
+        ClassFileParser parser = new ClassFileParser(filter);
+        parser.skipFilteredClasses(true);
+
+        FileManager fm = new FileManager();
+        fm.addDirectory(imageFile.getPath());
+        JavaClassDataset dataset = new JavaClassBuilder(parser, fm).build();
+
+        assertNotNull(dataset.getJavaClasses().get("java.lang.String"));
+        assertNull(dataset.getJavaClasses().get("javax.swing.JFrame"));
+        assertEquals("java.base", dataset.getModuleName("java.lang.String"));
+        assertEquals("java.sql", dataset.getModuleName("java.sql.Connection"));
+    }
+}
@@ -0,0 +1,92 @@
+package jdepend.framework;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+import jdepend.swingui.PackageTable;
+import jdepend.swingui.SearchIndex;
+
+/**
+ * @since 2.11
+ */
+
+public class SearchIndexTest extends JDependTestCase {
+
+    private PackageTable table;
+    private SearchIndex index;
+
+    public SearchIndexTest(String name) {
+        super(name);
+    }
+
+    protected void setUp() {
+        super.setUp();
+
+        table = new PackageTable(Arrays.asList(
+                newPackage("com.xyz.web", "PageController", "Form"),
+                newPackage("com.xyz.service", "OrderService"),
+                newPackage("org.acme.util", "StringUtils"),
+                newPackage("org.acme.io", "Streams"),
+                newPackage("abcd", "Xcde")));
+        index = new SearchIndex(table);
+    }
+
+    private static JavaPackage newPackage(String name, String... classes) {
+        JavaPackage jPackage = new JavaPackage(name);
+        for (String className : classes) {
+            JavaClass jClass = new JavaClass(name + "." + className);
+            jClass.setPackageName(name);
+            jPackage.addClass(jClass);
+        }
+        return jPackage;
+    }
+
+    private String names(BitSet ids) {
+        StringBuffer names = new StringBuffer();
+        for (int id = ids.nextSetBit(0); id >= 0; id = ids.nextSetBit(id + 1)) {
+            if (names.length() > 0) {
+                names.append(',');
+            }
+            names.append(table.getPackage(id).getName());
+        }
+        return names.toString();
+    }
+
+    public void testShortQueries() {
+        assertEquals("com.xyz.web", names(index.search("we")));
+        assertEquals("org.acme.io", names(index.search("io")));
+        assertEquals("com.xyz.service,org.acme.io,org.acme.util",
+                names(index.search("o")));
+
+        // short queries only match the start of a segment or class name
+        assertEquals("", names(index.search("eb")));
+    }
+
+    public void testLongQueries() {
+        assertEquals("com.xyz.service,com.xyz.web", names(index.search("xyz")));
+        assertEquals("com.xyz.service", names(index.search("ervic")));
+        assertEquals("org.acme.util", names(index.search("acme.u")));
+        assertEquals("", names(index.search("nomatch")));
+
+        // every trigram is found in abcd, but not the query itself
+        assertEquals("", names(index.search("abcde")));
+        assertEquals("abcd", names(index.search("abcd")));
+    }
+
+    public void testCaseFolding() {
+        assertEquals("com.xyz.web", names(index.search("PAGECONTROLLER")));
+        assertEquals("com.xyz.web", names(index.search(" Web ")));
+        assertEquals("org.acme.util", names(index.search("ACME.Util")));
+        assertNull(index.search("   "));
+    }
+
+    public void testClassNames() {
+        assertEquals("com.xyz.web", names(index.search("form")));
+        assertEquals("com.xyz.web", names(index.search("troll")));
+        assertEquals("abcd", names(index.search("Xc")));
+        assertEquals("org.acme.io,org.acme.util", names(index.search("str")));
+
+        // classes are matched by their simple name only
+        assertEquals("", names(index.search("web.form")));
+    }
+}
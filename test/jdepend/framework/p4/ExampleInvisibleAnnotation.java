@@ -0,0 +1,9 @@
+package jdepend.framework.p4;
+
+public @interface ExampleInvisibleAnnotation {
+
+	Class<?> value();
+
+	Class<?> other() default java.util.jar.JarFile.class;
+	
+}
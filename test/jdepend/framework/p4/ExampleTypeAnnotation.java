@@ -0,0 +1,11 @@
+package jdepend.framework.p4;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Target;
+
+@Target(ElementType.TYPE_USE)
+public @interface ExampleTypeAnnotation {
+
+	Class<?> value();
+	
+}